@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to serialize and deserialize the shard level bulk request that the coordinating node sends to the
+ * primary and the primary sends to its replicas.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class BulkShardRequestSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int numItems;
+
+    @Param({"7.0.0-alpha1", "6.5.0"})
+    public String version;
+
+    private Version streamVersion;
+    private BulkShardRequest request;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        streamVersion = Version.fromString(version);
+        ShardId shardId = new ShardId("logs-2018.10.19", "_na_", 0);
+        BulkItemRequest[] items = new BulkItemRequest[numItems];
+        for (int i = 0; i < numItems; i++) {
+            IndexRequest indexRequest = new IndexRequest(shardId.getIndexName(), "_doc", Integer.toString(i))
+                .source(XContentType.JSON, "@timestamp", 1539907200000L + i, "host", "host_" + (i % 10), "message", "message " + i);
+            items[i] = new BulkItemRequest(i, indexRequest);
+        }
+        request = new BulkShardRequest(shardId, WriteRequest.RefreshPolicy.NONE, items);
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public BytesReference serialize() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(streamVersion);
+        request.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public BulkShardRequest deserialize() throws IOException {
+        try (StreamInput in = serialized.streamInput()) {
+            in.setVersion(streamVersion);
+            BulkShardRequest deserialized = new BulkShardRequest();
+            deserialized.readFrom(in);
+            return deserialized;
+        }
+    }
+}
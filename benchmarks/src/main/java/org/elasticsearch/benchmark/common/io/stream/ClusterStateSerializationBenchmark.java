@@ -0,0 +1,147 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.benchmark.routing.allocation.Allocators;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to serialize and deserialize a full cluster state with allocated shards, as sent when a node joins
+ * the cluster or misses a diff.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class ClusterStateSerializationBenchmark {
+
+    @Param({
+        // indices| shards| replicas| nodes
+        "       10|      1|        1|     3",
+        "      100|      5|        1|    10",
+        "     1000|      5|        1|    50"
+    })
+    public String indicesShardsReplicasNodes = "10|1|1|3";
+
+    @Param({"7.0.0-alpha1", "6.5.0"})
+    public String version;
+
+    private Version streamVersion;
+    private NamedWriteableRegistry namedWriteableRegistry;
+    private DiscoveryNode localNode;
+    private ClusterState clusterState;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        final String[] params = indicesShardsReplicasNodes.split("\\|");
+        int numIndices = toInt(params[0]);
+        int numShards = toInt(params[1]);
+        int numReplicas = toInt(params[2]);
+        int numNodes = toInt(params[3]);
+
+        streamVersion = Version.fromString(version);
+        namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+
+        MetaData.Builder mb = MetaData.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            mb.put(IndexMetaData.builder("test_" + i)
+                    .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                    .numberOfShards(numShards)
+                    .numberOfReplicas(numReplicas)
+            );
+        }
+        MetaData metaData = mb.build();
+        RoutingTable.Builder rb = RoutingTable.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            rb.addAsNew(metaData.index("test_" + i));
+        }
+        DiscoveryNodes.Builder nb = DiscoveryNodes.builder();
+        for (int i = 1; i <= numNodes; i++) {
+            nb.add(Allocators.newNode("node" + i, Collections.singletonMap("tag", "tag_" + (i % 2))));
+        }
+        localNode = Allocators.newNode("local", Collections.emptyMap());
+        ClusterState state = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData).routingTable(rb.build()).nodes(nb).build();
+
+        // allocate and start all shards so that the routing table carries node ids like it does in a real cluster
+        AllocationService strategy = Allocators.createAllocationService(Settings.EMPTY);
+        state = strategy.reroute(state, "reroute");
+        while (state.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            state = strategy.applyStartedShards(state, state.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING));
+            state = strategy.reroute(state, "reroute");
+        }
+        clusterState = state;
+        serialized = serialize();
+    }
+
+    private int toInt(String v) {
+        return Integer.valueOf(v.trim());
+    }
+
+    @Benchmark
+    public BytesReference serialize() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(streamVersion);
+        clusterState.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public ClusterState deserialize() throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(serialized.streamInput(), namedWriteableRegistry)) {
+            in.setVersion(streamVersion);
+            return ClusterState.readFrom(in, localNode);
+        }
+    }
+}
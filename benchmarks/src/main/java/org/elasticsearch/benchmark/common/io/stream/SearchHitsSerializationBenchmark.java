@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to serialize and deserialize the hits of a search response with stored fields and highlighting.
+ * Comparing the two versions shows the effect of writing field and index names as shared strings.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchHitsSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int numHits;
+
+    @Param({"10"})
+    public int numFields;
+
+    @Param({"7.0.0-alpha1", "6.5.0"})
+    public String version;
+
+    private Version streamVersion;
+    private SearchHits searchHits;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        streamVersion = Version.fromString(version);
+        SearchHit[] hits = new SearchHit[numHits];
+        for (int i = 0; i < numHits; i++) {
+            Map<String, DocumentField> fields = new HashMap<>();
+            for (int f = 0; f < numFields; f++) {
+                String name = "field_" + f;
+                fields.put(name, new DocumentField(name, Collections.singletonList("value_" + i + "_" + f)));
+            }
+            SearchHit hit = new SearchHit(i, Integer.toString(i), new Text("_doc"), fields);
+            hit.score(1.0f / (i + 1));
+            Map<String, HighlightField> highlightFields = new HashMap<>();
+            highlightFields.put("field_0", new HighlightField("field_0", new Text[] {new Text("<em>value</em>_" + i)}));
+            hit.highlightFields(highlightFields);
+            ShardId shardId = new ShardId("logs-2018.10.19", "_na_", i % 5);
+            hit.shard(new SearchShardTarget("node_" + (i % 3), shardId, null, OriginalIndices.NONE));
+            hits[i] = hit;
+        }
+        searchHits = new SearchHits(hits, numHits, 1.0f);
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public BytesReference serialize() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(streamVersion);
+        searchHits.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public SearchHits deserialize() throws IOException {
+        try (StreamInput in = serialized.streamInput()) {
+            in.setVersion(streamVersion);
+            return SearchHits.readSearchHits(in);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares big arrays backed by heap pages with big arrays backed by direct pages: {@link #increment()} and
+ * {@link #sum()} mimic the per-bucket counters and metrics of aggregations, and {@link #growAndRelease()} the way hashes
+ * and stream outputs grow their arrays and release them at the end of a request. Run with {@code -prof gc} to compare the
+ * heap churn of both page sources.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class BigArraysBenchmark {
+
+    @Param({"heap", "direct"})
+    private String pageSource;
+
+    @Param({"1000000"})
+    private int size;
+
+    private PageCacheRecycler recycler;
+    private BigArrays bigArrays;
+    private LongArray counts;
+    private DoubleArray values;
+    private int[] ordinals;
+
+    @Setup
+    public void setUp() {
+        final Settings settings = Settings.builder()
+            .put(PageCacheRecycler.DIRECT_PAGES_SETTING.getKey(), "direct".equals(pageSource))
+            .put(PageCacheRecycler.LIMIT_DIRECT_SETTING.getKey(), "1gb")
+            .build();
+        recycler = new PageCacheRecycler(settings);
+        bigArrays = new BigArrays(recycler, null);
+        counts = bigArrays.newLongArray(size);
+        values = bigArrays.newDoubleArray(size);
+        final Random random = new Random(42);
+        ordinals = new int[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = random.nextInt(size);
+            values.set(i, random.nextDouble());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        counts.close();
+        values.close();
+        recycler.close();
+    }
+
+    @Benchmark
+    public long increment() {
+        long total = 0;
+        for (int ordinal : ordinals) {
+            total += counts.increment(ordinal, 1);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double sum() {
+        double sum = 0;
+        for (long i = 0; i < size; i++) {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long growAndRelease() {
+        ByteArray bytes = bigArrays.newByteArray(0, false);
+        LongArray longs = bigArrays.newLongArray(0, false);
+        try {
+            for (int i = 0; i < size; i++) {
+                bytes = bigArrays.grow(bytes, i + 1);
+                bytes.set(i, (byte) i);
+                if ((i & 7) == 0) {
+                    longs = bigArrays.grow(longs, (i >>> 3) + 1);
+                    longs.set(i >>> 3, i);
+                }
+            }
+            return bytes.size() + longs.size();
+        } finally {
+            bytes.close();
+            longs.close();
+        }
+    }
+}
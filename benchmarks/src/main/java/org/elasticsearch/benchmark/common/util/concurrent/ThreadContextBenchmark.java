@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util.concurrent;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the thread context operations that a request goes through on a single node: the transport layer stashes the
+ * context and puts the request headers, security adds a couple of transients, and the request is handed to a listener that
+ * restores the context of the caller. Run with {@code -prof gc} to compare the allocation rate per request.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class ThreadContextBenchmark {
+
+    @Param({"0", "8"})
+    private int numHeaders;
+
+    @Param({"3"})
+    private int numTransients;
+
+    private ThreadContext threadContext;
+    private String[] headers;
+    private String[] transients;
+    private final Object transientValue = new Object();
+
+    @Setup
+    public void setUp() {
+        threadContext = new ThreadContext(Settings.EMPTY);
+        headers = new String[numHeaders];
+        for (int i = 0; i < numHeaders; i++) {
+            headers[i] = "header_" + i;
+        }
+        transients = new String[numTransients];
+        for (int i = 0; i < numTransients; i++) {
+            transients[i] = "_transient_" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        threadContext.close();
+    }
+
+    @Benchmark
+    public Object request() {
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            for (String header : headers) {
+                threadContext.putHeader(header, header);
+            }
+            for (String key : transients) {
+                threadContext.putTransient(key, transientValue);
+            }
+            final Supplier<ThreadContext.StoredContext> restorable = threadContext.newRestorableContext(true);
+            final Runnable preserved = threadContext.preserveContext(() -> {});
+            try (ThreadContext.StoredContext restored = restorable.get()) {
+                preserved.run();
+                return threadContext.getTransient(transients.length == 0 ? "missing" : transients[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.index.codec;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.codec.CodecService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the stored fields codecs on a synthetic corpus of JSON access and application logs: {@link #index(IndexSize)} measures
+ * the time to index and flush {@code numDocs} documents and {@link #fetch()} the time to load the source of a random
+ * document. {@link #index(IndexSize)} also reports the size of the indices it wrote as the {@code indexSizeInBytes} secondary result.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class StoredFieldsCompressionBenchmark {
+
+    private static final String[] HOSTS = {"web-01", "web-02", "web-03", "api-01", "api-02", "worker-01"};
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "INFO", "WARN", "ERROR", "DEBUG"};
+    private static final String[] PATHS = {"/", "/login", "/api/v1/orders", "/api/v1/orders/{}", "/api/v1/users/{}", "/static/app.js",
+        "/healthz"};
+    private static final String[] AGENTS = {
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/68.0.3440.106 Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_13_6) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/11.1.2 Safari/605.1.15",
+        "curl/7.58.0", "kube-probe/1.10"};
+    private static final String[] MESSAGES = {"request completed", "user {} logged in", "order {} created",
+        "connection to database pool timed out after {}ms", "cache miss for key [{}]", "retrying request, attempt {}"};
+
+    @Param({"default", "best_compression", "dictionary_compression"})
+    private String codec;
+
+    @Param({"100000"})
+    private int numDocs;
+
+    private CodecService codecService;
+    private String[] sources;
+    private Path indexPath;
+    private Directory fetchDirectory;
+    private DirectoryReader fetchReader;
+    private Random random;
+
+    @Setup
+    public void setUp() throws IOException {
+        codecService = new CodecService(null, LogManager.getLogger(StoredFieldsCompressionBenchmark.class));
+        random = new Random(42);
+        sources = new String[numDocs];
+        long timestamp = 1535760000000L;
+        for (int i = 0; i < numDocs; i++) {
+            timestamp += random.nextInt(200);
+            sources[i] = logLine(random, timestamp);
+        }
+        indexPath = Files.createTempDirectory("stored-fields-compression-benchmark");
+        fetchDirectory = FSDirectory.open(indexPath.resolve("fetch"));
+        writeIndex(fetchDirectory);
+        fetchReader = DirectoryReader.open(fetchDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(fetchReader, fetchDirectory);
+        IOUtils.rm(indexPath);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public long index(IndexSize indexSize) throws IOException {
+        final Path path = Files.createTempDirectory(indexPath, "index");
+        try (Directory directory = FSDirectory.open(path)) {
+            final long generation = writeIndex(directory);
+            for (String file : directory.listAll()) {
+                indexSize.indexSizeInBytes += directory.fileLength(file);
+            }
+            return generation;
+        } finally {
+            IOUtils.rm(path);
+        }
+    }
+
+    @Benchmark
+    public Document fetch() throws IOException {
+        return fetchReader.document(random.nextInt(numDocs));
+    }
+
+    /**
+     * Accumulates the size of the indices written by {@link #index(IndexSize)}. JMH sums events counters over the measurement
+     * iterations, and every iteration indexes the same documents, so the reported value is the size of one index times the number
+     * of iterations.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class IndexSize {
+        public long indexSizeInBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            indexSizeInBytes = 0;
+        }
+    }
+
+    private long writeIndex(Directory directory) throws IOException {
+        final IndexWriterConfig config = new IndexWriterConfig();
+        config.setCodec(codecService.codec(codec));
+        config.setRAMBufferSizeMB(256);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (String source : sources) {
+                final Document document = new Document();
+                document.add(new StoredField("_source", source));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+            return writer.commit();
+        }
+    }
+
+    private static String logLine(Random random, long timestamp) {
+        final String path = pick(random, PATHS).replace("{}", Integer.toString(random.nextInt(100000)));
+        final String message = pick(random, MESSAGES).replace("{}", Integer.toString(random.nextInt(10000)));
+        return "{\"@timestamp\":" + timestamp
+            + ",\"host\":{\"name\":\"" + pick(random, HOSTS) + "\"}"
+            + ",\"log\":{\"level\":\"" + pick(random, LEVELS) + "\",\"logger\":\"org.example.http.RequestHandler\"}"
+            + ",\"http\":{\"request\":{\"method\":\"" + (random.nextInt(4) == 0 ? "POST" : "GET") + "\"},"
+            + "\"response\":{\"status_code\":" + (random.nextInt(20) == 0 ? 500 : 200)
+            + ",\"body\":{\"bytes\":" + random.nextInt(50000) + "}}}"
+            + ",\"url\":{\"path\":\"" + path + "\"}"
+            + ",\"user_agent\":{\"original\":\"" + pick(random, AGENTS) + "\"}"
+            + ",\"source\":{\"ip\":\"10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "\"}"
+            + ",\"event\":{\"duration\":" + random.nextInt(1000000) + "}"
+            + ",\"message\":\"" + message + "\"}";
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
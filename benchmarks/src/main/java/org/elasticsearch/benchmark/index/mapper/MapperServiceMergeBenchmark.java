@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperService.MergeReason;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.indices.analysis.AnalysisModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to apply a dynamic mapping update that adds a single field to a mapping that already has
+ * {@code numFields} fields. Run with {@code -prof gc} to see the bytes allocated per merge, which is what nodes pay on
+ * every mapping update they apply.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class MapperServiceMergeBenchmark {
+
+    private static final int FIELDS_PER_OBJECT = 100;
+
+    @Param({"1000", "10000", "50000"})
+    private int numFields;
+
+    private Path home;
+    private MapperService mapperService;
+    private int numObjects;
+    private int nextField;
+
+    @Setup
+    public void createHome() throws IOException {
+        home = Files.createTempDirectory("mapper-service-merge-benchmark");
+    }
+
+    @TearDown
+    public void deleteHome() throws IOException {
+        Files.deleteIfExists(home);
+    }
+
+    @Setup(Level.Iteration)
+    public void createMapperService() throws IOException {
+        Settings nodeSettings = Settings.builder().put(Environment.PATH_HOME_SETTING.getKey(), home).build();
+        Settings settings = Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(MapperService.INDEX_MAPPING_TOTAL_FIELDS_LIMIT_SETTING.getKey(), Integer.MAX_VALUE)
+            .build();
+        IndexSettings indexSettings = new IndexSettings(IndexMetaData.builder("index").settings(settings).build(), nodeSettings);
+        IndexAnalyzers indexAnalyzers = new AnalysisModule(new Environment(nodeSettings, null), Collections.emptyList())
+            .getAnalysisRegistry().build(indexSettings);
+        SimilarityService similarityService = new SimilarityService(indexSettings, null, Collections.emptyMap());
+        mapperService = new MapperService(indexSettings, indexAnalyzers, NamedXContentRegistry.EMPTY, similarityService,
+            new IndicesModule(Collections.emptyList()).getMapperRegistry(), () -> null);
+
+        numObjects = Math.max(1, numFields / FIELDS_PER_OBJECT);
+        XContentBuilder mapping = XContentFactory.jsonBuilder().startObject().startObject("properties");
+        for (int o = 0; o < numObjects; o++) {
+            mapping.startObject("object" + o).startObject("properties");
+            for (int f = 0; f < FIELDS_PER_OBJECT; f++) {
+                mapping.startObject("field" + f).field("type", "keyword").endObject();
+            }
+            mapping.endObject().endObject();
+        }
+        mapping.endObject().endObject();
+        mapperService.merge(MapperService.SINGLE_MAPPING_NAME, new CompressedXContent(Strings.toString(mapping)),
+            MergeReason.MAPPING_UPDATE);
+        nextField = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeMapperService() throws IOException {
+        mapperService.close();
+    }
+
+    @Benchmark
+    public DocumentMapper addField() throws IOException {
+        final int field = nextField++;
+        XContentBuilder update = XContentFactory.jsonBuilder().startObject().startObject("properties")
+            .startObject("object" + (field % numObjects)).startObject("properties")
+            .startObject("new_field" + field).field("type", "keyword").endObject()
+            .endObject().endObject()
+            .endObject().endObject();
+        return mapperService.merge(MapperService.SINGLE_MAPPING_NAME, new CompressedXContent(Strings.toString(update)),
+            MergeReason.MAPPING_UPDATE);
+    }
+}
@@ -106,7 +106,12 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // 100k shards
+        "    10000|      5|        1|   100",
+        "     5000|     10|        1|   200",
+        "     1000|     50|        1|   500"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -114,6 +119,7 @@ public class AllocationBenchmark {
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState balancedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -149,6 +155,15 @@ public class AllocationBenchmark {
         initialClusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
             .metaData(metaData).routingTable(routingTable).nodes
                 (nb).build();
+
+        ClusterState clusterState = measureAllocation();
+        // start the shards that are still initializing because of relocations until the cluster is balanced
+        while (clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            clusterState = strategy.applyStartedShards(clusterState, clusterState.getRoutingNodes()
+                    .shardsWithState(ShardRoutingState.INITIALIZING));
+            clusterState = strategy.reroute(clusterState, "reroute");
+        }
+        balancedClusterState = clusterState;
     }
 
     private int toInt(String v) {
@@ -165,4 +180,13 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a reroute of a cluster in which all shards are started and balanced, which is what most cluster state updates on
+     * the master have to pay for.
+     */
+    @Benchmark
+    public ClusterState measureRerouteOfBalancedCluster() {
+        return strategy.reroute(balancedClusterState, "reroute");
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.threadpool;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.threadpool.HashedWheelTimer;
+import org.elasticsearch.threadpool.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of scheduling a timeout and cancelling it again from many threads at once, which is what every
+ * transport request with a timeout does. Compares the {@link ScheduledThreadPoolExecutor} behind {@code ThreadPool#schedule}
+ * with the {@link HashedWheelTimer} behind {@code ThreadPool#scheduleTimeout}.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class ScheduleAndCancelBenchmark {
+
+    private static final Runnable NOOP = () -> {};
+
+    @Param({"scheduler", "timer"})
+    private String type;
+
+    @Param({"30s"})
+    private String delay;
+
+    private TimeValue timeout;
+    private ScheduledThreadPoolExecutor scheduler;
+    private HashedWheelTimer timer;
+
+    @Setup
+    public void setUp() {
+        timeout = TimeValue.parseTimeValue(delay, "delay");
+        switch (type) {
+            case "scheduler":
+                // configured like the scheduler of the thread pool
+                scheduler = new ScheduledThreadPoolExecutor(1, EsExecutors.daemonThreadFactory("benchmark_scheduler"));
+                scheduler.setRemoveOnCancelPolicy(true);
+                break;
+            case "timer":
+                timer = new HashedWheelTimer(EsExecutors.daemonThreadFactory("benchmark_timer"), TimeValue.timeValueMillis(10), 512);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type [" + type + "]");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        if (timer != null) {
+            final Scheduler.Cancellable cancellable = timer.schedule(timeout, NOOP);
+            cancellable.cancel();
+            return cancellable.isCancelled();
+        } else {
+            final ScheduledFuture<?> future = scheduler.schedule(NOOP, timeout.millis(), TimeUnit.MILLISECONDS);
+            return FutureUtils.cancel(future);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.transport;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.benchmark.routing.allocation.Allocators;
+import org.elasticsearch.cluster.ClusterModule;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.recovery.RecoveryRequestFactory;
+import org.elasticsearch.indices.recovery.RecoveryTranslogOperationsRequest;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.avg.InternalAvg;
+import org.elasticsearch.search.aggregations.metrics.max.InternalMax;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.FetchSearchResult;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchTransportRequest;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization and deserialization throughput of the transport messages that make up most of the traffic between nodes:
+ * the search request sent to each shard, the query and fetch phase results, shard level bulk requests, translog operations sent
+ * during peer recovery and cluster state diffs.
+ *
+ * Run it with {@code -prof gc} to also get the bytes allocated per operation ({@code gc.alloc.rate.norm}), which is usually the
+ * more stable signal for serialization changes.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class TransportMessageSerializationBenchmark {
+
+    @Param({
+        "shard_search_request",
+        "query_result",
+        "fetch_result",
+        "bulk_shard_request",
+        "recovery_translog_operations",
+        "cluster_state_diff"
+    })
+    public String message;
+
+    private NamedWriteableRegistry namedWriteableRegistry;
+    private DiscoveryNode localNode;
+    private Writeable instance;
+    private Writeable.Reader<?> reader;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<NamedWriteableRegistry.Entry> entries = new ArrayList<>();
+        entries.addAll(new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        entries.addAll(ClusterModule.getNamedWriteables());
+        namedWriteableRegistry = new NamedWriteableRegistry(entries);
+        localNode = Allocators.newNode("local", Collections.emptyMap());
+
+        switch (message) {
+            case "shard_search_request":
+                instance = shardSearchRequest();
+                reader = ShardSearchTransportRequest::new;
+                break;
+            case "query_result":
+                instance = queryResult();
+                reader = QuerySearchResult::readQuerySearchResult;
+                break;
+            case "fetch_result":
+                instance = fetchResult();
+                reader = FetchSearchResult::readFetchSearchResult;
+                break;
+            case "bulk_shard_request":
+                instance = bulkShardRequest();
+                reader = in -> {
+                    BulkShardRequest request = new BulkShardRequest();
+                    request.readFrom(in);
+                    return request;
+                };
+                break;
+            case "recovery_translog_operations":
+                instance = recoveryTranslogOperationsRequest();
+                reader = in -> {
+                    RecoveryTranslogOperationsRequest request = new RecoveryTranslogOperationsRequest();
+                    request.readFrom(in);
+                    return request;
+                };
+                break;
+            case "cluster_state_diff":
+                instance = clusterStateDiff();
+                reader = in -> ClusterState.readDiffFrom(in, localNode);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown message [" + message + "]");
+        }
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public BytesReference serialize() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        instance.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(serialized.streamInput(), namedWriteableRegistry)) {
+            return reader.read(in);
+        }
+    }
+
+    private static ShardId shardId(int shard) {
+        return new ShardId("logs-2018.10.19", "Wvy2xOnbQfKiPsCU2fAPhg", shard);
+    }
+
+    private static SearchShardTarget shardTarget(int shard) {
+        return new SearchShardTarget("node_" + shard, shardId(shard), null, OriginalIndices.NONE);
+    }
+
+    private static ShardSearchTransportRequest shardSearchRequest() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("message", "connection refused"))
+                .filter(QueryBuilders.termQuery("level", "error"))
+                .filter(QueryBuilders.rangeQuery("@timestamp").gte("now-1d").lt("now")))
+            .aggregation(AggregationBuilders.terms("hosts").field("host").size(20)
+                .subAggregation(AggregationBuilders.avg("avg_latency").field("latency"))
+                .subAggregation(AggregationBuilders.max("max_latency").field("latency")))
+            .sort("@timestamp", SortOrder.DESC)
+            .size(10);
+        SearchRequest searchRequest = new SearchRequest("logs-*").source(source);
+        return new ShardSearchTransportRequest(new OriginalIndices(searchRequest), searchRequest, shardId(0), 5, AliasFilter.EMPTY,
+            1.0f, System.currentTimeMillis(), null, Strings.EMPTY_ARRAY);
+    }
+
+    private static QuerySearchResult queryResult() {
+        QuerySearchResult result = new QuerySearchResult(1L, shardTarget(0));
+        ScoreDoc[] scoreDocs = new ScoreDoc[10];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            scoreDocs[i] = new ScoreDoc(i, 10.0f - i);
+        }
+        result.topDocs(new TopDocs(12345, scoreDocs, 10.0f), null);
+        result.from(0);
+        result.size(10);
+
+        List<StringTerms.Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<InternalAggregation> subAggregations = new ArrayList<>();
+            subAggregations.add(new InternalAvg("avg_latency", 12.5 * i, 10 + i, DocValueFormat.RAW, Collections.emptyList(), null));
+            subAggregations.add(new InternalMax("max_latency", 42.0 * i, DocValueFormat.RAW, Collections.emptyList(), null));
+            buckets.add(new StringTerms.Bucket(new BytesRef("host_" + i), 1000 - i, new InternalAggregations(subAggregations), false, 0,
+                DocValueFormat.RAW));
+        }
+        StringTerms terms = new StringTerms("hosts", BucketOrder.count(false), 20, 1, Collections.emptyList(), null, DocValueFormat.RAW,
+            100, false, 0, buckets, 0);
+        result.aggregations(new InternalAggregations(Collections.singletonList(terms)));
+        return result;
+    }
+
+    private static FetchSearchResult fetchResult() {
+        SearchHit[] hits = new SearchHit[10];
+        for (int i = 0; i < hits.length; i++) {
+            Map<String, DocumentField> fields = new HashMap<>();
+            fields.put("_routing", new DocumentField("_routing", Collections.singletonList("user_" + i)));
+            SearchHit hit = new SearchHit(i, Integer.toString(i), new Text("_doc"), fields);
+            hit.score(10.0f - i);
+            hit.sourceRef(source(i));
+            hit.shard(shardTarget(0));
+            hits[i] = hit;
+        }
+        FetchSearchResult result = new FetchSearchResult(1L, shardTarget(0));
+        result.hits(new SearchHits(hits, 12345, 10.0f));
+        return result;
+    }
+
+    private static BulkShardRequest bulkShardRequest() {
+        BulkItemRequest[] items = new BulkItemRequest[500];
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest indexRequest = new IndexRequest("logs-2018.10.19", "_doc", Integer.toString(i))
+                .source(source(i), XContentType.JSON);
+            items[i] = new BulkItemRequest(i, indexRequest);
+        }
+        return new BulkShardRequest(shardId(0), WriteRequest.RefreshPolicy.NONE, items);
+    }
+
+    private static RecoveryTranslogOperationsRequest recoveryTranslogOperationsRequest() throws IOException {
+        List<Translog.Operation> operations = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            operations.add(new Translog.Index("_doc", Integer.toString(i), i, 1L, BytesReference.toBytes(source(i))));
+        }
+        return RecoveryRequestFactory.translogOperationsRequest(1L, shardId(0), operations, operations.size());
+    }
+
+    private static Writeable clusterStateDiff() throws Exception {
+        AllocationService strategy = Allocators.createAllocationService(Settings.EMPTY);
+        MetaData.Builder mb = MetaData.builder();
+        RoutingTable.Builder rb = RoutingTable.builder();
+        for (int i = 1; i <= 100; i++) {
+            IndexMetaData indexMetaData = IndexMetaData.builder("test_" + i)
+                .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                .numberOfShards(5)
+                .numberOfReplicas(1)
+                .build();
+            mb.put(indexMetaData, false);
+            rb.addAsNew(indexMetaData);
+        }
+        DiscoveryNodes.Builder nb = DiscoveryNodes.builder();
+        for (int i = 1; i <= 10; i++) {
+            nb.add(Allocators.newNode("node" + i, Collections.emptyMap()));
+        }
+        ClusterState previous = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(mb).routingTable(rb.build()).nodes(nb).build();
+        previous = startAllShards(strategy, strategy.reroute(previous, "reroute"));
+
+        // the typical diff of a busy cluster: a new index was created and its shards have been allocated
+        IndexMetaData newIndex = IndexMetaData.builder("test_new")
+            .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+            .numberOfShards(5)
+            .numberOfReplicas(1)
+            .build();
+        ClusterState current = ClusterState.builder(previous)
+            .metaData(MetaData.builder(previous.metaData()).put(newIndex, false))
+            .routingTable(RoutingTable.builder(previous.routingTable()).addAsNew(newIndex).build())
+            .build();
+        current = strategy.reroute(current, "reroute");
+        return current.diff(previous);
+    }
+
+    private static ClusterState startAllShards(AllocationService strategy, ClusterState clusterState) {
+        while (clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            clusterState = strategy.applyStartedShards(clusterState,
+                clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING));
+            clusterState = strategy.reroute(clusterState, "reroute");
+        }
+        return clusterState;
+    }
+
+    private static BytesReference source(int i) {
+        String json = "{\"@timestamp\":" + (1539907200000L + i) + ",\"host\":\"host_" + (i % 100) + "\",\"level\":\"info\","
+            + "\"latency\":" + (i % 250) + ",\"message\":\"request " + i + " served from cache in " + (i % 250) + "ms\"}";
+        return new BytesArray(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.List;
+
+/**
+ * Builds recovery requests for benchmarks. It lives in the package of the requests so that benchmarks can use their
+ * package-private constructors instead of duplicating their wire format.
+ */
+public final class RecoveryRequestFactory {
+
+    private RecoveryRequestFactory() {}
+
+    public static RecoveryTranslogOperationsRequest translogOperationsRequest(long recoveryId, ShardId shardId,
+                                                                             List<Translog.Operation> operations, int totalTranslogOps) {
+        return new RecoveryTranslogOperationsRequest(recoveryId, shardId, operations, totalTranslogOps);
+    }
+}
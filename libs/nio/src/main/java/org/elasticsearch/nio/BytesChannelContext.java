@@ -58,21 +58,7 @@ public class BytesChannelContext extends SocketChannelContext {
 
     @Override
     public void flushChannel() throws IOException {
-        getSelector().assertOnSelectorThread();
-        boolean lastOpCompleted = true;
-        FlushOperation flushOperation;
-        while (lastOpCompleted && (flushOperation = getPendingFlush()) != null) {
-            try {
-                if (singleFlush(flushOperation)) {
-                    currentFlushOperationComplete();
-                } else {
-                    lastOpCompleted = false;
-                }
-            } catch (IOException e) {
-                currentFlushOperationFailed(e);
-                throw e;
-            }
-        }
+        flushPendingOperations();
     }
 
     @Override
@@ -86,13 +72,4 @@ public class BytesChannelContext extends SocketChannelContext {
     public boolean selectorShouldClose() {
         return closeNow() || isClosing.get();
     }
-
-    /**
-     * Returns a boolean indicating if the operation was fully flushed.
-     */
-    private boolean singleFlush(FlushOperation flushOperation) throws IOException {
-        int written = flushToChannel(flushOperation.getBuffersToWrite());
-        flushOperation.incrementIndex(written);
-        return flushOperation.isFullyFlushed();
-    }
 }
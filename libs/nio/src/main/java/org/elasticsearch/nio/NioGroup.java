@@ -24,6 +24,7 @@ import org.elasticsearch.nio.utils.ExceptionsHelper;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadFactory;
@@ -124,6 +125,13 @@ public class NioGroup implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns the selectors that handle the socket channels of this group, not including the dedicated acceptors.
+     */
+    public List<NioSelector> getSelectors() {
+        return Collections.unmodifiableList(selectors);
+    }
+
     public <S extends NioServerSocketChannel> S bindServerChannel(InetSocketAddress address, ChannelFactory<S, ?> factory)
         throws IOException {
         ensureOpen();
@@ -58,6 +58,12 @@ public class NioSelector implements Closeable {
     private final CompletableFuture<Void> isRunningFuture = new CompletableFuture<>();
     private final AtomicReference<Thread> thread = new AtomicReference<>(null);
 
+    // only updated by the selector thread, so plain increments of the volatile fields are safe
+    private volatile long readCalls;
+    private volatile long bytesRead;
+    private volatile long writeCalls;
+    private volatile long bytesWritten;
+
     public NioSelector(EventHandler eventHandler) throws IOException {
         this(eventHandler, Selector.open());
     }
@@ -79,6 +85,51 @@ public class NioSelector implements Closeable {
         return runLock.isLocked();
     }
 
+    /**
+     * Records a read call on a channel of this selector. This must be called on the selector thread.
+     */
+    void onRead(int bytes) {
+        readCalls++;
+        bytesRead += bytes;
+    }
+
+    /**
+     * Records a write call on a channel of this selector. This must be called on the selector thread.
+     */
+    void onWrite(int bytes) {
+        writeCalls++;
+        bytesWritten += bytes;
+    }
+
+    /**
+     * Returns the number of read calls issued by channels of this selector.
+     */
+    public long getReadCalls() {
+        return readCalls;
+    }
+
+    /**
+     * Returns the number of bytes read by channels of this selector.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of write calls issued by channels of this selector. Together with {@link #getBytesWritten()} this
+     * shows how well queued writes are coalesced into gathering writes.
+     */
+    public long getWriteCalls() {
+        return writeCalls;
+    }
+
+    /**
+     * Returns the number of bytes written by channels of this selector.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
     Future<Void> isRunningFuture() {
         return isRunningFuture;
     }
@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
@@ -46,6 +47,17 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
 
     public static final Predicate<NioSocketChannel> ALWAYS_ALLOW_CHANNEL = (c) -> true;
 
+    /**
+     * The maximum number of bytes of queued flush operations that are coalesced into a single gathering write. A single flush
+     * operation that is larger than this is still written in one go.
+     */
+    static final int MAX_BYTES_PER_GATHERING_WRITE = 1 << 19;
+    /**
+     * The maximum number of buffers of queued flush operations that are coalesced into a single gathering write. Operating
+     * systems limit the number of buffers per write call (IOV_MAX) anyway.
+     */
+    static final int MAX_BUFFERS_PER_GATHERING_WRITE = 1024;
+
     protected final NioSocketChannel channel;
     protected final InboundChannelBuffer channelBuffer;
     protected final AtomicBoolean isClosing = new AtomicBoolean(false);
@@ -166,6 +178,70 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
         return pendingFlushes.peekFirst();
     }
 
+    /**
+     * Flushes the pending flush operations of this channel. Rather than issuing a write call per operation, consecutive
+     * operations are coalesced into a single gathering write of up to {@link #MAX_BYTES_PER_GATHERING_WRITE} bytes. Operations
+     * that were fully flushed are completed, and flushing stops as soon as the channel does not accept all bytes of a write.
+     */
+    protected void flushPendingOperations() throws IOException {
+        getSelector().assertOnSelectorThread();
+        while (pendingFlushes.isEmpty() == false) {
+            final ByteBuffer[] buffersToWrite;
+            final int[] bytesPerOperation;
+            if (pendingFlushes.size() == 1) {
+                buffersToWrite = pendingFlushes.peekFirst().getBuffersToWrite();
+                bytesPerOperation = new int[] {remaining(buffersToWrite)};
+            } else {
+                final ArrayList<ByteBuffer> buffers = new ArrayList<>();
+                final ArrayList<Integer> bytes = new ArrayList<>();
+                long totalBytes = 0;
+                for (FlushOperation flushOperation : pendingFlushes) {
+                    final ByteBuffer[] operationBuffers = flushOperation.getBuffersToWrite();
+                    final int operationBytes = remaining(operationBuffers);
+                    if (bytes.isEmpty() == false && (totalBytes + operationBytes > MAX_BYTES_PER_GATHERING_WRITE
+                            || buffers.size() + operationBuffers.length > MAX_BUFFERS_PER_GATHERING_WRITE)) {
+                        break;
+                    }
+                    Collections.addAll(buffers, operationBuffers);
+                    bytes.add(operationBytes);
+                    totalBytes += operationBytes;
+                }
+                buffersToWrite = buffers.toArray(new ByteBuffer[0]);
+                bytesPerOperation = bytes.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            int written;
+            try {
+                written = flushToChannel(buffersToWrite);
+            } catch (IOException e) {
+                currentFlushOperationFailed(e);
+                throw e;
+            }
+
+            // hand the written bytes to the operations in the order they were gathered
+            for (int operationBytes : bytesPerOperation) {
+                final FlushOperation flushOperation = pendingFlushes.peekFirst();
+                final int flushed = Math.min(written, operationBytes);
+                flushOperation.incrementIndex(flushed);
+                written -= flushed;
+                if (flushOperation.isFullyFlushed()) {
+                    currentFlushOperationComplete();
+                } else {
+                    // the channel did not accept all bytes, wait until it is writable again
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int remaining(ByteBuffer[] buffers) {
+        int remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        return remaining;
+    }
+
     @Override
     protected void register() throws IOException {
         super.register();
@@ -241,6 +317,7 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
                 closeNow = true;
                 bytesRead = 0;
             }
+            selector.onRead(bytesRead);
             return bytesRead;
         } catch (IOException e) {
             closeNow = true;
@@ -255,6 +332,7 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
                 closeNow = true;
                 bytesRead = 0;
             }
+            selector.onRead(bytesRead);
             return bytesRead;
         } catch (IOException e) {
             closeNow = true;
@@ -264,7 +342,9 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
 
     protected int flushToChannel(ByteBuffer buffer) throws IOException {
         try {
-            return rawChannel.write(buffer);
+            final int written = rawChannel.write(buffer);
+            selector.onWrite(written);
+            return written;
         } catch (IOException e) {
             closeNow = true;
             throw e;
@@ -273,7 +353,9 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
 
     protected int flushToChannel(ByteBuffer[] buffers) throws IOException {
         try {
-            return (int) rawChannel.write(buffers);
+            final int written = (int) rawChannel.write(buffers);
+            selector.onWrite(written);
+            return written;
         } catch (IOException e) {
             closeNow = true;
             throw e;
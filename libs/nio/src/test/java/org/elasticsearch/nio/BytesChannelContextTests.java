@@ -220,6 +220,40 @@ public class BytesChannelContextTests extends ESTestCase {
         assertFalse(context.readyForFlush());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testQueuedWritesAreGatheredIntoSingleWrite() throws IOException {
+        BiConsumer<Void, Exception> listener2 = mock(BiConsumer.class);
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {ByteBuffer.allocate(10)}, listener));
+        context.queueWriteOperation(new FlushReadyWrite(context, new ByteBuffer[] {ByteBuffer.allocate(5)}, listener2));
+
+        // the channel accepts everything apart from the last three bytes
+        when(rawChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenAnswer(invocationOnMock -> {
+            ByteBuffer[] buffers = (ByteBuffer[]) invocationOnMock.getArguments()[0];
+            assertEquals(2, buffers.length);
+            buffers[0].position(buffers[0].limit());
+            buffers[1].position(2);
+            return 12L;
+        });
+        context.flushChannel();
+
+        verify(rawChannel, times(1)).write(any(ByteBuffer[].class), anyInt(), anyInt());
+        verify(selector).executeListener(listener, null);
+        verify(selector, times(0)).executeListener(listener2, null);
+        assertTrue(context.readyForFlush());
+
+        when(rawChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenAnswer(invocationOnMock -> {
+            ByteBuffer[] buffers = (ByteBuffer[]) invocationOnMock.getArguments()[0];
+            assertEquals(1, buffers.length);
+            assertEquals(3, buffers[0].remaining());
+            buffers[0].position(buffers[0].limit());
+            return 3L;
+        });
+        context.flushChannel();
+
+        verify(selector).executeListener(listener2, null);
+        assertFalse(context.readyForFlush());
+    }
+
     public void testWhenIOExceptionThrownListenerIsCalled() throws IOException {
         assertFalse(context.readyForFlush());
 
@@ -25,7 +25,9 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
@@ -38,9 +40,21 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Frame;
+import io.netty.handler.codec.http2.Http2MultiplexCodec;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.AsciiString;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.network.CloseableChannel;
@@ -140,6 +154,16 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
     public static final Setting<ByteSizeValue> SETTING_HTTP_NETTY_RECEIVE_PREDICTOR_SIZE =
         Setting.byteSizeSetting("http.netty.receive_predictor_size", new ByteSizeValue(64, ByteSizeUnit.KB), Property.NodeScope);
 
+    /**
+     * Whether clients may speak HTTP/2 without TLS (h2c), either by upgrading an HTTP/1.1 connection or with prior knowledge. Each
+     * HTTP/2 stream is handled as an independent request with its own flow control window.
+     */
+    public static final Setting<Boolean> SETTING_HTTP_NETTY_HTTP2_ENABLED =
+        Setting.boolSetting("http.netty.http2.enabled", false, Property.NodeScope);
+
+    public static final Setting<Integer> SETTING_HTTP_NETTY_HTTP2_MAX_CONCURRENT_STREAMS =
+        Setting.intSetting("http.netty.http2.max_concurrent_streams", 128, 1, Property.NodeScope);
+
     private final ByteSizeValue maxInitialLineLength;
     private final ByteSizeValue maxHeaderSize;
     private final ByteSizeValue maxChunkSize;
@@ -153,6 +177,9 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
     private final int maxCompositeBufferComponents;
 
+    private final boolean http2Enabled;
+    private final int http2MaxConcurrentStreams;
+
     protected volatile ServerBootstrap serverBootstrap;
 
     private final Netty4CorsConfig corsConfig;
@@ -169,6 +196,8 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
 
         this.maxCompositeBufferComponents = SETTING_HTTP_NETTY_MAX_COMPOSITE_BUFFER_COMPONENTS.get(settings);
         this.workerCount = SETTING_HTTP_WORKER_COUNT.get(settings);
+        this.http2Enabled = SETTING_HTTP_NETTY_HTTP2_ENABLED.get(settings);
+        this.http2MaxConcurrentStreams = SETTING_HTTP_NETTY_HTTP2_MAX_CONCURRENT_STREAMS.get(settings);
 
         this.readTimeoutMillis = Math.toIntExact(SETTING_HTTP_READ_TIMEOUT.get(settings).getMillis());
 
@@ -178,9 +207,9 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         this.corsConfig = buildCorsConfig(settings);
 
         logger.debug("using max_chunk_size[{}], max_header_size[{}], max_initial_line_length[{}], max_content_length[{}], " +
-                "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}]",
+                "receive_predictor[{}], max_composite_buffer_components[{}], pipelining_max_events[{}], http2[{}]",
             maxChunkSize, maxHeaderSize, maxInitialLineLength, maxContentLength, receivePredictor, maxCompositeBufferComponents,
-            pipeliningMaxEvents);
+            pipeliningMaxEvents, http2Enabled);
     }
 
     public Settings settings() {
@@ -315,26 +344,73 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
             Netty4HttpChannel nettyHttpChannel = new Netty4HttpChannel(ch);
             ch.attr(HTTP_CHANNEL_KEY).set(nettyHttpChannel);
             ch.pipeline().addLast("read_timeout", new ReadTimeoutHandler(transport.readTimeoutMillis, TimeUnit.MILLISECONDS));
-            final HttpRequestDecoder decoder = new HttpRequestDecoder(
+            if (transport.http2Enabled) {
+                addHttp2Handlers(ch.pipeline());
+            } else {
+                final HttpRequestDecoder decoder = new HttpRequestDecoder(
+                    handlingSettings.getMaxInitialLineLength(),
+                    handlingSettings.getMaxHeaderSize(),
+                    handlingSettings.getMaxChunkSize());
+                decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
+                ch.pipeline().addLast("decoder", decoder);
+                ch.pipeline().addLast("encoder", new HttpResponseEncoder());
+            }
+            addRequestHandlers(ch.pipeline());
+            transport.serverAcceptedChannel(nettyHttpChannel);
+        }
+
+        /**
+         * Adds the handlers that speak HTTP/1.1 on the connection until the client upgrades it to HTTP/2, or starts it with the
+         * HTTP/2 connection preface. Once the connection speaks HTTP/2, every stream becomes a child channel with its own
+         * pipeline, see {@link #initStreamChannel(Channel)}.
+         */
+        private void addHttp2Handlers(ChannelPipeline pipeline) {
+            final HttpServerCodec sourceCodec = new HttpServerCodec(
                 handlingSettings.getMaxInitialLineLength(),
                 handlingSettings.getMaxHeaderSize(),
                 handlingSettings.getMaxChunkSize());
-            decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
-            ch.pipeline().addLast("decoder", decoder);
-            ch.pipeline().addLast("decoder_compress", new HttpContentDecompressor());
-            ch.pipeline().addLast("encoder", new HttpResponseEncoder());
+            final Http2MultiplexCodec multiplexCodec = Http2MultiplexCodecBuilder.forServer(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    initStreamChannel(ch);
+                }
+            }).initialSettings(Http2Settings.defaultSettings()
+                .maxConcurrentStreams(transport.http2MaxConcurrentStreams)
+                .maxHeaderListSize(handlingSettings.getMaxHeaderSize()))
+                .build();
+            final HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec,
+                protocol -> AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)
+                    ? new Http2ServerUpgradeCodec(multiplexCodec) : null,
+                handlingSettings.getMaxContentLength());
+            pipeline.addLast("h2c", new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler, multiplexCodec));
+            pipeline.addLast("h2_frames", new Http2ConnectionFrameHandler());
+        }
+
+        /**
+         * Initializes the child channel of an HTTP/2 stream, which carries exactly one request and its response. Streams are
+         * registered like connections so that they are closed when the transport stops and show up in the HTTP stats.
+         */
+        private void initStreamChannel(Channel ch) {
+            final Netty4HttpChannel streamChannel = new Netty4HttpChannel(ch);
+            ch.attr(HTTP_CHANNEL_KEY).set(streamChannel);
+            ch.pipeline().addLast("h2_codec", new Http2StreamFrameToHttpObjectCodec(true));
+            addRequestHandlers(ch.pipeline());
+            transport.serverAcceptedChannel(streamChannel);
+        }
+
+        private void addRequestHandlers(ChannelPipeline pipeline) {
+            pipeline.addLast("decoder_compress", new HttpContentDecompressor());
             final HttpObjectAggregator aggregator = new HttpObjectAggregator(handlingSettings.getMaxContentLength());
             aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
-            ch.pipeline().addLast("aggregator", aggregator);
+            pipeline.addLast("aggregator", aggregator);
             if (handlingSettings.isCompression()) {
-                ch.pipeline().addLast("encoder_compress", new HttpContentCompressor(handlingSettings.getCompressionLevel()));
+                pipeline.addLast("encoder_compress", new HttpContentCompressor(handlingSettings.getCompressionLevel()));
             }
             if (handlingSettings.isCorsEnabled()) {
-                ch.pipeline().addLast("cors", new Netty4CorsHandler(transport.corsConfig));
+                pipeline.addLast("cors", new Netty4CorsHandler(transport.corsConfig));
             }
-            ch.pipeline().addLast("pipelining", new Netty4HttpPipeliningHandler(transport.logger, transport.pipeliningMaxEvents));
-            ch.pipeline().addLast("handler", requestHandler);
-            transport.serverAcceptedChannel(nettyHttpChannel);
+            pipeline.addLast("pipelining", new Netty4HttpPipeliningHandler(transport.logger, transport.pipeliningMaxEvents));
+            pipeline.addLast("handler", requestHandler);
         }
 
         @Override
@@ -344,6 +420,22 @@ public class Netty4HttpServerTransport extends AbstractHttpServerTransport {
         }
     }
 
+    /**
+     * Drops the connection level frames (settings, pings, go-aways) that the HTTP/2 codec passes on once a connection speaks HTTP/2,
+     * so that they don't reach the HTTP/1.1 request handlers that remain in the pipeline of the connection.
+     */
+    private static class Http2ConnectionFrameHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2Frame) {
+                ReferenceCountUtil.release(msg);
+            } else {
+                ctx.fireChannelRead(msg);
+            }
+        }
+    }
+
     @ChannelHandler.Sharable
     private static class ServerChannelExceptionHandler extends ChannelHandlerAdapter {
 
@@ -32,11 +32,22 @@ final class ByteBufBytesReference extends BytesReference {
     private final ByteBuf buffer;
     private final int length;
     private final int offset;
+    private final boolean shareable;
 
     ByteBufBytesReference(ByteBuf buffer, int length) {
+        this(buffer, length, false);
+    }
+
+    /**
+     * @param shareable whether streams created from this reference may hand out references that share the buffer's bytes
+     *                  (see {@link StreamInput#readRetainedBytesReference()}), which is only safe if the caller keeps the
+     *                  buffer alive for as long as those references are in use
+     */
+    ByteBufBytesReference(ByteBuf buffer, int length, boolean shareable) {
         this.buffer = buffer;
         this.length = length;
         this.offset = buffer.readerIndex();
+        this.shareable = shareable;
         assert length <= buffer.readableBytes() : "length[" + length +"] > " + buffer.readableBytes();
     }
 
@@ -55,9 +66,18 @@ final class ByteBufBytesReference extends BytesReference {
         return new ByteBufBytesReference(buffer.slice(offset + from, length), length);
     }
 
+    @Override
+    public int indexOf(byte marker, int from) {
+        if (from >= length) {
+            return -1;
+        }
+        final int index = buffer.indexOf(offset + from, offset + length, marker);
+        return index == -1 ? -1 : index - offset;
+    }
+
     @Override
     public StreamInput streamInput() {
-        return new ByteBufStreamInput(buffer.duplicate(), length);
+        return new ByteBufStreamInput(buffer.duplicate(), length, shareable);
     }
 
     @Override
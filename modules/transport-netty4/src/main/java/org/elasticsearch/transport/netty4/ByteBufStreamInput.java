@@ -21,6 +21,7 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 
@@ -34,17 +35,39 @@ class ByteBufStreamInput extends StreamInput {
 
     private final ByteBuf buffer;
     private final int endIndex;
+    private final boolean shareable;
 
     ByteBufStreamInput(ByteBuf buffer, int length) {
+        this(buffer, length, false);
+    }
+
+    ByteBufStreamInput(ByteBuf buffer, int length, boolean shareable) {
         if (length > buffer.readableBytes()) {
             throw new IndexOutOfBoundsException();
         }
         this.buffer = buffer;
+        this.shareable = shareable;
         int startIndex = buffer.readerIndex();
         endIndex = startIndex + length;
         buffer.markReaderIndex();
     }
 
+    @Override
+    public BytesReference readRetainedBytesReference() throws IOException {
+        if (shareable == false) {
+            return super.readRetainedBytesReference();
+        }
+        // the owner of the buffer keeps it alive until the request has been responded to, so we can hand out
+        // a view of the buffer instead of copying the bytes
+        final int length = readArraySize();
+        if (length == 0) {
+            return BytesArray.EMPTY;
+        }
+        final ByteBuf slice = buffer.slice(buffer.readerIndex(), length);
+        buffer.skipBytes(length);
+        return new ByteBufBytesReference(slice, length);
+    }
+
     @Override
     public BytesReference readBytesReference(int length) throws IOException {
         // NOTE: It is unsafe to share a reference of the internal structure, so we
@@ -79,6 +102,7 @@ class ByteBufStreamInput extends StreamInput {
     @Override
     public void mark(int readlimit) {
         buffer.markReaderIndex();
+        markSharedStrings();
     }
 
     @Override
@@ -112,6 +136,7 @@ class ByteBufStreamInput extends StreamInput {
     @Override
     public void reset() throws IOException {
         buffer.resetReaderIndex();
+        resetSharedStrings();
     }
 
     @Override
@@ -27,7 +27,10 @@ import io.netty.util.Attribute;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.transport.TcpHeader;
+import org.elasticsearch.transport.TransportStatus;
 import org.elasticsearch.transport.Transports;
 
 
@@ -51,18 +54,24 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
             return;
         }
         final ByteBuf buffer = (ByteBuf) msg;
-        final int remainingMessageSize = buffer.getInt(buffer.readerIndex() - TcpHeader.MESSAGE_LENGTH_SIZE);
-        final int expectedReaderIndex = buffer.readerIndex() + remainingMessageSize;
+        // the frame decoder hands us a retained slice holding exactly one message which we own from now on. The
+        // transport releases it once it is done with the message, which for requests is only after the response has
+        // been sent. Only requests may share the bytes of the buffer since responses are released right after reading them.
+        final Releasable release = Releasables.releaseOnce(buffer::release);
+        boolean success = false;
         try {
             Channel channel = ctx.channel();
-            // netty always copies a buffer, either in NioWorker in its read handler, where it copies to a fresh
-            // buffer, or in the cumulative buffer, which is cleaned each time so it could be bigger than the actual size
-            BytesReference reference = Netty4Utils.toBytesReference(buffer, remainingMessageSize);
+            final boolean isRequest = buffer.readableBytes() > TcpHeader.REQUEST_ID_SIZE
+                && TransportStatus.isRequest(buffer.getByte(buffer.readerIndex() + TcpHeader.REQUEST_ID_SIZE));
+            BytesReference reference = new ByteBufBytesReference(buffer, buffer.readableBytes(), isRequest);
             Attribute<Netty4TcpChannel> channelAttribute = channel.attr(Netty4Transport.CHANNEL_KEY);
-            transport.messageReceived(reference, channelAttribute.get());
+            // from here on the transport is responsible for releasing the buffer
+            success = true;
+            transport.messageReceived(reference, channelAttribute.get(), release);
         } finally {
-            // Set the expected position of the buffer, no matter what happened
-            buffer.readerIndex(expectedReaderIndex);
+            if (success == false) {
+                release.close();
+            }
         }
     }
 
@@ -43,11 +43,11 @@ final class Netty4SizeHeaderFrameDecoder extends ByteToMessageDecoder {
                 int messageLengthWithHeader = messageLength + HEADER_SIZE;
                 // If the message length is greater than the network bytes available, we have not read a complete frame.
                 if (messageLengthWithHeader <= networkBytes.length()) {
-                    final ByteBuf message = in.skipBytes(HEADER_SIZE);
                     // 6 bytes would mean it is a ping. And we should ignore.
                     if (messageLengthWithHeader != 6) {
-                        out.add(message);
+                        out.add(frame(ctx, in, in.readerIndex() + HEADER_SIZE, messageLength));
                     }
+                    in.skipBytes(messageLengthWithHeader);
                 }
             }
         } catch (IllegalArgumentException ex) {
@@ -55,4 +55,17 @@ final class Netty4SizeHeaderFrameDecoder extends ByteToMessageDecoder {
         }
     }
 
+    /**
+     * Returns a buffer holding the given message that the caller owns. A retained slice keeps the whole (possibly pooled)
+     * cumulation alive until the message is released, which for requests includes the time they spend queued, so the message
+     * only shares the cumulation if it fills at least half of it. The in-flight requests breaker accounts messages with an
+     * overhead of 2 by default, which covers the unused part. Otherwise the message is copied into a buffer of its own size.
+     */
+    private static ByteBuf frame(ChannelHandlerContext ctx, ByteBuf in, int index, int messageLength) {
+        if (messageLength >= in.capacity() / 2) {
+            return in.retainedSlice(index, messageLength);
+        }
+        return ctx.alloc().buffer(messageLength).writeBytes(in, index, messageLength);
+    }
+
 }
@@ -22,9 +22,12 @@ package org.elasticsearch.http.netty4;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -35,9 +38,15 @@ import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -68,10 +77,13 @@ import org.junit.Before;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -84,6 +96,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ALLOW_ME
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ALLOW_ORIGIN;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ENABLED;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_MAX_AGE;
+import static org.elasticsearch.rest.BytesRestResponse.TEXT_CONTENT_TYPE;
 import static org.elasticsearch.rest.RestStatus.BAD_REQUEST;
 import static org.elasticsearch.rest.RestStatus.OK;
 import static org.hamcrest.Matchers.containsString;
@@ -304,6 +317,96 @@ public class Netty4HttpServerTransportTests extends ESTestCase {
         assertThat(causeReference.get(), instanceOf(TooLongFrameException.class));
     }
 
+    public void testHttp2StreamsAreIndependentRequests() throws Exception {
+        final Set<String> dispatchedUris = Collections.synchronizedSet(new HashSet<>());
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+
+            @Override
+            public void dispatchRequest(final RestRequest request, final RestChannel channel, final ThreadContext threadContext) {
+                dispatchedUris.add(request.uri());
+                channel.sendResponse(new BytesRestResponse(OK, TEXT_CONTENT_TYPE, new BytesArray(request.uri())));
+            }
+
+            @Override
+            public void dispatchBadRequest(final RestRequest request,
+                                           final RestChannel channel,
+                                           final ThreadContext threadContext,
+                                           final Throwable cause) {
+                throw new AssertionError("Should not have received a bad request", cause);
+            }
+
+        };
+
+        final Settings settings = Settings.builder()
+            .put(Netty4HttpServerTransport.SETTING_HTTP_NETTY_HTTP2_ENABLED.getKey(), true)
+            .build();
+        NioEventLoopGroup group = new NioEventLoopGroup();
+        try (Netty4HttpServerTransport transport =
+                 new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool, xContentRegistry(), dispatcher)) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+
+            // HTTP/1.1 clients are still served on the same port
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/http1");
+                final FullHttpResponse response = client.post(remoteAddress.address(), request);
+                try {
+                    assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(response.content().toString(StandardCharsets.UTF_8), equalTo("/http1"));
+                } finally {
+                    response.release();
+                }
+            }
+
+            // an HTTP/2 client with prior knowledge sends several requests concurrently on one connection
+            Bootstrap clientBootstrap = new Bootstrap().channel(NioSocketChannel.class).handler(new ChannelInitializer<SocketChannel>() {
+
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ch.pipeline().addLast(Http2MultiplexCodecBuilder.forClient(new ChannelHandlerAdapter() {}).build());
+                }
+            }).group(group);
+            Channel connection = clientBootstrap.connect(remoteAddress.address()).syncUninterruptibly().channel();
+            try {
+                final int numStreams = randomIntBetween(2, 8);
+                final List<CompletableFuture<String>> responses = new ArrayList<>();
+                for (int i = 0; i < numStreams; i++) {
+                    final CompletableFuture<String> responseBody = new CompletableFuture<>();
+                    Http2StreamChannel stream = new Http2StreamChannelBootstrap(connection).handler(new ChannelInitializer<Channel>() {
+
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+                            ch.pipeline().addLast(new HttpObjectAggregator(1024));
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                                    assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                                    responseBody.complete(response.content().toString(StandardCharsets.UTF_8));
+                                }
+                            });
+                        }
+                    }).open().syncUninterruptibly().getNow();
+                    final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/stream-" + i);
+                    request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "http");
+                    stream.writeAndFlush(request);
+                    responses.add(responseBody);
+                }
+                for (int i = 0; i < numStreams; i++) {
+                    assertThat(responses.get(i).get(10, TimeUnit.SECONDS), equalTo("/stream-" + i));
+                }
+                assertThat(dispatchedUris.size(), equalTo(numStreams + 1));
+                // every stream is registered as a channel, next to the HTTP/1.1 and the HTTP/2 connections
+                assertThat(transport.stats().getTotalOpen(), equalTo(numStreams + 2L));
+            } finally {
+                connection.close().syncUninterruptibly();
+            }
+        } finally {
+            group.shutdownGracefully().await();
+        }
+    }
+
     public void testReadTimeout() throws Exception {
         final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
 
@@ -22,8 +22,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.AbstractBytesReferenceTestCase;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.IOException;
 
@@ -81,4 +84,32 @@ public class ByteBufBytesReferenceTests extends AbstractBytesReferenceTestCase {
         channelBuffer.readInt(); // this advances the index of the channel buffer
         assertEquals(utf8ToString, byteBufBytesReference.utf8ToString());
     }
+
+    public void testReadRetainedBytesReference() throws IOException {
+        final byte[] content = randomByteArrayOfLength(randomIntBetween(1, 3 * PAGE_SIZE));
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeBytesReference(new BytesArray(content));
+        out.writeBytesReference(new BytesArray(content));
+        final BytesRef bytesRef = BytesRef.deepCopyOf(out.bytes().toBytesRef());
+        final ByteBuf channelBuffer = Unpooled.wrappedBuffer(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+
+        final StreamInput shared = new ByteBufBytesReference(channelBuffer, bytesRef.length, true).streamInput();
+        final BytesReference first = shared.readRetainedBytesReference();
+        final BytesReference second = shared.readBytesReference();
+        assertEquals(new BytesArray(content), first);
+        assertEquals(new BytesArray(content), second);
+        assertEquals(-1, shared.read());
+
+        final StreamInput copying = new ByteBufBytesReference(channelBuffer, bytesRef.length, false).streamInput();
+        final BytesReference copy = copying.readRetainedBytesReference();
+        assertEquals(new BytesArray(content), copy);
+
+        // the shared reference is a view of the buffer while the other streams copied the bytes
+        final int index = randomIntBetween(0, content.length - 1);
+        final int lengthPrefix = bytesRef.length / 2 - content.length;
+        channelBuffer.setByte(channelBuffer.readerIndex() + lengthPrefix + index, ~content[index]);
+        assertEquals((byte) ~content[index], first.get(index));
+        assertEquals(content[index], second.get(index));
+        assertEquals(content[index], copy.get(index));
+    }
 }
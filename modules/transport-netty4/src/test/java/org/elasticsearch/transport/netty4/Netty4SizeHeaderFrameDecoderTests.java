@@ -19,6 +19,9 @@
 
 package org.elasticsearch.transport.netty4;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Settings;
@@ -96,6 +99,51 @@ public class Netty4SizeHeaderFrameDecoderTests extends ESTestCase {
         }
     }
 
+    public void testMessagesOnlyShareTheCumulationTheyFill() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4SizeHeaderFrameDecoder());
+        try {
+            // a message that fills its buffer is sliced
+            final byte[] large = randomByteArrayOfLength(randomIntBetween(64, 1024));
+            final ByteBuf single = Unpooled.buffer(large.length + 6);
+            writeMessage(single, large);
+            assertTrue(channel.writeInbound(single));
+            final ByteBuf sliced = channel.readInbound();
+            try {
+                assertSame(single, sliced.unwrap());
+                assertEquals(Unpooled.wrappedBuffer(large), sliced);
+            } finally {
+                sliced.release();
+            }
+
+            // small messages in a large cumulation are copied so that they do not keep it alive
+            final byte[] first = randomByteArrayOfLength(randomIntBetween(1, 64));
+            final byte[] second = randomByteArrayOfLength(randomIntBetween(1, 64));
+            final ByteBuf shared = Unpooled.buffer(16 * 1024);
+            writeMessage(shared, first);
+            writeMessage(shared, second);
+            assertTrue(channel.writeInbound(shared));
+            for (byte[] expected : new byte[][] { first, second }) {
+                final ByteBuf copied = channel.readInbound();
+                try {
+                    assertNotSame(shared, copied.unwrap());
+                    assertEquals(Unpooled.wrappedBuffer(expected), copied);
+                } finally {
+                    copied.release();
+                }
+            }
+            assertEquals(0, shared.refCnt());
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static void writeMessage(ByteBuf buffer, byte[] message) {
+        buffer.writeByte('E');
+        buffer.writeByte('S');
+        buffer.writeInt(message.length);
+        buffer.writeBytes(message);
+    }
+
     public void testThatNothingIsReturnedForOtherInvalidPackets() throws Exception {
         try (Socket socket = new MockSocket(host, port)) {
             socket.getOutputStream().write("FOOBAR".getBytes(StandardCharsets.UTF_8));
@@ -180,6 +180,7 @@ class ByteBufUtils {
         @Override
         public void mark(int readlimit) {
             buffer.markReaderIndex();
+            markSharedStrings();
         }
 
         @Override
@@ -213,6 +214,7 @@ class ByteBufUtils {
         @Override
         public void reset() throws IOException {
             buffer.resetReaderIndex();
+            resetSharedStrings();
         }
 
         @Override
@@ -22,6 +22,7 @@ package org.elasticsearch.transport.nio;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.recycler.Recycler;
@@ -41,13 +42,18 @@ import org.elasticsearch.nio.NioSocketChannel;
 import org.elasticsearch.nio.ServerChannelContext;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TcpTransport;
+import org.elasticsearch.transport.TransportStats;
 import org.elasticsearch.transport.Transports;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -64,7 +70,16 @@ public class NioTransport extends TcpTransport {
             (s) -> Integer.toString(EsExecutors.numberOfProcessors(s) * 2),
             (s) -> Setting.parseInt(s, 1, "transport.nio.worker_count"), Setting.Property.NodeScope);
 
+    /**
+     * Whether inbound channel buffers should use recycled direct pages, which saves the copy the JDK makes from a heap buffer into a
+     * temporary direct buffer on every read. This requires {@link PageCacheRecycler#DIRECT_PAGES_SETTING} to be enabled too, the
+     * node fails to start otherwise. Falls back to heap pages once all direct pages are in use.
+     */
+    public static final Setting<Boolean> NIO_DIRECT_BUFFERS =
+        Setting.boolSetting("transport.nio.direct_buffers", false, Setting.Property.NodeScope);
+
     protected final PageCacheRecycler pageCacheRecycler;
+    private final boolean directBuffers;
     private final ConcurrentMap<String, TcpChannelFactory> profileToChannelFactory = newConcurrentMap();
     private volatile NioGroup nioGroup;
     private volatile TcpChannelFactory clientChannelFactory;
@@ -74,6 +89,27 @@ public class NioTransport extends TcpTransport {
                  CircuitBreakerService circuitBreakerService) {
         super("nio", settings, threadPool, bigArrays, circuitBreakerService, namedWriteableRegistry, networkService);
         this.pageCacheRecycler = pageCacheRecycler;
+        this.directBuffers = NIO_DIRECT_BUFFERS.get(settings);
+        if (directBuffers && pageCacheRecycler.directPages() == false) {
+            throw new IllegalArgumentException("setting [" + NIO_DIRECT_BUFFERS.getKey() + "] requires ["
+                + PageCacheRecycler.DIRECT_PAGES_SETTING.getKey() + "] to be enabled");
+        }
+    }
+
+    private InboundChannelBuffer.Page newInboundPage() {
+        if (directBuffers) {
+            try {
+                Recycler.V<ByteBuffer> page = pageCacheRecycler.directPage(false);
+                // recycled pages are shared with big arrays, so use a big-endian view spanning the whole page
+                ByteBuffer buffer = page.v().duplicate().order(ByteOrder.BIG_ENDIAN);
+                buffer.clear();
+                return new InboundChannelBuffer.Page(buffer, page::close);
+            } catch (CircuitBreakingException e) {
+                // all direct pages are in use, fall back to heap pages
+            }
+        }
+        Recycler.V<byte[]> bytes = pageCacheRecycler.bytePage(false);
+        return new InboundChannelBuffer.Page(ByteBuffer.wrap(bytes.v()), bytes::close);
     }
 
     @Override
@@ -121,6 +157,20 @@ public class NioTransport extends TcpTransport {
         }
     }
 
+    @Override
+    protected List<TransportStats.SelectorStats> selectorStats() {
+        final NioGroup nioGroup = this.nioGroup;
+        if (nioGroup == null) {
+            return Collections.emptyList();
+        }
+        final List<TransportStats.SelectorStats> stats = new ArrayList<>();
+        for (NioSelector selector : nioGroup.getSelectors()) {
+            stats.add(new TransportStats.SelectorStats(selector.getReadCalls(), selector.getBytesRead(), selector.getWriteCalls(),
+                selector.getBytesWritten()));
+        }
+        return stats;
+    }
+
     @Override
     protected void stopInternal() {
         try {
@@ -162,10 +212,7 @@ public class NioTransport extends TcpTransport {
         @Override
         public NioTcpChannel createChannel(NioSelector selector, SocketChannel channel) throws IOException {
             NioTcpChannel nioChannel = new NioTcpChannel(profileName, channel);
-            Supplier<InboundChannelBuffer.Page> pageSupplier = () -> {
-                Recycler.V<byte[]> bytes = pageCacheRecycler.bytePage(false);
-                return new InboundChannelBuffer.Page(ByteBuffer.wrap(bytes.v()), bytes::close);
-            };
+            Supplier<InboundChannelBuffer.Page> pageSupplier = NioTransport.this::newInboundPage;
             TcpReadWriteHandler readWriteHandler = new TcpReadWriteHandler(nioChannel, NioTransport.this);
             Consumer<Exception> exceptionHandler = (e) -> onException(nioChannel, e);
             BytesChannelContext context = new BytesChannelContext(nioChannel, selector, exceptionHandler, readWriteHandler,
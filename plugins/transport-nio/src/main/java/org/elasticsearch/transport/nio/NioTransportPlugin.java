@@ -50,7 +50,8 @@ public class NioTransportPlugin extends Plugin implements NetworkPlugin {
         return Arrays.asList(
             NioHttpServerTransport.NIO_HTTP_ACCEPTOR_COUNT,
             NioHttpServerTransport.NIO_HTTP_WORKER_COUNT,
-            NioTransport.NIO_WORKER_COUNT
+            NioTransport.NIO_WORKER_COUNT,
+            NioTransport.NIO_DIRECT_BUFFERS
         );
     }
 
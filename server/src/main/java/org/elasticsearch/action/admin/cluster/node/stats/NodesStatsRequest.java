@@ -45,6 +45,7 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
     private boolean discovery;
     private boolean ingest;
     private boolean adaptiveSelection;
+    private boolean pageCacheRecycler;
 
     public NodesStatsRequest() {
     }
@@ -74,6 +75,7 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = true;
         this.ingest = true;
         this.adaptiveSelection = true;
+        this.pageCacheRecycler = true;
         return this;
     }
 
@@ -94,6 +96,7 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         this.discovery = false;
         this.ingest = false;
         this.adaptiveSelection = false;
+        this.pageCacheRecycler = false;
         return this;
     }
 
@@ -281,6 +284,18 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         return this;
     }
 
+    public boolean pageCacheRecycler() {
+        return pageCacheRecycler;
+    }
+
+    /**
+     * Should page cache recycler statistics be returned.
+     */
+    public NodesStatsRequest pageCacheRecycler(boolean pageCacheRecycler) {
+        this.pageCacheRecycler = pageCacheRecycler;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -301,6 +316,11 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         } else {
             adaptiveSelection = false;
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            pageCacheRecycler = in.readBoolean();
+        } else {
+            pageCacheRecycler = false;
+        }
     }
 
     @Override
@@ -321,5 +341,8 @@ public class NodesStatsRequest extends BaseNodesRequest<NodesStatsRequest> {
         if (out.getVersion().onOrAfter(Version.V_6_1_0)) {
             out.writeBoolean(adaptiveSelection);
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeBoolean(pageCacheRecycler);
+        }
     }
 }
@@ -148,4 +148,12 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         return this;
     }
 
+    /**
+     * Should page cache recycler statistics be returned.
+     */
+    public NodesStatsRequestBuilder setPageCacheRecycler(boolean pageCacheRecycler) {
+        request.pageCacheRecycler(pageCacheRecycler);
+        return this;
+    }
+
 }
@@ -86,7 +86,8 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         }
         this.stats = new SnapshotStats(indexShardStatus.getStartTime(), indexShardStatus.getTotalTime(),
             indexShardStatus.getIncrementalFileCount(), indexShardStatus.getTotalFileCount(), indexShardStatus.getProcessedFileCount(),
-            indexShardStatus.getIncrementalSize(), indexShardStatus.getTotalSize(), indexShardStatus.getProcessedSize());
+            indexShardStatus.getIncrementalSize(), indexShardStatus.getTotalSize(), indexShardStatus.getProcessedSize(),
+            indexShardStatus.getProcessedBytesPerSecond(System.currentTimeMillis()));
         this.failure = indexShardStatus.getFailure();
         this.nodeId = nodeId;
     }
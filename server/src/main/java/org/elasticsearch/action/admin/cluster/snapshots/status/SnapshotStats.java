@@ -43,13 +43,14 @@ public class SnapshotStats implements Streamable, ToXContentObject {
     private long incrementalSize;
     private long totalSize;
     private long processedSize;
+    private long processedBytesPerSecond;
 
     SnapshotStats() {
     }
 
     SnapshotStats(long startTime, long time,
                   int incrementalFileCount, int totalFileCount, int processedFileCount,
-                  long incrementalSize, long totalSize, long processedSize) {
+                  long incrementalSize, long totalSize, long processedSize, long processedBytesPerSecond) {
         this.startTime = startTime;
         this.time = time;
         this.incrementalFileCount = incrementalFileCount;
@@ -58,6 +59,7 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         this.incrementalSize = incrementalSize;
         this.totalSize = totalSize;
         this.processedSize = processedSize;
+        this.processedBytesPerSecond = processedBytesPerSecond;
     }
 
     /**
@@ -116,6 +118,13 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         return processedSize;
     }
 
+    /**
+     * Returns the average number of bytes that were processed per second so far
+     */
+    public long getProcessedBytesPerSecond() {
+        return processedBytesPerSecond;
+    }
+
 
     public static SnapshotStats readSnapshotStats(StreamInput in) throws IOException {
         SnapshotStats stats = new SnapshotStats();
@@ -138,6 +147,10 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             out.writeVInt(totalFileCount);
             out.writeVLong(totalSize);
         }
+
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(processedBytesPerSecond);
+        }
     }
 
     @Override
@@ -158,6 +171,16 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             totalFileCount = incrementalFileCount;
             totalSize = incrementalSize;
         }
+
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            processedBytesPerSecond = in.readVLong();
+        } else {
+            processedBytesPerSecond = averageBytesPerSecond(processedSize, time);
+        }
+    }
+
+    private static long averageBytesPerSecond(long size, long timeInMillis) {
+        return timeInMillis > 0 ? size * 1000L / timeInMillis : 0L;
     }
 
     static final class Fields {
@@ -170,6 +193,8 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         static final String FILE_COUNT = "file_count";
         static final String SIZE = "size";
         static final String SIZE_IN_BYTES = "size_in_bytes";
+        static final String PROCESSED_PER_SEC = "processed_per_sec";
+        static final String PROCESSED_PER_SEC_IN_BYTES = "processed_per_sec_in_bytes";
 
         static final String START_TIME_IN_MILLIS = "start_time_in_millis";
         static final String TIME_IN_MILLIS = "time_in_millis";
@@ -206,6 +231,8 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             // timings stats
             builder.field(Fields.START_TIME_IN_MILLIS, getStartTime());
             builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(getTime()));
+            builder.humanReadableField(Fields.PROCESSED_PER_SEC_IN_BYTES, Fields.PROCESSED_PER_SEC,
+                new ByteSizeValue(getProcessedBytesPerSecond()));
         }
         return builder.endObject();
     }
@@ -226,6 +253,7 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         long incrementalSize = 0;
         long totalSize = 0;
         long processedSize = 0;
+        long processedBytesPerSecond = 0;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser::getTokenLocation);
             String currentName = parser.currentName();
@@ -293,6 +321,9 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             } else if (currentName.equals(Fields.TIME_IN_MILLIS)) {
                 XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_NUMBER, token, parser::getTokenLocation);
                 time = parser.longValue();
+            } else if (currentName.equals(Fields.PROCESSED_PER_SEC_IN_BYTES)) {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_NUMBER, token, parser::getTokenLocation);
+                processedBytesPerSecond = parser.longValue();
             } else {
                 // Unknown field, skip
                 if (token == XContentParser.Token.START_OBJECT || token == XContentParser.Token.START_ARRAY) {
@@ -301,7 +332,7 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             }
         }
         return new SnapshotStats(startTime, time, incrementalFileCount, totalFileCount, processedFileCount, incrementalSize, totalSize,
-            processedSize);
+            processedSize, processedBytesPerSecond);
     }
 
     void add(SnapshotStats stats) {
@@ -327,6 +358,14 @@ public class SnapshotStats implements Streamable, ToXContentObject {
             // Update duration
             time = endTime - startTime;
         }
+
+        if (time > 0) {
+            // The shards overlap, so the throughput is the processed size over the whole duration
+            processedBytesPerSecond = averageBytesPerSecond(processedSize, time);
+        } else {
+            // The duration is unknown while shards are running, sum up the throughput each shard reported
+            processedBytesPerSecond += stats.processedBytesPerSecond;
+        }
     }
 
     @Override
@@ -343,7 +382,8 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         if (processedFileCount != that.processedFileCount) return false;
         if (incrementalSize != that.incrementalSize) return false;
         if (totalSize != that.totalSize) return false;
-        return processedSize == that.processedSize;
+        if (processedSize != that.processedSize) return false;
+        return processedBytesPerSecond == that.processedBytesPerSecond;
     }
 
     @Override
@@ -356,6 +396,7 @@ public class SnapshotStats implements Streamable, ToXContentObject {
         result = 31 * result + (int) (incrementalSize ^ (incrementalSize >>> 32));
         result = 31 * result + (int) (totalSize ^ (totalSize >>> 32));
         result = 31 * result + (int) (processedSize ^ (processedSize >>> 32));
+        result = 31 * result + (int) (processedBytesPerSecond ^ (processedBytesPerSecond >>> 32));
         return result;
     }
 }
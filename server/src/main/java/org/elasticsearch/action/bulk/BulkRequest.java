@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.CompositeIndicesRequest;
@@ -38,6 +39,8 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContent;
@@ -49,10 +52,17 @@ import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.action.ValidateActions.addValidationError;
 
@@ -287,12 +297,271 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                            @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
                            @Nullable String defaultPipeline, @Nullable Object payload, boolean allowExplicitIndex,
                            XContentType xContentType) throws IOException {
+        parse(data, new BodyPosition(), data.length(), defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext,
+            defaultPipeline, allowExplicitIndex, xContentType, request -> add(request, payload));
+        return this;
+    }
+
+    /**
+     * Adds the items of a framed data in binary format whose action line starts in {@code [position.offset(), to)}. The source
+     * of the last item may extend beyond {@code to}. Advances the position right after the last line that was consumed, which
+     * is where the items of the next range start, so that a large body can be added to several requests one range after the
+     * other while errors still report line numbers that are relative to the whole body.
+     */
+    public void addRange(BytesReference data, BodyPosition position, int to, @Nullable String defaultIndex,
+                         @Nullable String defaultType, @Nullable String defaultRouting,
+                         @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                         @Nullable Object payload, boolean allowExplicitIndex, XContentType xContentType) throws IOException {
+        parse(data, position, to, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext, defaultPipeline,
+            allowExplicitIndex, xContentType, request -> add(request, payload));
+    }
+
+    /**
+     * A position in a framed body: the offset of a line and the number of lines before it.
+     */
+    public static final class BodyPosition {
+        private int offset;
+        private int line;
+
+        public BodyPosition() {
+            this(0, 0);
+        }
+
+        BodyPosition(int offset, int line) {
+            this.offset = offset;
+            this.line = line;
+        }
+
+        public int offset() {
+            return offset;
+        }
+
+        public int line() {
+            return line;
+        }
+    }
+
+    /**
+     * Adds a framed data in binary format, parsing it in chunks of roughly {@code chunkSize} bytes that are cut at line
+     * boundaries. All chunks but the first are parsed on the given executor while the calling thread parses the first one.
+     * Whichever chunk finishes last merges the results in order and notifies the listener, so the calling thread never waits
+     * for the executor. The listener is notified in the thread context of the caller, into which the response headers that
+     * were added while parsing the chunks (deprecation warnings for instance) are copied. The parsed requests share the bytes
+     * of {@code data}, nothing is copied. If the executor rejects a chunk it is parsed on the calling thread. Bodies smaller
+     * than two chunks are parsed on the calling thread only.
+     */
+    public void add(BytesReference data, @Nullable String defaultIndex, @Nullable String defaultType,
+                    @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+                    @Nullable String defaultPipeline, @Nullable Object payload, boolean allowExplicitIndex,
+                    XContentType xContentType, Executor executor, int chunkSize, ThreadContext threadContext,
+                    ActionListener<BulkRequest> listener) {
+        final List<Integer> boundaries = chunkSize <= 0 ? null : findChunkBoundaries(data, xContentType, chunkSize);
+        if (boundaries == null || boundaries.size() < 3) {
+            try {
+                add(data, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext, defaultPipeline, payload,
+                    allowExplicitIndex, xContentType);
+            } catch (Exception e) {
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(this);
+            return;
+        }
+        final Supplier<ThreadContext.StoredContext> callerContext = threadContext.newRestorableContext(false);
+        final int numChunks = boundaries.size() - 1;
+        final AtomicReferenceArray<ParsedChunk> chunks = new AtomicReferenceArray<>(numChunks);
+        final CountDown countDown = new CountDown(numChunks);
+        final Runnable merge = () -> {
+            try (ThreadContext.StoredContext ignore = callerContext.get()) {
+                try {
+                    mergeChunks(data, boundaries, chunks, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext,
+                        defaultPipeline, payload, allowExplicitIndex, xContentType, threadContext);
+                } catch (Exception e) {
+                    listener.onFailure(e);
+                    return;
+                }
+                listener.onResponse(this);
+            }
+        };
+        final List<Runnable> tasks = new ArrayList<>(numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            final int chunk = i;
+            final int chunkStart = boundaries.get(i);
+            final int chunkEnd = boundaries.get(i + 1);
+            // only the first chunk is known to start with an action line, the others might start in the middle of an item
+            final boolean mayStartWithSource = i > 0;
+            tasks.add(() -> {
+                // the response headers of the parse stay local to this task, they are copied to the caller's context on merge
+                try (ThreadContext.StoredContext ignore = threadContext.newStoredContext(false)) {
+                    final ParsedChunk parsed = parseChunk(data, chunkStart, chunkEnd, mayStartWithSource, defaultIndex, defaultType,
+                        defaultRouting, defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, xContentType);
+                    chunks.set(chunk, parsed.withResponseHeaders(threadContext.getResponseHeaders()));
+                }
+                if (countDown.countDown()) {
+                    merge.run();
+                }
+            });
+        }
+        for (int i = 1; i < numChunks; i++) {
+            try {
+                executor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                tasks.get(i).run();
+            }
+        }
+        tasks.get(0).run();
+    }
+
+    /**
+     * Adds the items of the parsed chunks in order. Chunks that were parsed from the wrong line are parsed again from where the
+     * previous chunk actually stopped, and any failure causes the whole body to be parsed again sequentially so that the failure
+     * reports the right line number. The response headers of the chunks that are used are copied to the current context.
+     */
+    private void mergeChunks(BytesReference data, List<Integer> boundaries, AtomicReferenceArray<ParsedChunk> chunks,
+                             @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting,
+                             @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                             @Nullable Object payload, boolean allowExplicitIndex, XContentType xContentType,
+                             ThreadContext threadContext) throws IOException {
+        final List<DocWriteRequest<?>> parsed = new ArrayList<>();
+        final List<Map<String, List<String>>> responseHeaders = new ArrayList<>();
+        int expectedStart = 0;
+        for (int i = 0; i < chunks.length(); i++) {
+            final int chunkEnd = boundaries.get(i + 1);
+            final ParsedChunk chunk = chunks.get(i);
+            if (expectedStart >= chunkEnd) {
+                // the previous chunk ended with an item that spans this entire chunk
+                continue;
+            }
+            if (chunk.start == expectedStart) {
+                if (chunk.failure != null) {
+                    add(data, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext, defaultPipeline, payload,
+                        allowExplicitIndex, xContentType);
+                    return;
+                }
+                parsed.addAll(chunk.requests);
+                responseHeaders.add(chunk.responseHeaders);
+                expectedStart = chunk.end;
+            } else {
+                // the chunk was parsed from the wrong line, re-parse it from where the previous chunk actually stopped
+                final ParsedChunk reparsed = parseChunk(data, expectedStart, chunkEnd, false, defaultIndex, defaultType,
+                    defaultRouting, defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, xContentType);
+                if (reparsed.failure != null) {
+                    add(data, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext, defaultPipeline, payload,
+                        allowExplicitIndex, xContentType);
+                    return;
+                }
+                parsed.addAll(reparsed.requests);
+                expectedStart = reparsed.end;
+            }
+        }
+        for (Map<String, List<String>> headers : responseHeaders) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    threadContext.addResponseHeader(header.getKey(), value);
+                }
+            }
+        }
+        for (DocWriteRequest<?> request : parsed) {
+            add(request, payload);
+        }
+    }
+
+    /**
+     * Returns the offsets at which the chunks of a bulk body start, followed by the length of the body. Each chunk starts
+     * right after a line separator. Returns {@code null} if the body is not terminated by a line separator, in which case
+     * it is left to the sequential parser to report the error.
+     */
+    private static List<Integer> findChunkBoundaries(BytesReference data, XContentType xContentType, int chunkSize) {
+        final int length = data.length();
+        if (length == 0 || data.get(length - 1) != xContentType.xContent().streamSeparator()) {
+            return null;
+        }
+        final byte marker = xContentType.xContent().streamSeparator();
+        final List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int next = chunkSize;
+        while (next < length) {
+            final int nextMarker = data.indexOf(marker, next);
+            if (nextMarker == -1 || nextMarker + 1 >= length) {
+                break;
+            }
+            boundaries.add(nextMarker + 1);
+            next = nextMarker + 1 + chunkSize;
+        }
+        boundaries.add(length);
+        return boundaries;
+    }
+
+    /**
+     * Parses the items whose action line starts in {@code [from, to)}. If {@code mayStartWithSource} is set and the first line
+     * cannot be parsed as an action line then it is assumed to be the source of an item of the previous chunk and parsing
+     * starts again from the next line. The caller must check that {@link ParsedChunk#start} is where the previous chunk
+     * stopped before using the result. Failures are captured rather than thrown since they are only meaningful if the chunk
+     * turns out to be aligned.
+     */
+    private ParsedChunk parseChunk(BytesReference data, int from, int to, boolean mayStartWithSource,
+                                   @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting,
+                                   @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                                   boolean allowExplicitIndex, XContentType xContentType) {
+        final List<DocWriteRequest<?>> requests = new ArrayList<>();
+        try {
+            // the line numbers are only right for the first chunk, failures of the others are reported by parsing sequentially
+            final BodyPosition position = new BodyPosition(from, 0);
+            parse(data, position, to, defaultIndex, defaultType, defaultRouting, defaultFetchSourceContext,
+                defaultPipeline, allowExplicitIndex, xContentType, requests::add);
+            return new ParsedChunk(from, position.offset(), requests, null);
+        } catch (Exception e) {
+            if (mayStartWithSource) {
+                final int nextMarker = data.indexOf(xContentType.xContent().streamSeparator(), from);
+                if (nextMarker != -1 && nextMarker + 1 < to) {
+                    return parseChunk(data, nextMarker + 1, to, false, defaultIndex, defaultType, defaultRouting,
+                        defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, xContentType);
+                }
+            }
+            return new ParsedChunk(from, to, requests, e);
+        }
+    }
+
+    private static final class ParsedChunk {
+        final int start;
+        final int end;
+        final List<DocWriteRequest<?>> requests;
+        final Exception failure;
+        final Map<String, List<String>> responseHeaders;
+
+        ParsedChunk(int start, int end, List<DocWriteRequest<?>> requests, Exception failure) {
+            this(start, end, requests, failure, Collections.emptyMap());
+        }
+
+        private ParsedChunk(int start, int end, List<DocWriteRequest<?>> requests, Exception failure,
+                            Map<String, List<String>> responseHeaders) {
+            this.start = start;
+            this.end = end;
+            this.requests = requests;
+            this.failure = failure;
+            this.responseHeaders = responseHeaders;
+        }
+
+        ParsedChunk withResponseHeaders(Map<String, List<String>> responseHeaders) {
+            return new ParsedChunk(start, end, requests, failure, responseHeaders);
+        }
+    }
+
+    /**
+     * Parses the items whose action line starts in {@code [position.offset(), to)} and passes them to the consumer in order.
+     * The source of the last item may extend beyond {@code to}. Advances the position right after the last line that was
+     * consumed.
+     */
+    private void parse(BytesReference data, BodyPosition position, int to, @Nullable String defaultIndex,
+                       @Nullable String defaultType, @Nullable String defaultRouting,
+                       @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                       boolean allowExplicitIndex, XContentType xContentType, Consumer<DocWriteRequest<?>> consumer) throws IOException {
         XContent xContent = xContentType.xContent();
-        int line = 0;
-        int from = 0;
+        int from = position.offset;
+        int line = position.line;
         int length = data.length();
         byte marker = xContent.streamSeparator();
-        while (true) {
+        while (from < to) {
             int nextMarker = findNextMarker(marker, from, data, length);
             if (nextMarker == -1) {
                 break;
@@ -386,7 +655,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                 }
 
                 if ("delete".equals(action)) {
-                    add(new DeleteRequest(index, type, id).routing(routing).version(version).versionType(versionType), payload);
+                    consumer.accept(new DeleteRequest(index, type, id).routing(routing).version(version).versionType(versionType));
                 } else {
                     nextMarker = findNextMarker(marker, from, data, length);
                     if (nextMarker == -1) {
@@ -394,22 +663,22 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                     }
                     line++;
 
-                    // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
+                    // the sources are slices of the bulk body, this allows us not to copy over the big byte array to small chunks
                     // of index request.
                     if ("index".equals(action)) {
                         if (opType == null) {
-                            internalAdd(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
+                            consumer.accept(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
                                     .setPipeline(pipeline)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker,xContentType), xContentType), payload);
+                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker,xContentType), xContentType));
                         } else {
-                            internalAdd(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
+                            consumer.accept(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
                                     .create("create".equals(opType)).setPipeline(pipeline)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), payload);
+                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType));
                         }
                     } else if ("create".equals(action)) {
-                        internalAdd(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
+                        consumer.accept(new IndexRequest(index, type, id).routing(routing).version(version).versionType(versionType)
                                 .create(true).setPipeline(pipeline)
-                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType), payload);
+                                .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType));
                     } else if ("update".equals(action)) {
                         UpdateRequest updateRequest = new UpdateRequest(index, type, id).routing(routing).retryOnConflict(retryOnConflict)
                                 .version(version).versionType(versionType)
@@ -435,14 +704,15 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                             doc.versionType(versionType);
                         }
 
-                        internalAdd(updateRequest, payload);
+                        consumer.accept(updateRequest);
                     }
                     // move pointers
                     from = nextMarker + 1;
                 }
             }
         }
-        return this;
+        position.offset = from;
+        position.line = line;
     }
 
     /**
@@ -512,10 +782,9 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
     }
 
     private int findNextMarker(byte marker, int from, BytesReference data, int length) {
-        for (int i = from; i < length; i++) {
-            if (data.get(i) == marker) {
-                return i;
-            }
+        final int nextMarker = data.indexOf(marker, from);
+        if (nextMarker != -1) {
+            return nextMarker;
         }
         if (from != length) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\n]");
@@ -516,7 +516,7 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
             in.readOptionalString(); // timestamp
             in.readOptionalTimeValue(); // ttl
         }
-        source = in.readBytesReference();
+        source = in.readRetainedBytesReference();
         opType = OpType.fromId(in.readByte());
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
@@ -20,7 +20,10 @@
 package org.elasticsearch.cluster.action.index;
 
 import org.elasticsearch.ElasticsearchTimeoutException;
-import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequestBuilder;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.IndicesAdminClient;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -35,6 +38,13 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Called by shards in the cluster when their mapping was dynamically updated and it needs to be updated
  * in the cluster state meta data (and broadcast to all members).
@@ -48,6 +58,9 @@ public class MappingUpdatedAction extends AbstractComponent {
     private IndicesAdminClient client;
     private volatile TimeValue dynamicMappingUpdateTimeout;
 
+    // mapping updates that were sent to the master and are waiting for a response, and the listeners waiting for them
+    private final Map<PendingMappingUpdate, List<ActionListener<AcknowledgedResponse>>> pendingUpdates = new HashMap<>();
+
     @Inject
     public MappingUpdatedAction(Settings settings, ClusterSettings clusterSettings) {
         super(settings);
@@ -64,14 +77,6 @@ public class MappingUpdatedAction extends AbstractComponent {
         this.client = client.admin().indices();
     }
 
-    private PutMappingRequestBuilder updateMappingRequest(Index index, String type, Mapping mappingUpdate, final TimeValue timeout) {
-        if (type.equals(MapperService.DEFAULT_MAPPING)) {
-            throw new IllegalArgumentException("_default_ mapping should not be updated");
-        }
-        return client.preparePutMapping().setConcreteIndex(index).setType(type).setSource(mappingUpdate.toString(), XContentType.JSON)
-                .setMasterNodeTimeout(timeout).setTimeout(timeout);
-    }
-
     /**
      * Same as {@link #updateMappingOnMaster(Index, String, Mapping, TimeValue)}
      * using the default timeout.
@@ -86,8 +91,93 @@ public class MappingUpdatedAction extends AbstractComponent {
      * been applied to the master node and propagated to data nodes.
      */
     public void updateMappingOnMaster(Index index, String type, Mapping mappingUpdate, TimeValue timeout) {
-        if (updateMappingRequest(index, type, mappingUpdate, timeout).get().isAcknowledged() == false) {
+        if (type.equals(MapperService.DEFAULT_MAPPING)) {
+            throw new IllegalArgumentException("_default_ mapping should not be updated");
+        }
+        final PlainActionFuture<AcknowledgedResponse> future = PlainActionFuture.newFuture();
+        updateMappingOnMaster(index, type, mappingUpdate.toString(), timeout, future);
+        if (future.actionGet().isAcknowledged() == false) {
             throw new ElasticsearchTimeoutException("Failed to acknowledge mapping update within [" + timeout + "]");
         }
     }
+
+    /**
+     * Sends the given mapping update to the master unless the very same update for the same index and type is already in
+     * flight from this node, in which case the listener is notified with the response of the request that is in flight. This
+     * coalesces the updates that all shards of an index on this node send when they see the same new field at the same time.
+     */
+    void updateMappingOnMaster(Index index, String type, String mappingSource, TimeValue timeout,
+                               ActionListener<AcknowledgedResponse> listener) {
+        final PendingMappingUpdate pendingUpdate = new PendingMappingUpdate(index, type, mappingSource);
+        synchronized (pendingUpdates) {
+            final List<ActionListener<AcknowledgedResponse>> listeners = pendingUpdates.get(pendingUpdate);
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+            pendingUpdates.put(pendingUpdate, new ArrayList<>(Collections.singletonList(listener)));
+        }
+        final ActionListener<AcknowledgedResponse> pendingUpdateListener = new ActionListener<AcknowledgedResponse>() {
+            @Override
+            public void onResponse(AcknowledgedResponse response) {
+                ActionListener.onResponse(removePendingUpdate(pendingUpdate), response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                ActionListener.onFailure(removePendingUpdate(pendingUpdate), e);
+            }
+        };
+        try {
+            final PutMappingRequest request = new PutMappingRequest().setConcreteIndex(index).type(type)
+                .source(mappingSource, XContentType.JSON).masterNodeTimeout(timeout).timeout(timeout);
+            client.putMapping(request, pendingUpdateListener);
+        } catch (Exception e) {
+            pendingUpdateListener.onFailure(e);
+        }
+    }
+
+    private List<ActionListener<AcknowledgedResponse>> removePendingUpdate(PendingMappingUpdate pendingUpdate) {
+        synchronized (pendingUpdates) {
+            return pendingUpdates.remove(pendingUpdate);
+        }
+    }
+
+    /**
+     * Number of distinct mapping updates that this node is currently waiting for the master to apply.
+     */
+    int pendingMappingUpdates() {
+        synchronized (pendingUpdates) {
+            return pendingUpdates.size();
+        }
+    }
+
+    private static final class PendingMappingUpdate {
+        private final Index index;
+        private final String type;
+        private final String mappingSource;
+
+        PendingMappingUpdate(Index index, String type, String mappingSource) {
+            this.index = index;
+            this.type = type;
+            this.mappingSource = mappingSource;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PendingMappingUpdate that = (PendingMappingUpdate) o;
+            return index.equals(that.index) && type.equals(that.type) && mappingSource.equals(that.mappingSource);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, type, mappingSource);
+        }
+    }
 }
@@ -81,12 +81,12 @@ public class MappingMetaData extends AbstractDiffable<MappingMetaData> {
 
     public MappingMetaData(DocumentMapper docMapper) {
         this.type = docMapper.type();
-        this.source = docMapper.mappingSource();
+        this.source = CompressedXContent.intern(docMapper.mappingSource());
         this.routing = new Routing(docMapper.routingFieldMapper().required());
     }
 
     public MappingMetaData(CompressedXContent mapping) throws IOException {
-        this.source = mapping;
+        this.source = CompressedXContent.intern(mapping);
         Map<String, Object> mappingMap = XContentHelper.convertToMap(mapping.compressedReference(), true).v2();
         if (mappingMap.size() != 1) {
             throw new IllegalStateException("Can't derive type from mapping, no root type: " + mapping.string());
@@ -98,7 +98,7 @@ public class MappingMetaData extends AbstractDiffable<MappingMetaData> {
     public MappingMetaData(String type, Map<String, Object> mapping) throws IOException {
         this.type = type;
         XContentBuilder mappingBuilder = XContentFactory.jsonBuilder().map(mapping);
-        this.source = new CompressedXContent(BytesReference.bytes(mappingBuilder));
+        this.source = CompressedXContent.intern(new CompressedXContent(BytesReference.bytes(mappingBuilder)));
         Map<String, Object> withoutType = mapping;
         if (mapping.size() == 1 && mapping.containsKey(type)) {
             withoutType = (Map<String, Object>) mapping.get(type);
@@ -207,7 +207,7 @@ public class MappingMetaData extends AbstractDiffable<MappingMetaData> {
 
     public MappingMetaData(StreamInput in) throws IOException {
         type = in.readString();
-        source = CompressedXContent.readCompressedString(in);
+        source = CompressedXContent.intern(CompressedXContent.readCompressedString(in));
         // routing
         routing = new Routing(in.readBoolean());
         if (in.getVersion().before(Version.V_6_0_0_alpha1)) {
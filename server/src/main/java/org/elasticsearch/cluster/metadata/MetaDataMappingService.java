@@ -50,8 +50,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason.NO_LONGER_ASSIGNED;
 
@@ -218,10 +220,18 @@ public class MetaDataMappingService extends AbstractComponent {
         public ClusterTasksResult<PutMappingClusterStateUpdateRequest> execute(ClusterState currentState,
                                                                                List<PutMappingClusterStateUpdateRequest> tasks) throws Exception {
             Map<Index, MapperService> indexMapperServices = new HashMap<>();
+            // dynamic mapping updates for a new field are typically sent by every shard that sees it, so a batch often contains
+            // the same update many times. Merging mappings is idempotent so it is enough to apply each distinct update once.
+            Set<List<Object>> appliedUpdates = new HashSet<>();
             ClusterTasksResult.Builder<PutMappingClusterStateUpdateRequest> builder = ClusterTasksResult.builder();
             try {
                 for (PutMappingClusterStateUpdateRequest request : tasks) {
                     try {
+                        final List<Object> updateKey = Arrays.asList(Arrays.asList(request.indices()), request.type(), request.source());
+                        if (appliedUpdates.contains(updateKey)) {
+                            builder.success(request);
+                            continue;
+                        }
                         for (Index index : request.indices()) {
                             final IndexMetaData indexMetaData = currentState.metaData().getIndexSafe(index);
                             if (indexMapperServices.containsKey(indexMetaData.getIndex()) == false) {
@@ -232,6 +242,7 @@ public class MetaDataMappingService extends AbstractComponent {
                             }
                         }
                         currentState = applyRequest(currentState, request, indexMapperServices);
+                        appliedUpdates.add(updateKey);
                         builder.success(request);
                     } catch (Exception e) {
                         builder.failure(request, e);
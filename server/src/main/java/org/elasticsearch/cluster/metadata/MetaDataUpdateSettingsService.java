@@ -41,6 +41,7 @@ import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.store.SnapshotIndexStore;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 
@@ -126,6 +127,14 @@ public class MetaDataUpdateSettingsService extends AbstractComponent {
                     Index index = request.indices()[i];
                     actualIndices[i] = index.getName();
                     final IndexMetaData metaData = currentState.metaData().getIndexSafe(index);
+                    if (SnapshotIndexStore.isSnapshotStore(metaData.getSettings())) {
+                        final Settings updated = metaData.getState() == IndexMetaData.State.OPEN ? openSettings : closedSettings;
+                        if (IndexMetaData.INDEX_BLOCKS_WRITE_SETTING.exists(updated)
+                            && IndexMetaData.INDEX_BLOCKS_WRITE_SETTING.get(updated) == false) {
+                            throw new IllegalArgumentException("cannot remove the write block of index [" + index.getName()
+                                + "], its files are served from a snapshot");
+                        }
+                    }
                     if (metaData.getState() == IndexMetaData.State.OPEN) {
                         openIndices.add(index);
                     } else {
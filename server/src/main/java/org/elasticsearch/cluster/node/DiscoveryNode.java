@@ -218,7 +218,7 @@ public class DiscoveryNode implements Writeable, ToXContentFragment {
      */
     public DiscoveryNode(StreamInput in) throws IOException {
         this.nodeName = in.readString().intern();
-        this.nodeId = in.readString().intern();
+        this.nodeId = in.readSharedString().intern();
         this.ephemeralId = in.readString().intern();
         this.hostName = in.readString().intern();
         this.hostAddress = in.readString().intern();
@@ -226,7 +226,7 @@ public class DiscoveryNode implements Writeable, ToXContentFragment {
         int size = in.readVInt();
         this.attributes = new HashMap<>(size);
         for (int i = 0; i < size; i++) {
-            this.attributes.put(in.readString(), in.readString());
+            this.attributes.put(in.readSharedString(), in.readString());
         }
         int rolesSize = in.readVInt();
         this.roles = EnumSet.noneOf(Role.class);
@@ -239,14 +239,14 @@ public class DiscoveryNode implements Writeable, ToXContentFragment {
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeString(nodeName);
-        out.writeString(nodeId);
+        out.writeSharedString(nodeId);
         out.writeString(ephemeralId);
         out.writeString(hostName);
         out.writeString(hostAddress);
         address.writeTo(out);
         out.writeVInt(attributes.size());
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
-            out.writeString(entry.getKey());
+            out.writeSharedString(entry.getKey());
             out.writeString(entry.getValue());
         }
         out.writeVInt(roles.size());
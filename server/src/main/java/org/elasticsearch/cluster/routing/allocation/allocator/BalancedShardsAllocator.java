@@ -451,7 +451,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
 
-            buildWeightOrderedIndices();
+            sorter.reset(shard.getIndexName());
             Map<DiscoveryNode, Float> nodes = new HashMap<>(modelNodes.length);
             float currentNodeWeight = 0.0f;
             for (int i = 0; i < modelNodes.length; i++) {
@@ -484,7 +484,27 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
-            for (String index : buildWeightOrderedIndices()) {
+            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
+            final float[] deltas = new float[indices.length];
+            buildWeightOrderedIndices(indices, deltas);
+            boolean relocated = false;
+            for (int indexIdx = 0; indexIdx < indices.length; indexIdx++) {
+                final String index = indices[indexIdx];
+                /*
+                 * The weight delta between any two nodes that may hold shards of this index is at most the delta across all nodes,
+                 * so if that is within the threshold there is nothing to balance and we can skip asking the deciders about every
+                 * node. The deltas computed upfront are only accurate until the first relocation changes the node weights, up to
+                 * then the indices are ordered by decreasing delta and the first balanced index means all remaining ones are too.
+                 */
+                if (lessThan(relocated ? weightDelta(index) : deltas[indexIdx], threshold)) {
+                    if (relocated == false) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("Stop balancing, index [{}] and all following indices are balanced", index);
+                        }
+                        break;
+                    }
+                    continue;
+                }
                 IndexMetaData indexMetaData = metaData.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -543,6 +563,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                         /* pass the delta to the replication function to prevent relocations that only swap the weights of the two nodes.
                          * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
                         if (tryRelocateShard(minNode, maxNode, index, delta)) {
+                            relocated = true;
                             /*
                              * TODO we could be a bit smarter here, we don't need to fully sort necessarily
                              * we could just find the place to insert linearly but the win might be minor
@@ -577,8 +598,8 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         }
 
         /**
-         * This builds a initial index ordering where the indices are returned
-         * in most unbalanced first. We need this in order to prevent over
+         * This builds a initial index ordering by sorting the given indices
+         * in place, most unbalanced first, and fills in their weight deltas. We need this in order to prevent over
          * allocations on added nodes from one index when the weight parameters
          * for global balance overrule the index balance at an intermediate
          * state. For example this can happen if we have 3 nodes and 3 indices
@@ -589,12 +610,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
          * average. To re-balance we need to move shards back eventually likely
          * to the nodes we relocated them from.
          */
-        private String[] buildWeightOrderedIndices() {
-            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
-            final float[] deltas = new float[indices.length];
+        private void buildWeightOrderedIndices(String[] indices, float[] deltas) {
+            assert indices.length == deltas.length;
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = weightDelta(indices[i]);
             }
             new IntroSorter() {
 
@@ -625,8 +644,21 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                     return Float.compare(deltas[j], pivotWeight);
                 }
             }.sort(0, deltas.length);
+        }
 
-            return indices;
+        /**
+         * Returns the difference between the highest and the lowest weight across all nodes for the given index. Unlike
+         * {@link NodeSorter#delta()} this does not need to sort the nodes.
+         */
+        private float weightDelta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : sorter.modelNodes) {
+                final float nodeWeight = weight.weight(this, node, index);
+                minWeight = Math.min(minWeight, nodeWeight);
+                maxWeight = Math.max(maxWeight, nodeWeight);
+            }
+            return maxWeight - minWeight;
         }
 
         /**
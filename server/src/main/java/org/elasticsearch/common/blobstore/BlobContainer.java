@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.blobstore;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
@@ -57,6 +58,49 @@ public interface BlobContainer {
      */
     InputStream readBlob(String blobName) throws IOException;
 
+    /**
+     * Reads {@code length} bytes of the given blob, starting at {@code position}, into the given buffer. Implementations that
+     * can read a range of a blob directly should override this method, the default implementation reads the blob from the start.
+     *
+     * @param   blobName
+     *          The name of the blob to read.
+     * @param   position
+     *          The position in the blob of the first byte to read.
+     * @param   buffer
+     *          The buffer to read the bytes into.
+     * @param   offset
+     *          The offset in the buffer of the first byte to read.
+     * @param   length
+     *          The number of bytes to read.
+     * @throws  NoSuchFileException if the blob does not exist
+     * @throws  EOFException if the blob ends before {@code position + length}
+     * @throws  IOException if the blob can not be read.
+     */
+    default void readBlob(String blobName, long position, byte[] buffer, int offset, int length) throws IOException {
+        try (InputStream inputStream = readBlob(blobName)) {
+            long toSkip = position;
+            while (toSkip > 0) {
+                final long skipped = inputStream.skip(toSkip);
+                if (skipped <= 0) {
+                    if (inputStream.read() == -1) {
+                        throw new EOFException("unexpected end of blob [" + blobName + "] while skipping to [" + position + "]");
+                    }
+                    toSkip--;
+                } else {
+                    toSkip -= skipped;
+                }
+            }
+            int read = 0;
+            while (read < length) {
+                final int n = inputStream.read(buffer, offset + read, length - read);
+                if (n == -1) {
+                    throw new EOFException("unexpected end of blob [" + blobName + "] at [" + (position + read) + "]");
+                }
+                read += n;
+            }
+        }
+    }
+
     /**
      * Reads blob content from the input stream and writes it to the container in a new blob with the given name.
      * This method assumes the container does not already contain a blob of the same blobName.  If a blob by the
@@ -19,22 +19,41 @@
 
 package org.elasticsearch.common.breaker;
 
+import com.carrotsearch.hppc.BitMixer;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.indices.breaker.BreakerSettings;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Breaker that will check a parent's when incrementing
+ * <p>
+ * Small estimates are accounted in per-thread stripes: a stripe reserves {@link #CHUNK_SIZE} bytes at once from the breaker
+ * and hands them out to the threads that hash to it, so that concurrent callers rarely update the same counter. Stripes are
+ * only used while the breaker is far enough from its limit that their unused reservations cannot make it trip, and they are
+ * drained before the breaker trips, so the limit is enforced on the bytes that are actually in use. Reserved bytes count
+ * against the parent breaker as well, see {@link #getUsedIncludingReservations()}.
  */
 public class ChildMemoryCircuitBreaker implements CircuitBreaker {
 
+    /** The number of bytes that a stripe reserves from the breaker at once. */
+    static final long CHUNK_SIZE = 256 * 1024;
+    // each stripe uses its own cache line
+    private static final int STRIPE_PADDING = 8;
+    private static final int NUM_STRIPES = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors() * 2));
+
     private final long memoryBytesLimit;
     private final BreakerSettings settings;
     private final double overheadConstant;
+    // bytes in use, plus bytes reserved by the stripes that are not handed out yet
     private final AtomicLong used;
+    private final AtomicLongArray stripes;
+    // whether the stripes may hold reserved bytes, cleared when they get drained
+    private final AtomicBoolean stripesDirty;
     private final AtomicLong trippedCount;
     private final Logger logger;
     private final HierarchyCircuitBreakerService parent;
@@ -71,9 +90,13 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
         this.overheadConstant = settings.getOverhead();
         if (oldBreaker == null) {
             this.used = new AtomicLong(0);
+            this.stripes = new AtomicLongArray(NUM_STRIPES * STRIPE_PADDING);
+            this.stripesDirty = new AtomicBoolean(false);
             this.trippedCount = new AtomicLong(0);
         } else {
             this.used = oldBreaker.used;
+            this.stripes = oldBreaker.stripes;
+            this.stripesDirty = oldBreaker.stripesDirty;
             this.trippedCount = oldBreaker.trippedCount;
         }
         this.logger = logger;
@@ -104,7 +127,7 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
      * memory limit is set to 0. Will never trip the breaker if the limit is
      * set &lt; 0, but can still be used to aggregate estimations.
      * @param bytes number of bytes to add to the breaker
-     * @return number of "used" bytes so far
+     * @return number of "used" bytes so far, which may include bytes that are reserved for other threads but not used yet
      */
     @Override
     public double addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
@@ -113,6 +136,21 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
             circuitBreak(label, bytes);
         }
 
+        if (bytes < 0) {
+            return release(-bytes);
+        }
+        if (bytes < CHUNK_SIZE && canUseStripes()) {
+            final int stripe = stripe();
+            if (takeFromStripe(stripe, bytes)) {
+                return used.get();
+            }
+            final long newUsed = reserveChunk(stripe, bytes);
+            if (newUsed >= 0) {
+                return newUsed;
+            }
+            // the chunk does not fit, account these bytes exactly
+        }
+
         long newUsed;
         // If there is no limit (-1), we can optimize a bit by using
         // .addAndGet() instead of looping (because we don't have to check a
@@ -130,12 +168,106 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
             // If the parent breaker is tripped, this breaker has to be
             // adjusted back down because the allocation is "blocked" but the
             // breaker has already been incremented
-            this.addWithoutBreaking(-bytes);
+            this.used.addAndGet(-bytes);
             throw e;
         }
         return newUsed;
     }
 
+    /**
+     * Whether stripes may hold reservations: their unused bytes must never be the reason why the breaker trips.
+     */
+    private boolean canUseStripes() {
+        if (memoryBytesLimit < 0) {
+            return true;
+        }
+        final long maxReserved = used.get() + NUM_STRIPES * 2 * CHUNK_SIZE;
+        return (long) (maxReserved * overheadConstant) <= memoryBytesLimit;
+    }
+
+    private static int stripe() {
+        // don't trust Thread.hashCode to have equiprobable low bits
+        return ((int) BitMixer.mix64(Thread.currentThread().getId()) & (NUM_STRIPES - 1)) * STRIPE_PADDING;
+    }
+
+    private boolean takeFromStripe(int stripe, long bytes) {
+        long available;
+        do {
+            available = stripes.get(stripe);
+            if (available < bytes) {
+                return false;
+            }
+        } while (stripes.compareAndSet(stripe, available, available - bytes) == false);
+        return true;
+    }
+
+    /**
+     * Reserve a chunk for the given stripe and hand the given bytes out of it, returning the new number of used bytes, or -1
+     * if the chunk could not be reserved, either because of this breaker's limit or because the parent has no room for it.
+     */
+    private long reserveChunk(int stripe, long bytes) {
+        // the chunk counts against the parent once it is reserved, so check for room first rather than adding it and taking it
+        // back, which could make concurrent checks of the parent trip
+        if (parent.hasParentRoomFor((long) (CHUNK_SIZE * overheadConstant)) == false) {
+            // the parent may still have room for the bytes that are needed right now, the caller checks them exactly
+            return -1;
+        }
+        long currentUsed;
+        long newUsed;
+        do {
+            currentUsed = used.get();
+            newUsed = currentUsed + CHUNK_SIZE;
+            if (memoryBytesLimit > 0 && (long) (newUsed * overheadConstant) > memoryBytesLimit) {
+                return -1;
+            }
+        } while (used.compareAndSet(currentUsed, newUsed) == false);
+        stripes.addAndGet(stripe, CHUNK_SIZE - bytes);
+        // set after the stripe holds the bytes: a drain that clears the flag concurrently leaves it set for the next one
+        stripesDirty.set(true);
+        return newUsed;
+    }
+
+    /**
+     * Give the given number of bytes back, to the stripe of the current thread when stripes are in use so that it can hand them
+     * out again without touching the shared counter.
+     */
+    private long release(long bytes) {
+        if (bytes < CHUNK_SIZE && canUseStripes()) {
+            final int stripe = stripe();
+            final long available = stripes.addAndGet(stripe, bytes);
+            stripesDirty.set(true);
+            // keep at most one chunk around per stripe
+            if (available > 2 * CHUNK_SIZE && stripes.compareAndSet(stripe, available, CHUNK_SIZE)) {
+                return used.addAndGet(CHUNK_SIZE - available);
+            }
+            return used.get();
+        }
+        final long u = used.addAndGet(-bytes);
+        if (logger.isTraceEnabled()) {
+            logger.trace("[{}] Adjusted breaker by [{}] bytes, now [{}]", this.name, -bytes, u);
+        }
+        assert u >= 0 : "Used bytes: [" + u + "] must be >= 0";
+        return u;
+    }
+
+    /**
+     * Give all bytes that stripes reserved but did not hand out back to the breaker, returns whether there were any. The parent
+     * calls this before it trips, since these bytes are not in use.
+     */
+    public boolean drainStripes() {
+        if (stripesDirty.getAndSet(false) == false) {
+            return false;
+        }
+        long drained = 0;
+        for (int i = 0; i < NUM_STRIPES; ++i) {
+            drained += stripes.getAndSet(i * STRIPE_PADDING, 0);
+        }
+        if (drained != 0) {
+            used.addAndGet(-drained);
+        }
+        return drained != 0;
+    }
+
     private long noLimit(long bytes, String label) {
         long newUsed;
         newUsed = this.used.addAndGet(bytes);
@@ -151,7 +283,7 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
         // there are conflicts. May result in additional logging, but it's
         // trace logging and shouldn't be counted on for additions.
         long currentUsed;
-        do {
+        while (true) {
             currentUsed = this.used.get();
             newUsed = currentUsed + bytes;
             long newUsedWithOverhead = (long) (newUsed * overheadConstant);
@@ -163,6 +295,10 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
                         newUsedWithOverhead, new ByteSizeValue(newUsedWithOverhead));
             }
             if (memoryBytesLimit > 0 && newUsedWithOverhead > memoryBytesLimit) {
+                // bytes that stripes reserved but do not use must not trip the breaker
+                if (drainStripes()) {
+                    continue;
+                }
                 logger.warn("[{}] New used memory {} [{}] for data of [{}] would be larger than configured breaker: {} [{}], breaking",
                         this.name,
                         newUsedWithOverhead, new ByteSizeValue(newUsedWithOverhead), label,
@@ -171,8 +307,10 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
             }
             // Attempt to set the new used value, but make sure it hasn't changed
             // underneath us, if it has, keep trying until we are able to set it
-        } while (!this.used.compareAndSet(currentUsed, newUsed));
-        return newUsed;
+            if (this.used.compareAndSet(currentUsed, newUsed)) {
+                return newUsed;
+            }
+        }
     }
 
     /**
@@ -187,6 +325,9 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
      */
     @Override
     public long addWithoutBreaking(long bytes) {
+        if (bytes < 0) {
+            return release(-bytes);
+        }
         long u = used.addAndGet(bytes);
         if (logger.isTraceEnabled()) {
             logger.trace("[{}] Adjusted breaker by [{}] bytes, now [{}]", this.name, bytes, u);
@@ -196,10 +337,29 @@ public class ChildMemoryCircuitBreaker implements CircuitBreaker {
     }
 
     /**
-     * @return the number of aggregated "used" bytes so far
+     * @return the number of aggregated "used" bytes so far, not counting bytes that stripes reserved but did not hand out
      */
     @Override
     public long getUsed() {
+        // chunks move between the shared counter and the stripes in two steps, so read the stripes again if the shared
+        // counter changed while they were summed up
+        long currentUsed;
+        long reserved;
+        do {
+            currentUsed = this.used.get();
+            reserved = 0;
+            for (int i = 0; i < NUM_STRIPES; ++i) {
+                reserved += stripes.get(i * STRIPE_PADDING);
+            }
+        } while (currentUsed != this.used.get());
+        return Math.max(0, currentUsed - reserved);
+    }
+
+    /**
+     * @return the number of bytes that count against the limits of this breaker and of its parent: the bytes in use plus the
+     * bytes that stripes reserved but did not hand out yet
+     */
+    public long getUsedIncludingReservations() {
         return this.used.get();
     }
 
@@ -20,7 +20,11 @@
 package org.elasticsearch.common.bytes;
 
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 /**
@@ -34,6 +38,9 @@ import java.nio.ByteBuffer;
  */
 public class ByteBufferReference extends BytesReference {
 
+    // the size of the chunks that the bytes of a direct buffer are copied in when iterating over them
+    private static final int DIRECT_CHUNK_SIZE = 8 * 1024;
+
     private final ByteBuffer buffer;
     private final int offset;
     private final int length;
@@ -78,10 +85,49 @@ public class ByteBufferReference extends BytesReference {
             return new BytesRef(buffer.array(), buffer.arrayOffset() + offset, length);
         }
         final byte[] copy = new byte[length];
-        buffer.get(copy, offset, length);
+        duplicate().get(copy);
         return new BytesRef(copy);
     }
 
+    /**
+     * Direct byte buffers are read in place rather than copied into an array first.
+     */
+    @Override
+    public StreamInput streamInput() throws IOException {
+        if (buffer.hasArray()) {
+            return super.streamInput();
+        }
+        return new ByteBufferStreamInput(duplicate());
+    }
+
+    /**
+     * The bytes of a direct byte buffer are copied in chunks into a single array that all returned {@link BytesRef}s share.
+     */
+    @Override
+    public BytesRefIterator iterator() {
+        if (buffer.hasArray()) {
+            return super.iterator();
+        }
+        final ByteBuffer duplicate = duplicate();
+        final BytesRef spare = new BytesRef(new byte[Math.min(length, DIRECT_CHUNK_SIZE)]);
+        return () -> {
+            if (duplicate.hasRemaining() == false) {
+                return null;
+            }
+            spare.length = Math.min(duplicate.remaining(), spare.bytes.length);
+            duplicate.get(spare.bytes, 0, spare.length);
+            return spare;
+        };
+    }
+
+    private ByteBuffer duplicate() {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.clear();
+        duplicate.limit(offset + length);
+        duplicate.position(offset);
+        return duplicate;
+    }
+
     @Override
     public long ramBytesUsed() {
         return buffer.capacity();
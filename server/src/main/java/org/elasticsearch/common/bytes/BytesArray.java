@@ -73,6 +73,18 @@ public final class BytesArray extends BytesReference {
         return new BytesArray(bytes, offset + from, length);
     }
 
+    @Override
+    public int indexOf(byte marker, int from) {
+        final int start = offset + from;
+        final int end = offset + length;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == marker) {
+                return i - offset;
+            }
+        }
+        return -1;
+    }
+
     public byte[] array() {
         return bytes;
     }
@@ -71,6 +71,21 @@ public abstract class BytesReference implements Accountable, Comparable<BytesRef
      */
     public abstract BytesReference slice(int from, int length);
 
+    /**
+     * Returns the index of the first occurrence of the given marker at or after {@code from}, or {@code -1} if the marker
+     * does not occur in the remaining bytes. Implementations are encouraged to override this with a scan that does not go
+     * through {@link #get(int)} for every byte.
+     */
+    public int indexOf(byte marker, int from) {
+        final int to = length();
+        for (int i = from; i < to; i++) {
+            if (get(i) == marker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * A stream input of the bytes.
      */
@@ -316,6 +331,7 @@ public abstract class BytesReference implements Accountable, Comparable<BytesRef
         public void reset() throws IOException {
             input = new BytesReferenceStreamInput(reference.iterator(), reference.length());
             input.skip(mark);
+            resetSharedStrings();
         }
 
         @Override
@@ -328,6 +344,7 @@ public abstract class BytesReference implements Accountable, Comparable<BytesRef
             // readLimit is optional it only guarantees that the stream remembers data upto this limit but it can remember more
             // which we do in our case
             this.mark = input.getOffset();
+            markSharedStrings();
         }
 
         @Override
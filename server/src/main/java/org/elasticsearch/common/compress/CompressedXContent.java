@@ -25,6 +25,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.WeakInterner;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -65,6 +66,12 @@ public final class CompressedXContent {
         return (int) crc32.getValue();
     }
 
+    /**
+     * Canonical instances handed out by {@link #intern(CompressedXContent)}. A source is dropped from the table as soon as no
+     * mapping uses it anymore.
+     */
+    private static final WeakInterner<CompressedXContent> INTERNED = new WeakInterner<>();
+
     private final byte[] bytes;
     private final int crc32;
 
@@ -127,6 +134,14 @@ public final class CompressedXContent {
         this(new BytesArray(new BytesRef(str)));
     }
 
+    /**
+     * Returns a canonical instance that is equal to the given one. Thousands of indices created from the same template
+     * usually have identical mappings, interning their sources lets them share a single copy of the compressed bytes.
+     */
+    public static CompressedXContent intern(CompressedXContent compressedXContent) {
+        return INTERNED.intern(compressedXContent);
+    }
+
     /** Return the compressed bytes. */
     public byte[] compressed() {
         return this.bytes;
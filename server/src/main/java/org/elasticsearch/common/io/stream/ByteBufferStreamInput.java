@@ -79,6 +79,7 @@ public class ByteBufferStreamInput extends StreamInput {
     @Override
     public void reset() throws IOException {
         buffer.reset();
+        resetSharedStrings();
     }
 
     @Override
@@ -96,6 +97,7 @@ public class ByteBufferStreamInput extends StreamInput {
     @Override
     public void mark(int readlimit) {
         buffer.mark();
+        markSharedStrings();
     }
 
     @Override
@@ -104,6 +104,7 @@ public class BytesStreamOutput extends BytesStream {
 
         // go back to start
         count = 0;
+        resetSharedStrings();
     }
 
     @Override
@@ -23,6 +23,7 @@ import org.elasticsearch.Version;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Wraps a {@link StreamInput} and delegates to it. To be used to add functionality to an existing stream by subclassing.
@@ -65,6 +66,12 @@ public abstract class FilterStreamInput extends StreamInput {
         return delegate.available();
     }
 
+    @Override
+    List<String> sharedStrings() {
+        // the table of shared strings lives in the wrapped stream so that wrapping a stream half way through a message is safe
+        return delegate.sharedStrings();
+    }
+
     @Override
     public Version getVersion() {
         return delegate.getVersion();
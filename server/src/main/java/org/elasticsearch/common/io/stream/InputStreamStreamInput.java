@@ -24,6 +24,7 @@ import org.elasticsearch.common.io.Streams;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 public class InputStreamStreamInput extends StreamInput {
 
@@ -73,6 +74,7 @@ public class InputStreamStreamInput extends StreamInput {
     @Override
     public void reset() throws IOException {
         is.reset();
+        resetSharedStrings();
     }
 
     @Override
@@ -83,6 +85,16 @@ public class InputStreamStreamInput extends StreamInput {
     @Override
     public void mark(int readlimit) {
         is.mark(readlimit);
+        markSharedStrings();
+    }
+
+    @Override
+    List<String> sharedStrings() {
+        if (is instanceof StreamInput) {
+            // mirrors OutputStreamStreamOutput, which writes its shared strings into the table of a wrapped StreamOutput
+            return ((StreamInput) is).sharedStrings();
+        }
+        return super.sharedStrings();
     }
 
     @Override
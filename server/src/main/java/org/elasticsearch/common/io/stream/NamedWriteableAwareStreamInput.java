@@ -19,6 +19,8 @@
 
 package org.elasticsearch.common.io.stream;
 
+import org.elasticsearch.common.bytes.BytesReference;
+
 import java.io.IOException;
 
 /**
@@ -33,6 +35,12 @@ public class NamedWriteableAwareStreamInput extends FilterStreamInput {
         this.namedWriteableRegistry = namedWriteableRegistry;
     }
 
+    @Override
+    public BytesReference readRetainedBytesReference() throws IOException {
+        // this stream does not transform the bytes so it is safe to share those of the delegate
+        return delegate.readRetainedBytesReference();
+    }
+
     @Override
     public <C extends NamedWriteable> C readNamedWriteable(Class<C> categoryClass) throws IOException {
         String name = readString();
@@ -28,6 +28,9 @@ public class OutputStreamStreamOutput extends StreamOutput {
 
     public OutputStreamStreamOutput(OutputStream out) {
         this.out = out;
+        if (out instanceof StreamOutput) {
+            delegateSharedStrings((StreamOutput) out);
+        }
     }
 
     @Override
@@ -108,7 +108,15 @@ public abstract class StreamInput extends InputStream {
         BYTE_TIME_UNIT_MAP = Collections.unmodifiableMap(byteTimeUnitMap);
     }
 
+    /**
+     * The maximum number of strings that are registered for back-references by {@link #readSharedString()}. Must match
+     * {@link StreamOutput#MAX_SHARED_STRINGS}.
+     */
+    static final int MAX_SHARED_STRINGS = StreamOutput.MAX_SHARED_STRINGS;
+
     private Version version = Version.CURRENT;
+    private List<String> sharedStrings;
+    private int sharedStringsMark;
 
     /**
      * The version of the node on the other side of this stream.
@@ -174,6 +182,16 @@ public abstract class StreamInput extends InputStream {
         return new BytesArray(bytes, 0, length);
     }
 
+    /**
+     * Reads a bytes reference from this stream that is allowed to share the underlying, possibly pooled, bytes of the stream
+     * rather than copying them. Transports only share bytes of incoming requests, and only until the response to the request
+     * has been sent, so the returned reference must not be used once the request handler has responded. Streams that cannot
+     * share their bytes safely fall back to {@link #readBytesReference()}.
+     */
+    public BytesReference readRetainedBytesReference() throws IOException {
+        return readBytesReference();
+    }
+
     public BytesRef readBytesRef() throws IOException {
         int length = readArraySize();
         return readBytesRef(length);
@@ -405,6 +423,62 @@ public abstract class StreamInput extends InputStream {
         return spare.toString();
     }
 
+    /**
+     * Reads a string written by {@link StreamOutput#writeSharedString(String)}.
+     */
+    public String readSharedString() throws IOException {
+        if (getVersion().before(Version.V_7_0_0_alpha1)) {
+            return readString();
+        }
+        final List<String> sharedStrings = sharedStrings();
+        final int ref = readVInt();
+        if (ref == 0) {
+            final String str = readString();
+            if (sharedStrings.size() < MAX_SHARED_STRINGS) {
+                sharedStrings.add(str);
+            }
+            return str;
+        }
+        if (ref > sharedStrings.size()) {
+            throw new IOException("Invalid shared string reference [" + ref + "], only [" + sharedStrings.size() + "] strings were read");
+        }
+        return sharedStrings.get(ref - 1);
+    }
+
+    /**
+     * The strings read so far by {@link #readSharedString()}, in the order they were registered by the writer.
+     */
+    List<String> sharedStrings() {
+        if (sharedStrings == null) {
+            sharedStrings = new ArrayList<>();
+        }
+        return sharedStrings;
+    }
+
+    /**
+     * Remembers how many strings were read by {@link #readSharedString()} so far. Must be called by implementations that support
+     * {@link #mark(int)}, together with {@link #resetSharedStrings()} on {@link #reset()}.
+     */
+    protected final void markSharedStrings() {
+        sharedStringsMark = sharedStrings == null ? 0 : sharedStrings.size();
+    }
+
+    /**
+     * Forgets all strings read by {@link #readSharedString()} since the last {@link #markSharedStrings()}, since the writer registered
+     * them after the position the stream is reset to and they are going to be read and registered again.
+     */
+    protected final void resetSharedStrings() {
+        if (sharedStrings != null && sharedStrings.size() > sharedStringsMark) {
+            sharedStrings.subList(sharedStringsMark, sharedStrings.size()).clear();
+        }
+    }
+
+    public String readOptionalSharedString() throws IOException {
+        if (readBoolean()) {
+            return readSharedString();
+        }
+        return null;
+    }
 
     public final float readFloat() throws IOException {
         return Float.intBitsToFloat(readInt());
@@ -1006,7 +1080,7 @@ public abstract class StreamInput extends InputStream {
      * Reads a vint via {@link #readVInt()} and applies basic checks to ensure the read array size is sane.
      * This method uses {@link #ensureCanReadBytes(int)} to ensure this stream has enough bytes to read for the read array size.
      */
-    private int readArraySize() throws IOException {
+    protected final int readArraySize() throws IOException {
         final int arraySize = readVInt();
         if (arraySize > ArrayUtil.MAX_ARRAY_LENGTH) {
             throw new IllegalStateException("array length must be <= to " + ArrayUtil.MAX_ARRAY_LENGTH  + " but was: " + arraySize);
@@ -102,8 +102,16 @@ public abstract class StreamOutput extends OutputStream {
         TIME_UNIT_BYTE_MAP = Collections.unmodifiableMap(timeUnitByteMap);
     }
 
+    /**
+     * The maximum number of strings that are registered for back-references by {@link #writeSharedString(String)}. Must match
+     * {@link StreamInput#MAX_SHARED_STRINGS}.
+     */
+    static final int MAX_SHARED_STRINGS = 1024;
+
     private Version version = Version.CURRENT;
     private Set<String> features = Collections.emptySet();
+    private Map<String, Integer> sharedStrings;
+    private StreamOutput sharedStringsDelegate;
 
     /**
      * The version of the node on the other side of this stream.
@@ -376,7 +384,26 @@ public abstract class StreamOutput extends OutputStream {
         byte[] buffer = convertStringBuffer;
         int offset = 0;
         writeVInt(charCount);
-        for (int i = 0; i < charCount; i++) {
+        // most strings we write (field names, index names, node ids, types) are pure ASCII, so we copy chars one to one
+        // until we hit the first multi-byte character and only fall back to the encoding loop below from that point on
+        final int asciiLimit = Math.min(charCount, buffer.length);
+        int i = 0;
+        for (; i < asciiLimit; i++) {
+            final int c = str.charAt(i);
+            if (c > 0x007F) {
+                break;
+            }
+            buffer[offset++] = (byte) c;
+        }
+        if (i == charCount) {
+            writeBytes(buffer, offset);
+            return;
+        }
+        if (offset > buffer.length - 3) {
+            writeBytes(buffer, offset);
+            offset = 0;
+        }
+        for (; i < charCount; i++) {
             final int c = str.charAt(i);
             if (c <= 0x007F) {
                 buffer[offset++] = ((byte) c);
@@ -399,6 +426,71 @@ public abstract class StreamOutput extends OutputStream {
         writeBytes(buffer, offset);
     }
 
+    /**
+     * Writes a string that is likely to be repeated many times within the same message, such as a field name, an index name or a
+     * node id. The first occurrence is written in full and registered in a per-stream table, later occurrences are written as a
+     * back-reference into that table. Must be read with {@link StreamInput#readSharedString()}. Streams to nodes before
+     * {@link Version#V_7_0_0_alpha1} get the plain {@link #writeString(String)} encoding.
+     */
+    public void writeSharedString(String str) throws IOException {
+        if (getVersion().before(Version.V_7_0_0_alpha1)) {
+            writeString(str);
+            return;
+        }
+        final Map<String, Integer> sharedStrings = sharedStrings();
+        final Integer id = sharedStrings.get(str);
+        if (id != null) {
+            writeVInt(id + 1);
+        } else {
+            writeVInt(0);
+            writeString(str);
+            if (sharedStrings.size() < MAX_SHARED_STRINGS) {
+                sharedStrings.put(str, sharedStrings.size());
+            }
+        }
+    }
+
+    public void writeOptionalSharedString(@Nullable String str) throws IOException {
+        if (str == null) {
+            writeBoolean(false);
+        } else {
+            writeBoolean(true);
+            writeSharedString(str);
+        }
+    }
+
+    /**
+     * Forgets all strings written via {@link #writeSharedString(String)}. Must be called by implementations that allow the stream to
+     * be rewritten from the start.
+     */
+    protected void resetSharedStrings() {
+        if (sharedStringsDelegate != null) {
+            sharedStringsDelegate.resetSharedStrings();
+        } else {
+            sharedStrings = null;
+        }
+    }
+
+    /**
+     * Makes this stream use the table of strings written via {@link #writeSharedString(String)} of the given stream. Must be called by
+     * implementations that wrap another {@link StreamOutput} so that back-references stay in sync with the single table the reader
+     * keeps for the underlying bytes.
+     */
+    protected final void delegateSharedStrings(StreamOutput delegate) {
+        assert delegate != this;
+        this.sharedStringsDelegate = delegate;
+    }
+
+    private Map<String, Integer> sharedStrings() {
+        if (sharedStringsDelegate != null) {
+            return sharedStringsDelegate.sharedStrings();
+        }
+        if (sharedStrings == null) {
+            sharedStrings = new HashMap<>();
+        }
+        return sharedStrings;
+    }
+
     public void writeFloat(float v) throws IOException {
         writeInt(Float.floatToIntBits(v));
     }
@@ -0,0 +1,279 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An immutable {@link BitSet} that splits the doc id space into blocks of 65536 documents and compresses every block on its
+ * own, in the way roaring bitmaps do: blocks that have no documents take no memory, blocks that have up to 4096 documents
+ * are stored as a sorted array of 16-bit offsets, and the other blocks are stored as a plain bitmap. Blocks that contain
+ * every document share the same bitmap.
+ * <p>
+ * This takes a lot less memory than a {@link org.apache.lucene.util.FixedBitSet} for sets that are sparse in places, like
+ * the parent filters of nested documents, while still supporting {@link #nextSetBit} and {@link #prevSetBit} in a few
+ * operations.
+ */
+public final class RoaringBitSet extends BitSet {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringBitSet.class);
+
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int WORDS_PER_BLOCK = BLOCK_SIZE >>> 6;
+    // an array of this many 16-bit offsets takes as much memory as a bitmap
+    private static final int MAX_ARRAY_LENGTH = BLOCK_SIZE >>> 4;
+
+    private static final long[] FULL_BLOCK = new long[WORDS_PER_BLOCK];
+    static {
+        Arrays.fill(FULL_BLOCK, -1L);
+    }
+
+    private final int length;
+    private final int cardinality;
+    // for every block, either the sorted offsets of its documents, or its bitmap, or neither if it has no documents
+    private final short[][] arrays;
+    private final long[][] bitmaps;
+    private final long ramBytesUsed;
+
+    private RoaringBitSet(int length, int cardinality, short[][] arrays, long[][] bitmaps) {
+        this.length = length;
+        this.cardinality = cardinality;
+        this.arrays = arrays;
+        this.bitmaps = bitmaps;
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(arrays) + RamUsageEstimator.shallowSizeOf(bitmaps);
+        for (int block = 0; block < arrays.length; block++) {
+            if (arrays[block] != null) {
+                ramBytesUsed += RamUsageEstimator.sizeOf(arrays[block]);
+            } else if (bitmaps[block] != null && bitmaps[block] != FULL_BLOCK) {
+                ramBytesUsed += RamUsageEstimator.sizeOf(bitmaps[block]);
+            }
+        }
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * Build a {@link RoaringBitSet} that contains all documents of the given unpositioned iterator.
+     */
+    public static RoaringBitSet of(DocIdSetIterator iterator, int maxDoc) throws IOException {
+        final int numBlocks = (int) (((long) maxDoc + BLOCK_SIZE - 1) >>> BLOCK_SHIFT);
+        final short[][] arrays = new short[numBlocks][];
+        final long[][] bitmaps = new long[numBlocks][];
+        final short[] buffer = new short[MAX_ARRAY_LENGTH];
+        long[] bitmap = null;
+        int currentBlock = -1;
+        int count = 0;
+        int cardinality = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            final int block = doc >>> BLOCK_SHIFT;
+            if (block != currentBlock) {
+                if (count > 0) {
+                    addBlock(arrays, bitmaps, currentBlock, buffer, bitmap, count);
+                }
+                currentBlock = block;
+                count = 0;
+                bitmap = null;
+            }
+            if (bitmap != null) {
+                bitmap[(doc & BLOCK_MASK) >>> 6] |= 1L << doc;
+            } else if (count < MAX_ARRAY_LENGTH) {
+                buffer[count] = (short) doc;
+            } else {
+                // the block got too dense for an array
+                bitmap = new long[WORDS_PER_BLOCK];
+                for (int i = 0; i < count; i++) {
+                    final int offset = buffer[i] & BLOCK_MASK;
+                    bitmap[offset >>> 6] |= 1L << offset;
+                }
+                bitmap[(doc & BLOCK_MASK) >>> 6] |= 1L << doc;
+            }
+            count++;
+            cardinality++;
+        }
+        if (count > 0) {
+            addBlock(arrays, bitmaps, currentBlock, buffer, bitmap, count);
+        }
+        return new RoaringBitSet(maxDoc, cardinality, arrays, bitmaps);
+    }
+
+    private static void addBlock(short[][] arrays, long[][] bitmaps, int block, short[] buffer, long[] bitmap, int count) {
+        if (bitmap == null) {
+            arrays[block] = Arrays.copyOf(buffer, count);
+        } else if (count == BLOCK_SIZE) {
+            bitmaps[block] = FULL_BLOCK;
+        } else {
+            bitmaps[block] = bitmap;
+        }
+    }
+
+    @Override
+    public boolean get(int index) {
+        assert index >= 0 && index < length : "index=" + index + ", length=" + length;
+        final int block = index >>> BLOCK_SHIFT;
+        final int offset = index & BLOCK_MASK;
+        final long[] bitmap = bitmaps[block];
+        if (bitmap != null) {
+            return (bitmap[offset >>> 6] & (1L << offset)) != 0;
+        }
+        final short[] array = arrays[block];
+        if (array == null) {
+            return false;
+        }
+        final int i = lowerBound(array, offset);
+        return i < array.length && (array[i] & BLOCK_MASK) == offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public int approximateCardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public int nextSetBit(int index) {
+        assert index >= 0 && index < length : "index=" + index + ", length=" + length;
+        int offset = index & BLOCK_MASK;
+        for (int block = index >>> BLOCK_SHIFT; block < arrays.length; block++, offset = 0) {
+            final int next = nextInBlock(block, offset);
+            if (next != -1) {
+                return (block << BLOCK_SHIFT) | next;
+            }
+        }
+        return DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    private int nextInBlock(int block, int offset) {
+        final long[] bitmap = bitmaps[block];
+        if (bitmap != null) {
+            int word = offset >>> 6;
+            final long bits = bitmap[word] >>> offset;
+            if (bits != 0) {
+                return offset + Long.numberOfTrailingZeros(bits);
+            }
+            while (++word < WORDS_PER_BLOCK) {
+                if (bitmap[word] != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bitmap[word]);
+                }
+            }
+            return -1;
+        }
+        final short[] array = arrays[block];
+        if (array != null) {
+            final int i = lowerBound(array, offset);
+            if (i < array.length) {
+                return array[i] & BLOCK_MASK;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int prevSetBit(int index) {
+        assert index >= 0 && index < length : "index=" + index + ", length=" + length;
+        int offset = index & BLOCK_MASK;
+        for (int block = index >>> BLOCK_SHIFT; block >= 0; block--, offset = BLOCK_MASK) {
+            final int prev = prevInBlock(block, offset);
+            if (prev != -1) {
+                return (block << BLOCK_SHIFT) | prev;
+            }
+        }
+        return -1;
+    }
+
+    private int prevInBlock(int block, int offset) {
+        final long[] bitmap = bitmaps[block];
+        if (bitmap != null) {
+            int word = offset >>> 6;
+            final long bits = bitmap[word] << (63 - (offset & 63));
+            if (bits != 0) {
+                return offset - Long.numberOfLeadingZeros(bits);
+            }
+            while (--word >= 0) {
+                if (bitmap[word] != 0) {
+                    return (word << 6) + 63 - Long.numberOfLeadingZeros(bitmap[word]);
+                }
+            }
+            return -1;
+        }
+        final short[] array = arrays[block];
+        if (array != null) {
+            // the last offset that is less than or equal to the given one
+            final int i = lowerBound(array, offset + 1) - 1;
+            if (i >= 0) {
+                return array[i] & BLOCK_MASK;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the index of the first offset of the array that is greater than or equal to the given offset. */
+    private static int lowerBound(short[] array, int offset) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if ((array[mid] & BLOCK_MASK) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void set(int i) {
+        throw new UnsupportedOperationException("RoaringBitSet is immutable");
+    }
+
+    @Override
+    public void clear(int index) {
+        throw new UnsupportedOperationException("RoaringBitSet is immutable");
+    }
+
+    @Override
+    public void clear(int startIndex, int endIndex) {
+        throw new UnsupportedOperationException("RoaringBitSet is immutable");
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(length=" + length + ",cardinality=" + cardinality + ")";
+    }
+}
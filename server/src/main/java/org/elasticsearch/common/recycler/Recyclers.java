@@ -40,6 +40,14 @@ public enum Recyclers {
         return new ConcurrentDequeRecycler<>(c, limit);
     }
 
+    /**
+     * Return a concurrent recycler that caches up to <code>localLimit</code> entries per thread in front of a shared deque.
+     * The total number of cached entries is bounded by <code>limit</code>.
+     */
+    public static <T> Recycler<T> threadLocal(Recycler.C<T> c, int limit, int localLimit) {
+        return new ThreadLocalRecycler<>(c, limit, localLimit);
+    }
+
     /**
      * Return a recycler based on a deque.
      */
@@ -0,0 +1,228 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.recycler;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Recycler} that keeps a small cache of objects per thread in front of a shared concurrent deque, so that threads
+ * that keep obtaining and releasing objects mostly hit their own cache and do not contend with each other. This implementation
+ * is thread-safe.
+ * <p>
+ * The number of cached objects, in the shared deque and in all thread-local caches, never exceeds {@code maxSize}: threads
+ * lease slots of this budget in batches before they cache objects locally and give leases back when they do not need them
+ * anymore. A thread whose local cache is full moves the older half of it to the shared deque so that other threads can use
+ * these objects, and the caches and leases of terminated threads are reclaimed lazily.
+ */
+public class ThreadLocalRecycler<T> extends AbstractRecycler<T> {
+
+    private static final long RECLAIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxLocalSize;
+    private final Deque<T> shared = ConcurrentCollections.newDeque();
+    // number of slots of the budget that are neither used by the shared deque nor leased by a thread-local cache
+    private final AtomicInteger permits;
+    private final Set<LocalCache<T>> caches = ConcurrentCollections.newConcurrentSet();
+    private final ThreadLocal<LocalCache<T>> local = ThreadLocal.withInitial(this::newLocalCache);
+    private final AtomicLong lastReclaim = new AtomicLong(System.nanoTime());
+    private final CounterMetric localHits = new CounterMetric();
+    private volatile boolean closed;
+
+    public ThreadLocalRecycler(C<T> c, int maxSize, int maxLocalSize) {
+        super(c);
+        if (maxLocalSize < 1) {
+            throw new IllegalArgumentException("maxLocalSize must be >= 1");
+        }
+        this.maxLocalSize = maxLocalSize;
+        this.permits = new AtomicInteger(maxSize);
+    }
+
+    // the cache must not reference this recycler, otherwise the thread-local value would keep its own key reachable
+    private LocalCache<T> newLocalCache() {
+        final LocalCache<T> cache = new LocalCache<>(Thread.currentThread());
+        caches.add(cache);
+        return cache;
+    }
+
+    @Override
+    public V<T> obtain(int sizing) {
+        final LocalCache<T> cache = local.get();
+        T v = cache.objects.pollFirst();
+        if (v != null) {
+            localHits.inc();
+            // keep a few leases around for the objects that this thread is going to release, give back the other ones
+            final int excess = cache.leases - cache.objects.size() - maxLocalSize / 2;
+            if (excess > 0) {
+                cache.leases -= excess;
+                permits.addAndGet(excess);
+            }
+            return new TV(v, true);
+        }
+        v = shared.pollFirst();
+        if (v == null && reclaimDeadCaches()) {
+            v = shared.pollFirst();
+        }
+        if (v != null) {
+            permits.incrementAndGet();
+            return new TV(v, true);
+        }
+        return new TV(c.newInstance(sizing), false);
+    }
+
+    private void release(T value) {
+        if (closed) {
+            c.destroy(value);
+            return;
+        }
+        final LocalCache<T> cache = local.get();
+        if (cache.objects.size() == maxLocalSize) {
+            // hand the older half of the local cache over to the shared deque, together with its leases
+            for (int i = Math.max(1, maxLocalSize / 2); i > 0; --i) {
+                shared.addLast(cache.objects.pollLast());
+                cache.leases--;
+            }
+        }
+        if (cache.objects.size() == cache.leases) {
+            final int leased = acquirePermits(maxLocalSize - cache.leases);
+            if (leased == 0) {
+                c.destroy(value);
+                return;
+            }
+            cache.leases += leased;
+        }
+        c.recycle(value);
+        cache.objects.addFirst(value);
+    }
+
+    private int acquirePermits(int wanted) {
+        assert wanted > 0;
+        while (true) {
+            final int available = permits.get();
+            if (available == 0) {
+                if (reclaimDeadCaches() == false) {
+                    return 0;
+                }
+            } else {
+                final int acquired = Math.min(available, wanted);
+                if (permits.compareAndSet(available, available - acquired)) {
+                    return acquired;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the objects and leases of the caches of terminated threads back to the shared pool. This runs at most once per
+     * {@link #RECLAIM_INTERVAL_NANOS} and returns whether anything was reclaimed.
+     */
+    private boolean reclaimDeadCaches() {
+        final long now = System.nanoTime();
+        final long last = lastReclaim.get();
+        if (now - last < RECLAIM_INTERVAL_NANOS || lastReclaim.compareAndSet(last, now) == false) {
+            return false;
+        }
+        boolean reclaimed = false;
+        for (Iterator<LocalCache<T>> iterator = caches.iterator(); iterator.hasNext(); ) {
+            final LocalCache<T> cache = iterator.next();
+            // once a thread is seen as terminated, all its writes to its cache are visible and it cannot touch it anymore
+            if (cache.owner.isAlive() == false) {
+                iterator.remove();
+                permits.addAndGet(cache.leases - cache.objects.size());
+                for (T v = cache.objects.pollFirst(); v != null; v = cache.objects.pollFirst()) {
+                    shared.addLast(v);
+                }
+                reclaimed |= cache.leases > 0;
+                cache.leases = 0;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * The number of objects that were obtained from the cache of the calling thread.
+     */
+    public long localHits() {
+        return localHits.count();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (T v = shared.pollFirst(); v != null; v = shared.pollFirst()) {
+            c.destroy(v);
+        }
+        final LocalCache<T> cache = local.get();
+        for (T v = cache.objects.pollFirst(); v != null; v = cache.objects.pollFirst()) {
+            c.destroy(v);
+        }
+        // objects cached by other live threads are garbage collected together with their thread-local values
+        caches.clear();
+    }
+
+    private static final class LocalCache<T> {
+
+        final Thread owner;
+        final Deque<T> objects = new ArrayDeque<>();
+        // slots of the budget that this cache may fill, always greater than or equal to the number of cached objects
+        int leases;
+
+        LocalCache(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    private class TV implements Recycler.V<T> {
+
+        T value;
+        final boolean recycled;
+
+        TV(T value, boolean recycled) {
+            this.value = value;
+            this.recycled = recycled;
+        }
+
+        @Override
+        public T v() {
+            return value;
+        }
+
+        @Override
+        public boolean isRecycled() {
+            return recycled;
+        }
+
+        @Override
+        public void close() {
+            if (value == null) {
+                throw new IllegalStateException("recycler entry already released...");
+            }
+            release(value);
+            value = null;
+        }
+    }
+}
@@ -32,12 +32,14 @@ import org.elasticsearch.index.MergePolicyConfig;
 import org.elasticsearch.index.MergeSchedulerConfig;
 import org.elasticsearch.index.SearchSlowLog;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.query.IndexQueryCache;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryService;
+import org.elasticsearch.index.store.SnapshotIndexStore;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.indices.IndicesRequestCache;
 
@@ -152,10 +154,16 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
         MapperService.INDEX_MAPPING_TOTAL_FIELDS_LIMIT_SETTING,
         MapperService.INDEX_MAPPING_DEPTH_LIMIT_SETTING,
         BitsetFilterCache.INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING,
+        BitsetFilterCache.INDEX_BITSET_FILTER_CACHE_ROARING_SETTING,
         IndexModule.INDEX_STORE_TYPE_SETTING,
         IndexModule.INDEX_STORE_PRE_LOAD_SETTING,
+        IndexModule.INDEX_STORE_HYBRID_MMAP_EXTENSIONS,
         IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
+        IndexQueryCache.INDEX_QUERY_CACHE_QUOTA_SETTING,
         FsDirectoryService.INDEX_LOCK_FACTOR_SETTING,
+        SnapshotIndexStore.REPOSITORY_SETTING,
+        SnapshotIndexStore.SNAPSHOT_NAME_SETTING,
+        SnapshotIndexStore.INDEX_NAME_SETTING,
         EngineConfig.INDEX_CODEC_SETTING,
         EngineConfig.INDEX_OPTIMIZE_AUTO_GENERATED_IDS,
         IndexMetaData.SETTING_WAIT_FOR_ACTIVE_SHARDS,
@@ -37,6 +37,7 @@ import org.elasticsearch.common.unit.MemorySizeValue;
 import org.elasticsearch.common.unit.RatioValue;
 import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.WeakInterner;
 import org.elasticsearch.common.xcontent.DeprecationHandler;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -85,6 +86,11 @@ public final class Settings implements ToXContentFragment {
 
     public static final Settings EMPTY = new Builder().build();
 
+    /**
+     * Setting keys read from the wire. The same keys are repeated in the settings of every index in the cluster state.
+     */
+    private static final WeakInterner<String> KEYS = new WeakInterner<>();
+
     /** The raw settings from the full key to raw string value. */
     private final Map<String, Object> settings;
 
@@ -557,7 +563,7 @@ public final class Settings implements ToXContentFragment {
         int numberOfSettings = in.readVInt();
         if (in.getVersion().onOrAfter(Version.V_6_1_0)) {
             for (int i = 0; i < numberOfSettings; i++) {
-                String key = in.readString();
+                String key = KEYS.intern(in.readString());
                 Object value = in.readGenericValue();
                 if (value == null) {
                     builder.putNull(key);
@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Common implementation for big arrays whose pages are direct {@link ByteBuffer}s obtained from the
+ * {@link PageCacheRecycler}. Pages live outside of the heap and are handed back to the recycler when the array is resized
+ * down or closed.
+ */
+abstract class AbstractBigDirectArray extends AbstractBigArray {
+
+    protected ByteBuffer[] pages;
+
+    protected AbstractBigDirectArray(int pageSize, long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(pageSize, bigArrays, clearOnResize);
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        boolean success = false;
+        try {
+            allocatePages(pages.length);
+            success = true;
+        } finally {
+            if (success == false) {
+                // direct pages are limited, release the ones we got and the memory we reserved on the breaker
+                close();
+            }
+        }
+    }
+
+    private void allocatePages(int numPages) {
+        // going through all pages since a previous allocation may have failed half-way
+        for (int i = 0; i < numPages; ++i) {
+            if (pages[i] == null) {
+                pages[i] = newDirectPage(i);
+            }
+        }
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public final void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        allocatePages(numPages);
+        for (int i = numPages; i < pages.length; ++i) {
+            if (pages[i] != null) {
+                pages[i] = null;
+                releasePage(i);
+            }
+        }
+        this.size = newSize;
+    }
+}
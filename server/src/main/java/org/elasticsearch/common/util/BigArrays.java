@@ -445,10 +445,24 @@ public class BigArrays implements Releasable {
             oldMemSize + ", ramBytesEstimated=" + array.ramBytesEstimated(oldSize);
         final long estimatedIncreaseInBytes = array.ramBytesEstimated(newSize) - oldMemSize;
         adjustBreaker(estimatedIncreaseInBytes, false);
-        array.resize(newSize);
+        boolean success = false;
+        try {
+            array.resize(newSize);
+            success = true;
+        } finally {
+            if (success == false) {
+                // allocating direct pages may fail
+                adjustBreaker(-estimatedIncreaseInBytes, true);
+            }
+        }
         return array;
     }
 
+    /** Whether big byte, long and double arrays should use pages of direct memory. */
+    private boolean directPages() {
+        return recycler != null && recycler.directPages();
+    }
+
     private <T extends BigArray> T validate(T array) {
         boolean success = false;
         try {
@@ -472,6 +486,9 @@ public class BigArrays implements Releasable {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigByteArray.estimateRamBytes(size), false);
+            if (directPages()) {
+                return new BigDirectByteArray(size, this, clearOnResize);
+            }
             return new BigByteArray(size, this, clearOnResize);
         } else if (size >= BYTE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<byte[]> page = recycler.bytePage(clearOnResize);
@@ -493,6 +510,8 @@ public class BigArrays implements Releasable {
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
             return resizeInPlace((BigByteArray) array, size);
+        } else if (array instanceof BigDirectByteArray) {
+            return resizeInPlace((BigDirectByteArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final ByteArray newArray = newByteArray(size, arr.clearOnResize);
@@ -606,6 +625,9 @@ public class BigArrays implements Releasable {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigLongArray.estimateRamBytes(size), false);
+            if (directPages()) {
+                return new BigDirectLongArray(size, this, clearOnResize);
+            }
             return new BigLongArray(size, this, clearOnResize);
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
@@ -627,6 +649,8 @@ public class BigArrays implements Releasable {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof BigDirectLongArray) {
+            return resizeInPlace((BigDirectLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -657,6 +681,9 @@ public class BigArrays implements Releasable {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigDoubleArray.estimateRamBytes(size), false);
+            if (directPages()) {
+                return new BigDirectDoubleArray(size, this, clearOnResize);
+            }
             return new BigDoubleArray(size, this, clearOnResize);
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
@@ -675,6 +702,8 @@ public class BigArrays implements Releasable {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof BigDirectDoubleArray) {
+            return resizeInPlace((BigDirectDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
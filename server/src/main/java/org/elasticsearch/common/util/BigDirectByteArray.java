@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.BigArrays.BYTE_PAGE_SIZE;
+
+/**
+ * Byte array abstraction able to support more than 2B values, whose pages are allocated outside of the heap. Since pages
+ * are not byte[]s, slices are always copied.
+ */
+final class BigDirectByteArray extends AbstractBigDirectArray implements ByteArray {
+
+    // the last byte[] that a slice was copied into, reused when the caller passes it back like a spare BytesRef
+    private byte[] scratch = BytesRef.EMPTY_BYTES;
+
+    BigDirectByteArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(BYTE_PAGE_SIZE, size, bigArrays, clearOnResize);
+    }
+
+    @Override
+    public byte get(long index) {
+        return pages[pageIndex(index)].get(indexInPage(index));
+    }
+
+    @Override
+    public byte set(long index, byte value) {
+        final ByteBuffer page = pages[pageIndex(index)];
+        final int indexInPage = indexInPage(index);
+        final byte ret = page.get(indexInPage);
+        page.put(indexInPage, value);
+        return ret;
+    }
+
+    @Override
+    public boolean get(long index, int len, BytesRef ref) {
+        assert index + len <= size();
+        if (ref.bytes != scratch || scratch.length < len) {
+            scratch = new byte[ArrayUtil.oversize(len, Byte.BYTES)];
+            ref.bytes = scratch;
+        }
+        ref.offset = 0;
+        ref.length = 0;
+        while (ref.length < len) {
+            final int indexInPage = indexInPage(index + ref.length);
+            final int copyLength = Math.min(pageSize() - indexInPage, len - ref.length);
+            final ByteBuffer page = pages[pageIndex(index + ref.length)].duplicate();
+            page.position(indexInPage);
+            page.get(ref.bytes, ref.length, copyLength);
+            ref.length += copyLength;
+        }
+        return true;
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        for (int copied = 0; copied < len; ) {
+            final int indexInPage = indexInPage(index + copied);
+            final int copyLength = Math.min(pageSize() - indexInPage, len - copied);
+            final ByteBuffer page = pages[pageIndex(index + copied)].duplicate();
+            page.position(indexInPage);
+            page.put(buf, offset + copied, copyLength);
+            copied += copyLength;
+        }
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, byte value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        for (long index = fromIndex; index < toIndex; ) {
+            final ByteBuffer page = pages[pageIndex(index)];
+            final int from = indexInPage(index);
+            final int to = (int) Math.min(pageSize(), from + (toIndex - index));
+            for (int i = from; i < to; ++i) {
+                page.put(i, value);
+            }
+            index += to - from;
+        }
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return 1;
+    }
+}
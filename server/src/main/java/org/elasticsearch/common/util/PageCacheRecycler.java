@@ -19,24 +19,36 @@
 
 package org.elasticsearch.common.util;
 
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.recycler.AbstractRecyclerC;
 import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.recycler.ThreadLocalRecycler;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.recycler.Recyclers.concurrent;
 import static org.elasticsearch.common.recycler.Recyclers.concurrentDeque;
 import static org.elasticsearch.common.recycler.Recyclers.dequeFactory;
 import static org.elasticsearch.common.recycler.Recyclers.none;
+import static org.elasticsearch.common.recycler.Recyclers.threadLocal;
 
 /** A recycler of fixed-size pages. */
 public class PageCacheRecycler extends AbstractComponent implements Releasable {
@@ -54,15 +66,40 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    // whether big byte, long and double arrays are backed by pages of direct memory instead of heap pages
+    public static final Setting<Boolean> DIRECT_PAGES_SETTING =
+        Setting.boolSetting("cache.recycler.page.direct.enabled", false, Property.NodeScope);
+    public static final Setting<ByteSizeValue> LIMIT_DIRECT_SETTING =
+        Setting.memorySizeSetting("cache.recycler.page.direct.limit", "10%", Property.NodeScope);
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    private final PageCounters bytePageCounters = new PageCounters();
+    private final PageCounters intPageCounters = new PageCounters();
+    private final PageCounters longPageCounters = new PageCounters();
+    private final PageCounters objectPageCounters = new PageCounters();
+
+    // the maximum number of pages of each type that a thread caches on its own with the thread_local type
+    static final int MAX_THREAD_LOCAL_PAGES = 16;
+
+    private final boolean directPages;
+    private final long directLimit;
+    // free direct pages are kept for reuse up to the same budget as recycled byte pages, the rest is left to the garbage collector
+    private final int maxFreeDirectPages;
+    private final Deque<ByteBuffer> freeDirectPages = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger freeDirectPageCount = new AtomicInteger();
+    private final AtomicLong directBytesAllocated = new AtomicLong();
 
     @Override
     public void close() {
         Releasables.close(true, bytePage, intPage, longPage, objectPage);
+        for (ByteBuffer page = freeDirectPages.pollFirst(); page != null; page = freeDirectPages.pollFirst()) {
+            // the memory is freed once the buffer gets garbage collected
+            freeDirectPageCount.decrementAndGet();
+            directBytesAllocated.addAndGet(-BigArrays.PAGE_SIZE_IN_BYTES);
+        }
     }
 
     public PageCacheRecycler(Settings settings) {
@@ -141,10 +178,96 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         });
 
         assert BigArrays.PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+
+        directPages = DIRECT_PAGES_SETTING.get(settings);
+        directLimit = LIMIT_DIRECT_SETTING.get(settings).getBytes();
+        maxFreeDirectPages = maxBytePageCount;
+    }
+
+    /**
+     * Whether big arrays should be backed by {@link #directPage(boolean) direct pages}.
+     */
+    public boolean directPages() {
+        return directPages;
+    }
+
+    /**
+     * Obtain a page of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes of direct memory, in native byte order. The page must be
+     * released explicitly by closing the returned instance. Pages are allocated lazily up to
+     * {@link #LIMIT_DIRECT_SETTING} bytes and then reused, which keeps the amount of direct memory bounded. Released pages are kept for
+     * reuse up to the budget of recycled byte pages, pages beyond that are left to the garbage collector.
+     *
+     * @throws IllegalStateException if {@link #DIRECT_PAGES_SETTING direct pages} are not enabled
+     * @throws CircuitBreakingException if all direct pages are in use
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        if (directPages == false) {
+            throw new IllegalStateException("direct pages are disabled, set [" + DIRECT_PAGES_SETTING.getKey() + "] to use them");
+        }
+        ByteBuffer page = freeDirectPages.pollFirst();
+        if (page == null) {
+            final long allocated = directBytesAllocated.addAndGet(BigArrays.PAGE_SIZE_IN_BYTES);
+            if (allocated > directLimit) {
+                directBytesAllocated.addAndGet(-BigArrays.PAGE_SIZE_IN_BYTES);
+                throw new CircuitBreakingException("[direct_pages] would use more than the limit of [" + directLimit
+                    + "] bytes of direct memory", allocated, directLimit);
+            }
+            return new DirectPage(ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder()), false);
+        }
+        freeDirectPageCount.decrementAndGet();
+        if (clear) {
+            for (int i = 0; i < BigArrays.PAGE_SIZE_IN_BYTES; i += Long.BYTES) {
+                page.putLong(i, 0L);
+            }
+        }
+        return new DirectPage(page, true);
+    }
+
+    /**
+     * The number of bytes of direct memory that pages use, including pages that are not in use anymore but kept for reuse.
+     */
+    public long directBytesAllocated() {
+        return directBytesAllocated.get();
+    }
+
+    private class DirectPage implements Recycler.V<ByteBuffer> {
+
+        private ByteBuffer page;
+        private final boolean recycled;
+
+        DirectPage(ByteBuffer page, boolean recycled) {
+            this.page = page;
+            this.recycled = recycled;
+        }
+
+        @Override
+        public ByteBuffer v() {
+            return page;
+        }
+
+        @Override
+        public boolean isRecycled() {
+            return recycled;
+        }
+
+        @Override
+        public void close() {
+            if (page == null) {
+                throw new IllegalStateException("direct page already released...");
+            }
+            if (freeDirectPageCount.incrementAndGet() <= maxFreeDirectPages) {
+                freeDirectPages.addFirst(page);
+            } else {
+                // the pool of free pages is full, the memory is freed once the buffer gets garbage collected
+                freeDirectPageCount.decrementAndGet();
+                directBytesAllocated.addAndGet(-BigArrays.PAGE_SIZE_IN_BYTES);
+            }
+            page = null;
+        }
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
-        final Recycler.V<byte[]> v = bytePage.obtain();
+        final Recycler.V<byte[]> v = bytePageCounters.count(bytePage.obtain());
         if (v.isRecycled() && clear) {
             Arrays.fill(v.v(), (byte) 0);
         }
@@ -152,7 +275,7 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     }
 
     public Recycler.V<int[]> intPage(boolean clear) {
-        final Recycler.V<int[]> v = intPage.obtain();
+        final Recycler.V<int[]> v = intPageCounters.count(intPage.obtain());
         if (v.isRecycled() && clear) {
             Arrays.fill(v.v(), 0);
         }
@@ -160,7 +283,7 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     }
 
     public Recycler.V<long[]> longPage(boolean clear) {
-        final Recycler.V<long[]> v = longPage.obtain();
+        final Recycler.V<long[]> v = longPageCounters.count(longPage.obtain());
         if (v.isRecycled() && clear) {
             Arrays.fill(v.v(), 0L);
         }
@@ -169,7 +292,36 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
 
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
-        return objectPage.obtain();
+        return objectPageCounters.count(objectPage.obtain());
+    }
+
+    public PageCacheRecyclerStats stats() {
+        final Map<String, PageCacheRecyclerStats.PageStats> pages = new HashMap<>();
+        pages.put("bytes", bytePageCounters.stats(bytePage));
+        pages.put("ints", intPageCounters.stats(intPage));
+        pages.put("longs", longPageCounters.stats(longPage));
+        pages.put("objects", objectPageCounters.stats(objectPage));
+        return new PageCacheRecyclerStats(pages);
+    }
+
+    private static class PageCounters {
+
+        private final CounterMetric hits = new CounterMetric();
+        private final CounterMetric misses = new CounterMetric();
+
+        <T> Recycler.V<T> count(Recycler.V<T> v) {
+            if (v.isRecycled()) {
+                hits.inc();
+            } else {
+                misses.inc();
+            }
+            return v;
+        }
+
+        PageCacheRecyclerStats.PageStats stats(Recycler<?> recycler) {
+            final long localHits = recycler instanceof ThreadLocalRecycler ? ((ThreadLocalRecycler<?>) recycler).localHits() : 0;
+            return new PageCacheRecyclerStats.PageStats(hits.count(), localHits, misses.count());
+        }
     }
 
     private static <T> Recycler<T> build(Type type, int limit, int availableProcessors, Recycler.C<T> c) {
@@ -195,6 +347,13 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
                 return concurrent(dequeFactory(c, limit / availableProcessors), availableProcessors);
             }
         },
+        THREAD_LOCAL {
+            @Override
+            <T> Recycler<T> build(Recycler.C<T> c, int limit, int availableProcessors) {
+                // each thread may cache a few pages on its own but the total stays within the limit
+                return threadLocal(c, limit, Math.max(1, Math.min(MAX_THREAD_LOCAL_PAGES, limit / availableProcessors)));
+            }
+        },
         NONE {
             @Override
             <T> Recycler<T> build(Recycler.C<T> c, int limit, int availableProcessors) {
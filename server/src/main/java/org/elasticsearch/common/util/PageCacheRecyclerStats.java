@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hits and misses of the {@link PageCacheRecycler}, per type of page.
+ */
+public class PageCacheRecyclerStats implements Writeable, ToXContentFragment {
+
+    private final Map<String, PageStats> pages;
+
+    public PageCacheRecyclerStats(Map<String, PageStats> pages) {
+        this.pages = Collections.unmodifiableMap(new TreeMap<>(pages));
+    }
+
+    public PageCacheRecyclerStats(StreamInput in) throws IOException {
+        pages = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, PageStats::new)));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(pages, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+    }
+
+    /**
+     * Stats per type of page: {@code bytes}, {@code ints}, {@code longs} and {@code objects}.
+     */
+    public Map<String, PageStats> getPages() {
+        return pages;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.PAGE_CACHE_RECYCLER);
+        for (Map.Entry<String, PageStats> entry : pages.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public static class PageStats implements Writeable, ToXContentFragment {
+
+        private final long hits;
+        private final long localHits;
+        private final long misses;
+
+        public PageStats(long hits, long localHits, long misses) {
+            this.hits = hits;
+            this.localHits = localHits;
+            this.misses = misses;
+        }
+
+        public PageStats(StreamInput in) throws IOException {
+            hits = in.readVLong();
+            localHits = in.readVLong();
+            misses = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(hits);
+            out.writeVLong(localHits);
+            out.writeVLong(misses);
+        }
+
+        /**
+         * The number of pages that were obtained from the cache.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * The number of pages that were obtained from the thread-local cache of the calling thread, included in {@link #getHits()}.
+         */
+        public long getLocalHits() {
+            return localHits;
+        }
+
+        /**
+         * The number of pages that had to be allocated because the cache had none.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.HITS, hits);
+            builder.field(Fields.LOCAL_HITS, localHits);
+            builder.field(Fields.MISSES, misses);
+            return builder;
+        }
+    }
+
+    static final class Fields {
+        static final String PAGE_CACHE_RECYCLER = "page_cache_recycler";
+        static final String HITS = "hits";
+        static final String LOCAL_HITS = "local_hits";
+        static final String MISSES = "misses";
+    }
+}
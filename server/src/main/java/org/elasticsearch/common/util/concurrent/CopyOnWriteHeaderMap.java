@@ -0,0 +1,201 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of headers for {@link ThreadContext}. Contexts are copied on every header or transient that is put into them,
+ * so instead of copying a {@link HashMap} every time this map keeps its usually few entries in a flat array of keys and values:
+ * adding an entry is a single array copy that shares the keys and values with the previous version of the map, and lookups are
+ * a linear scan which is as fast as hashing for a handful of entries. Maps that grow beyond {@link #MAX_ARRAY_SIZE} entries fall
+ * back to a copied {@link HashMap}.
+ */
+final class CopyOnWriteHeaderMap<V> extends AbstractMap<String, V> {
+
+    static final int MAX_ARRAY_SIZE = 16;
+
+    private static final CopyOnWriteHeaderMap<?> EMPTY = new CopyOnWriteHeaderMap<>(new Object[0], null);
+
+    /** keys at even and values at odd positions, or {@code null} if this map is backed by {@link #map} */
+    private final Object[] keysAndValues;
+    private final Map<String, V> map;
+
+    private CopyOnWriteHeaderMap(Object[] keysAndValues, Map<String, V> map) {
+        assert (keysAndValues == null) != (map == null);
+        this.keysAndValues = keysAndValues;
+        this.map = map;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> CopyOnWriteHeaderMap<V> empty() {
+        return (CopyOnWriteHeaderMap<V>) EMPTY;
+    }
+
+    /**
+     * Returns an immutable copy of the given map, or the map itself if it already is a {@link CopyOnWriteHeaderMap}.
+     */
+    static <V> CopyOnWriteHeaderMap<V> copyOf(Map<String, ? extends V> map) {
+        if (map instanceof CopyOnWriteHeaderMap) {
+            @SuppressWarnings("unchecked")
+            final CopyOnWriteHeaderMap<V> copy = (CopyOnWriteHeaderMap<V>) map;
+            return copy;
+        }
+        return CopyOnWriteHeaderMap.<V>empty().withAll(map, false);
+    }
+
+    /**
+     * Returns a copy of this map with the given entry added, replacing an existing entry for the same key.
+     */
+    CopyOnWriteHeaderMap<V> with(String key, V value) {
+        return withAll(Collections.singletonMap(key, value), false);
+    }
+
+    /**
+     * Returns a copy of this map with all the given entries added.
+     *
+     * @param failIfPresent whether to throw an {@link IllegalArgumentException} rather than replacing existing entries
+     */
+    CopyOnWriteHeaderMap<V> withAll(Map<String, ? extends V> entries, boolean failIfPresent) {
+        if (entries.isEmpty()) {
+            return this;
+        }
+        if (keysAndValues != null) {
+            Object[] newKeysAndValues = Arrays.copyOf(keysAndValues, keysAndValues.length + 2 * entries.size());
+            int size = keysAndValues.length;
+            for (Map.Entry<String, ? extends V> entry : entries.entrySet()) {
+                final int index = indexOf(newKeysAndValues, size, entry.getKey());
+                if (index == -1) {
+                    newKeysAndValues[size++] = entry.getKey();
+                    newKeysAndValues[size++] = entry.getValue();
+                } else if (failIfPresent) {
+                    throw new IllegalArgumentException("value for key [" + entry.getKey() + "] already present");
+                } else {
+                    newKeysAndValues[index + 1] = entry.getValue();
+                }
+            }
+            if (size / 2 <= MAX_ARRAY_SIZE) {
+                if (size < newKeysAndValues.length) {
+                    newKeysAndValues = Arrays.copyOf(newKeysAndValues, size);
+                }
+                return new CopyOnWriteHeaderMap<>(newKeysAndValues, null);
+            }
+            final Map<String, V> newMap = new HashMap<>(size / 2);
+            for (int i = 0; i < size; i += 2) {
+                @SuppressWarnings("unchecked")
+                final V value = (V) newKeysAndValues[i + 1];
+                newMap.put((String) newKeysAndValues[i], value);
+            }
+            return new CopyOnWriteHeaderMap<>(null, newMap);
+        }
+        final Map<String, V> newMap = new HashMap<>(map);
+        for (Map.Entry<String, ? extends V> entry : entries.entrySet()) {
+            if (failIfPresent) {
+                if (newMap.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    throw new IllegalArgumentException("value for key [" + entry.getKey() + "] already present");
+                }
+            } else {
+                newMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CopyOnWriteHeaderMap<>(null, newMap);
+    }
+
+    private static int indexOf(Object[] keysAndValues, int size, Object key) {
+        for (int i = 0; i < size; i += 2) {
+            if (keysAndValues[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (keysAndValues == null) {
+            return map.get(key);
+        }
+        final int index = indexOf(keysAndValues, keysAndValues.length, key);
+        return index == -1 ? null : (V) keysAndValues[index + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (keysAndValues == null) {
+            return map.containsKey(key);
+        }
+        return indexOf(keysAndValues, keysAndValues.length, key) != -1;
+    }
+
+    @Override
+    public int size() {
+        return keysAndValues == null ? map.size() : keysAndValues.length / 2;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        if (keysAndValues == null) {
+            return Collections.unmodifiableMap(map).entrySet();
+        }
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<Entry<String, V>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keysAndValues.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<String, V> next() {
+                        if (hasNext() == false) {
+                            throw new NoSuchElementException();
+                        }
+                        final Entry<String, V> entry =
+                            new SimpleImmutableEntry<>((String) keysAndValues[index], (V) keysAndValues[index + 1]);
+                        index += 2;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CopyOnWriteHeaderMap.this.size();
+            }
+        };
+    }
+}
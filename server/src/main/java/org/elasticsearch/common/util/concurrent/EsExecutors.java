@@ -36,6 +36,8 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 public class EsExecutors {
@@ -103,6 +105,26 @@ public class EsExecutors {
                 new EsAbortPolicy(), contextHolder);
     }
 
+    /**
+     * Return a new executor that keeps a bounded queue per key and serves the queues by weighted deficit round robin.
+     *
+     * @param size number of fixed threads to use for executing tasks
+     * @param queueCapacityPerKey the number of tasks that can be queued for each key
+     * @param keySupplier resolves the key of a task on the thread that submits it
+     * @param weights the weight of each key, must be positive
+     */
+    public static EsThreadPoolExecutor newFairQueueFixed(String name, int size, int queueCapacityPerKey, Supplier<String> keySupplier,
+                                                         ToIntFunction<String> weights, ThreadFactory threadFactory,
+                                                         ThreadContext contextHolder) {
+        if (queueCapacityPerKey <= 0) {
+            throw new IllegalArgumentException("queue capacity per key for [" + name + "] executor must be positive, got: " +
+                            queueCapacityPerKey);
+        }
+        WeightedFairBlockingQueue<Runnable> queue = new WeightedFairBlockingQueue<>(keySupplier, weights, queueCapacityPerKey);
+        return new EsThreadPoolExecutor(name, size, size, 0, TimeUnit.MILLISECONDS, queue, threadFactory, new EsAbortPolicy(),
+                contextHolder);
+    }
+
     private static final ExecutorService DIRECT_EXECUTOR_SERVICE = new AbstractExecutorService() {
 
         @Override
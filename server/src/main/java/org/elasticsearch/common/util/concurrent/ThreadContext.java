@@ -215,6 +215,10 @@ public final class ThreadContext implements Closeable, Writeable {
      * Returns all of the request contexts headers
      */
     public Map<String, String> getHeaders() {
+        if (defaultHeader.isEmpty()) {
+            // the headers of a context are immutable
+            return threadLocal.get().requestHeaders;
+        }
         HashMap<String, String> map = new HashMap<>(defaultHeader);
         map.putAll(threadLocal.get().requestHeaders);
         return Collections.unmodifiableMap(map);
@@ -364,9 +368,9 @@ public final class ThreadContext implements Closeable, Writeable {
     }
 
     private static final class ThreadContextStruct {
-        private final Map<String, String> requestHeaders;
-        private final Map<String, Object> transientHeaders;
-        private final Map<String, List<String>> responseHeaders;
+        private final CopyOnWriteHeaderMap<String> requestHeaders;
+        private final CopyOnWriteHeaderMap<Object> transientHeaders;
+        private final CopyOnWriteHeaderMap<List<String>> responseHeaders;
         private final boolean isSystemContext;
         private long warningHeadersSize; //saving current warning headers' size not to recalculate the size with every new warning header
         private ThreadContextStruct(StreamInput in) throws IOException {
@@ -376,9 +380,9 @@ public final class ThreadContext implements Closeable, Writeable {
                 requestHeaders.put(in.readString(), in.readString());
             }
 
-            this.requestHeaders = requestHeaders;
-            this.responseHeaders = in.readMapOfLists(StreamInput::readString, StreamInput::readString);
-            this.transientHeaders = Collections.emptyMap();
+            this.requestHeaders = CopyOnWriteHeaderMap.copyOf(requestHeaders);
+            this.responseHeaders = CopyOnWriteHeaderMap.copyOf(in.readMapOfLists(StreamInput::readString, StreamInput::readString));
+            this.transientHeaders = CopyOnWriteHeaderMap.empty();
             isSystemContext = false; // we never serialize this it's a transient flag
             this.warningHeadersSize = 0L;
         }
@@ -390,9 +394,9 @@ public final class ThreadContext implements Closeable, Writeable {
             return new ThreadContextStruct(requestHeaders, responseHeaders, transientHeaders, true);
         }
 
-        private ThreadContextStruct(Map<String, String> requestHeaders,
-                                    Map<String, List<String>> responseHeaders,
-                                    Map<String, Object> transientHeaders, boolean isSystemContext) {
+        private ThreadContextStruct(CopyOnWriteHeaderMap<String> requestHeaders,
+                                    CopyOnWriteHeaderMap<List<String>> responseHeaders,
+                                    CopyOnWriteHeaderMap<Object> transientHeaders, boolean isSystemContext) {
             this.requestHeaders = requestHeaders;
             this.responseHeaders = responseHeaders;
             this.transientHeaders = transientHeaders;
@@ -400,9 +404,9 @@ public final class ThreadContext implements Closeable, Writeable {
             this.warningHeadersSize = 0L;
         }
 
-        private ThreadContextStruct(Map<String, String> requestHeaders,
-                                    Map<String, List<String>> responseHeaders,
-                                    Map<String, Object> transientHeaders, boolean isSystemContext,
+        private ThreadContextStruct(CopyOnWriteHeaderMap<String> requestHeaders,
+                                    CopyOnWriteHeaderMap<List<String>> responseHeaders,
+                                    CopyOnWriteHeaderMap<Object> transientHeaders, boolean isSystemContext,
                                     long warningHeadersSize) {
             this.requestHeaders = requestHeaders;
             this.responseHeaders = responseHeaders;
@@ -415,29 +419,18 @@ public final class ThreadContext implements Closeable, Writeable {
          * This represents the default context and it should only ever be called by {@link #DEFAULT_CONTEXT}.
          */
         private ThreadContextStruct() {
-            this(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), false);
+            this(CopyOnWriteHeaderMap.empty(), CopyOnWriteHeaderMap.empty(), CopyOnWriteHeaderMap.empty(), false);
         }
 
         private ThreadContextStruct putRequest(String key, String value) {
-            Map<String, String> newRequestHeaders = new HashMap<>(this.requestHeaders);
-            putSingleHeader(key, value, newRequestHeaders);
-            return new ThreadContextStruct(newRequestHeaders, responseHeaders, transientHeaders, isSystemContext);
-        }
-
-        private void putSingleHeader(String key, String value, Map<String, String> newHeaders) {
-            if (newHeaders.putIfAbsent(key, value) != null) {
-                throw new IllegalArgumentException("value for key [" + key + "] already present");
-            }
+            return putHeaders(Collections.singletonMap(key, value));
         }
 
         private ThreadContextStruct putHeaders(Map<String, String> headers) {
             if (headers.isEmpty()) {
                 return this;
             } else {
-                final Map<String, String> newHeaders = new HashMap<>(this.requestHeaders);
-                for (Map.Entry<String, String> entry : headers.entrySet()) {
-                    putSingleHeader(entry.getKey(), entry.getValue(), newHeaders);
-                }
+                final CopyOnWriteHeaderMap<String> newHeaders = requestHeaders.withAll(headers, true);
                 return new ThreadContextStruct(newHeaders, responseHeaders, transientHeaders, isSystemContext);
             }
         }
@@ -447,10 +440,10 @@ public final class ThreadContext implements Closeable, Writeable {
             if (headers.isEmpty()) {
                 return this;
             }
-            final Map<String, List<String>> newResponseHeaders = new HashMap<>(this.responseHeaders);
+            final Map<String, List<String>> newResponseHeaders = new HashMap<>(headers.size());
             for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
                 String key = entry.getKey();
-                final List<String> existingValues = newResponseHeaders.get(key);
+                final List<String> existingValues = responseHeaders.get(key);
                 if (existingValues != null) {
                     List<String> newValues = Stream.concat(entry.getValue().stream(),
                         existingValues.stream()).distinct().collect(Collectors.toList());
@@ -459,7 +452,8 @@ public final class ThreadContext implements Closeable, Writeable {
                     newResponseHeaders.put(key, entry.getValue());
                 }
             }
-            return new ThreadContextStruct(requestHeaders, newResponseHeaders, transientHeaders, isSystemContext);
+            return new ThreadContextStruct(requestHeaders, responseHeaders.withAll(newResponseHeaders, false), transientHeaders,
+                isSystemContext);
         }
 
         private ThreadContextStruct putResponse(final String key, final String value, final Function<String, String> uniqueValue,
@@ -485,8 +479,8 @@ public final class ThreadContext implements Closeable, Writeable {
                 }
             }
 
-            final Map<String, List<String>> newResponseHeaders = new HashMap<>(this.responseHeaders);
-            final List<String> existingValues = newResponseHeaders.get(key);
+            final CopyOnWriteHeaderMap<List<String>> newResponseHeaders;
+            final List<String> existingValues = responseHeaders.get(key);
             if (existingValues != null) {
                 final Set<String> existingUniqueValues = existingValues.stream().map(uniqueValue).collect(Collectors.toSet());
                 assert existingValues.size() == existingUniqueValues.size() :
@@ -496,9 +490,9 @@ public final class ThreadContext implements Closeable, Writeable {
                 }
                 final List<String> newValues = new ArrayList<>(existingValues);
                 newValues.add(value);
-                newResponseHeaders.put(key, Collections.unmodifiableList(newValues));
+                newResponseHeaders = responseHeaders.with(key, Collections.unmodifiableList(newValues));
             } else {
-                newResponseHeaders.put(key, Collections.singletonList(value));
+                newResponseHeaders = responseHeaders.with(key, Collections.singletonList(value));
             }
 
             //check if we can add another warning header - if max count within limits
@@ -516,10 +510,7 @@ public final class ThreadContext implements Closeable, Writeable {
 
 
         private ThreadContextStruct putTransient(String key, Object value) {
-            Map<String, Object> newTransient = new HashMap<>(this.transientHeaders);
-            if (newTransient.putIfAbsent(key, value) != null) {
-                throw new IllegalArgumentException("value for key [" + key + "] already present");
-            }
+            final CopyOnWriteHeaderMap<Object> newTransient = transientHeaders.withAll(Collections.singletonMap(key, value), true);
             return new ThreadContextStruct(requestHeaders, responseHeaders, newTransient, isSystemContext);
         }
 
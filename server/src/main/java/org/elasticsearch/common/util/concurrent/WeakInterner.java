@@ -0,0 +1,103 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out canonical instances of equal values, like {@link String#intern()} does for strings. Values are only weakly
+ * referenced: a canonical instance is dropped from the table once nothing else refers to it. Lookups do not lock, so
+ * values can be interned concurrently from many threads, for instance while cluster states are read from the network.
+ */
+public final class WeakInterner<T> {
+
+    private final ConcurrentMap<Entry<T>, Entry<T>> map = ConcurrentCollections.newConcurrentMap();
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+    /**
+     * Returns the canonical instance that is equal to the given value. The given value becomes the canonical instance if
+     * there is none yet.
+     */
+    public T intern(T value) {
+        purge();
+        final Entry<T> entry = new Entry<>(value, queue);
+        while (true) {
+            final Entry<T> existing = map.putIfAbsent(entry, entry);
+            if (existing == null) {
+                return value;
+            }
+            final T interned = existing.get();
+            if (interned != null) {
+                return interned;
+            }
+            // the canonical instance was collected after the lookup, replace its entry
+            map.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Returns the number of canonical instances in the table, including those that were collected but not purged yet.
+     */
+    public int size() {
+        purge();
+        return map.size();
+    }
+
+    private void purge() {
+        Reference<? extends T> reference;
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * A weak reference that is equal to the references to equal values. Once cleared it is only equal to itself, so that
+     * it can still be removed from the table.
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+
+        Entry(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof Entry == false) {
+                return false;
+            }
+            final Object value = get();
+            return value != null && value.equals(((Entry<?>) o).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A blocking queue that keeps a bounded sub-queue per key and serves the sub-queues by deficit round robin, so that a single key
+ * that queues up a lot of work neither fills the queue for everybody else nor delays their work until its own has been processed.
+ * The key of an element is resolved on the thread that offers it, typically from its {@link ThreadContext}. Every time a sub-queue
+ * gets its turn it may hand out as many elements as its weight before the next non-empty sub-queue is served.
+ */
+public class WeightedFairBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * The key of elements for which no key could be resolved.
+     */
+    public static final String DEFAULT_KEY = "_default";
+
+    /**
+     * The key of elements whose key was first seen while {@link #MAX_KEYS} keys with queued elements were already tracked.
+     */
+    public static final String OTHER_KEY = "_other";
+
+    /**
+     * The number of keys that are tracked before the sub-queues of keys that have nothing queued are evicted, together with their
+     * statistics. If all of them have queued elements then new keys share the {@link #OTHER_KEY} sub-queue, which bounds the total
+     * number of queued elements to {@code (MAX_KEYS + 1) * capacityPerKey} even if keys come from clients.
+     */
+    static final int MAX_KEYS = 256;
+
+    private final Supplier<String> keySupplier;
+    private final ToIntFunction<String> weights;
+    private final int capacityPerKey;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<String, SubQueue<E>> subQueues = new HashMap<>();
+    // the non-empty sub-queues in round robin order, the head is the one that is currently served
+    private final ArrayDeque<SubQueue<E>> active = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * @param keySupplier    resolves the key of the element that is offered by the current thread
+     * @param weights        the weight of each key, must be positive
+     * @param capacityPerKey the number of elements each key may have queued at a time
+     */
+    public WeightedFairBlockingQueue(Supplier<String> keySupplier, ToIntFunction<String> weights, int capacityPerKey) {
+        assert capacityPerKey >= 0;
+        this.keySupplier = keySupplier;
+        this.weights = weights;
+        this.capacityPerKey = capacityPerKey;
+    }
+
+    public int capacityPerKey() {
+        return capacityPerKey;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        final String key = keySupplier.get();
+        lock.lock();
+        try {
+            final SubQueue<E> subQueue = subQueue(key);
+            if (subQueue.elements.size() >= capacityPerKey) {
+                subQueue.rejected++;
+                return false;
+            }
+            enqueue(subQueue, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces adding an element to the queue, without doing size checks.
+     */
+    public void forcePut(E e) {
+        final String key = keySupplier.get();
+        lock.lock();
+        try {
+            enqueue(subQueue(key), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        // note, not used in ThreadPoolExecutor
+        throw new IllegalStateException("offer with timeout not allowed on weighted fair queue");
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        // note, not used in ThreadPoolExecutor
+        throw new IllegalStateException("put not allowed on weighted fair queue");
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            final SubQueue<E> head = active.peekFirst();
+            return head == null ? null : head.elements.peekFirst().element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (SubQueue<E> subQueue : active) {
+                for (Iterator<Entry<E>> it = subQueue.elements.iterator(); it.hasNext(); ) {
+                    if (it.next().element.equals(o)) {
+                        it.remove();
+                        size--;
+                        if (subQueue.elements.isEmpty()) {
+                            subQueue.deficit = 0;
+                            active.remove(subQueue);
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // iterates over a snapshot, which is good enough for the executor's purge and shutdown
+        final Iterator<E> it = snapshot().iterator();
+        return new Iterator<E>() {
+            E current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                current = it.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                WeightedFairBlockingQueue.this.remove(current);
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final String key = keySupplier.get();
+        lock.lock();
+        try {
+            return capacityPerKey - subQueue(key).elements.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (size > 0 && drained < maxElements) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics of every key that has been seen by this queue.
+     */
+    public Map<String, KeyStats> stats() {
+        lock.lock();
+        try {
+            final Map<String, KeyStats> stats = new HashMap<>(subQueues.size());
+            for (SubQueue<E> subQueue : subQueues.values()) {
+                stats.put(subQueue.key, new KeyStats(subQueue.weight, subQueue.elements.size(), subQueue.rejected, subQueue.dequeued,
+                    subQueue.waitTimeInNanos));
+            }
+            return Collections.unmodifiableMap(stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SubQueue<E> subQueue(String key) {
+        assert lock.isHeldByCurrentThread();
+        if (key == null || key.isEmpty()) {
+            key = DEFAULT_KEY;
+        }
+        SubQueue<E> subQueue = subQueues.get(key);
+        if (subQueue == null && subQueues.size() >= MAX_KEYS) {
+            // forget idle keys so that we only keep as many sub-queues around as there are keys with queued elements, a sub-queue
+            // is only ever active while it has elements so this never drops anything that is waiting to be served
+            subQueues.values().removeIf(idle -> idle.elements.isEmpty());
+            if (subQueues.size() >= MAX_KEYS) {
+                key = OTHER_KEY;
+                subQueue = subQueues.get(OTHER_KEY);
+            }
+        }
+        if (subQueue == null) {
+            final int weight = weights.applyAsInt(key);
+            assert weight > 0 : "weight of [" + key + "] must be positive but was [" + weight + "]";
+            subQueue = new SubQueue<>(key, weight);
+            subQueues.put(key, subQueue);
+        }
+        return subQueue;
+    }
+
+    private void enqueue(SubQueue<E> subQueue, E e) {
+        assert lock.isHeldByCurrentThread();
+        if (subQueue.elements.isEmpty()) {
+            active.addLast(subQueue);
+        }
+        subQueue.elements.addLast(new Entry<>(e, System.nanoTime()));
+        size++;
+        notEmpty.signal();
+    }
+
+    private E dequeue() {
+        assert lock.isHeldByCurrentThread();
+        assert size > 0;
+        final SubQueue<E> subQueue = active.peekFirst();
+        if (subQueue.deficit == 0) {
+            // the sub-queue starts its turn, elements all have the same cost so its quantum is its weight
+            subQueue.deficit = subQueue.weight;
+        }
+        final Entry<E> entry = subQueue.elements.pollFirst();
+        subQueue.deficit--;
+        subQueue.dequeued++;
+        subQueue.waitTimeInNanos += Math.max(0L, System.nanoTime() - entry.enqueuedNanos);
+        size--;
+        if (subQueue.elements.isEmpty()) {
+            // an idle sub-queue does not keep its deficit, otherwise it could burst after being idle
+            subQueue.deficit = 0;
+            active.pollFirst();
+        } else if (subQueue.deficit == 0) {
+            active.pollFirst();
+            active.addLast(subQueue);
+        }
+        return entry.element;
+    }
+
+    private List<E> snapshot() {
+        lock.lock();
+        try {
+            final List<E> elements = new ArrayList<>(size);
+            for (SubQueue<E> subQueue : active) {
+                for (Entry<E> entry : subQueue.elements) {
+                    elements.add(entry.element);
+                }
+            }
+            return elements;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry<E> {
+        private final E element;
+        private final long enqueuedNanos;
+
+        private Entry(E element, long enqueuedNanos) {
+            this.element = element;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private static final class SubQueue<E> {
+        private final String key;
+        private final int weight;
+        private final ArrayDeque<Entry<E>> elements = new ArrayDeque<>();
+        private int deficit;
+        private long rejected;
+        private long dequeued;
+        private long waitTimeInNanos;
+
+        private SubQueue(String key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A point in time snapshot of the statistics of a single key.
+     */
+    public static final class KeyStats {
+        private final int weight;
+        private final int queue;
+        private final long rejected;
+        private final long dequeued;
+        private final long waitTimeInNanos;
+
+        KeyStats(int weight, int queue, long rejected, long dequeued, long waitTimeInNanos) {
+            this.weight = weight;
+            this.queue = queue;
+            this.rejected = rejected;
+            this.dequeued = dequeued;
+            this.waitTimeInNanos = waitTimeInNanos;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * The number of elements that are currently queued for this key.
+         */
+        public int getQueue() {
+            return queue;
+        }
+
+        /**
+         * The number of elements that were rejected because the sub-queue of this key was full.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The number of elements of this key that were taken from the queue.
+         */
+        public long getDequeued() {
+            return dequeued;
+        }
+
+        /**
+         * The total time the elements of {@link #getDequeued()} spent in the queue.
+         */
+        public long getWaitTimeInNanos() {
+            return waitTimeInNanos;
+        }
+    }
+}
@@ -56,6 +56,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -96,6 +97,14 @@ public final class IndexModule {
             Setting.listSetting("index.store.preload", Collections.emptyList(), Function.identity(),
                     Property.IndexScope, Property.NodeScope);
 
+    /** Which extensions the {@code hybridfs} store type memory-maps, all other files are read with NIO. The defaults map
+     *  terms, doc values, points and norms, which are accessed randomly, and leave stored fields and term vectors to NIO
+     *  since they are large and mostly read sequentially for a few hits. */
+    public static final Setting<List<String>> INDEX_STORE_HYBRID_MMAP_EXTENSIONS =
+            Setting.listSetting("index.store.hybrid.mmap.extensions",
+                    Arrays.asList("tim", "tip", "dvd", "dvm", "dim", "dii", "nvd", "nvm", "cfs"),
+                    Function.identity(), Property.IndexScope, Property.NodeScope);
+
     public static final String SIMILARITY_SETTINGS_PREFIX = "index.similarity";
 
     // whether to use the query cache
@@ -304,6 +313,7 @@ public final class IndexModule {
     public enum Type {
         NIOFS("niofs"),
         MMAPFS("mmapfs"),
+        HYBRIDFS("hybridfs"),
         SIMPLEFS("simplefs"),
         FS("fs");
 
@@ -415,8 +425,8 @@ public final class IndexModule {
                 type = null;
             }
         }
-        if (type != null && type == Type.MMAPFS && allowMmapfs == false) {
-            throw new IllegalArgumentException("store type [mmapfs] is not allowed");
+        if ((type == Type.MMAPFS || type == Type.HYBRIDFS) && allowMmapfs == false) {
+            throw new IllegalArgumentException("store type [" + type.getSettingsKey() + "] is not allowed");
         }
         final IndexStore store;
         if (storeType.isEmpty() || isBuiltinType(storeType)) {
@@ -563,8 +563,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             if (shardId != null) {
                 final IndexShard shard = indexService.getShardOrNull(shardId.id());
                 if (shard != null) {
-                    long ramBytesUsed = accountable != null ? accountable.ramBytesUsed() : 0L;
-                    shard.shardBitsetFilterCache().onCached(ramBytesUsed);
+                    shard.shardBitsetFilterCache().onCached(accountable);
                 }
             }
         }
@@ -574,8 +573,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             if (shardId != null) {
                 final IndexShard shard = indexService.getShardOrNull(shardId.id());
                 if (shard != null) {
-                    long ramBytesUsed = accountable != null ? accountable.ramBytesUsed() : 0L;
-                    shard.shardBitsetFilterCache().onRemoval(ramBytesUsed);
+                    shard.shardBitsetFilterCache().onRemoval(accountable);
                 }
             }
         }
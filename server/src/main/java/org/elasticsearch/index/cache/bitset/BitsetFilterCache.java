@@ -24,6 +24,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
@@ -32,12 +33,16 @@ import org.apache.lucene.search.join.BitSetProducer;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.cache.RemovalListener;
 import org.elasticsearch.common.cache.RemovalNotification;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.lucene.search.RoaringBitSet;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.TimeValue;
@@ -74,8 +79,11 @@ public final class BitsetFilterCache extends AbstractIndexComponent implements I
 
     public static final Setting<Boolean> INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING =
         Setting.boolSetting("index.load_fixed_bitset_filters_eagerly", true, Property.IndexScope);
+    public static final Setting<Boolean> INDEX_BITSET_FILTER_CACHE_ROARING_SETTING =
+        Setting.boolSetting("index.bitset_filter_cache.roaring", true, Property.IndexScope);
 
     private final boolean loadRandomAccessFiltersEagerly;
+    private final boolean useRoaringBitSets;
     private final Cache<IndexReader.CacheKey, Cache<Query, Value>> loadedFilters;
     private final Listener listener;
 
@@ -85,6 +93,7 @@ public final class BitsetFilterCache extends AbstractIndexComponent implements I
             throw new IllegalArgumentException("listener must not be null");
         }
         this.loadRandomAccessFiltersEagerly = this.indexSettings.getValue(INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING);
+        this.useRoaringBitSets = this.indexSettings.getValue(INDEX_BITSET_FILTER_CACHE_ROARING_SETTING);
         this.loadedFilters = CacheBuilder.<IndexReader.CacheKey, Cache<Query, Value>>builder().removalListener(this).build();
         this.listener = listener;
     }
@@ -139,6 +148,8 @@ public final class BitsetFilterCache extends AbstractIndexComponent implements I
             final BitSet bitSet;
             if (s == null) {
                 bitSet = null;
+            } else if (useRoaringBitSets) {
+                bitSet = roaringOrFixedBitSet(s.iterator(), context.reader().maxDoc());
             } else {
                 bitSet = BitSet.of(s.iterator(), context.reader().maxDoc());
             }
@@ -149,6 +160,22 @@ public final class BitsetFilterCache extends AbstractIndexComponent implements I
         }).bitset;
     }
 
+    /**
+     * Builds a {@link RoaringBitSet} out of the given iterator, unless the set is so dense that this barely saves memory, in
+     * which case a {@link FixedBitSet} is returned since it is faster to access.
+     */
+    static BitSet roaringOrFixedBitSet(DocIdSetIterator iterator, int maxDoc) throws IOException {
+        final RoaringBitSet roaring = RoaringBitSet.of(iterator, maxDoc);
+        final long fixedBytes = RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Long.BYTES * FixedBitSet.bits2words(maxDoc));
+        if (roaring.ramBytesUsed() < fixedBytes - (fixedBytes >>> 3)) {
+            return roaring;
+        }
+        final FixedBitSet fixed = new FixedBitSet(maxDoc);
+        fixed.or(new BitSetIterator(roaring, roaring.cardinality()));
+        return fixed;
+    }
+
     @Override
     public void onRemoval(RemovalNotification<IndexReader.CacheKey, Cache<Query, Value>> notification) {
         if (notification.getKey() == null) {
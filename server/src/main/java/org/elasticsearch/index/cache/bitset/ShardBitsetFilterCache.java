@@ -19,29 +19,76 @@
 
 package org.elasticsearch.index.cache.bitset;
 
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.common.lucene.search.RoaringBitSet;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ShardBitsetFilterCache extends AbstractIndexShardComponent {
 
     private final CounterMetric totalMetric = new CounterMetric();
+    private final Map<String, CounterMetric> typeMetrics = new ConcurrentHashMap<>();
 
     public ShardBitsetFilterCache(ShardId shardId, IndexSettings indexSettings) {
         super(shardId, indexSettings);
     }
 
-    public void onCached(long sizeInBytes) {
-        totalMetric.inc(sizeInBytes);
+    /**
+     * @param bitset the cached bitset, <code>null</code> if it has no documents
+     */
+    public void onCached(Accountable bitset) {
+        if (bitset != null) {
+            final long sizeInBytes = bitset.ramBytesUsed();
+            totalMetric.inc(sizeInBytes);
+            typeMetrics.computeIfAbsent(type(bitset), type -> new CounterMetric()).inc(sizeInBytes);
+        }
     }
 
-    public void onRemoval(long sizeInBytes) {
-        totalMetric.dec(sizeInBytes);
+    /**
+     * @param bitset the removed bitset, <code>null</code> if it has no documents
+     */
+    public void onRemoval(Accountable bitset) {
+        if (bitset != null) {
+            final long sizeInBytes = bitset.ramBytesUsed();
+            totalMetric.dec(sizeInBytes);
+            typeMetrics.computeIfAbsent(type(bitset), type -> new CounterMetric()).dec(sizeInBytes);
+        }
     }
 
     public long getMemorySizeInBytes() {
         return totalMetric.count();
     }
 
+    /**
+     * The memory used by the cached bitsets of each implementation, keyed by <code>fixed</code>, <code>sparse</code> and
+     * <code>roaring</code>.
+     */
+    public Map<String, Long> getMemorySizeInBytesByType() {
+        final Map<String, Long> sizes = new HashMap<>();
+        for (Map.Entry<String, CounterMetric> entry : typeMetrics.entrySet()) {
+            sizes.put(entry.getKey(), entry.getValue().count());
+        }
+        return sizes;
+    }
+
+    static String type(Accountable bitset) {
+        if (bitset instanceof RoaringBitSet) {
+            return "roaring";
+        } else if (bitset instanceof SparseFixedBitSet) {
+            return "sparse";
+        } else if (bitset instanceof FixedBitSet) {
+            return "fixed";
+        } else {
+            return bitset.getClass().getSimpleName();
+        }
+    }
+
 }
@@ -22,6 +22,9 @@ package org.elasticsearch.index.cache.query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.query.QueryCache;
@@ -33,11 +36,24 @@ import org.elasticsearch.indices.IndicesQueryCache;
  */
 public class IndexQueryCache extends AbstractIndexComponent implements QueryCache {
 
+    /**
+     * The amount of the node query cache that the shards of this index may use on a node, {@code -1} to let them use all of it.
+     */
+    public static final Setting<ByteSizeValue> INDEX_QUERY_CACHE_QUOTA_SETTING =
+            Setting.byteSizeSetting("index.queries.cache.quota", new ByteSizeValue(-1), Property.Dynamic, Property.IndexScope);
+
     final IndicesQueryCache indicesQueryCache;
+    private volatile ByteSizeValue quota;
 
     public IndexQueryCache(IndexSettings indexSettings, IndicesQueryCache indicesQueryCache) {
         super(indexSettings);
         this.indicesQueryCache = indicesQueryCache;
+        this.quota = INDEX_QUERY_CACHE_QUOTA_SETTING.get(indexSettings.getSettings());
+        indexSettings.getScopedSettings().addSettingsUpdateConsumer(INDEX_QUERY_CACHE_QUOTA_SETTING, this::setQuota);
+    }
+
+    private void setQuota(ByteSizeValue quota) {
+        this.quota = quota;
     }
 
     @Override
@@ -53,7 +69,7 @@ public class IndexQueryCache extends AbstractIndexComponent implements QueryCach
 
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
-        return indicesQueryCache.doCache(weight, policy);
+        return indicesQueryCache.doCache(weight, policy, quota.getBytes());
     }
 
 }
@@ -41,6 +41,8 @@ public class CodecService {
 
     public static final String DEFAULT_CODEC = "default";
     public static final String BEST_COMPRESSION_CODEC = "best_compression";
+    /** compresses stored fields with preset dictionaries, for repetitive documents like logs */
+    public static final String DICTIONARY_COMPRESSION_CODEC = "dictionary_compression";
     /** the raw unfiltered lucene default. useful for testing */
     public static final String LUCENE_DEFAULT_CODEC = "lucene_default";
 
@@ -49,11 +51,14 @@ public class CodecService {
         if (mapperService == null) {
             codecs.put(DEFAULT_CODEC, new Lucene70Codec());
             codecs.put(BEST_COMPRESSION_CODEC, new Lucene70Codec(Mode.BEST_COMPRESSION));
+            codecs.put(DICTIONARY_COMPRESSION_CODEC, new DictionaryCompressionCodec());
         } else {
             codecs.put(DEFAULT_CODEC,
                     new PerFieldMappingPostingFormatCodec(Mode.BEST_SPEED, mapperService, logger));
             codecs.put(BEST_COMPRESSION_CODEC,
                     new PerFieldMappingPostingFormatCodec(Mode.BEST_COMPRESSION, mapperService, logger));
+            codecs.put(DICTIONARY_COMPRESSION_CODEC, new DictionaryCompressionCodec(
+                    new PerFieldMappingPostingFormatCodec(Mode.BEST_SPEED, mapperService, logger)));
         }
         codecs.put(LUCENE_DEFAULT_CODEC, Codec.getDefault());
         for (String codec : Codec.availableCodecs()) {
@@ -0,0 +1,202 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link CompressionMode} that compresses large blocks with Deflate while keeping single documents cheap to read. The
+ * beginning of each block is compressed on its own and then used as a preset dictionary to compress the rest of the block
+ * in several independent sub-blocks. Documents of the same index tend to repeat the same keys and values, so the
+ * dictionary gets most of the ratio of compressing the whole block at once, while reading a document only requires
+ * decompressing the dictionary and the sub-blocks that contain the document.
+ */
+final class DeflateWithPresetDictCompressionMode extends CompressionMode {
+
+    // the dictionary is 1/(NUM_SUB_BLOCKS * DICT_SIZE_FACTOR) of the block, the rest is split in NUM_SUB_BLOCKS sub-blocks
+    static final int NUM_SUB_BLOCKS = 10;
+    static final int DICT_SIZE_FACTOR = 6;
+
+    private final int level;
+
+    DeflateWithPresetDictCompressionMode(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public Compressor newCompressor() {
+        return new DeflateWithPresetDictCompressor(level);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+        return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+        return "DEFLATE_WITH_PRESET_DICT(level=" + level + ")";
+    }
+
+    private static final class DeflateWithPresetDictCompressor extends Compressor {
+
+        private final Deflater deflater;
+        private byte[] compressed = new byte[64];
+        private boolean closed;
+
+        DeflateWithPresetDictCompressor(int level) {
+            deflater = new Deflater(level, true);
+        }
+
+        @Override
+        public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+            final int dictLength = len / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+            final int blockLength = (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+            out.writeVInt(dictLength);
+            out.writeVInt(blockLength);
+            deflate(bytes, off, dictLength, bytes, off, 0, out);
+            for (int start = off + dictLength; start < off + len; start += blockLength) {
+                deflate(bytes, start, Math.min(blockLength, off + len - start), bytes, off, dictLength, out);
+            }
+        }
+
+        private void deflate(byte[] bytes, int off, int len, byte[] dict, int dictOff, int dictLength, DataOutput out) throws IOException {
+            deflater.reset();
+            if (dictLength > 0) {
+                deflater.setDictionary(dict, dictOff, dictLength);
+            }
+            deflater.setInput(bytes, off, len);
+            deflater.finish();
+            int totalCount = 0;
+            while (true) {
+                totalCount += deflater.deflate(compressed, totalCount, compressed.length - totalCount);
+                if (deflater.finished()) {
+                    break;
+                }
+                compressed = ArrayUtil.grow(compressed);
+            }
+            out.writeVInt(totalCount);
+            out.writeBytes(compressed, totalCount);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                deflater.end();
+                closed = true;
+            }
+        }
+    }
+
+    private static final class DeflateWithPresetDictDecompressor extends Decompressor {
+
+        // stored fields readers clone their decompressor for every thread, so each thread reuses its own inflater. Decompressors
+        // are never closed, the native memory of the inflater is released when the decompressor is garbage collected.
+        private final Inflater inflater = new Inflater(true);
+        private byte[] dictionary = BytesRef.EMPTY_BYTES;
+        private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+        @Override
+        public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+            assert offset + length <= originalLength;
+            if (length == 0) {
+                bytes.length = 0;
+                return;
+            }
+            final int dictLength = in.readVInt();
+            final int blockLength = in.readVInt();
+            dictionary = ArrayUtil.grow(dictionary, dictLength);
+            inflate(in, dictionary, 0, dictLength, BytesRef.EMPTY_BYTES, 0);
+
+            // the dictionary is also the beginning of the data, start is the position in the data of bytes.bytes[0]
+            int start;
+            bytes.offset = 0;
+            if (offset < dictLength) {
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+                System.arraycopy(dictionary, 0, bytes.bytes, 0, dictLength);
+                bytes.length = dictLength;
+                start = 0;
+            } else {
+                bytes.length = 0;
+                start = dictLength;
+                // skip the sub-blocks that end before the requested range
+                while (start + blockLength <= offset) {
+                    in.skipBytes(in.readVInt());
+                    start += blockLength;
+                }
+            }
+
+            // decompress the sub-blocks that intersect with the requested range
+            while (start + bytes.length < offset + length) {
+                final int subBlockLength = Math.min(blockLength, originalLength - start - bytes.length);
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + subBlockLength);
+                inflate(in, bytes.bytes, bytes.length, subBlockLength, dictionary, dictLength);
+                bytes.length += subBlockLength;
+            }
+            bytes.offset = offset - start;
+            bytes.length = length;
+        }
+
+        private void inflate(DataInput in, byte[] dest, int destOff, int len, byte[] dict, int dictLength) throws IOException {
+            final int compressedLength = in.readVInt();
+            // pad with an extra dummy byte, see the javadocs of Inflater(boolean)
+            compressed = ArrayUtil.grow(compressed, compressedLength + 1);
+            in.readBytes(compressed, 0, compressedLength);
+            compressed[compressedLength] = 0;
+            inflater.reset();
+            if (dictLength > 0) {
+                inflater.setDictionary(dict, 0, dictLength);
+            }
+            inflater.setInput(compressed, 0, compressedLength + 1);
+            int totalCount = 0;
+            try {
+                while (totalCount < len) {
+                    final int count = inflater.inflate(dest, destOff + totalCount, len - totalCount);
+                    if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    totalCount += count;
+                }
+            } catch (DataFormatException e) {
+                throw new CorruptIndexException("failed to decompress stored fields", in, e);
+            }
+            if (totalCount != len) {
+                throw new CorruptIndexException("lengths mismatch: " + totalCount + " != " + len, in);
+            }
+        }
+
+        @Override
+        public Decompressor clone() {
+            return new DeflateWithPresetDictDecompressor();
+        }
+    }
+}
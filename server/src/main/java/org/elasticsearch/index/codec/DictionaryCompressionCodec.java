@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.compressing.CompressingStoredFieldsFormat;
+import org.apache.lucene.codecs.lucene70.Lucene70Codec;
+
+import java.util.zip.Deflater;
+
+/**
+ * A codec that stores fields in large blocks compressed with {@link DeflateWithPresetDictCompressionMode}, which compresses
+ * repetitive documents like logs better than {@code best_compression} while decompressing less data per fetched document.
+ * All other formats are those of the wrapped codec. Segments are read back through the no-arg constructor, which Lucene
+ * loads by name.
+ */
+// LUCENE UPGRADE: make sure to move to a new codec depending on the lucene version
+public final class DictionaryCompressionCodec extends FilterCodec {
+
+    public static final String NAME = "ESDictionaryCompression70";
+
+    // ten sub-blocks of 48kb, plus the dictionary, per block
+    private static final StoredFieldsFormat STORED_FIELDS_FORMAT = new CompressingStoredFieldsFormat("ESDictionaryCompressionStoredFields",
+        new DeflateWithPresetDictCompressionMode(Deflater.DEFAULT_COMPRESSION), 10 * 48 * 1024, 4096, 1024);
+
+    /** Used by Lucene to read segments written with this codec. */
+    public DictionaryCompressionCodec() {
+        this(new Lucene70Codec());
+    }
+
+    public DictionaryCompressionCodec(Codec delegate) {
+        super(NAME, delegate);
+    }
+
+    @Override
+    public StoredFieldsFormat storedFieldsFormat() {
+        return STORED_FIELDS_FORMAT;
+    }
+}
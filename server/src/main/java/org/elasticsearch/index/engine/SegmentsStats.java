@@ -21,6 +21,7 @@ package org.elasticsearch.index.engine;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -31,7 +32,9 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 public class SegmentsStats implements Streamable, ToXContentFragment {
 
@@ -47,6 +50,7 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
     private long versionMapMemoryInBytes;
     private long maxUnsafeAutoIdTimestamp = Long.MIN_VALUE;
     private long bitsetMemoryInBytes;
+    private ImmutableOpenMap<String, Long> bitsetMemoryInBytesByType = ImmutableOpenMap.of();
     private ImmutableOpenMap<String, Long> fileSizes = ImmutableOpenMap.of();
 
     /*
@@ -124,6 +128,15 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    public void addBitsetMemoryInBytesByType(Map<String, Long> bitsetMemoryInBytesByType) {
+        ImmutableOpenMap.Builder<String, Long> map = ImmutableOpenMap.builder(this.bitsetMemoryInBytesByType);
+        for (Map.Entry<String, Long> entry : bitsetMemoryInBytesByType.entrySet()) {
+            Long oldValue = map.get(entry.getKey());
+            map.put(entry.getKey(), oldValue == null ? entry.getValue() : oldValue + entry.getValue());
+        }
+        this.bitsetMemoryInBytesByType = map.build();
+    }
+
     public void addFileSizes(ImmutableOpenMap<String, Long> fileSizes) {
         ImmutableOpenMap.Builder<String, Long> map = ImmutableOpenMap.builder(this.fileSizes);
 
@@ -155,6 +168,7 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         addIndexWriterMemoryInBytes(mergeStats.indexWriterMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addBitsetMemoryInBytesByType(mergeStats.bitsetMemoryInBytesByType);
         addFileSizes(mergeStats.fileSizes);
     }
 
@@ -275,6 +289,17 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         return new ByteSizeValue(bitsetMemoryInBytes);
     }
 
+    /**
+     * Estimation of the memory usage by the cached bitsets of each implementation, like <code>fixed</code> or <code>roaring</code>.
+     */
+    public Map<String, Long> getBitsetMemoryInBytesByType() {
+        Map<String, Long> sizes = new HashMap<>();
+        for (ObjectObjectCursor<String, Long> entry : bitsetMemoryInBytesByType) {
+            sizes.put(entry.key, entry.value);
+        }
+        return sizes;
+    }
+
     public ImmutableOpenMap<String, Long> getFileSizes() {
         return fileSizes;
     }
@@ -301,6 +326,13 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         builder.humanReadableField(Fields.INDEX_WRITER_MEMORY_IN_BYTES, Fields.INDEX_WRITER_MEMORY, getIndexWriterMemory());
         builder.humanReadableField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, getVersionMapMemory());
         builder.humanReadableField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, getBitsetMemory());
+        builder.startObject(Fields.FIXED_BIT_SET_TYPES);
+        for (ObjectObjectCursor<String, Long> entry : bitsetMemoryInBytesByType) {
+            builder.startObject(entry.key);
+            builder.humanReadableField(Fields.MEMORY_IN_BYTES, Fields.MEMORY, new ByteSizeValue(entry.value));
+            builder.endObject();
+        }
+        builder.endObject();
         builder.field(Fields.MAX_UNSAFE_AUTO_ID_TIMESTAMP, maxUnsafeAutoIdTimestamp);
         builder.startObject(Fields.FILE_SIZES);
         for (Iterator<ObjectObjectCursor<String, Long>> it = fileSizes.iterator(); it.hasNext();) {
@@ -339,6 +371,7 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         static final String MAX_UNSAFE_AUTO_ID_TIMESTAMP = "max_unsafe_auto_id_timestamp";
         static final String FIXED_BIT_SET = "fixed_bit_set";
         static final String FIXED_BIT_SET_MEMORY_IN_BYTES = "fixed_bit_set_memory_in_bytes";
+        static final String FIXED_BIT_SET_TYPES = "fixed_bit_set_types";
         static final String FILE_SIZES = "file_sizes";
         static final String SIZE = "size";
         static final String SIZE_IN_BYTES = "size_in_bytes";
@@ -368,6 +401,15 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
             map.put(key, value);
         }
         fileSizes = map.build();
+
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            int types = in.readVInt();
+            ImmutableOpenMap.Builder<String, Long> byType = ImmutableOpenMap.builder(types);
+            for (int i = 0; i < types; i++) {
+                byType.put(in.readString(), in.readLong());
+            }
+            bitsetMemoryInBytesByType = byType.build();
+        }
     }
 
     @Override
@@ -390,5 +432,13 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
             out.writeString(entry.key);
             out.writeLong(entry.value.longValue());
         }
+
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVInt(bitsetMemoryInBytesByType.size());
+            for (ObjectObjectCursor<String, Long> entry : bitsetMemoryInBytesByType) {
+                out.writeString(entry.key);
+                out.writeLong(entry.value.longValue());
+            }
+        }
     }
 }
@@ -175,7 +175,7 @@ public class DocumentMapper implements ToXContentFragment {
         this.hasNestedObjects = hasNestedObjects;
 
         try {
-            mappingSource = new CompressedXContent(this, XContentType.JSON, ToXContent.EMPTY_PARAMS);
+            mappingSource = CompressedXContent.intern(new CompressedXContent(this, XContentType.JSON, ToXContent.EMPTY_PARAMS));
         } catch (Exception e) {
             throw new ElasticsearchGenerationException("failed to serialize source for type [" + type + "]", e);
         }
@@ -33,6 +33,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.collect.CopyOnWriteHashMap;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -127,7 +128,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
     private volatile DocumentMapper defaultMapper;
 
     private volatile FieldTypeLookup fieldTypes;
-    private volatile Map<String, ObjectMapper> fullPathObjectMappers = emptyMap();
+    private volatile CopyOnWriteHashMap<String, ObjectMapper> fullPathObjectMappers = new CopyOnWriteHashMap<>();
     private boolean hasNested = false; // updated dynamically to true when a nested object is added
 
     private final DocumentMapperParser documentParser;
@@ -398,7 +399,7 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
     private synchronized Map<String, DocumentMapper> internalMerge(@Nullable DocumentMapper defaultMapper, @Nullable String defaultMappingSource,
                                                                    DocumentMapper mapper, MergeReason reason) {
         boolean hasNested = this.hasNested;
-        Map<String, ObjectMapper> fullPathObjectMappers = this.fullPathObjectMappers;
+        CopyOnWriteHashMap<String, ObjectMapper> fullPathObjectMappers = this.fullPathObjectMappers;
         FieldTypeLookup fieldTypes = this.fieldTypes;
 
         Map<String, DocumentMapper> results = new LinkedHashMap<>(2);
@@ -452,11 +453,11 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
             fieldTypes = fieldTypes.copyAndAddAll(newMapper.type(), fieldMappers, fieldAliasMappers);
 
             for (ObjectMapper objectMapper : objectMappers) {
-                if (fullPathObjectMappers == this.fullPathObjectMappers) {
-                    // first time through the loops
-                    fullPathObjectMappers = new HashMap<>(this.fullPathObjectMappers);
+                // merging only clones the object mappers on the path to the updated fields, the others are shared with the
+                // previous mapping and so is their entry in the lookup
+                if (fullPathObjectMappers.get(objectMapper.fullPath()) != objectMapper) {
+                    fullPathObjectMappers = fullPathObjectMappers.copyAndPut(objectMapper.fullPath(), objectMapper);
                 }
-                fullPathObjectMappers.put(objectMapper.fullPath(), objectMapper);
 
                 if (objectMapper.nested().isNested()) {
                     hasNested = true;
@@ -504,12 +505,6 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         // make structures immutable
         results = Collections.unmodifiableMap(results);
 
-        // only need to immutably rewrap these if the previous reference was changed.
-        // if not then they are already implicitly immutable.
-        if (fullPathObjectMappers != this.fullPathObjectMappers) {
-            fullPathObjectMappers = Collections.unmodifiableMap(fullPathObjectMappers);
-        }
-
         // commit the change
         if (defaultMappingSource != null) {
             this.defaultMappingSource = defaultMappingSource;
@@ -965,6 +965,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     public SegmentsStats segmentStats(boolean includeSegmentFileSizes) {
         SegmentsStats segmentsStats = getEngine().segmentsStats(includeSegmentFileSizes);
         segmentsStats.addBitsetMemoryInBytes(shardBitsetFilterCache.getMemorySizeInBytes());
+        segmentsStats.addBitsetMemoryInBytesByType(shardBitsetFilterCache.getMemorySizeInBytesByType());
         return segmentsStats;
     }
 
@@ -258,6 +258,20 @@ public class IndexShardSnapshotStatus {
             return failure;
         }
 
+        /**
+         * Returns the average number of bytes processed per second. The total time of the snapshot is used once it is known,
+         * otherwise the time elapsed since the snapshot started.
+         *
+         * @param currentTimeMillis the current time, used while the snapshot is still running
+         */
+        public long getProcessedBytesPerSecond(final long currentTimeMillis) {
+            final long elapsedMillis = totalTime > 0 ? totalTime : currentTimeMillis - startTime;
+            if (startTime == 0L || elapsedMillis <= 0L) {
+                return 0L;
+            }
+            return processedSize * 1000L / elapsedMillis;
+        }
+
         @Override
         public String toString() {
             return "index shard snapshot status (" +
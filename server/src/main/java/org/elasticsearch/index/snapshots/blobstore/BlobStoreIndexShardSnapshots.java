@@ -131,6 +131,22 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         return files.get(name);
     }
 
+    /**
+     * Returns the number of files referencing each content-defined chunk, keyed by the name of the chunk's blob. Chunks
+     * that are missing from the returned map are no longer referenced by any snapshot and can be deleted.
+     */
+    public Map<String, Integer> chunkReferenceCounts() {
+        Map<String, Integer> referenceCounts = new HashMap<>();
+        for (FileInfo fileInfo : files.values()) {
+            if (fileInfo.isChunked()) {
+                for (FileInfo.Chunk chunk : fileInfo.chunks()) {
+                    referenceCounts.merge(chunk.name(), 1, Integer::sum);
+                }
+            }
+        }
+        return referenceCounts;
+    }
+
     @Override
     public Iterator<SnapshotFiles> iterator() {
         return shardSnapshots.iterator();
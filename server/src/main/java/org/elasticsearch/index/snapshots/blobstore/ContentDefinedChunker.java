@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.apache.lucene.store.IndexInput;
+
+import java.io.IOException;
+
+/**
+ * Splits a file into chunks whose boundaries depend on the content of the file rather than on fixed offsets, so that
+ * inserting or removing bytes only changes the chunks around the modification. Boundaries are found with a gear rolling
+ * hash: a boundary is placed after a byte once the high bits of the hash are all zero, which happens on average once every
+ * {@link #AVERAGE_CHUNK_SIZE} bytes past the minimum chunk size. Chunks are never smaller than {@link #MIN_CHUNK_SIZE}
+ * (unless they are the last chunk of a file) and never larger than {@link #MAX_CHUNK_SIZE}.
+ */
+public final class ContentDefinedChunker {
+
+    public static final int MIN_CHUNK_SIZE = 128 * 1024;
+    public static final int AVERAGE_CHUNK_SIZE = 512 * 1024;
+    public static final int MAX_CHUNK_SIZE = 2 * 1024 * 1024;
+
+    // the gear table must never change, otherwise chunks of unchanged files would no longer be shared with older snapshots
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            // splitmix64
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    // the hash shifts left by one bit per byte, so the high bits depend on the last 64 bytes
+    private static final long MASK = -1L << (Long.SIZE - Integer.numberOfTrailingZeros(AVERAGE_CHUNK_SIZE));
+
+    private ContentDefinedChunker() {
+    }
+
+    /**
+     * Reads the next chunk of the given input into the buffer, which must be able to hold {@link #MAX_CHUNK_SIZE} bytes.
+     *
+     * @return the length of the chunk, {@code 0} only if the input has no remaining bytes
+     */
+    public static int readChunk(IndexInput input, byte[] buffer) throws IOException {
+        assert buffer.length >= MAX_CHUNK_SIZE : "buffer too small [" + buffer.length + "]";
+        final int limit = (int) Math.min(MAX_CHUNK_SIZE, input.length() - input.getFilePointer());
+        if (limit <= MIN_CHUNK_SIZE) {
+            input.readBytes(buffer, 0, limit);
+            return limit;
+        }
+        // bytes before the minimum size can never end a chunk, skip hashing them
+        input.readBytes(buffer, 0, MIN_CHUNK_SIZE);
+        long hash = 0;
+        int length = MIN_CHUNK_SIZE;
+        while (length < limit) {
+            final byte b = input.readByte();
+            buffer[length++] = b;
+            hash = (hash << 1) + GEAR[b & 0xFF];
+            if ((hash & MASK) == 0) {
+                break;
+            }
+        }
+        return length;
+    }
+}
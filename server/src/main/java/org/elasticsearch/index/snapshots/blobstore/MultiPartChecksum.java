@@ -0,0 +1,223 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Verifies the Lucene checksum of a file that is read in several parts, possibly concurrently, without reading the file
+ * again. Each part computes the CRC32 of its own bytes while it is read and keeps the bytes of the footer it sees. Once all
+ * parts are read the checksums of the parts are combined into the checksum of the whole file, which is compared with the
+ * checksum in the footer and the one in the file's metadata, like {@link Store#checkIntegrity} does.
+ */
+public final class MultiPartChecksum {
+
+    private final StoreFileMetaData metadata;
+    private final long[] partChecksums;
+    private final long[] partLengths;
+    private final byte[] footer = new byte[CodecUtil.footerLength()];
+    private final AtomicInteger remainingParts;
+
+    public MultiPartChecksum(StoreFileMetaData metadata, int numberOfParts) {
+        this.metadata = metadata;
+        this.partChecksums = new long[numberOfParts];
+        this.partLengths = new long[numberOfParts];
+        this.remainingParts = new AtomicInteger(numberOfParts);
+    }
+
+    /**
+     * Wraps the stream of the given part, which starts at the given offset of the file. The part must be read fully
+     * before {@link #onPartRead()} is called for it.
+     */
+    public InputStream wrap(int part, long offset, InputStream in) {
+        return new PartInputStream(in, part, offset);
+    }
+
+    /**
+     * Marks one part as read and returns {@code true} if it was the last one, in which case the checksum can be verified.
+     */
+    public boolean onPartRead() {
+        return remainingParts.decrementAndGet() == 0;
+    }
+
+    /**
+     * Verifies the checksum of the file once all parts are read.
+     *
+     * @throws CorruptIndexException if the file does not match its footer or its metadata
+     */
+    public void verify() throws CorruptIndexException {
+        assert remainingParts.get() == 0 : "not all parts of [" + metadata.name() + "] were read";
+        final String resource = "parts of " + metadata.name();
+        if (metadata.length() < footer.length) {
+            throw new CorruptIndexException("file is too short (" + metadata.length() + " bytes) to contain a footer", resource);
+        }
+        long checksum = partChecksums[0];
+        for (int i = 1; i < partChecksums.length; i++) {
+            checksum = combine(checksum, partChecksums[i], partLengths[i]);
+        }
+        final int magic = readInt(footer, 0);
+        if (magic != CodecUtil.FOOTER_MAGIC) {
+            throw new CorruptIndexException("codec footer mismatch: actual footer=" + magic + " vs expected footer="
+                + CodecUtil.FOOTER_MAGIC, resource);
+        }
+        final int algorithmId = readInt(footer, 4);
+        if (algorithmId != 0) {
+            throw new CorruptIndexException("codec footer mismatch: unknown algorithmID: " + algorithmId, resource);
+        }
+        final long expectedChecksum = ((long) readInt(footer, 8) << 32) | (readInt(footer, 12) & 0xFFFFFFFFL);
+        if (expectedChecksum != checksum) {
+            throw new CorruptIndexException("checksum failed (hardware problem?) : expected=" + Long.toHexString(expectedChecksum)
+                + " actual=" + Long.toHexString(checksum), resource);
+        }
+        final String digest = Store.digestToString(checksum);
+        if (digest.equals(metadata.checksum()) == false) {
+            throw new CorruptIndexException("inconsistent metadata: lucene checksum=" + digest + ", metadata checksum="
+                + metadata.checksum(), resource);
+        }
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private class PartInputStream extends FilterInputStream {
+
+        private final int part;
+        private final CRC32 crc32 = new CRC32();
+        // the checksum covers the whole file but the checksum itself, the last 8 bytes
+        private final long checksumEnd = metadata.length() - 8;
+        private final long footerStart = metadata.length() - footer.length;
+        private long position;
+
+        PartInputStream(InputStream in, int part, long offset) {
+            super(in);
+            this.part = part;
+            this.position = offset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b != -1) {
+                update(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = in.read(b, off, len);
+            if (read > 0) {
+                update(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            throw new UnsupportedOperationException("parts must be read fully to verify their checksum");
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void update(byte[] b, int off, int len) {
+            final int checksummed = (int) Math.max(0, Math.min(len, checksumEnd - position));
+            if (checksummed > 0) {
+                crc32.update(b, off, checksummed);
+                partChecksums[part] = crc32.getValue();
+                partLengths[part] += checksummed;
+            }
+            for (long i = Math.max(0, footerStart - position); i < len; i++) {
+                footer[(int) (position + i - footerStart)] = b[off + (int) i];
+            }
+            position += len;
+        }
+    }
+
+    /**
+     * Returns the CRC32 of the concatenation of two byte sequences given their own CRC32 and the length of the second one,
+     * like zlib's {@code crc32_combine}.
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[32];
+        final long[] odd = new long[32];
+        // the operator for one zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // the operators for two and four zero bits
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // apply length2 zero bytes to crc1, the first squaring yields the operator for one zero byte
+        long crc = crc1;
+        long length = length2;
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(even, crc);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(odd, crc);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return crc ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+}
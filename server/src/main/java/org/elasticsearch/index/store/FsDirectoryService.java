@@ -19,8 +19,11 @@
 
 package org.elasticsearch.index.store;
 
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FileSwitchDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.LockFactory;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
@@ -30,6 +33,7 @@ import org.apache.lucene.store.SimpleFSLockFactory;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.ShardPath;
@@ -97,19 +101,29 @@ public class FsDirectoryService extends DirectoryService {
             return new NIOFSDirectory(location, lockFactory);
         } else if (IndexModule.Type.MMAPFS.match(storeType)) {
             return new MMapDirectory(location, lockFactory);
+        } else if (IndexModule.Type.HYBRIDFS.match(storeType)) {
+            final Set<String> mmapExtensions = new HashSet<>(indexSettings.getValue(IndexModule.INDEX_STORE_HYBRID_MMAP_EXTENSIONS));
+            return new HybridDirectory(location, lockFactory, mmapExtensions);
         }
         throw new IllegalArgumentException("No directory found for type [" + storeType + "]");
     }
 
     private static Directory setPreload(Directory directory, Path location, LockFactory lockFactory,
             Set<String> preLoadExtensions) throws IOException {
-        if (preLoadExtensions.isEmpty() == false
-                && directory instanceof MMapDirectory
-                && ((MMapDirectory) directory).getPreload() == false) {
-            if (preLoadExtensions.contains("*")) {
+        if (preLoadExtensions.isEmpty()) {
+            return directory;
+        }
+        if (preLoadExtensions.contains("*")) {
+            // preloading everything only applies to the memory-mapped files, the others are read with NIO anyway
+            if (directory instanceof HybridDirectory) {
+                ((HybridDirectory) directory).mmapDirectory.setPreload(true);
+            } else if (directory instanceof MMapDirectory) {
                 ((MMapDirectory) directory).setPreload(true);
-                return directory;
             }
+            return directory;
+        }
+        if (directory instanceof HybridDirectory
+                || (directory instanceof MMapDirectory && ((MMapDirectory) directory).getPreload() == false)) {
             MMapDirectory primary = new MMapDirectory(location, lockFactory);
             primary.setPreload(true);
             return new FileSwitchDirectory(preLoadExtensions, primary, directory, true) {
@@ -122,4 +136,40 @@ public class FsDirectoryService extends DirectoryService {
         }
         return directory;
     }
+
+    /**
+     * A directory that memory-maps files with the given extensions and reads all other files with NIO. Both directories
+     * share the same location and lock factory, so only the opening of inputs is routed.
+     */
+    static final class HybridDirectory extends NIOFSDirectory {
+
+        private final MMapDirectory mmapDirectory;
+        private final Set<String> mmapExtensions;
+
+        HybridDirectory(Path location, LockFactory lockFactory, Set<String> mmapExtensions) throws IOException {
+            super(location, lockFactory);
+            this.mmapDirectory = new MMapDirectory(location, lockFactory);
+            this.mmapExtensions = mmapExtensions;
+        }
+
+        @Override
+        public IndexInput openInput(String name, IOContext context) throws IOException {
+            if (useMMap(name)) {
+                // the mmap directory checks itself whether it is open and the file exists
+                ensureOpen();
+                return mmapDirectory.openInput(name, context);
+            }
+            return super.openInput(name, context);
+        }
+
+        boolean useMMap(String name) {
+            final String extension = IndexFileNames.getExtension(name);
+            return extension != null && mmapExtensions.contains(extension);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(super::close, mmapDirectory);
+        }
+    }
 }
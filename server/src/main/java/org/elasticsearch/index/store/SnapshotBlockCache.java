@@ -0,0 +1,271 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node level cache for the blocks of snapshotted files that are read through a {@link SnapshotDirectory}. Blocks are stored
+ * in files on the local disk, spread over all data paths of the node, and the least recently used blocks are evicted once the
+ * cache grows larger than {@code indices.snapshot_cache.size}. The files of the most recently read blocks are kept open, so that
+ * the many small reads of a {@link org.apache.lucene.store.BufferedIndexInput} do not each open and close a file.
+ */
+public class SnapshotBlockCache implements Closeable {
+
+    public static final Setting<ByteSizeValue> SIZE_SETTING =
+        Setting.byteSizeSetting("indices.snapshot_cache.size", new ByteSizeValue(10, ByteSizeUnit.GB), Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> BLOCK_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.snapshot_cache.block_size", new ByteSizeValue(256, ByteSizeUnit.KB),
+            new ByteSizeValue(4, ByteSizeUnit.KB), new ByteSizeValue(64, ByteSizeUnit.MB), Property.NodeScope);
+
+    /**
+     * Reads a block of a file from the repository.
+     */
+    @FunctionalInterface
+    public interface BlockLoader {
+
+        /**
+         * Reads {@code length} bytes of the block into the given buffer, at offset 0.
+         */
+        void load(byte[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * The maximum number of block files that are kept open. Bounded separately from the number of cached blocks since a large
+     * cache of small blocks could otherwise use up the file descriptors of the node.
+     */
+    static final int MAX_OPEN_BLOCK_FILES = 256;
+
+    private final Path[] paths;
+    private final int blockSize;
+    private final Cache<BlockKey, CachedBlock> cache;
+    private final Cache<CachedBlock, FileChannel> openBlockFiles;
+    private final AtomicLong blockFileGeneration = new AtomicLong();
+
+    /**
+     * @param settings the node settings
+     * @param paths    the directories holding the cached blocks, one per data path, or none if the node does not store data locally
+     */
+    public SnapshotBlockCache(Settings settings, Path[] paths) throws IOException {
+        this.paths = paths.clone();
+        this.blockSize = Math.toIntExact(BLOCK_SIZE_SETTING.get(settings).getBytes());
+        this.openBlockFiles = CacheBuilder.<CachedBlock, FileChannel>builder()
+            .setMaximumWeight(MAX_OPEN_BLOCK_FILES)
+            .removalListener(notification -> IOUtils.closeWhileHandlingException(notification.getValue()))
+            .build();
+        this.cache = CacheBuilder.<BlockKey, CachedBlock>builder()
+            .setMaximumWeight(SIZE_SETTING.get(settings).getBytes())
+            .weigher((key, block) -> block.length)
+            .removalListener(notification -> evictBlock(notification.getValue()))
+            .build();
+        for (Path path : paths) {
+            // blocks that were cached before the node restarted are not tracked anymore
+            IOUtils.rm(path);
+            Files.createDirectories(path);
+        }
+    }
+
+    /**
+     * Returns the size of the blocks in bytes. The last block of a file may be smaller.
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Copies a range of a block into the given buffer. The block is loaded and added to the cache if it is not cached yet.
+     *
+     * @param fileKey         a key that identifies the file across all repositories and snapshots
+     * @param block           the index of the block in the file
+     * @param blockLength     the length of the block
+     * @param positionInBlock the position in the block of the first byte to copy
+     * @param buffer          the buffer to copy the bytes to
+     * @param offset          the offset in the buffer of the first byte to copy
+     * @param length          the number of bytes to copy
+     * @param loader          reads the block from the repository if it is not cached
+     * @return {@code true} if the block was cached, {@code false} if it was loaded
+     */
+    public boolean readBlock(String fileKey, long block, int blockLength, int positionInBlock, byte[] buffer, int offset, int length,
+                             BlockLoader loader) throws IOException {
+        if (paths.length == 0) {
+            throw new IllegalStateException("snapshotted files can only be read on nodes that store data locally");
+        }
+        assert blockLength <= blockSize : "block of length [" + blockLength + "] is larger than the block size [" + blockSize + "]";
+        assert positionInBlock + length <= blockLength : "cannot read past the end of the block";
+        final BlockKey key = new BlockKey(fileKey, block);
+        while (true) {
+            final byte[][] loaded = new byte[1][];
+            final CachedBlock cachedBlock;
+            try {
+                cachedBlock = cache.computeIfAbsent(key, k -> {
+                    final byte[] bytes = new byte[blockLength];
+                    loader.load(bytes, blockLength);
+                    loaded[0] = bytes;
+                    return writeBlockFile(bytes);
+                });
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new ElasticsearchException("failed to load block [" + block + "] of [" + fileKey + "]", cause);
+            }
+            if (loaded[0] != null) {
+                System.arraycopy(loaded[0], positionInBlock, buffer, offset, length);
+                return false;
+            }
+            final FileChannel channel;
+            try {
+                channel = openBlockFiles.computeIfAbsent(cachedBlock, b -> FileChannel.open(b.file, StandardOpenOption.READ));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof NoSuchFileException) {
+                    // the block was evicted after it was looked up, load it again
+                    cache.invalidate(key, cachedBlock);
+                    continue;
+                }
+                throw new IOException("failed to open block [" + block + "] of [" + fileKey + "]", e.getCause());
+            }
+            if (cachedBlock.evicted) {
+                // the block was evicted while its file was opened, don't keep the file open until it falls out of the open files
+                openBlockFiles.invalidate(cachedBlock, channel);
+                continue;
+            }
+            try {
+                Channels.readFromFileChannelWithEofException(channel, positionInBlock, buffer, offset, length);
+                return true;
+            } catch (ClosedByInterruptException e) {
+                // the interrupt closed the channel for all readers of the block, the next read opens it again
+                openBlockFiles.invalidate(cachedBlock, channel);
+                throw e;
+            } catch (ClosedChannelException e) {
+                // the block was evicted or its file was closed to make room for other open files while we were reading, try again
+                openBlockFiles.invalidate(cachedBlock, channel);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached blocks.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    /**
+     * Returns the total size of the cached blocks in bytes.
+     */
+    public long sizeInBytes() {
+        return cache.weight();
+    }
+
+    /**
+     * Returns the number of block files that are currently open.
+     */
+    int openFileCount() {
+        return openBlockFiles.count();
+    }
+
+    private CachedBlock writeBlockFile(byte[] bytes) throws IOException {
+        final long generation = blockFileGeneration.incrementAndGet();
+        final Path file = paths[(int) (generation % paths.length)].resolve(Long.toString(generation));
+        try (OutputStream outputStream = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)) {
+            outputStream.write(bytes);
+        }
+        return new CachedBlock(file, bytes.length);
+    }
+
+    private void evictBlock(CachedBlock block) {
+        block.evicted = true;
+        openBlockFiles.invalidate(block);
+        IOUtils.deleteFilesIgnoringExceptions(block.file);
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        openBlockFiles.invalidateAll();
+    }
+
+    private static final class BlockKey {
+
+        private final String fileKey;
+        private final long block;
+
+        BlockKey(String fileKey, long block) {
+            this.fileKey = fileKey;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BlockKey that = (BlockKey) o;
+            return block == that.block && fileKey.equals(that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, block);
+        }
+    }
+
+    private static final class CachedBlock {
+
+        private final Path file;
+        private final int length;
+        private volatile boolean evicted;
+
+        CachedBlock(Path file, int length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+}
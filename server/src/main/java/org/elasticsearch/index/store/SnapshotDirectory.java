@@ -0,0 +1,398 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * A directory that serves the files of a shard snapshot straight out of the repository, on top of a local directory that holds
+ * the files written after the snapshot was mounted, like new commit points. Snapshotted files are read block by block through
+ * the node's {@link SnapshotBlockCache}, and the first and last block of every file, which hold the Lucene header and footer,
+ * are prefetched when the files of the snapshot are loaded. Snapshotted files cannot be modified, deleting one only hides it.
+ * The names of the hidden files are persisted so that they stay hidden when the shard is opened again.
+ */
+public class SnapshotDirectory extends FilterDirectory {
+
+    private final Logger logger;
+    private final String repositoryName;
+    private final Supplier<Tuple<BlobContainer, BlobStoreIndexShardSnapshot>> shardSnapshotLoader;
+    private final SnapshotBlockCache cache;
+    private final Executor prefetchExecutor;
+
+    private final CounterMetric cacheHits = new CounterMetric();
+    private final CounterMetric cacheMisses = new CounterMetric();
+    private final CounterMetric bytesReadFromRepository = new CounterMetric();
+
+    private final Path deletedFilesPath;
+    private final Set<String> deletedFiles = new HashSet<>();
+    private volatile BlobContainer blobContainer;
+    private volatile Map<String, FileInfo> files;
+
+    /**
+     * @param local               the directory holding the files written after the snapshot was mounted
+     * @param shardId             the id of the shard this directory belongs to
+     * @param repositoryName      the name of the repository holding the snapshot
+     * @param shardSnapshotLoader loads the files of the shard snapshot and the blob container holding them, on first access
+     * @param cache               the node's cache of snapshotted blocks
+     * @param prefetchExecutor    the executor used to prefetch file headers and footers
+     * @param deletedFilesPath    the file that records the names of the snapshotted files that were deleted
+     */
+    public SnapshotDirectory(Directory local, ShardId shardId, String repositoryName,
+                             Supplier<Tuple<BlobContainer, BlobStoreIndexShardSnapshot>> shardSnapshotLoader,
+                             SnapshotBlockCache cache, Executor prefetchExecutor, Path deletedFilesPath) throws IOException {
+        super(local);
+        this.logger = Loggers.getLogger(getClass(), shardId);
+        this.repositoryName = repositoryName;
+        this.shardSnapshotLoader = shardSnapshotLoader;
+        this.cache = cache;
+        this.prefetchExecutor = prefetchExecutor;
+        this.deletedFilesPath = deletedFilesPath;
+        if (Files.exists(deletedFilesPath)) {
+            deletedFiles.addAll(Files.readAllLines(deletedFilesPath, StandardCharsets.UTF_8));
+        }
+    }
+
+    private Map<String, FileInfo> files() {
+        Map<String, FileInfo> files = this.files;
+        if (files == null) {
+            synchronized (this) {
+                files = this.files;
+                if (files == null) {
+                    final Tuple<BlobContainer, BlobStoreIndexShardSnapshot> shardSnapshot = shardSnapshotLoader.get();
+                    blobContainer = shardSnapshot.v1();
+                    files = unmodifiableMap(shardSnapshot.v2().indexFiles().stream()
+                        .collect(Collectors.toMap(FileInfo::physicalName, fileInfo -> fileInfo)));
+                    this.files = files;
+                    logger.debug("loaded [{}] files of snapshot [{}] from repository [{}]",
+                        files.size(), shardSnapshot.v2().snapshot(), repositoryName);
+                    files.values().forEach(this::prefetchHeaderAndFooter);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the snapshotted file with the given name, or {@code null} if the file is a local file.
+     */
+    private FileInfo snapshotFile(String name) {
+        final FileInfo fileInfo = files().get(name);
+        if (fileInfo == null) {
+            return null;
+        }
+        synchronized (deletedFiles) {
+            return deletedFiles.contains(name) ? null : fileInfo;
+        }
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        final Set<String> names = new TreeSet<>(Arrays.asList(super.listAll()));
+        final Map<String, FileInfo> files = files();
+        synchronized (deletedFiles) {
+            for (String name : files.keySet()) {
+                if (deletedFiles.contains(name) == false) {
+                    names.add(name);
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+        if (snapshotFile(name) != null) {
+            synchronized (deletedFiles) {
+                if (deletedFiles.add(name)) {
+                    try {
+                        writeDeletedFiles();
+                    } catch (IOException | RuntimeException e) {
+                        deletedFiles.remove(name);
+                        throw e;
+                    }
+                }
+            }
+        } else {
+            super.deleteFile(name);
+        }
+    }
+
+    /**
+     * Atomically replaces the file that records the names of the deleted snapshotted files.
+     */
+    private void writeDeletedFiles() throws IOException {
+        assert Thread.holdsLock(deletedFiles);
+        final Path tmpPath = deletedFilesPath.resolveSibling(deletedFilesPath.getFileName() + ".tmp");
+        Files.write(tmpPath, new TreeSet<>(deletedFiles), StandardCharsets.UTF_8);
+        IOUtils.fsync(tmpPath, false);
+        Files.move(tmpPath, deletedFilesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        IOUtils.fsync(deletedFilesPath.getParent(), true);
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        final FileInfo fileInfo = snapshotFile(name);
+        return fileInfo != null ? fileInfo.length() : super.fileLength(name);
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        if (snapshotFile(name) != null) {
+            throw new FileAlreadyExistsException("file [" + name + "] is a snapshotted file and cannot be overwritten");
+        }
+        return super.createOutput(name, context);
+    }
+
+    @Override
+    public void sync(Collection<String> names) throws IOException {
+        // snapshotted files are durable already
+        final List<String> localNames = names.stream().filter(name -> snapshotFile(name) == null).collect(Collectors.toList());
+        super.sync(localNames);
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        final FileInfo fileInfo = snapshotFile(name);
+        if (fileInfo == null) {
+            return super.openInput(name, context);
+        }
+        return new SnapshotIndexInput(fileInfo, context, 0L, fileInfo.length());
+    }
+
+    /**
+     * Returns the statistics of the reads of snapshotted files through this directory.
+     */
+    public Stats stats() {
+        return new Stats(cacheHits.count(), cacheMisses.count(), bytesReadFromRepository.count());
+    }
+
+    private void prefetchHeaderAndFooter(FileInfo fileInfo) {
+        if (fileInfo.length() == 0L) {
+            return;
+        }
+        final String fileKey = fileKey(fileInfo);
+        final long lastBlock = (fileInfo.length() - 1) / cache.blockSize();
+        prefetchExecutor.execute(() -> {
+            try {
+                readBlock(fileInfo, fileKey, 0L, 0, new byte[0], 0, 0);
+                if (lastBlock > 0L) {
+                    readBlock(fileInfo, fileKey, lastBlock, 0, new byte[0], 0, 0);
+                }
+            } catch (Exception e) {
+                logger.debug(() -> new ParameterizedMessage("failed to prefetch header and footer of [{}]", fileInfo.physicalName()), e);
+            }
+        });
+    }
+
+    /**
+     * Returns the key of a snapshotted file in the block cache. Blobs are never modified once written, so the name of the
+     * blob identifies the content of the file in the shard's blob container.
+     */
+    private String fileKey(FileInfo fileInfo) {
+        return repositoryName + '/' + blobContainer.path().buildAsString() + fileInfo.name();
+    }
+
+    private void readBlock(FileInfo fileInfo, String fileKey, long block, int positionInBlock, byte[] buffer, int offset, int length)
+        throws IOException {
+        final long blockStart = block * cache.blockSize();
+        final int blockLength = Math.toIntExact(Math.min(cache.blockSize(), fileInfo.length() - blockStart));
+        final boolean cached = cache.readBlock(fileKey, block, blockLength, positionInBlock, buffer, offset, length,
+            (bytes, bytesLength) -> readFromRepository(fileInfo, blockStart, bytes, bytesLength));
+        if (cached) {
+            cacheHits.inc();
+        } else {
+            cacheMisses.inc();
+            bytesReadFromRepository.inc(blockLength);
+        }
+    }
+
+    /**
+     * Reads a range of a snapshotted file, which may span several parts or chunks of the file.
+     */
+    private void readFromRepository(FileInfo fileInfo, long position, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            final long filePosition = position + read;
+            final int part = fileInfo.partContaining(filePosition);
+            final long positionInPart = filePosition - fileInfo.partOffset(part);
+            final int toRead = Math.toIntExact(Math.min(length - read, fileInfo.partBytes(part) - positionInPart));
+            blobContainer.readBlob(fileInfo.partName(part), positionInPart, buffer, read, toRead);
+            read += toRead;
+        }
+    }
+
+    /**
+     * Reads a snapshotted file, or a slice of it, through the block cache.
+     */
+    private final class SnapshotIndexInput extends BufferedIndexInput {
+
+        private final FileInfo fileInfo;
+        private final String fileKey;
+        private final long offset;
+        private final long length;
+
+        SnapshotIndexInput(FileInfo fileInfo, IOContext context, long offset, long length) {
+            super("SnapshotIndexInput(" + fileInfo.physicalName() + ")", context);
+            this.fileInfo = fileInfo;
+            this.fileKey = fileKey(fileInfo);
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void readInternal(byte[] b, int off, int len) throws IOException {
+            long position = offset + getFilePointer();
+            if (position + len > offset + length) {
+                throw new EOFException("read past EOF: " + this);
+            }
+            while (len > 0) {
+                final long block = position / cache.blockSize();
+                final int positionInBlock = Math.toIntExact(position % cache.blockSize());
+                final int toRead = Math.min(len, cache.blockSize() - positionInBlock);
+                readBlock(fileInfo, fileKey, block, positionInBlock, b, off, toRead);
+                position += toRead;
+                off += toRead;
+                len -= toRead;
+            }
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            if (pos > length) {
+                throw new EOFException("seek past EOF: " + this);
+            }
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: " + this);
+            }
+            return new SnapshotIndexInput(fileInfo, IOContext.READ, this.offset + offset, length);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Statistics of the reads of snapshotted files of a shard.
+     */
+    public static final class Stats implements Writeable {
+
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long bytesReadFromRepository;
+
+        public Stats(long cacheHits, long cacheMisses, long bytesReadFromRepository) {
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.bytesReadFromRepository = bytesReadFromRepository;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            cacheHits = in.readVLong();
+            cacheMisses = in.readVLong();
+            bytesReadFromRepository = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(cacheHits);
+            out.writeVLong(cacheMisses);
+            out.writeVLong(bytesReadFromRepository);
+        }
+
+        static Stats merge(Stats first, Stats second) {
+            return new Stats(first.cacheHits + second.cacheHits, first.cacheMisses + second.cacheMisses,
+                first.bytesReadFromRepository + second.bytesReadFromRepository);
+        }
+
+        /**
+         * Returns the number of blocks that were read from the cache.
+         */
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * Returns the number of blocks that had to be read from the repository.
+         */
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        /**
+         * Returns the number of bytes read from the repository.
+         */
+        public long getBytesReadFromRepository() {
+            return bytesReadFromRepository;
+        }
+
+        @Override
+        public String toString() {
+            return "cache_hits=" + cacheHits + ", cache_misses=" + cacheMisses + ", bytes_read_from_repository=" + bytesReadFromRepository;
+        }
+    }
+}
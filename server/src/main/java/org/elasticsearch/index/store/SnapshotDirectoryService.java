@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.snapshots.SnapshotMissingException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates the {@link SnapshotDirectory} of a shard of an index whose files are served from a snapshot.
+ */
+public class SnapshotDirectoryService extends DirectoryService {
+
+    /**
+     * The name of the file, in the data path of the shard, that records the snapshotted files that were deleted.
+     */
+    static final String DELETED_FILES_NAME = "snapshot_deleted_files";
+
+    private final ShardPath path;
+    private final RepositoriesService repositoriesService;
+    private final SnapshotBlockCache cache;
+    private final Executor prefetchExecutor;
+
+    public SnapshotDirectoryService(IndexSettings indexSettings, ShardPath path, RepositoriesService repositoriesService,
+                                    SnapshotBlockCache cache, Executor prefetchExecutor) {
+        super(path.getShardId(), indexSettings);
+        this.path = path;
+        this.repositoriesService = repositoriesService;
+        this.cache = cache;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public Directory newDirectory() throws IOException {
+        final Path location = path.resolveIndex();
+        Files.createDirectories(location);
+        final Directory local = new NIOFSDirectory(location, indexSettings.getValue(FsDirectoryService.INDEX_LOCK_FACTOR_SETTING));
+        final String repositoryName = SnapshotIndexStore.REPOSITORY_SETTING.get(indexSettings.getSettings());
+        return new SnapshotDirectory(local, shardId, repositoryName, () -> loadShardSnapshot(repositoryName), cache, prefetchExecutor,
+            path.getDataPath().resolve(DELETED_FILES_NAME));
+    }
+
+    private Tuple<BlobContainer, BlobStoreIndexShardSnapshot> loadShardSnapshot(String repositoryName) {
+        final Repository repository = repositoriesService.repository(repositoryName);
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalArgumentException("repository [" + repositoryName + "] does not support serving files of snapshots");
+        }
+        final String snapshotName = SnapshotIndexStore.SNAPSHOT_NAME_SETTING.get(indexSettings.getSettings());
+        String indexName = SnapshotIndexStore.INDEX_NAME_SETTING.get(indexSettings.getSettings());
+        if (Strings.hasLength(indexName) == false) {
+            indexName = shardId.getIndexName();
+        }
+        final RepositoryData repositoryData = repository.getRepositoryData();
+        final SnapshotId snapshotId = repositoryData.getSnapshotIds().stream()
+            .filter(id -> id.getName().equals(snapshotName))
+            .findFirst()
+            .orElseThrow(() -> new SnapshotMissingException(repositoryName, snapshotName));
+        final IndexId indexId = repositoryData.resolveIndexId(indexName);
+        final ShardId snapshotShardId = new ShardId(indexName, IndexMetaData.INDEX_UUID_NA_VALUE, shardId.id());
+        return ((BlobStoreRepository) repository).loadShardSnapshot(snapshotId, indexId, snapshotShardId);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The index store of indices whose files are served from a snapshot, see {@link SnapshotDirectory}. An index is mounted by
+ * restoring it from the snapshot with {@code index.store.type} set to {@code snapshot} and the {@code index.store.snapshot.*}
+ * settings pointing at the same snapshot. The restore then finds all the files in place and does not copy any of them.
+ * Mounted indices are read-only: the restore adds a write block that cannot be removed, and the snapshot cannot be deleted
+ * while it is mounted.
+ */
+public class SnapshotIndexStore extends IndexStore {
+
+    public static final String TYPE = "snapshot";
+
+    public static final Setting<String> REPOSITORY_SETTING =
+        Setting.simpleString("index.store.snapshot.repository", Property.IndexScope, Property.Final);
+
+    public static final Setting<String> SNAPSHOT_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_name", Property.IndexScope, Property.Final);
+
+    /**
+     * The name of the index in the snapshot, which defaults to the name of the index. It must be set if the index was renamed
+     * when it was restored.
+     */
+    public static final Setting<String> INDEX_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.index_name", Property.IndexScope, Property.Final);
+
+    /**
+     * Returns whether the given index settings are the settings of an index whose files are served from a snapshot.
+     */
+    public static boolean isSnapshotStore(Settings indexSettings) {
+        return TYPE.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexSettings));
+    }
+
+    /**
+     * Returns whether the given index settings are the settings of an index that is mounted from the given snapshot.
+     */
+    public static boolean isMountedFrom(Settings indexSettings, String repository, String snapshotName) {
+        return isSnapshotStore(indexSettings)
+            && REPOSITORY_SETTING.get(indexSettings).equals(repository)
+            && SNAPSHOT_NAME_SETTING.get(indexSettings).equals(snapshotName);
+    }
+
+    private final Supplier<RepositoriesService> repositoriesService;
+    private final SnapshotBlockCache cache;
+    private final ThreadPool threadPool;
+
+    public SnapshotIndexStore(IndexSettings indexSettings, Supplier<RepositoriesService> repositoriesService,
+                              SnapshotBlockCache cache, ThreadPool threadPool) {
+        super(indexSettings);
+        for (Setting<String> setting : Arrays.asList(REPOSITORY_SETTING, SNAPSHOT_NAME_SETTING)) {
+            if (Strings.hasLength(setting.get(indexSettings.getSettings())) == false) {
+                throw new IllegalArgumentException("[" + setting.getKey() + "] is required for indices with store type [" + TYPE + "]");
+            }
+        }
+        this.repositoriesService = repositoriesService;
+        this.cache = cache;
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    public DirectoryService newDirectoryService(ShardPath path) {
+        return new SnapshotDirectoryService(indexSettings, path, repositoriesService.get(), cache,
+            threadPool.executor(ThreadPool.Names.SNAPSHOT));
+    }
+}
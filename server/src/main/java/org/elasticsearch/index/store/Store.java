@@ -51,6 +51,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
@@ -62,6 +63,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -98,6 +100,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -363,7 +367,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
 
     public StoreStats stats() throws IOException {
         ensureOpen();
-        return new StoreStats(directory.estimateSize());
+        return new StoreStats(directory.estimateSize(), directory.fileTypeStats(), directory.snapshotStats());
     }
 
     /**
@@ -717,6 +721,8 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
 
         private final Logger deletesLogger;
 
+        private final ConcurrentMap<String, FileTypeCounters> fileTypeCounters = new ConcurrentHashMap<>();
+
         StoreDirectory(ByteSizeCachingDirectory delegateDirectory, Logger deletesLogger) {
             super(delegateDirectory);
             this.deletesLogger = deletesLogger;
@@ -727,6 +733,52 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             return ((ByteSizeCachingDirectory) getDelegate()).estimateSizeInBytes();
         }
 
+        /** Returns the read statistics of the snapshotted files if the files of this directory are served from a snapshot. */
+        @Nullable
+        SnapshotDirectory.Stats snapshotStats() {
+            Directory directory = getDelegate();
+            while (directory instanceof FilterDirectory) {
+                if (directory instanceof SnapshotDirectory) {
+                    return ((SnapshotDirectory) directory).stats();
+                }
+                directory = ((FilterDirectory) directory).getDelegate();
+            }
+            return null;
+        }
+
+        /** Returns the read statistics of the files of this directory, keyed by file extension. */
+        Map<String, StoreStats.FileTypeStats> fileTypeStats() {
+            final Map<String, StoreStats.FileTypeStats> stats = new HashMap<>();
+            for (Map.Entry<String, FileTypeCounters> entry : fileTypeCounters.entrySet()) {
+                final FileTypeCounters counters = entry.getValue();
+                stats.put(entry.getKey(), new StoreStats.FileTypeStats(counters.opened.count(), counters.openedSizeInBytes.count()));
+            }
+            return stats;
+        }
+
+        @Override
+        public IndexInput openInput(String name, IOContext context) throws IOException {
+            final IndexInput input = super.openInput(name, context);
+            final FileTypeCounters counters = fileTypeCounters.computeIfAbsent(fileType(name), k -> new FileTypeCounters());
+            counters.opened.inc();
+            counters.openedSizeInBytes.inc(input.length());
+            return input;
+        }
+
+        private static String fileType(String name) {
+            final String extension = IndexFileNames.getExtension(name);
+            if (extension != null) {
+                return extension;
+            }
+            // segments_N and the like have no extension
+            return name.startsWith(IndexFileNames.SEGMENTS) ? IndexFileNames.SEGMENTS : "other";
+        }
+
+        private static final class FileTypeCounters {
+            final CounterMetric opened = new CounterMetric();
+            final CounterMetric openedSizeInBytes = new CounterMetric();
+        }
+
         @Override
         public void close() {
             assert false : "Nobody should close this directory except of the Store itself";
@@ -20,20 +20,30 @@
 package org.elasticsearch.index.store;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class StoreStats implements Streamable, ToXContentFragment {
 
     private long sizeInBytes;
 
+    private Map<String, FileTypeStats> fileTypes = Collections.emptyMap();
+
+    @Nullable
+    private SnapshotDirectory.Stats snapshot;
+
     public StoreStats() {
 
     }
@@ -42,11 +52,31 @@ public class StoreStats implements Streamable, ToXContentFragment {
         this.sizeInBytes = sizeInBytes;
     }
 
+    public StoreStats(long sizeInBytes, Map<String, FileTypeStats> fileTypes) {
+        this(sizeInBytes, fileTypes, null);
+    }
+
+    public StoreStats(long sizeInBytes, Map<String, FileTypeStats> fileTypes, @Nullable SnapshotDirectory.Stats snapshot) {
+        this.sizeInBytes = sizeInBytes;
+        this.fileTypes = Collections.unmodifiableMap(new TreeMap<>(fileTypes));
+        this.snapshot = snapshot;
+    }
+
     public void add(StoreStats stats) {
         if (stats == null) {
             return;
         }
         sizeInBytes += stats.sizeInBytes;
+        if (stats.fileTypes.isEmpty() == false) {
+            final Map<String, FileTypeStats> merged = new TreeMap<>(fileTypes);
+            for (Map.Entry<String, FileTypeStats> entry : stats.fileTypes.entrySet()) {
+                merged.merge(entry.getKey(), entry.getValue(), FileTypeStats::merge);
+            }
+            fileTypes = Collections.unmodifiableMap(merged);
+        }
+        if (stats.snapshot != null) {
+            snapshot = snapshot == null ? stats.snapshot : SnapshotDirectory.Stats.merge(snapshot, stats.snapshot);
+        }
     }
 
 
@@ -66,12 +96,32 @@ public class StoreStats implements Streamable, ToXContentFragment {
         return size();
     }
 
+    /**
+     * Returns how the files of the store were read, keyed by file extension.
+     */
+    public Map<String, FileTypeStats> getFileTypes() {
+        return fileTypes;
+    }
+
+    /**
+     * Returns how the snapshotted files of the store were read, or {@code null} if the files of the store are not served
+     * from a snapshot.
+     */
+    @Nullable
+    public SnapshotDirectory.Stats getSnapshot() {
+        return snapshot;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         sizeInBytes = in.readVLong();
         if (in.getVersion().before(Version.V_6_0_0_alpha1)) {
             in.readVLong(); // throttleTimeInNanos
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            fileTypes = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, FileTypeStats::new)));
+            snapshot = in.readOptionalWriteable(SnapshotDirectory.Stats::new);
+        }
     }
 
     @Override
@@ -80,19 +130,94 @@ public class StoreStats implements Streamable, ToXContentFragment {
         if (out.getVersion().before(Version.V_6_0_0_alpha1)) {
             out.writeVLong(0L); // throttleTimeInNanos
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeMap(fileTypes, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+            out.writeOptionalWriteable(snapshot);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.STORE);
         builder.humanReadableField(Fields.SIZE_IN_BYTES, Fields.SIZE, size());
+        if (fileTypes.isEmpty() == false) {
+            builder.startObject(Fields.FILE_TYPES);
+            for (Map.Entry<String, FileTypeStats> entry : fileTypes.entrySet()) {
+                builder.startObject(entry.getKey());
+                builder.field(Fields.OPENED, entry.getValue().getOpened());
+                builder.humanReadableField(Fields.OPENED_SIZE_IN_BYTES, Fields.OPENED_SIZE,
+                    new ByteSizeValue(entry.getValue().getOpenedSizeInBytes()));
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        if (snapshot != null) {
+            builder.startObject(Fields.SNAPSHOT);
+            builder.field(Fields.CACHE_HITS, snapshot.getCacheHits());
+            builder.field(Fields.CACHE_MISSES, snapshot.getCacheMisses());
+            builder.humanReadableField(Fields.READ_FROM_REPOSITORY_IN_BYTES, Fields.READ_FROM_REPOSITORY,
+                new ByteSizeValue(snapshot.getBytesReadFromRepository()));
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
 
+    /**
+     * Read statistics of the files of a store that share the same extension.
+     */
+    public static class FileTypeStats implements Writeable {
+
+        private final long opened;
+        private final long openedSizeInBytes;
+
+        public FileTypeStats(long opened, long openedSizeInBytes) {
+            this.opened = opened;
+            this.openedSizeInBytes = openedSizeInBytes;
+        }
+
+        public FileTypeStats(StreamInput in) throws IOException {
+            opened = in.readVLong();
+            openedSizeInBytes = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(opened);
+            out.writeVLong(openedSizeInBytes);
+        }
+
+        /**
+         * Returns the number of inputs that were opened on files of this type
+         */
+        public long getOpened() {
+            return opened;
+        }
+
+        /**
+         * Returns the total length of the files of this type at the time they were opened
+         */
+        public long getOpenedSizeInBytes() {
+            return openedSizeInBytes;
+        }
+
+        static FileTypeStats merge(FileTypeStats first, FileTypeStats second) {
+            return new FileTypeStats(first.opened + second.opened, first.openedSizeInBytes + second.openedSizeInBytes);
+        }
+    }
+
     static final class Fields {
         static final String STORE = "store";
         static final String SIZE = "size";
         static final String SIZE_IN_BYTES = "size_in_bytes";
+        static final String FILE_TYPES = "file_types";
+        static final String OPENED = "opened";
+        static final String OPENED_SIZE = "opened_size";
+        static final String OPENED_SIZE_IN_BYTES = "opened_size_in_bytes";
+        static final String SNAPSHOT = "snapshot";
+        static final String CACHE_HITS = "cache_hits";
+        static final String CACHE_MISSES = "cache_misses";
+        static final String READ_FROM_REPOSITORY = "read_from_repository";
+        static final String READ_FROM_REPOSITORY_IN_BYTES = "read_from_repository_in_bytes";
     }
 }
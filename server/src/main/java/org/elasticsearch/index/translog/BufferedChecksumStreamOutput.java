@@ -37,6 +37,7 @@ public final class BufferedChecksumStreamOutput extends StreamOutput {
     public BufferedChecksumStreamOutput(StreamOutput out) {
         this.out = out;
         this.digest = new BufferedChecksum(new CRC32());
+        delegateSharedStrings(out);
     }
 
     public long getChecksum() {
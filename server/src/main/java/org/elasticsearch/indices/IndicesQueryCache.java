@@ -22,6 +22,7 @@ package org.elasticsearch.indices;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.Query;
@@ -32,10 +33,12 @@ import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.lucene.ShardCoreKeyMap;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -59,11 +62,20 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     // enables caching on all segments instead of only the larger ones, for testing only
     public static final Setting<Boolean> INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING = 
             Setting.boolSetting("indices.queries.cache.all_segments", false, Property.NodeScope);
+    // only lets filters into a full cache if they are worth more than the filters they evict
+    public static final Setting<Boolean> INDICES_QUERIES_CACHE_ADMISSION_SETTING =
+            Setting.boolSetting("indices.queries.cache.admission.enabled", false, Property.NodeScope);
 
-    private final LRUQueryCache cache;
+    private final ElasticsearchLRUQueryCache cache;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
+    private final Map<Index, IndexUsage> indexUsage = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
+    private final QueryCacheAdmission admission;
+
+    // The cache asks the caching policy whether to cache a filter right after it missed it on
+    // the same thread, this tells the policy which shard the filter is about to be cached for
+    private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
 
     // This is a hack for the fact that the close listener for the
     // ShardCoreKeyMap will be called before onDocIdSetEviction
@@ -81,6 +93,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         } else {
             cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
         }
+        admission = INDICES_QUERIES_CACHE_ADMISSION_SETTING.get(settings) ? new QueryCacheAdmission(count) : null;
         sharedRamBytesUsed = 0;
     }
 
@@ -113,9 +126,20 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
 
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+        return doCache(weight, policy, -1);
+    }
+
+    /**
+     * Same as {@link #doCache(Weight, QueryCachingPolicy)}, but no new filters are cached for an index once its shards use
+     * {@code quotaInBytes} of the cache. A quota of {@code -1} means that the index may use the whole cache.
+     */
+    public Weight doCache(Weight weight, QueryCachingPolicy policy, long quotaInBytes) {
         while (weight instanceof CachingWeightWrapper) {
             weight = ((CachingWeightWrapper) weight).in;
         }
+        if (admission != null || quotaInBytes >= 0) {
+            policy = new AdmissionCachingPolicy(policy, quotaInBytes);
+        }
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
@@ -166,6 +190,65 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         }
     }
 
+    /**
+     * Wraps the caching policy of a shard to reject filters that are not worth the room they would take in the cache, or
+     * whose index already uses up its quota.
+     */
+    private class AdmissionCachingPolicy implements QueryCachingPolicy {
+
+        private final QueryCachingPolicy in;
+        private final long quotaInBytes;
+
+        AdmissionCachingPolicy(QueryCachingPolicy in, long quotaInBytes) {
+            this.in = in;
+            this.quotaInBytes = quotaInBytes;
+        }
+
+        @Override
+        public void onUse(Query query) {
+            if (admission != null) {
+                admission.recordUse(query);
+            }
+            in.onUse(query);
+        }
+
+        @Override
+        public boolean shouldCache(Query query) throws IOException {
+            if (in.shouldCache(query) == false) {
+                lastMiss.remove();
+                return false;
+            }
+            final Miss miss = lastMiss.get();
+            final Stats stats = miss != null && miss.query == query ? cache.getStats(miss.readerCoreKey) : null;
+            if (stats != null && quotaInBytes >= 0 && stats.indexUsage.ramBytesUsed >= quotaInBytes) {
+                return reject(stats);
+            }
+            if (admission != null && admission.admit(query) == false) {
+                return reject(stats);
+            }
+            // the miss is kept so that the cost of building the filter is recorded
+            return true;
+        }
+
+        private boolean reject(Stats stats) {
+            lastMiss.remove();
+            if (stats != null) {
+                stats.admissionRejections.inc();
+            }
+            return false;
+        }
+    }
+
+    private static class Miss {
+        final Object readerCoreKey;
+        final Query query;
+
+        Miss(Object readerCoreKey, Query query) {
+            this.readerCoreKey = readerCoreKey;
+            this.query = query;
+        }
+    }
+
     /** Clear all entries that belong to the given index. */
     public void clearIndex(String index) {
         final Set<Object> coreCacheKeys = shardKeyMap.getCoreKeysForIndex(index);
@@ -192,17 +275,29 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
 
     private static class Stats implements Cloneable {
 
+        final IndexUsage indexUsage;
         volatile long ramBytesUsed;
         volatile long hitCount;
         volatile long missCount;
         volatile long cacheCount;
         volatile long cacheSize;
+        // updated outside of the cache's lock
+        final CounterMetric admissionRejections = new CounterMetric();
+
+        Stats(IndexUsage indexUsage) {
+            this.indexUsage = indexUsage;
+        }
 
         QueryCacheStats toQueryCacheStats() {
-            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, admissionRejections.count());
         }
     }
 
+    /** The memory used by all shards of an index, to enforce its quota. */
+    private static class IndexUsage {
+        volatile long ramBytesUsed;
+    }
+
     private static class StatsAndCount {
         int count;
         final Stats stats;
@@ -223,6 +318,9 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     public void onClose(ShardId shardId) {
         assert empty(shardStats.get(shardId));
         shardStats.remove(shardId);
+        if (shardStats.keySet().stream().noneMatch(s -> s.getIndex().equals(shardId.getIndex()))) {
+            indexUsage.remove(shardId.getIndex());
+        }
     }
 
     private class ElasticsearchLRUQueryCache extends LRUQueryCache {
@@ -247,12 +345,24 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
             final ShardId shardId = shardKeyMap.getShardId(coreKey);
             Stats stats = shardStats.get(shardId);
             if (stats == null) {
-                stats = new Stats();
+                stats = new Stats(indexUsage.computeIfAbsent(shardId.getIndex(), index -> new IndexUsage()));
                 shardStats.put(shardId, stats);
             }
             return stats;
         }
 
+        @Override
+        protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+            final long startTime = System.nanoTime();
+            final DocIdSet docIdSet = super.cacheImpl(scorer, maxDoc);
+            final Miss miss = lastMiss.get();
+            lastMiss.remove();
+            if (admission != null && miss != null) {
+                admission.recordBuild(miss.query, System.nanoTime() - startTime, docIdSet.ramBytesUsed());
+            }
+            return docIdSet;
+        }
+
         // It's ok to not protect these callbacks by a lock since it is
         // done in LRUQueryCache
         @Override
@@ -263,6 +373,12 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
                 stats.cacheSize = 0;
                 stats.ramBytesUsed = 0;
             }
+            for (IndexUsage usage : indexUsage.values()) {
+                usage.ramBytesUsed = 0;
+            }
+            if (admission != null) {
+                admission.clear();
+            }
             sharedRamBytesUsed = 0;
         }
 
@@ -276,6 +392,9 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         protected void onQueryEviction(Query filter, long ramBytesUsed) {
             super.onQueryEviction(filter, ramBytesUsed);
             sharedRamBytesUsed -= ramBytesUsed;
+            if (admission != null) {
+                admission.recordEviction(filter);
+            }
         }
 
         @Override
@@ -285,6 +404,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
             shardStats.cacheSize += 1;
             shardStats.cacheCount += 1;
             shardStats.ramBytesUsed += ramBytesUsed;
+            shardStats.indexUsage.ramBytesUsed += ramBytesUsed;
 
             StatsAndCount statsAndCount = stats2.get(readerCoreKey);
             if (statsAndCount == null) {
@@ -310,6 +430,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
                 final Stats shardStats = statsAndCount.stats;
                 shardStats.cacheSize -= numEntries;
                 shardStats.ramBytesUsed -= sumRamBytesUsed;
+                shardStats.indexUsage.ramBytesUsed -= sumRamBytesUsed;
                 statsAndCount.count -= numEntries;
                 if (statsAndCount.count == 0) {
                     stats2.remove(readerCoreKey);
@@ -329,6 +450,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
             super.onMiss(readerCoreKey, filter);
             final Stats shardStats = getOrCreateStats(readerCoreKey);
             shardStats.missCount += 1;
+            lastMiss.set(new Miss(readerCoreKey, filter));
         }
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.search.Query;
+
+/**
+ * A TinyLFU-style admission filter for the node query cache. The cache itself evicts the least recently used filter, which
+ * lets a burst of one-off filters flush filters that are used over and over. This filter only lets a filter into a full
+ * cache if it is worth more than the last filter that was evicted, where the worth of a filter is how often it was used
+ * recently times how expensive it is to build per byte of cache it takes.
+ * <p>
+ * Usage frequencies are kept in a count-min sketch that is halved periodically so that old usages fade out. Costs are kept
+ * in a direct-mapped table of the same width. Updates are not synchronized: concurrent updates may be lost, which only
+ * makes the estimates slightly less accurate.
+ */
+final class QueryCacheAdmission {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb2c34f81, 0x8a97e15d, 0xc3a5c85d};
+
+    private final int[] frequencies;
+    private final long[] costs;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    // cost of the filters built so far, used for filters that were not built before
+    private volatile long averageCost = 1;
+    private volatile Query victim;
+
+    /**
+     * @param maximumSize the maximum number of filters in the cache
+     */
+    QueryCacheAdmission(int maximumSize) {
+        final int width = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 24)) * 2 - 1);
+        frequencies = new int[DEPTH * width];
+        costs = new long[width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    /** Records that the given filter was used by a search. */
+    void recordUse(Query query) {
+        final int hash = spread(query.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            final int index = index(hash, i);
+            if (frequencies[index] < MAX_FREQUENCY) {
+                frequencies[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /** Records that building the cached doc id set of the given filter took the given time and size. */
+    void recordBuild(Query query, long buildTimeInNanos, long ramBytesUsed) {
+        // the time saved by a hit per kilobyte of cache it costs
+        final long cost = Math.max(1, buildTimeInNanos / Math.max(1, ramBytesUsed >> 10));
+        costs[spread(query.hashCode()) & mask] = cost;
+        averageCost = Math.max(1, (averageCost * 15 + cost) >> 4);
+    }
+
+    /** Records that the given filter was evicted from the cache to make room for other filters. */
+    void recordEviction(Query query) {
+        victim = query;
+    }
+
+    /** Returns whether the given filter is worth caching, it is about to be built if so. */
+    boolean admit(Query query) {
+        final Query victim = this.victim;
+        if (victim == null) {
+            // nothing was evicted yet, there is room for everybody
+            return true;
+        }
+        return worth(query) > worth(victim);
+    }
+
+    /** Forgets about evictions, for instance because the cache was cleared. */
+    void clear() {
+        victim = null;
+    }
+
+    int frequency(Query query) {
+        final int hash = spread(query.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, frequencies[index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private long worth(Query query) {
+        long cost = costs[spread(query.hashCode()) & mask];
+        if (cost == 0) {
+            cost = averageCost;
+        }
+        return frequency(query) * cost;
+    }
+
+    private void reset() {
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] >>>= 1;
+        }
+        additions = 0;
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 17;
+        return row * (mask + 1) + (h & mask);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+}
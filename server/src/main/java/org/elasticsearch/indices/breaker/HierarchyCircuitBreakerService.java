@@ -243,12 +243,32 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         } else {
             long parentEstimated = 0;
             for (CircuitBreaker breaker : this.breakers.values()) {
-                parentEstimated += breaker.getUsed() * breaker.getOverhead();
+                parentEstimated += accountedBytes(breaker) * breaker.getOverhead();
             }
             return new ParentMemoryUsage(parentEstimated, parentEstimated);
         }
     }
 
+    /**
+     * The bytes of the given child that count against the parent, which include the bytes that it reserved ahead of time
+     */
+    private static long accountedBytes(CircuitBreaker breaker) {
+        if (breaker instanceof ChildMemoryCircuitBreaker) {
+            return ((ChildMemoryCircuitBreaker) breaker).getUsedIncludingReservations();
+        }
+        return breaker.getUsed();
+    }
+
+    private boolean drainReservations() {
+        boolean drained = false;
+        for (CircuitBreaker breaker : this.breakers.values()) {
+            if (breaker instanceof ChildMemoryCircuitBreaker) {
+                drained |= ((ChildMemoryCircuitBreaker) breaker).drainStripes();
+            }
+        }
+        return drained;
+    }
+
     //package private to allow overriding it in tests
     long currentMemoryUsage() {
         try {
@@ -263,12 +283,27 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         }
     }
 
+    /**
+     * Returns whether the parent breaker has room for the given number of bytes on top of what the children use, without
+     * tripping it
+     */
+    public boolean hasParentRoomFor(long newBytesReserved) {
+        final ParentMemoryUsage parentUsed = parentUsed(newBytesReserved);
+        // estimates only count what children already added, so add the new bytes explicitly
+        final long totalUsage = this.trackRealMemoryUsage ? parentUsed.totalUsage : parentUsed.totalUsage + newBytesReserved;
+        return totalUsage <= this.parentSettings.getLimit();
+    }
+
     /**
      * Checks whether the parent breaker has been tripped
      */
     public void checkParentLimit(long newBytesReserved, String label) throws CircuitBreakingException {
-        final ParentMemoryUsage parentUsed = parentUsed(newBytesReserved);
+        ParentMemoryUsage parentUsed = parentUsed(newBytesReserved);
         long parentLimit = this.parentSettings.getLimit();
+        if (parentUsed.totalUsage > parentLimit && this.trackRealMemoryUsage == false && drainReservations()) {
+            // bytes that children reserved ahead of time but do not use must not trip the parent
+            parentUsed = parentUsed(newBytesReserved);
+        }
         if (parentUsed.totalUsage > parentLimit) {
             this.parentTripCount.incrementAndGet();
             final StringBuilder message = new StringBuilder("[parent] Data too large, data for [" + label + "]" +
@@ -291,7 +326,7 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
                 message.append(String.join(", ",
                     this.breakers.entrySet().stream().map(e -> {
                         final CircuitBreaker breaker = e.getValue();
-                        final long breakerUsed = (long)(breaker.getUsed() * breaker.getOverhead());
+                        final long breakerUsed = (long)(accountedBytes(breaker) * breaker.getOverhead());
                         return e.getKey() + "=" + breakerUsed + "/" + new ByteSizeValue(breakerUsed);
                     })
                         .collect(Collectors.toList())));
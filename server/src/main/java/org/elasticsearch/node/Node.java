@@ -97,6 +97,8 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.store.IndexStore;
+import org.elasticsearch.index.store.SnapshotBlockCache;
+import org.elasticsearch.index.store.SnapshotIndexStore;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.analysis.AnalysisModule;
@@ -132,6 +134,7 @@ import org.elasticsearch.plugins.RepositoryPlugin;
 import org.elasticsearch.plugins.ScriptPlugin;
 import org.elasticsearch.plugins.SearchPlugin;
 import org.elasticsearch.repositories.RepositoriesModule;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.script.ScriptModule;
 import org.elasticsearch.script.ScriptService;
@@ -422,10 +425,20 @@ public class Node implements Closeable {
                     .collect(Collectors.toList());
 
 
+            final SnapshotBlockCache snapshotBlockCache = new SnapshotBlockCache(settings, nodeEnvironment.hasNodeFile()
+                    ? Arrays.stream(nodeEnvironment.nodeDataPaths()).map(path -> path.resolve("snapshot_cache")).toArray(Path[]::new)
+                    : new Path[0]);
+            resourcesToClose.add(snapshotBlockCache);
+            // the repositories service is only built by the injector
+            final SetOnce<RepositoriesService> repositoriesServiceReference = new SetOnce<>();
+            final Map<String, Function<IndexSettings, IndexStore>> snapshotIndexStoreFactory = Collections.singletonMap(
+                    SnapshotIndexStore.TYPE,
+                    indexSettings ->
+                            new SnapshotIndexStore(indexSettings, repositoriesServiceReference::get, snapshotBlockCache, threadPool));
             final Map<String, Function<IndexSettings, IndexStore>> indexStoreFactories =
-                    pluginsService.filterPlugins(IndexStorePlugin.class)
-                            .stream()
-                            .map(IndexStorePlugin::getIndexStoreFactories)
+                    Stream.concat(
+                            Stream.of(snapshotIndexStoreFactory),
+                            pluginsService.filterPlugins(IndexStorePlugin.class).stream().map(IndexStorePlugin::getIndexStoreFactories))
                             .flatMap(m -> m.entrySet().stream())
                             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
@@ -499,7 +512,7 @@ public class Node implements Closeable {
             this.nodeService = new NodeService(settings, threadPool, monitorService, discoveryModule.getDiscovery(),
                 transportService, indicesService, pluginsService, circuitBreakerService, scriptModule.getScriptService(),
                 httpServerTransport, ingestService, clusterService, settingsModule.getSettingsFilter(), responseCollectorService,
-                searchTransportService);
+                searchTransportService, pageCacheRecycler);
 
             final SearchService searchService = newSearchService(clusterService, indicesService,
                 threadPool, scriptModule.getScriptService(), bigArrays, searchModule.getFetchPhase(),
@@ -537,6 +550,7 @@ public class Node implements Closeable {
                     b.bind(MetaDataUpgrader.class).toInstance(metaDataUpgrader);
                     b.bind(MetaStateService.class).toInstance(metaStateService);
                     b.bind(IndicesService.class).toInstance(indicesService);
+                    b.bind(SnapshotBlockCache.class).toInstance(snapshotBlockCache);
                     b.bind(AliasValidator.class).toInstance(aliasValidator);
                     b.bind(MetaDataCreateIndexService.class).toInstance(metaDataCreateIndexService);
                     b.bind(SearchService.class).toInstance(searchService);
@@ -567,6 +581,7 @@ public class Node implements Closeable {
                 }
             );
             injector = modules.createInjector();
+            repositoriesServiceReference.set(injector.getInstance(RepositoriesService.class));
 
             // TODO hack around circular dependencies problems in AllocationService
             clusterModule.getAllocationService().setGatewayAllocator(injector.getInstance(GatewayAllocator.class));
@@ -826,6 +841,7 @@ public class Node implements Closeable {
         toClose.add(injector.getInstance(IndicesClusterStateService.class));
         toClose.add(() -> stopWatch.stop().start("indices"));
         toClose.add(injector.getInstance(IndicesService.class));
+        toClose.add(injector.getInstance(SnapshotBlockCache.class));
         // close filter/fielddata caches after indices
         toClose.add(injector.getInstance(IndicesStore.class));
         toClose.add(() -> stopWatch.stop().start("routing"));
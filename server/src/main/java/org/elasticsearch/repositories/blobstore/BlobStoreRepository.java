@@ -43,6 +43,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.CheckedRunnable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -55,6 +56,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.compress.NotXContentException;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
@@ -84,6 +86,8 @@ import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.ContentDefinedChunker;
+import org.elasticsearch.index.snapshots.blobstore.MultiPartChecksum;
 import org.elasticsearch.index.snapshots.blobstore.RateLimitingInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
@@ -110,6 +114,7 @@ import java.io.InputStream;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -117,7 +122,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
@@ -204,6 +217,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private static final String DATA_BLOB_PREFIX = "__";
 
+    private static final String CHUNK_BLOB_PREFIX = "chunk-";
+
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
@@ -212,6 +227,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    private final int maxConcurrentFileTransfers;
+
+    private final boolean contentDefinedChunking;
+
     private ChecksumBlobStoreFormat<MetaData> globalMetaDataFormat;
 
     private ChecksumBlobStoreFormat<IndexMetaData> indexMetaDataFormat;
@@ -243,6 +262,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         readOnly = metadata.settings().getAsBoolean("readonly", false);
+        maxConcurrentFileTransfers = metadata.settings().getAsInt("max_concurrent_file_transfers", 4);
+        if (maxConcurrentFileTransfers < 1) {
+            throw new IllegalArgumentException("the maximum number of concurrent file transfers must be at least 1: ["
+                + maxConcurrentFileTransfers + "]");
+        }
+        contentDefinedChunking = metadata.settings().getAsBoolean("content_defined_chunking", false);
 
         indexShardSnapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT,
             BlobStoreIndexShardSnapshot::fromXContent, namedXContentRegistry, isCompress());
@@ -612,6 +637,59 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return restoreRateLimitingTimeInNanos.count();
     }
 
+    /**
+     * Runs the given file transfers using up to {@code max_concurrent_file_transfers} threads. The calling thread takes part
+     * in the work and the other threads are taken from the given executor, so the transfers complete even if the executor
+     * has no free thread. All transfers share the repository rate limiters, which bound the total throughput. The first
+     * failure stops the transfers that have not started yet and is rethrown once all running transfers are done.
+     */
+    private void runFileTransfers(final List<CheckedRunnable<Exception>> transfers, final Executor executor) throws IOException {
+        final Queue<CheckedRunnable<Exception>> pending = new ConcurrentLinkedQueue<>(transfers);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            CheckedRunnable<Exception> transfer;
+            while (failure.get() == null && (transfer = pending.poll()) != null) {
+                try {
+                    transfer.run();
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                }
+            }
+        };
+        final List<FutureTask<Void>> helpers = new ArrayList<>();
+        for (int i = 1; i < Math.min(maxConcurrentFileTransfers, transfers.size()); i++) {
+            final FutureTask<Void> helper = new FutureTask<>(worker, null);
+            try {
+                executor.execute(helper);
+                helpers.add(helper);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        for (FutureTask<Void> helper : helpers) {
+            // a helper that has not started yet has nothing left to do, the others must finish before the store is released
+            if (helper.cancel(false) == false) {
+                try {
+                    helper.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for file transfers", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("unexpected failure of a file transfer worker", e.getCause());
+                }
+            }
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw ExceptionsHelper.convertToRuntime(e);
+        }
+    }
+
     protected void assertSnapshotOrGenericThread() {
         assert Thread.currentThread().getName().contains(ThreadPool.Names.SNAPSHOT)
             || Thread.currentThread().getName().contains(ThreadPool.Names.GENERIC) :
@@ -898,6 +976,18 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Loads the list of files of a shard snapshot, together with the blob container that holds these files.
+     *
+     * @param snapshotId snapshot id
+     * @param indexId    the id of the index in the repository
+     * @param shardId    shard id
+     */
+    public Tuple<BlobContainer, BlobStoreIndexShardSnapshot> loadShardSnapshot(SnapshotId snapshotId, IndexId indexId, ShardId shardId) {
+        final Context context = new Context(snapshotId, Version.CURRENT, indexId, shardId);
+        return Tuple.tuple(context.blobContainer, context.loadSnapshot());
+    }
+
     /**
      * Delete shard snapshot
      *
@@ -1051,6 +1141,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         }
                     }
                 }
+
+                // Delete all chunks that are no longer referenced by any file of a snapshot
+                final Map<String, Integer> chunkReferenceCounts = updatedSnapshots.chunkReferenceCounts();
+                for (final String blobName : blobs.keySet()) {
+                    if (blobName.startsWith(CHUNK_BLOB_PREFIX) && chunkReferenceCounts.containsKey(blobName) == false) {
+                        try {
+                            blobContainer.deleteBlobIgnoringIfNotExists(blobName);
+                        } catch (IOException e) {
+                            logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete chunk blob [{}] during finalization",
+                                snapshotId, shardId, blobName), e);
+                        }
+                    }
+                }
             } catch (IOException e) {
                 String message = "Failed to finalize " + reason + " with shard index [" + currentIndexGen + "]";
                 throw new IndexShardSnapshotFailedException(shardId, message, e);
@@ -1153,6 +1256,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         private final Store store;
         private final IndexShardSnapshotStatus snapshotStatus;
         private final long startTime;
+        private final Executor executor;
 
         /**
          * Constructs new context
@@ -1167,6 +1271,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             this.snapshotStatus = snapshotStatus;
             this.store = shard.store();
             this.startTime = startTime;
+            this.executor = shard.getThreadPool().executor(ThreadPool.Names.SNAPSHOT);
         }
 
         /**
@@ -1194,6 +1299,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     "Duplicate snapshot name [" + snapshotId.getName() + "] detected, aborting");
             }
 
+            // chunked files have no blob of their own, so their names are only known from the shard snapshots
+            for (SnapshotFiles snapshotFiles : snapshots) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                    if (fileInfo.isChunked()) {
+                        generation = Math.max(generation,
+                            Long.parseLong(fileInfo.name().substring(DATA_BLOB_PREFIX.length()), Character.MAX_RADIX));
+                    }
+                }
+            }
+
             final List<BlobStoreIndexShardSnapshot.FileInfo> indexCommitPointFiles = new ArrayList<>();
 
             store.incRef();
@@ -1261,13 +1376,36 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 snapshotStatus.moveToStarted(startTime, indexIncrementalFileCount,
                     indexTotalNumberOfFiles, indexIncrementalSize, indexTotalFileCount);
 
+                final List<CheckedRunnable<Exception>> transfers = new ArrayList<>();
+                final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = new ConcurrentHashMap<>();
+                final Map<String, Long> knownChunks = new ConcurrentHashMap<>();
+                if (contentDefinedChunking) {
+                    for (BlobMetaData blob : blobs.values()) {
+                        if (blob.name().startsWith(CHUNK_BLOB_PREFIX)) {
+                            knownChunks.put(blob.name(), blob.length());
+                        }
+                    }
+                }
                 for (BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo : filesToSnapshot) {
-                    try {
-                        snapshotFile(snapshotFileInfo);
-                    } catch (IOException e) {
-                        throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
+                    if (contentDefinedChunking) {
+                        transfers.add(() -> chunkedFiles.put(snapshotFileInfo.name(), snapshotFileInChunks(snapshotFileInfo, knownChunks)));
+                    } else if (snapshotFileInfo.numberOfParts() == 1) {
+                        transfers.add(() -> snapshotFile(snapshotFileInfo));
+                    } else {
+                        final MultiPartChecksum checksum = new MultiPartChecksum(snapshotFileInfo.metadata(),
+                            Math.toIntExact(snapshotFileInfo.numberOfParts()));
+                        for (int i = 0; i < snapshotFileInfo.numberOfParts(); i++) {
+                            final int part = i;
+                            transfers.add(() -> snapshotFilePart(snapshotFileInfo, part, checksum));
+                        }
                     }
                 }
+                try {
+                    runFileTransfers(transfers, executor);
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
+                }
+                indexCommitPointFiles.replaceAll(fileInfo -> chunkedFiles.getOrDefault(fileInfo.name(), fileInfo));
             } finally {
                 store.decRef();
             }
@@ -1336,6 +1474,82 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
+        /**
+         * Snapshot a single part of a file that is split in several parts. Parts are read independently of each other so that
+         * they can be uploaded concurrently. Each part checksums the bytes it uploads, and the checksum of the whole file is
+         * verified from the checksums of the parts once the last part is uploaded, without reading the file again.
+         *
+         * @param fileInfo file to be snapshotted
+         * @param part     the part of the file to upload
+         * @param checksum the checksum of the parts of the file
+         */
+        private void snapshotFilePart(final BlobStoreIndexShardSnapshot.FileInfo fileInfo, final int part,
+                                      final MultiPartChecksum checksum) throws IOException {
+            final long partBytes = fileInfo.partBytes(part);
+            try (IndexInput indexInput = store.directory().openInput(fileInfo.physicalName(), IOContext.READONCE)) {
+                final long partOffset = fileInfo.partOffset(part);
+                indexInput.seek(partOffset);
+                InputStream inputStream = checksum.wrap(part, partOffset, new InputStreamIndexInput(indexInput, partBytes));
+                if (snapshotRateLimiter != null) {
+                    inputStream = new RateLimitingInputStream(inputStream, snapshotRateLimiter, snapshotRateLimitingTimeInNanos::inc);
+                }
+                inputStream = new AbortableInputStream(inputStream, fileInfo.physicalName());
+                blobContainer.writeBlob(fileInfo.partName(part), inputStream, partBytes, true);
+            }
+            if (checksum.onPartRead()) {
+                try {
+                    checksum.verify();
+                    snapshotStatus.addProcessedFile(fileInfo.length());
+                } catch (Exception t) {
+                    failStoreIfCorrupted(t);
+                    snapshotStatus.addProcessedFile(0);
+                    throw t;
+                }
+            }
+        }
+
+        /**
+         * Snapshot individual file as content-defined chunks. Each chunk is stored under the hash of its content, and chunks
+         * that already exist in the repository are not uploaded again.
+         *
+         * @param fileInfo    file to be snapshotted
+         * @param knownChunks the lengths of the chunks that exist in the repository or were uploaded by this snapshot
+         * @return the file info that lists the chunks of the file
+         */
+        private BlobStoreIndexShardSnapshot.FileInfo snapshotFileInChunks(final BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                                                          final Map<String, Long> knownChunks) throws IOException {
+            final List<BlobStoreIndexShardSnapshot.FileInfo.Chunk> chunks = new ArrayList<>();
+            final byte[] buffer = new byte[ContentDefinedChunker.MAX_CHUNK_SIZE];
+            try (IndexInput indexInput = store.openVerifyingInput(fileInfo.physicalName(), IOContext.READONCE, fileInfo.metadata())) {
+                do {
+                    final int length = ContentDefinedChunker.readChunk(indexInput, buffer);
+                    final MessageDigest digest = MessageDigests.sha256();
+                    digest.update(buffer, 0, length);
+                    final String chunkName = CHUNK_BLOB_PREFIX + MessageDigests.toHexString(digest.digest());
+                    final Long existingLength = knownChunks.putIfAbsent(chunkName, (long) length);
+                    if (existingLength == null || existingLength != length) {
+                        InputStream inputStream = new BytesArray(buffer, 0, length).streamInput();
+                        if (snapshotRateLimiter != null) {
+                            inputStream = new RateLimitingInputStream(inputStream, snapshotRateLimiter,
+                                                                      snapshotRateLimitingTimeInNanos::inc);
+                        }
+                        inputStream = new AbortableInputStream(inputStream, fileInfo.physicalName());
+                        // a chunk that was only partially written by an earlier failed snapshot is overwritten
+                        blobContainer.writeBlob(chunkName, inputStream, length, false);
+                        knownChunks.put(chunkName, (long) length);
+                    }
+                    chunks.add(new BlobStoreIndexShardSnapshot.FileInfo.Chunk(chunkName, length));
+                } while (indexInput.getFilePointer() < indexInput.length());
+                Store.verify(indexInput);
+                snapshotStatus.addProcessedFile(fileInfo.length());
+            } catch (Exception t) {
+                failStoreIfCorrupted(t);
+                snapshotStatus.addProcessedFile(0);
+                throw t;
+            }
+            return new BlobStoreIndexShardSnapshot.FileInfo(fileInfo.name(), fileInfo.metadata(), chunks);
+        }
+
         private void failStoreIfCorrupted(Exception e) {
             if (e instanceof CorruptIndexException || e instanceof IndexFormatTooOldException || e instanceof IndexFormatTooNewException) {
                 try {
@@ -1355,6 +1569,15 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          * @return true if file exists in the list of blobs
          */
         private boolean snapshotFileExistsInBlobs(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Map<String, BlobMetaData> blobs) {
+            if (fileInfo.isChunked()) {
+                for (BlobStoreIndexShardSnapshot.FileInfo.Chunk chunk : fileInfo.chunks()) {
+                    final BlobMetaData chunkMetaData = blobs.get(chunk.name());
+                    if (chunkMetaData == null || chunkMetaData.length() != chunk.length()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
             BlobMetaData blobMetaData = blobs.get(fileInfo.name());
             if (blobMetaData != null) {
                 return blobMetaData.length() == fileInfo.length();
@@ -1568,22 +1791,26 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     final List<String> deleteIfExistFiles = Arrays.asList(store.directory().listAll());
 
                     // restore the files from the snapshot to the Lucene store
+                    final List<CheckedRunnable<Exception>> transfers = new ArrayList<>();
                     for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
-                        // if a file with a same physical name already exist in the store we need to delete it
-                        // before restoring it from the snapshot. We could be lenient and try to reuse the existing
-                        // store files (and compare their names/length/checksum again with the snapshot files) but to
-                        // avoid extra complexity we simply delete them and restore them again like StoreRecovery
-                        // does with dangling indices. Any existing store file that is not restored from the snapshot
-                        // will be clean up by RecoveryTarget.cleanFiles().
-                        final String physicalName = fileToRecover.physicalName();
-                        if (deleteIfExistFiles.contains(physicalName)) {
-                            logger.trace("[{}] [{}] deleting pre-existing file [{}]", shardId, snapshotId, physicalName);
-                            store.directory().deleteFile(physicalName);
-                        }
+                        transfers.add(() -> {
+                            // if a file with a same physical name already exist in the store we need to delete it
+                            // before restoring it from the snapshot. We could be lenient and try to reuse the existing
+                            // store files (and compare their names/length/checksum again with the snapshot files) but to
+                            // avoid extra complexity we simply delete them and restore them again like StoreRecovery
+                            // does with dangling indices. Any existing store file that is not restored from the snapshot
+                            // will be clean up by RecoveryTarget.cleanFiles().
+                            final String physicalName = fileToRecover.physicalName();
+                            if (deleteIfExistFiles.contains(physicalName)) {
+                                logger.trace("[{}] [{}] deleting pre-existing file [{}]", shardId, snapshotId, physicalName);
+                                store.directory().deleteFile(physicalName);
+                            }
 
-                        logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
-                        restoreFile(fileToRecover, store);
+                            logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
+                            restoreFile(fileToRecover, store);
+                        });
                     }
+                    runFileTransfers(transfers, targetShard.getThreadPool().executor(ThreadPool.Names.SNAPSHOT));
                 } catch (IOException ex) {
                     throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", ex);
                 }
@@ -1619,9 +1846,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
 
         /**
-         * Restores a file
-         * This is asynchronous method. Upon completion of the operation latch is getting counted down and any failures are
-         * added to the {@code failures} list
+         * Restores a file. Several files of the same shard may be restored concurrently.
          *
          * @param fileInfo file to be restored
          */
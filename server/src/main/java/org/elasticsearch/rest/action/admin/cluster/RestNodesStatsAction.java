@@ -72,6 +72,7 @@ public class RestNodesStatsAction extends BaseRestHandler {
         metrics.put("discovery", r -> r.discovery(true));
         metrics.put("ingest", r -> r.ingest(true));
         metrics.put("adaptive_selection", r -> r.adaptiveSelection(true));
+        metrics.put("page_cache_recycler", r -> r.pageCacheRecycler(true));
         METRICS = Collections.unmodifiableMap(metrics);
     }
 
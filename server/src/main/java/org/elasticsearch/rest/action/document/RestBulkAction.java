@@ -19,20 +19,38 @@
 
 package org.elasticsearch.rest.action.document;
 
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.bulk.BulkShardRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestActionListener;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -48,7 +66,27 @@ import static org.elasticsearch.rest.RestRequest.Method.PUT;
  */
 public class RestBulkAction extends BaseRestHandler {
 
+    /**
+     * Bulk bodies of at least twice this size are cut into chunks of this size that are parsed in parallel on the write
+     * thread pool. A value of {@code 0} disables parallel parsing.
+     */
+    public static final Setting<ByteSizeValue> BULK_PARSE_CHUNK_SIZE_SETTING = Setting.byteSizeSetting("rest.bulk.parse_chunk_size",
+        new ByteSizeValue(8, ByteSizeUnit.MB), new ByteSizeValue(0), new ByteSizeValue(Integer.MAX_VALUE), Property.NodeScope);
+
+    /**
+     * Bulk bodies larger than this are executed in windows of roughly this size, cut at item boundaries. Every window is parsed
+     * on the write thread pool, and only once the previous window has completed, which bounds the parsed requests and the
+     * requests in flight on the coordinating node to a single window. The body itself is still received and held in full before
+     * the first window is parsed. The responses of all windows are merged into one response. Since windows are executed one after
+     * the other, a malformed item fails the request after the items of earlier windows were executed. A value of {@code 0}
+     * disables windowing.
+     */
+    public static final Setting<ByteSizeValue> BULK_WINDOW_SIZE_SETTING = Setting.byteSizeSetting("rest.bulk.window_size",
+        new ByteSizeValue(0), new ByteSizeValue(0), new ByteSizeValue(Integer.MAX_VALUE), Property.NodeScope);
+
     private final boolean allowExplicitIndex;
+    private final int parseChunkSize;
+    private final int windowSize;
 
     public RestBulkAction(Settings settings, RestController controller) {
         super(settings);
@@ -61,6 +99,8 @@ public class RestBulkAction extends BaseRestHandler {
         controller.registerHandler(PUT, "/{index}/{type}/_bulk", this);
 
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.parseChunkSize = Math.toIntExact(BULK_PARSE_CHUNK_SIZE_SETTING.get(settings).getBytes());
+        this.windowSize = Math.toIntExact(BULK_WINDOW_SIZE_SETTING.get(settings).getBytes());
     }
 
     @Override
@@ -70,7 +110,6 @@ public class RestBulkAction extends BaseRestHandler {
 
     @Override
     public RestChannelConsumer prepareRequest(final RestRequest request, final NodeClient client) throws IOException {
-        BulkRequest bulkRequest = Requests.bulkRequest();
         String defaultIndex = request.param("index");
         String defaultType = request.param("type");
         final boolean includeTypeName = request.paramAsBoolean("include_type_name", true);
@@ -85,15 +124,145 @@ public class RestBulkAction extends BaseRestHandler {
         FetchSourceContext defaultFetchSourceContext = FetchSourceContext.parseFromRestRequest(request);
         String defaultPipeline = request.param("pipeline");
         String waitForActiveShards = request.param("wait_for_active_shards");
-        if (waitForActiveShards != null) {
-            bulkRequest.waitForActiveShards(ActiveShardCount.parseString(waitForActiveShards));
+        final ActiveShardCount activeShardCount = waitForActiveShards == null ? null : ActiveShardCount.parseString(waitForActiveShards);
+        final TimeValue timeout = request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT);
+        final String refresh = request.param("refresh");
+        final Supplier<BulkRequest> newBulkRequest = () -> {
+            BulkRequest bulkRequest = Requests.bulkRequest();
+            if (activeShardCount != null) {
+                bulkRequest.waitForActiveShards(activeShardCount);
+            }
+            bulkRequest.timeout(timeout);
+            bulkRequest.setRefreshPolicy(refresh);
+            return bulkRequest;
+        };
+        final BytesReference content = request.requiredContent();
+        final XContentType xContentType = request.getXContentType();
+
+        final String finalDefaultType = defaultType;
+        if (windowSize > 0 && content.length() > windowSize) {
+            final WindowedBulk windowedBulk = new WindowedBulk(client, command -> client.threadPool().executor(ThreadPool.Names.WRITE)
+                .execute(command), content.length(), windowSize, newBulkRequest,
+                (bulkRequest, position) -> bulkRequest.addRange(content, position,
+                    (int) Math.min(content.length(), (long) position.offset() + windowSize),
+                    defaultIndex, finalDefaultType, defaultRouting, defaultFetchSourceContext, defaultPipeline, null, allowExplicitIndex,
+                    xContentType));
+            return channel -> windowedBulk.execute(new RestStatusToXContentListener<>(channel));
         }
-        bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
-        bulkRequest.setRefreshPolicy(request.param("refresh"));
-        bulkRequest.add(request.requiredContent(), defaultIndex, defaultType, defaultRouting,
-            defaultFetchSourceContext, defaultPipeline, null, allowExplicitIndex, request.getXContentType());
 
-        return channel -> client.bulk(bulkRequest, new RestStatusToXContentListener<>(channel));
+        return channel -> newBulkRequest.get().add(content, defaultIndex, finalDefaultType, defaultRouting,
+            defaultFetchSourceContext, defaultPipeline, null, allowExplicitIndex, xContentType,
+            command -> client.threadPool().executor(ThreadPool.Names.WRITE).execute(command), parseChunkSize,
+            client.threadPool().getThreadContext(), new RestActionListener<BulkRequest>(channel) {
+                @Override
+                protected void processResponse(BulkRequest bulkRequest) {
+                    client.bulk(bulkRequest, new RestStatusToXContentListener<>(channel));
+                }
+            });
+    }
+
+    /**
+     * Executes a bulk body window by window, see {@link #BULK_WINDOW_SIZE_SETTING}. This bounds the parsed requests and the shard
+     * requests in flight to a single window, but not the memory that holds the body: it is received, and inflated if it was
+     * compressed, in full before the first window is parsed.
+     */
+    static final class WindowedBulk {
+
+        private final NodeClient client;
+        private final Executor executor;
+        private final int length;
+        private final int windowSize;
+        private final Supplier<BulkRequest> newBulkRequest;
+        // adds the items starting at the given position to the request and advances the position to where the next window starts
+        private final CheckedBiConsumer<BulkRequest, BulkRequest.BodyPosition, IOException> addWindow;
+
+        private final List<BulkItemResponse> items = new ArrayList<>();
+        private long tookInMillis = 0;
+        private long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+        private final BulkRequest.BodyPosition position = new BulkRequest.BodyPosition();
+
+        WindowedBulk(NodeClient client, Executor executor, int length, int windowSize, Supplier<BulkRequest> newBulkRequest,
+                     CheckedBiConsumer<BulkRequest, BulkRequest.BodyPosition, IOException> addWindow) {
+            this.client = client;
+            this.executor = executor;
+            this.length = length;
+            this.windowSize = windowSize;
+            this.newBulkRequest = newBulkRequest;
+            this.addWindow = addWindow;
+        }
+
+        /**
+         * Executes all windows and notifies the listener with the merged response. Windows are parsed on the executor, including
+         * the first one, so that parsing never happens on the network thread.
+         */
+        void execute(ActionListener<BulkResponse> listener) {
+            forkNextWindow(listener);
+        }
+
+        private void forkNextWindow(ActionListener<BulkResponse> listener) {
+            executor.execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    listener.onFailure(e);
+                }
+
+                @Override
+                public boolean isForceExecution() {
+                    return true;
+                }
+
+                @Override
+                protected void doRun() {
+                    executeNextWindow(listener);
+                }
+            });
+        }
+
+        private void executeNextWindow(ActionListener<BulkResponse> listener) {
+            final BulkRequest bulkRequest = newBulkRequest.get();
+            try {
+                do {
+                    addWindow.accept(bulkRequest, position);
+                } while (bulkRequest.numberOfActions() == 0 && position.offset() < length);
+            } catch (Exception e) {
+                listener.onFailure(e);
+                return;
+            }
+            if (bulkRequest.numberOfActions() == 0 && items.isEmpty() == false) {
+                // only empty lines were left after the last window
+                listener.onResponse(mergedResponse());
+                return;
+            }
+            client.bulk(bulkRequest, ActionListener.wrap(response -> {
+                addItems(response);
+                if (position.offset() >= length) {
+                    listener.onResponse(mergedResponse());
+                } else {
+                    // parsing the next window may take a while, don't do it on the thread that completed the previous one
+                    forkNextWindow(listener);
+                }
+            }, listener::onFailure));
+        }
+
+        private void addItems(BulkResponse response) {
+            final int itemOffset = items.size();
+            for (BulkItemResponse item : response.getItems()) {
+                final int itemId = itemOffset + item.getItemId();
+                if (item.isFailed()) {
+                    items.add(new BulkItemResponse(itemId, item.getOpType(), item.getFailure()));
+                } else {
+                    items.add(new BulkItemResponse(itemId, item.getOpType(), item.getResponse()));
+                }
+            }
+            tookInMillis += response.getTook().millis();
+            if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                ingestTookInMillis = Math.max(0L, ingestTookInMillis) + response.getIngestTookInMillis();
+            }
+        }
+
+        private BulkResponse mergedResponse() {
+            return new BulkResponse(items.toArray(new BulkItemResponse[0]), tookInMillis, ingestTookInMillis);
+        }
     }
 
     @Override
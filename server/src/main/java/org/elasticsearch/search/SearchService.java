@@ -38,6 +38,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
@@ -92,6 +93,7 @@ import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
+import org.elasticsearch.threadpool.AutoQueueAdjustingExecutorBuilder;
 import org.elasticsearch.threadpool.Scheduler.Cancellable;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPool.Names;
@@ -1009,18 +1011,27 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * The action listener is guaranteed to be executed on the search thread-pool
      */
     private void rewriteShardRequest(ShardSearchRequest request, ActionListener<ShardSearchRequest> listener) {
-        ActionListener<Rewriteable> actionListener = ActionListener.wrap(r ->
-            threadPool.executor(Names.SEARCH).execute(new AbstractRunnable() {
-                @Override
-                public void onFailure(Exception e) {
-                    listener.onFailure(e);
+        ActionListener<Rewriteable> actionListener = ActionListener.wrap(r -> {
+            final ThreadContext threadContext = threadPool.getThreadContext();
+            try (ThreadContext.StoredContext ignore = threadContext.newStoredContext(false)) {
+                // lets the search thread pool queue the shard request by its index if it is configured to do so
+                final String fairQueueKey = AutoQueueAdjustingExecutorBuilder.FAIR_QUEUE_KEY_TRANSIENT;
+                if (threadContext.getTransient(fairQueueKey) == null) {
+                    threadContext.putTransient(fairQueueKey, request.shardId().getIndexName());
                 }
-
-                @Override
-                protected void doRun() throws Exception {
-                    listener.onResponse(request);
-                }
-            }), listener::onFailure);
+                threadPool.executor(Names.SEARCH).execute(new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        listener.onFailure(e);
+                    }
+
+                    @Override
+                    protected void doRun() throws Exception {
+                        listener.onResponse(request);
+                    }
+                });
+            }
+        }, listener::onFailure);
         IndexShard shardOrNull = indicesService.getShardOrNull(request.shardId());
         if (shardOrNull != null) {
             // now we need to check if there is a pending refresh and register
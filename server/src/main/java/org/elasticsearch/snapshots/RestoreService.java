@@ -67,6 +67,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SnapshotIndexStore;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
@@ -256,6 +257,13 @@ public class RestoreService extends AbstractComponent implements ClusterStateApp
                             String renamedIndexName = indexEntry.getKey();
                             IndexMetaData snapshotIndexMetaData = metaData.index(index);
                             snapshotIndexMetaData = updateIndexSettings(snapshotIndexMetaData, request.indexSettings, request.ignoreIndexSettings);
+                            if (SnapshotIndexStore.isSnapshotStore(snapshotIndexMetaData.getSettings())) {
+                                // the files of a mounted index are served from the snapshot, they must never be modified
+                                snapshotIndexMetaData = IndexMetaData.builder(snapshotIndexMetaData)
+                                    .settings(Settings.builder().put(snapshotIndexMetaData.getSettings())
+                                        .put(IndexMetaData.SETTING_BLOCKS_WRITE, true))
+                                    .build();
+                            }
                             try {
                                 snapshotIndexMetaData = metaDataIndexUpgradeService.upgradeIndexMetaData(snapshotIndexMetaData,
                                     minIndexCompatibilityVersion);
@@ -50,6 +50,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.index.engine.Engine;
@@ -392,7 +393,8 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
                 repository.snapshotShard(indexShard, snapshot.getSnapshotId(), indexId, snapshotRef.getIndexCommit(), snapshotStatus);
                 if (logger.isDebugEnabled()) {
                     final IndexShardSnapshotStatus.Copy lastSnapshotStatus = snapshotStatus.asCopy();
-                    logger.debug("snapshot ({}) completed to {} with {}", snapshot, repository, lastSnapshotStatus);
+                    logger.debug("snapshot ({}) completed to {} with {} at [{}/s]", snapshot, repository, lastSnapshotStatus,
+                        new ByteSizeValue(lastSnapshotStatus.getProcessedBytesPerSecond(System.currentTimeMillis())));
                 }
             }
         } catch (SnapshotFailedEngineException | IndexShardSnapshotFailedException e) {
@@ -59,6 +59,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
+import org.elasticsearch.index.store.SnapshotIndexStore;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
@@ -1126,6 +1127,14 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         throw new ConcurrentSnapshotExecutionException(snapshot, "cannot delete snapshot during a restore");
                     }
                 }
+                for (IndexMetaData indexMetaData : currentState.metaData()) {
+                    // the files of a mounted index are read from the snapshot for as long as the index exists
+                    if (SnapshotIndexStore.isMountedFrom(indexMetaData.getSettings(), snapshot.getRepository(),
+                            snapshot.getSnapshotId().getName())) {
+                        throw new SnapshotException(snapshot, "cannot delete snapshot, it is mounted as index [" +
+                            indexMetaData.getIndex().getName() + "]");
+                    }
+                }
                 ClusterState.Builder clusterStateBuilder = ClusterState.builder(currentState);
                 SnapshotsInProgress snapshots = currentState.custom(SnapshotsInProgress.TYPE);
                 SnapshotsInProgress.Entry snapshotEntry = snapshots != null ? snapshots.snapshot(snapshot) : null;
@@ -19,6 +19,9 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.SizeValue;
@@ -28,23 +31,67 @@ import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.node.Node;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
 
 /**
  * A builder for executors that automatically adjust the queue length as needed, depending on
  * Little's Law. See https://en.wikipedia.org/wiki/Little's_law for more information.
+ *
+ * Alternatively the executor can queue tasks per key, see {@link FairQueueKey}, in which case each key gets a queue of
+ * {@code queue_size} tasks that are served by weighted deficit round robin and the queue size is not adjusted.
  */
 public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<AutoQueueAdjustingExecutorBuilder.AutoExecutorSettings> {
 
+    /**
+     * The name of the {@link ThreadContext} transient that holds the key of a task when the executor queues tasks by
+     * {@link FairQueueKey#INDEX}.
+     */
+    public static final String FAIR_QUEUE_KEY_TRANSIENT = "_fair_queue_key";
+
+    /**
+     * What the tasks of an executor are queued by.
+     */
+    public enum FairQueueKey {
+        /**
+         * All tasks share a single queue.
+         */
+        NONE,
+        /**
+         * Tasks are queued by the index they target, as put into the {@link #FAIR_QUEUE_KEY_TRANSIENT} transient by the caller. Only
+         * the shard requests of the dfs and query phases set it. The fetch and scroll requests that are forked by the transport layer
+         * only refer to a search context, so they are queued without a key.
+         */
+        INDEX,
+        /**
+         * Tasks are queued by the value of a request header, for instance one that identifies the tenant or user.
+         */
+        HEADER;
+
+        public static FairQueueKey fromString(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown fair queue key [" + value + "], must be one of [none, index, header]");
+            }
+        }
+    }
+
     private final Setting<Integer> sizeSetting;
     private final Setting<Integer> queueSizeSetting;
     private final Setting<Integer> minQueueSizeSetting;
     private final Setting<Integer> maxQueueSizeSetting;
     private final Setting<TimeValue> targetedResponseTimeSetting;
     private final Setting<Integer> frameSizeSetting;
+    private final Setting<FairQueueKey> fairQueueKeySetting;
+    private final Setting<String> fairQueueHeaderSetting;
+    private final Setting<List<String>> fairQueueWeightsSetting;
 
     AutoQueueAdjustingExecutorBuilder(final Settings settings, final String name, final int size,
                                       final int initialQueueSize, final int minQueueSize,
@@ -81,12 +128,35 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
                 (s) -> Setting.parseInt(s, tempMinQueueSizeSetting.get(settings), Integer.MAX_VALUE, maxSizeKey),
                 Setting.Property.NodeScope);
         this.frameSizeSetting = Setting.intSetting(frameSizeKey, frameSize, 100, Setting.Property.NodeScope);
+        final String fairQueueKeyKey = settingsKey(prefix, "fair_queue.key");
+        final String fairQueueHeaderKey = settingsKey(prefix, "fair_queue.header");
+        final String fairQueueWeightsKey = settingsKey(prefix, "fair_queue.weights");
+        this.fairQueueKeySetting = new Setting<>(fairQueueKeyKey, "none", FairQueueKey::fromString, Setting.Property.NodeScope);
+        this.fairQueueHeaderSetting = Setting.simpleString(fairQueueHeaderKey, Setting.Property.NodeScope);
+        this.fairQueueWeightsSetting = Setting.listSetting(fairQueueWeightsKey, Collections.emptyList(), s -> {
+            parseWeight(s, fairQueueWeightsKey);
+            return s;
+        }, Setting.Property.NodeScope);
+    }
+
+    /**
+     * Parses a {@code pattern:weight} entry of the weights setting.
+     */
+    private static Tuple<String, Integer> parseWeight(String value, String key) {
+        final int separator = value.lastIndexOf(':');
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("failed to parse [" + value + "] for setting [" + key + "], expected [pattern:weight]");
+        }
+        final String pattern = value.substring(0, separator).trim();
+        final int weight = Setting.parseInt(value.substring(separator + 1).trim(), 1, key);
+        return new Tuple<>(pattern, weight);
     }
 
     @Override
     public List<Setting<?>> getRegisteredSettings() {
         return Arrays.asList(sizeSetting, queueSizeSetting, minQueueSizeSetting,
-                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting);
+                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting,
+                fairQueueKeySetting, fairQueueHeaderSetting, fairQueueWeightsSetting);
     }
 
     @Override
@@ -98,7 +168,19 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         final int maxQueueSize = maxQueueSizeSetting.get(settings);
         final int frameSize = frameSizeSetting.get(settings);
         final TimeValue targetedResponseTime = targetedResponseTimeSetting.get(settings);
-        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime);
+        final FairQueueKey fairQueueKey = fairQueueKeySetting.get(settings);
+        final String fairQueueHeader = fairQueueHeaderSetting.get(settings);
+        if (fairQueueKey == FairQueueKey.HEADER && Strings.hasText(fairQueueHeader) == false) {
+            throw new IllegalArgumentException("setting [" + fairQueueHeaderSetting.getKey() + "] must be set when [" +
+                fairQueueKeySetting.getKey() + "] is [header]");
+        }
+        final Map<String, Integer> fairQueueWeights = new LinkedHashMap<>();
+        for (String weight : fairQueueWeightsSetting.get(settings)) {
+            final Tuple<String, Integer> parsed = parseWeight(weight, fairQueueWeightsSetting.getKey());
+            fairQueueWeights.put(parsed.v1(), parsed.v2());
+        }
+        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime,
+            fairQueueKey, fairQueueHeader, fairQueueWeights);
     }
 
     @Override
@@ -111,6 +193,28 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         int frameSize = settings.frameSize;
         TimeValue targetedResponseTime = settings.targetedResponseTime;
         final ThreadFactory threadFactory = EsExecutors.daemonThreadFactory(EsExecutors.threadName(settings.nodeName, name()));
+        if (settings.fairQueueKey != FairQueueKey.NONE) {
+            final Supplier<String> rawKey;
+            if (settings.fairQueueKey == FairQueueKey.INDEX) {
+                rawKey = () -> threadContext.getTransient(FAIR_QUEUE_KEY_TRANSIENT);
+            } else {
+                final String header = settings.fairQueueHeader;
+                rawKey = () -> threadContext.getHeader(header);
+            }
+            final Map<String, Integer> weights = settings.fairQueueWeights;
+            final ExecutorService executor = EsExecutors.newFairQueueFixed(
+                    settings.nodeName + "/" + name(),
+                    size,
+                    initialQueueSize,
+                    () -> fairQueueGroup(rawKey.get(), weights),
+                    key -> weights.getOrDefault(key, 1),
+                    threadFactory,
+                    threadContext);
+            // the queue size of a fair queue is never adjusted, so it is reported as what it is: a fixed pool with a fixed queue size
+            final ThreadPool.Info info =
+                new ThreadPool.Info(name(), ThreadPool.ThreadPoolType.FIXED, size, size, null, new SizeValue(initialQueueSize));
+            return new ThreadPool.ExecutorHolder(executor, info);
+        }
         final ExecutorService executor =
                 EsExecutors.newAutoQueueFixed(
                         settings.nodeName + "/" + name(),
@@ -129,6 +233,22 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         return new ThreadPool.ExecutorHolder(executor, info);
     }
 
+    /**
+     * Returns the first configured pattern that matches the given key, so that all keys matching a pattern share a queue and its
+     * weight, or the key itself if no pattern matches.
+     */
+    static String fairQueueGroup(String key, Map<String, Integer> weights) {
+        if (key == null) {
+            return null;
+        }
+        for (String pattern : weights.keySet()) {
+            if (Regex.simpleMatch(pattern, key)) {
+                return pattern;
+            }
+        }
+        return key;
+    }
+
     @Override
     String formatInfo(ThreadPool.Info info) {
         return String.format(
@@ -147,10 +267,14 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         private final int maxQueueSize;
         private final int frameSize;
         private final TimeValue targetedResponseTime;
+        private final FairQueueKey fairQueueKey;
+        private final String fairQueueHeader;
+        private final Map<String, Integer> fairQueueWeights;
 
         AutoExecutorSettings(final String nodeName, final int size, final int initialQueueSize,
                              final int minQueueSize, final int maxQueueSize, final int frameSize,
-                             final TimeValue targetedResponseTime) {
+                             final TimeValue targetedResponseTime, final FairQueueKey fairQueueKey,
+                             final String fairQueueHeader, final Map<String, Integer> fairQueueWeights) {
             super(nodeName);
             this.size = size;
             this.initialQueueSize = initialQueueSize;
@@ -158,6 +282,9 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
             this.maxQueueSize = maxQueueSize;
             this.frameSize = frameSize;
             this.targetedResponseTime = targetedResponseTime;
+            this.fairQueueKey = fairQueueKey;
+            this.fairQueueHeader = fairQueueHeader;
+            this.fairQueueWeights = fairQueueWeights;
         }
 
     }
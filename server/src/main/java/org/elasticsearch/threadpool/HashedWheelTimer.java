@@ -0,0 +1,295 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.threadpool;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A timer for coarse grained timeouts that are usually cancelled before they fire, like the timeouts of transport requests.
+ * Unlike a {@link java.util.concurrent.ScheduledThreadPoolExecutor} it does not keep its tasks in a lock protected priority
+ * queue: timeouts are handed over to the timer thread through lock-free queues and bucketed into a wheel of ticks, which makes
+ * scheduling and cancelling constant time operations. The price is precision: timeouts fire on the first tick after their
+ * deadline, so they might be late by up to one tick duration.
+ *
+ * Commands run on the timer thread and must be cheap, expensive work should be forked to another executor.
+ */
+public final class HashedWheelTimer {
+
+    private static final Logger logger = ESLoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * The maximum number of new timeouts that are moved into the wheel per tick, so that a burst of new timeouts cannot
+     * delay the expiration of the current bucket for too long. The remaining ones are moved on the following ticks.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+
+    /**
+     * @param threadFactory the factory for the timer thread
+     * @param tickDuration the precision of the timer
+     * @param ticksPerWheel the number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimer(ThreadFactory threadFactory, TimeValue tickDuration, int ticksPerWheel) {
+        if (tickDuration.nanos() <= 0) {
+            throw new IllegalArgumentException("tick duration must be positive but was [" + tickDuration + "]");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticks per wheel must be in (0, 2^30] but was [" + ticksPerWheel + "]");
+        }
+        this.tickNanos = tickDuration.nanos();
+        final int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(1, size)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(new Worker());
+        this.worker.start();
+    }
+
+    /**
+     * Runs the given command on the timer thread once the given delay has elapsed, unless it gets cancelled before.
+     *
+     * @throws EsRejectedExecutionException if the timer has been stopped
+     */
+    public Scheduler.Cancellable schedule(TimeValue delay, Runnable command) {
+        if (running == false) {
+            throw new EsRejectedExecutionException("timer has been stopped", true);
+        }
+        final Timeout timeout = new Timeout(this, command, System.nanoTime() + Math.max(0L, delay.nanos()));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread. Timeouts that did not fire yet are dropped.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Waits for the timer thread to terminate after {@link #stop()} has been called.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        // Thread#join(0) would wait forever, and timedJoin waits at least a millisecond for shorter positive timeouts
+        if (timeout > 0) {
+            unit.timedJoin(worker, timeout);
+        }
+        return worker.isAlive() == false;
+    }
+
+    private final class Worker implements Runnable {
+
+        /** the number of ticks since the start of the timer, only accessed by the timer thread */
+        private long tick;
+
+        @Override
+        public void run() {
+            while (running) {
+                final long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+                removeCancelledTimeouts();
+                transferPendingTimeouts();
+                wheel[(int) (tick & mask)].expireTimeouts(startTime + deadline);
+                tick++;
+            }
+            pendingTimeouts.clear();
+            cancelledTimeouts.clear();
+        }
+
+        /**
+         * Sleeps until the current tick is over and returns the time elapsed since the start of the timer, or -1 if the
+         * timer got stopped in the meantime.
+         */
+        private long waitForNextTick() {
+            final long deadline = tickNanos * (tick + 1);
+            while (true) {
+                final long currentTime = System.nanoTime() - startTime;
+                final long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999_999);
+                if (sleepMillis <= 0) {
+                    return currentTime;
+                }
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (running == false) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+                final Timeout timeout = pendingTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.state != Timeout.STATE_PENDING) {
+                    // cancelled before it made it into the wheel
+                    continue;
+                }
+                final long expirationTick = (timeout.deadline - startTime) / tickNanos;
+                timeout.remainingRounds = (expirationTick - tick) / wheel.length;
+                // timeouts that are already due go into the current bucket
+                final long ticks = Math.max(expirationTick, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of the timeouts of a single tick, only accessed by the timer thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            assert timeout.bucket == null;
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    // timeouts are placed in the bucket of their expiration tick
+                    assert timeout.deadline <= deadline : "timeout deadline [" + timeout.deadline + "] > [" + deadline + "]";
+                    timeout.expire();
+                } else if (timeout.state != Timeout.STATE_PENDING) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private static final class Timeout implements Scheduler.Cancellable {
+
+        static final int STATE_PENDING = 0;
+        static final int STATE_CANCELLED = 1;
+        static final int STATE_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable command;
+        private final long deadline;
+        private volatile int state = STATE_PENDING;
+
+        // only accessed by the timer thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(HashedWheelTimer timer, Runnable command, long deadline) {
+            this.timer = timer;
+            this.command = command;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void cancel() {
+            if (STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_CANCELLED)) {
+                // let the timer thread unlink the timeout so that the command can be garbage collected early
+                timer.cancelledTimeouts.add(this);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+
+        void expire() {
+            if (STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_EXPIRED)) {
+                try {
+                    command.run();
+                } catch (Exception e) {
+                    logger.warn(() -> new ParameterizedMessage("failed to run {}", command), e);
+                }
+            }
+        }
+    }
+}
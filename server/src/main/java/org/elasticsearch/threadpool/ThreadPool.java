@@ -34,6 +34,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.WeightedFairBlockingQueue;
 import org.elasticsearch.common.util.concurrent.XRejectedExecutionHandler;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -152,6 +153,8 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
 
     private final ScheduledThreadPoolExecutor scheduler;
 
+    private final HashedWheelTimer timeoutTimer;
+
     public Collection<ExecutorBuilder> builders() {
         return Collections.unmodifiableCollection(builders.values());
     }
@@ -159,6 +162,15 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
     public static Setting<TimeValue> ESTIMATED_TIME_INTERVAL_SETTING =
         Setting.timeSetting("thread_pool.estimated_time_interval", TimeValue.timeValueMillis(200), Setting.Property.NodeScope);
 
+    public static final Setting<TimeValue> TIMEOUT_TIMER_TICK_SETTING = Setting.timeSetting("thread_pool.timeout_timer.tick",
+        TimeValue.timeValueMillis(10), TimeValue.timeValueMillis(1), Setting.Property.NodeScope);
+
+    /**
+     * The number of ticks of the timeout timer's wheel. With the default tick of 10ms a timeout of up to ~5s is placed in its
+     * bucket directly while longer timeouts need to wait for a number of rounds of the wheel.
+     */
+    static final int TIMEOUT_TIMER_TICKS_PER_WHEEL = 512;
+
     public ThreadPool(final Settings settings, final ExecutorBuilder<?>... customBuilders) {
         super(settings);
 
@@ -219,6 +231,8 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
                         .collect(Collectors.toList());
         this.threadPoolInfo = new ThreadPoolInfo(infos);
         this.scheduler = Scheduler.initScheduler(settings);
+        this.timeoutTimer = new HashedWheelTimer(EsExecutors.daemonThreadFactory(settings, "timeout_timer"),
+            TIMEOUT_TIMER_TICK_SETTING.get(settings), TIMEOUT_TIMER_TICKS_PER_WHEEL);
         TimeValue estimatedTimeInterval = ESTIMATED_TIME_INTERVAL_SETTING.get(settings);
         this.cachedTimeThread = new CachedTimeThread(EsExecutors.threadName(settings, "[timer]"), estimatedTimeInterval.millis());
         this.cachedTimeThread.start();
@@ -275,6 +289,7 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
             long rejected = -1;
             int largest = -1;
             long completed = -1;
+            Map<String, ThreadPoolStats.QueueKeyStats> queueKeys = Collections.emptyMap();
             if (holder.executor() instanceof ThreadPoolExecutor) {
                 ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) holder.executor();
                 threads = threadPoolExecutor.getPoolSize();
@@ -286,8 +301,18 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
                 if (rejectedExecutionHandler instanceof XRejectedExecutionHandler) {
                     rejected = ((XRejectedExecutionHandler) rejectedExecutionHandler).rejected();
                 }
+                if (threadPoolExecutor.getQueue() instanceof WeightedFairBlockingQueue) {
+                    queueKeys = new HashMap<>();
+                    Map<String, WeightedFairBlockingQueue.KeyStats> keyStats =
+                        ((WeightedFairBlockingQueue<Runnable>) threadPoolExecutor.getQueue()).stats();
+                    for (Map.Entry<String, WeightedFairBlockingQueue.KeyStats> entry : keyStats.entrySet()) {
+                        WeightedFairBlockingQueue.KeyStats key = entry.getValue();
+                        queueKeys.put(entry.getKey(), new ThreadPoolStats.QueueKeyStats(key.getWeight(), key.getQueue(),
+                            key.getRejected(), key.getDequeued(), key.getWaitTimeInNanos()));
+                    }
+                }
             }
-            stats.add(new ThreadPoolStats.Stats(name, threads, queue, active, rejected, largest, completed));
+            stats.add(new ThreadPoolStats.Stats(name, threads, queue, active, rejected, largest, completed, queueKeys));
         }
         return new ThreadPoolStats(stats);
     }
@@ -346,6 +371,26 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
         return scheduler.schedule(new ThreadPool.LoggingRunnable(command), delay.millis(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Schedules a one-shot timeout command to run after a given delay. Unlike {@link #schedule(TimeValue, String, Runnable)} this
+     * uses a {@link HashedWheelTimer} which makes scheduling and cancelling cheap but only fires with a precision of
+     * {@link #TIMEOUT_TIMER_TICK_SETTING}. Use it for timeouts that are usually cancelled before they fire, like the timeouts of
+     * transport requests. The command is not run in the context of the calling thread.
+     *
+     * @param delay delay before the command executes
+     * @param executor the name of the thread pool on which to execute the command. SAME means "execute on the timer thread" which
+     *                 must only be used for commands that are very cheap to run.
+     * @param command the command to run
+     * @return a {@link Cancellable} that prevents the command from being dispatched to its thread pool if cancelled in time
+     * @throws org.elasticsearch.common.util.concurrent.EsRejectedExecutionException if the timer has been shut down
+     */
+    public Cancellable scheduleTimeout(TimeValue delay, String executor, Runnable command) {
+        if (!Names.SAME.equals(executor)) {
+            command = new ThreadedRunnable(command, executor(executor));
+        }
+        return timeoutTimer.schedule(delay, command);
+    }
+
     @Override
     public Cancellable scheduleWithFixedDelay(Runnable command, TimeValue interval, String executor) {
         return new ReschedulingRunnable(command, interval, executor, this,
@@ -367,6 +412,7 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
     public void shutdown() {
         cachedTimeThread.running = false;
         cachedTimeThread.interrupt();
+        timeoutTimer.stop();
         scheduler.shutdown();
         for (ExecutorHolder executor : executors.values()) {
             if (executor.executor() instanceof ThreadPoolExecutor) {
@@ -378,6 +424,7 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
     public void shutdownNow() {
         cachedTimeThread.running = false;
         cachedTimeThread.interrupt();
+        timeoutTimer.stop();
         scheduler.shutdownNow();
         for (ExecutorHolder executor : executors.values()) {
             if (executor.executor() instanceof ThreadPoolExecutor) {
@@ -388,6 +435,7 @@ public class ThreadPool extends AbstractComponent implements Scheduler, Closeabl
 
     public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
         boolean result = scheduler.awaitTermination(timeout, unit);
+        result &= timeoutTimer.awaitTermination(timeout, unit);
         for (ExecutorHolder executor : executors.values()) {
             if (executor.executor() instanceof ThreadPoolExecutor) {
                 result &= executor.executor().awaitTermination(timeout, unit);
@@ -19,9 +19,11 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -30,6 +32,9 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<ThreadPoolStats.Stats> {
 
@@ -42,8 +47,14 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         private final long rejected;
         private final int largest;
         private final long completed;
+        private final Map<String, QueueKeyStats> queueKeys;
 
         public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed) {
+            this(name, threads, queue, active, rejected, largest, completed, Collections.emptyMap());
+        }
+
+        public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed,
+                     Map<String, QueueKeyStats> queueKeys) {
             this.name = name;
             this.threads = threads;
             this.queue = queue;
@@ -51,6 +62,7 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             this.rejected = rejected;
             this.largest = largest;
             this.completed = completed;
+            this.queueKeys = Collections.unmodifiableMap(new TreeMap<>(queueKeys));
         }
 
         public Stats(StreamInput in) throws IOException {
@@ -61,6 +73,11 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             rejected = in.readLong();
             largest = in.readInt();
             completed = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                queueKeys = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, QueueKeyStats::new)));
+            } else {
+                queueKeys = Collections.emptyMap();
+            }
         }
 
         @Override
@@ -72,6 +89,9 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             out.writeLong(rejected);
             out.writeInt(largest);
             out.writeLong(completed);
+            if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+                out.writeMap(queueKeys, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+            }
         }
 
         public String getName() {
@@ -102,6 +122,13 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             return this.completed;
         }
 
+        /**
+         * The statistics of each key of a thread pool that queues its tasks per key, or an empty map for all other thread pools.
+         */
+        public Map<String, QueueKeyStats> getQueueKeys() {
+            return queueKeys;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject(name);
@@ -123,6 +150,15 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             if (completed != -1) {
                 builder.field(Fields.COMPLETED, completed);
             }
+            if (queueKeys.isEmpty() == false) {
+                builder.startObject(Fields.QUEUE_KEYS);
+                for (Map.Entry<String, QueueKeyStats> entry : queueKeys.entrySet()) {
+                    builder.startObject(entry.getKey());
+                    entry.getValue().toXContent(builder, params);
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
             builder.endObject();
             return builder;
         }
@@ -145,6 +181,85 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         }
     }
 
+    /**
+     * Statistics of the tasks queued for a single key of a thread pool that queues its tasks per key.
+     */
+    public static class QueueKeyStats implements Writeable, ToXContentFragment {
+
+        private final int weight;
+        private final int queue;
+        private final long rejected;
+        private final long dequeued;
+        private final long waitTimeInNanos;
+
+        public QueueKeyStats(int weight, int queue, long rejected, long dequeued, long waitTimeInNanos) {
+            this.weight = weight;
+            this.queue = queue;
+            this.rejected = rejected;
+            this.dequeued = dequeued;
+            this.waitTimeInNanos = waitTimeInNanos;
+        }
+
+        public QueueKeyStats(StreamInput in) throws IOException {
+            weight = in.readVInt();
+            queue = in.readVInt();
+            rejected = in.readVLong();
+            dequeued = in.readVLong();
+            waitTimeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(weight);
+            out.writeVInt(queue);
+            out.writeVLong(rejected);
+            out.writeVLong(dequeued);
+            out.writeVLong(waitTimeInNanos);
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * The number of tasks that are currently queued for this key.
+         */
+        public int getQueue() {
+            return queue;
+        }
+
+        /**
+         * The number of tasks of this key that were rejected because its queue was full.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The number of tasks of this key that were taken from the queue to be executed.
+         */
+        public long getDequeued() {
+            return dequeued;
+        }
+
+        /**
+         * The total time the tasks of {@link #getDequeued()} waited in the queue.
+         */
+        public TimeValue getWaitTime() {
+            return new TimeValue(waitTimeInNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.WEIGHT, weight);
+            builder.field(Fields.QUEUE, queue);
+            builder.field(Fields.REJECTED, rejected);
+            builder.field(Fields.DEQUEUED, dequeued);
+            builder.humanReadableField(Fields.WAIT_TIME_IN_MILLIS, Fields.WAIT_TIME, getWaitTime());
+            return builder;
+        }
+    }
+
     private List<Stats> stats;
 
     public ThreadPoolStats(List<Stats> stats) {
@@ -174,6 +289,11 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         static final String REJECTED = "rejected";
         static final String LARGEST = "largest";
         static final String COMPLETED = "completed";
+        static final String QUEUE_KEYS = "queue_keys";
+        static final String WEIGHT = "weight";
+        static final String DEQUEUED = "dequeued";
+        static final String WAIT_TIME = "wait_time";
+        static final String WAIT_TIME_IN_MILLIS = "wait_time_in_millis";
     }
 
     @Override
@@ -56,6 +56,8 @@ final class CompressibleBytesOutputStream extends StreamOutput {
         } else {
             this.stream = bytesStreamOutput;
         }
+        // when compressing the reader sees a fresh stream for the compressed bytes, so shared strings go in the compressor's table
+        delegateSharedStrings(stream);
     }
 
     /**
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
 
 /**
  * A connection profile describes how many connection are established to specific node for each of the available request types.
@@ -231,11 +232,36 @@ public final class ConnectionProfile {
          * fashion.
          */
         <T> T getChannel(List<T> channels) {
+            assert channels.size() >= offset + length : "illegal size: " + channels.size() + " expected >= " + (offset + length);
+            return channels.get(getChannelIndex(index -> 0L));
+        }
+
+        /**
+         * Returns the index of one of the channels configured for this handle. Channels are visited in a round-robin
+         * fashion, but a channel that still has bytes pending to be written is passed over in favor of an idle channel,
+         * or else the channel with the fewest pending bytes, so that small messages don't queue up behind large ones.
+         *
+         * @param pendingBytes the number of bytes pending to be written on the channel with the given index
+         */
+        int getChannelIndex(IntToLongFunction pendingBytes) {
             if (length == 0) {
                 throw new IllegalStateException("can't select channel size is 0 for types: " + types);
             }
-            assert channels.size() >= offset + length : "illegal size: " + channels.size() + " expected >= " + (offset + length);
-            return channels.get(offset + Math.floorMod(counter.incrementAndGet(), length));
+            final int start = Math.floorMod(counter.incrementAndGet(), length);
+            int bestIndex = -1;
+            long bestPendingBytes = Long.MAX_VALUE;
+            for (int i = 0; i < length; i++) {
+                final int index = offset + (start + i) % length;
+                final long pending = pendingBytes.applyAsLong(index);
+                if (pending <= 0) {
+                    return index;
+                }
+                if (pending < bestPendingBytes) {
+                    bestIndex = index;
+                    bestPendingBytes = pending;
+                }
+            }
+            return bestIndex;
         }
 
         /**
@@ -29,6 +29,7 @@ import org.elasticsearch.action.NotifyOnceListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -46,6 +47,8 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
@@ -85,6 +88,7 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -96,6 +100,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -205,6 +210,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
     private final MeanMetric readBytesMetric = new MeanMetric();
     private final MeanMetric transmittedBytesMetric = new MeanMetric();
+    private final Map<TransportRequestOptions.Type, LaneMetrics> laneMetrics;
     private volatile Map<String, RequestHandlerRegistry> requestHandlers = Collections.emptyMap();
     private final ResponseHandlers responseHandlers = new ResponseHandlers();
     private final BytesReference pingMessage;
@@ -221,6 +227,11 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
         this.networkService = networkService;
         this.transportName = transportName;
+        final EnumMap<TransportRequestOptions.Type, LaneMetrics> laneMetrics = new EnumMap<>(TransportRequestOptions.Type.class);
+        for (TransportRequestOptions.Type type : TransportRequestOptions.Type.values()) {
+            laneMetrics.put(type, new LaneMetrics());
+        }
+        this.laneMetrics = Collections.unmodifiableMap(laneMetrics);
         final Settings defaultFeatures = DEFAULT_FEATURES_SETTING.get(settings);
         if (defaultFeatures == null) {
             this.features = new String[0];
@@ -308,6 +319,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     public final class NodeChannels extends CloseableConnection {
         private final Map<TransportRequestOptions.Type, ConnectionProfile.ConnectionTypeHandle> typeMapping;
         private final List<TcpChannel> channels;
+        // bytes of the requests that were handed to each channel but not yet written to the network
+        private final AtomicLongArray pendingBytes;
         private final DiscoveryNode node;
         private final Version version;
         private final AtomicBoolean isClosing = new AtomicBoolean(false);
@@ -315,6 +328,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, Version handshakeVersion) {
             this.node = node;
             this.channels = Collections.unmodifiableList(channels);
+            this.pendingBytes = new AtomicLongArray(channels.size());
             assert channels.size() == connectionProfile.getNumConnections() : "expected channels size to be == "
                 + connectionProfile.getNumConnections() + " but was: [" + channels.size() + "]";
             typeMapping = new EnumMap<>(TransportRequestOptions.Type.class);
@@ -335,11 +349,15 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         }
 
         public TcpChannel channel(TransportRequestOptions.Type type) {
+            return channels.get(channelIndex(type));
+        }
+
+        private int channelIndex(TransportRequestOptions.Type type) {
             ConnectionProfile.ConnectionTypeHandle connectionTypeHandle = typeMapping.get(type);
             if (connectionTypeHandle == null) {
                 throw new IllegalArgumentException("no type channel for [" + type + "]");
             }
-            return connectionTypeHandle.getChannel(channels);
+            return connectionTypeHandle.getChannelIndex(pendingBytes::get);
         }
 
         @Override
@@ -409,8 +427,17 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (isClosing.get()) {
                 throw new NodeNotConnectedException(node, "connection already closed");
             }
-            TcpChannel channel = channel(options.type());
-            sendRequestToChannel(this.node, channel, requestId, action, request, options, getVersion(), (byte) 0);
+            final int channelIndex = channelIndex(options.type());
+            final LaneMetrics metrics = laneMetrics.get(options.type());
+            sendRequestToChannel(this.node, channels.get(channelIndex), requestId, action, request, options, getVersion(), (byte) 0,
+                messageLength -> {
+                    pendingBytes.addAndGet(channelIndex, messageLength);
+                    final Runnable onSent = metrics.onQueued(messageLength);
+                    return () -> {
+                        pendingBytes.addAndGet(channelIndex, -messageLength);
+                        onSent.run();
+                    };
+                });
         }
     }
 
@@ -859,7 +886,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
     private void sendRequestToChannel(final DiscoveryNode node, final TcpChannel channel, final long requestId, final String action,
                                       final TransportRequest request, TransportRequestOptions options, Version channelVersion,
-                                      byte status) throws IOException, TransportException {
+                                      byte status, @Nullable SendTracker sendTracker) throws IOException, TransportException {
         if (compress) {
             options = TransportRequestOptions.builder(options).withCompress(true).build();
         }
@@ -890,9 +917,12 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             stream.writeString(action);
             BytesReference message = buildMessage(requestId, status, node.getVersion(), request, stream);
             final TransportRequestOptions finalOptions = options;
+            final Runnable onTrackedSendDone = sendTracker == null ? () -> {} : sendTracker.onQueued(message.length());
             // this might be called in a different thread
-            SendListener onRequestSent = new SendListener(channel, stream,
-                () -> messageListener.onRequestSent(node, requestId, action, request, finalOptions), message.length());
+            SendListener onRequestSent = new SendListener(channel, stream, () -> {
+                onTrackedSendDone.run();
+                messageListener.onRequestSent(node, requestId, action, request, finalOptions);
+            }, message.length());
             internalSendMessage(channel, message, onRequestSent);
             addedReleaseListener = true;
         } finally {
@@ -902,6 +932,43 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         }
     }
 
+    /**
+     * Notified when a request is handed to a channel.
+     */
+    @FunctionalInterface
+    private interface SendTracker {
+
+        /**
+         * Returns the callback to run once the request of the given length was written to the network, or failed to be written.
+         */
+        Runnable onQueued(int messageLength);
+    }
+
+    /**
+     * Metrics of the requests sent on the channels of one {@link TransportRequestOptions.Type}.
+     */
+    private static final class LaneMetrics {
+        private final CounterMetric queueDepth = new CounterMetric();
+        private final CounterMetric queuedBytes = new CounterMetric();
+        private final MeanMetric sendTimeInNanos = new MeanMetric();
+
+        Runnable onQueued(int messageLength) {
+            final long startNanos = System.nanoTime();
+            queueDepth.inc();
+            queuedBytes.inc(messageLength);
+            return () -> {
+                queuedBytes.dec(messageLength);
+                queueDepth.dec();
+                sendTimeInNanos.inc(Math.max(0L, System.nanoTime() - startNanos));
+            };
+        }
+
+        TransportStats.LaneStats stats() {
+            return new TransportStats.LaneStats(Math.max(0L, queueDepth.count()), Math.max(0L, queuedBytes.count()),
+                sendTimeInNanos.count(), sendTimeInNanos.sum());
+        }
+    }
+
     /**
      * sends a message to the given channel, using the given callbacks.
      */
@@ -1138,10 +1205,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 + Integer.toHexString(headerBuffer.get(2) & 0xFF) + ","
                 + Integer.toHexString(headerBuffer.get(3) & 0xFF) + ")");
         }
-        final int messageLength;
-        try (StreamInput input = headerBuffer.streamInput()) {
-            input.skip(TcpHeader.MARKER_BYTES_SIZE);
-            messageLength = input.readInt();
+        // read the length byte by byte, a stream may have to copy the whole first page of a direct buffer
+        int messageLength = 0;
+        for (int i = 0; i < TcpHeader.MESSAGE_LENGTH_SIZE; i++) {
+            messageLength = (messageLength << 8) | (headerBuffer.get(TcpHeader.MARKER_BYTES_SIZE + i) & 0xFF);
         }
 
         if (messageLength == TcpTransport.PING_DATA_SIZE) {
@@ -1207,6 +1274,16 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
      * This method handles the message receive part for both request and responses
      */
     public final void messageReceived(BytesReference reference, TcpChannel channel) throws IOException {
+        messageReceived(reference, channel, null);
+    }
+
+    /**
+     * This method handles the message receive part for both request and responses. The given releasable is invoked once the
+     * message bytes are no longer needed: immediately for responses and handshakes, and once the response has been sent back
+     * on the channel for requests. This allows transports to hand in bytes that are backed by pooled buffers and that are
+     * shared with the deserialized request, see {@link StreamInput#readRetainedBytesReference()}.
+     */
+    public final void messageReceived(BytesReference reference, TcpChannel channel, @Nullable Releasable onRelease) throws IOException {
         String profileName = channel.getProfile();
         InetSocketAddress remoteAddress = channel.getRemoteAddress();
         int messageLengthBytes = reference.length();
@@ -1214,6 +1291,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         readBytesMetric.inc(totalMessageSize);
         // we have additional bytes to read, outside of the header
         boolean hasMessageBytesToRead = (totalMessageSize - TcpHeader.HEADER_SIZE) > 0;
+        Releasable toRelease = onRelease;
         StreamInput streamIn = reference.streamInput();
         boolean success = false;
         try (ThreadContext.StoredContext tCtx = threadPool.getThreadContext().stashContext()) {
@@ -1245,7 +1323,11 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             threadPool.getThreadContext().readHeaders(streamIn);
             threadPool.getThreadContext().putTransient("_remote_address", remoteAddress);
             if (TransportStatus.isRequest(status)) {
-                handleRequest(channel, profileName, streamIn, requestId, messageLengthBytes, version, remoteAddress, status);
+                // the request channel takes over the responsibility to release the message bytes
+                final Releasable requestRelease = toRelease;
+                toRelease = null;
+                handleRequest(channel, profileName, streamIn, requestId, messageLengthBytes, version, remoteAddress, status,
+                    requestRelease);
             } else {
                 final TransportResponseHandler<?> handler;
                 if (isHandshake) {
@@ -1277,9 +1359,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             success = true;
         } finally {
             if (success) {
-                IOUtils.close(streamIn);
+                IOUtils.close(streamIn, toRelease);
             } else {
-                IOUtils.closeWhileHandlingException(streamIn);
+                IOUtils.closeWhileHandlingException(streamIn, toRelease);
             }
         }
     }
@@ -1348,20 +1430,31 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         });
     }
 
+    /**
+     * Handles an incoming request. The given releasable is released once the response (or error) for the request has been sent
+     * and must be released by implementations that do not dispatch the request to a {@link TcpTransportChannel}.
+     */
     protected String handleRequest(TcpChannel channel, String profileName, final StreamInput stream, long requestId,
-                                   int messageLengthBytes, Version version, InetSocketAddress remoteAddress, byte status)
-        throws IOException {
+                                   int messageLengthBytes, Version version, InetSocketAddress remoteAddress, byte status,
+                                   @Nullable Releasable onRelease) throws IOException {
         final Set<String> features;
-        if (version.onOrAfter(Version.V_6_3_0)) {
-            features = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(stream.readStringArray())));
-        } else {
-            features = Collections.emptySet();
+        final String action;
+        try {
+            if (version.onOrAfter(Version.V_6_3_0)) {
+                features = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(stream.readStringArray())));
+            } else {
+                features = Collections.emptySet();
+            }
+            action = stream.readString();
+        } catch (Exception e) {
+            Releasables.close(onRelease);
+            throw e;
         }
-        final String action = stream.readString();
         messageListener.onRequestReceived(requestId, action);
         TransportChannel transportChannel = null;
         try {
             if (TransportStatus.isHandshake(status)) {
+                Releasables.close(onRelease);
                 final VersionHandshakeResponse response = new VersionHandshakeResponse(getCurrentVersion());
                 sendResponse(version, features, channel, response, requestId, HANDSHAKE_ACTION_NAME, TransportResponseOptions.EMPTY,
                     TransportStatus.setHandshake((byte) 0));
@@ -1376,7 +1469,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                     getInFlightRequestBreaker().addWithoutBreaking(messageLengthBytes);
                 }
                 transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, features, profileName,
-                    messageLengthBytes);
+                    messageLengthBytes, onRelease);
                 final TransportRequest request = reg.newRequest(stream);
                 request.remoteAddress(new TransportAddress(remoteAddress));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
@@ -1386,8 +1479,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         } catch (Exception e) {
             // the circuit breaker tripped
             if (transportChannel == null) {
-                transportChannel =
-                        new TcpTransportChannel(this, channel, transportName, action, requestId, version, features, profileName, 0);
+                transportChannel = new TcpTransportChannel(this, channel, transportName, action, requestId, version, features,
+                    profileName, 0, TransportStatus.isHandshake(status) ? null : onRelease);
             }
             try {
                 transportChannel.sendResponse(e);
@@ -1492,7 +1585,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             // to as the payload.
             final Version minCompatVersion = getCurrentVersion().minimumCompatibilityVersion();
             sendRequestToChannel(node, channel, requestId, HANDSHAKE_ACTION_NAME, TransportRequest.Empty.INSTANCE,
-                TransportRequestOptions.EMPTY, minCompatVersion, TransportStatus.setHandshake((byte) 0));
+                TransportRequestOptions.EMPTY, minCompatVersion, TransportStatus.setHandshake((byte) 0), null);
             if (handler.latch.await(timeout.millis(), TimeUnit.MILLISECONDS) == false) {
                 throw new ConnectTransportException(node, "handshake_timeout[" + timeout + "]");
             }
@@ -1607,8 +1700,17 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
 
     @Override
     public final TransportStats getStats() {
+        final Map<String, TransportStats.LaneStats> lanes = new HashMap<>();
+        laneMetrics.forEach((type, metrics) -> lanes.put(type.name().toLowerCase(Locale.ROOT), metrics.stats()));
         return new TransportStats(acceptedChannels.size(), readBytesMetric.count(), readBytesMetric.sum(), transmittedBytesMetric.count(),
-            transmittedBytesMetric.sum());
+            transmittedBytesMetric.sum(), lanes, selectorStats());
+    }
+
+    /**
+     * Returns the stats of the selectors of this transport, if it reads and writes through selectors.
+     */
+    protected List<TransportStats.SelectorStats> selectorStats() {
+        return Collections.emptyList();
     }
 
     /**
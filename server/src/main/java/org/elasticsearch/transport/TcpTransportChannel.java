@@ -20,6 +20,9 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 
 import java.io.IOException;
 import java.util.Set;
@@ -36,9 +39,10 @@ public final class TcpTransportChannel implements TransportChannel {
     private final AtomicBoolean released = new AtomicBoolean();
     private final String channelType;
     private final TcpChannel channel;
+    private final Releasable onRelease;
 
     TcpTransportChannel(TcpTransport transport, TcpChannel channel, String channelType, String action, long requestId, Version version,
-                        Set<String> features, String profileName, long reservedBytes) {
+                        Set<String> features, String profileName, long reservedBytes, @Nullable Releasable onRelease) {
         this.version = version;
         this.features = features;
         this.channel = channel;
@@ -48,6 +52,7 @@ public final class TcpTransportChannel implements TransportChannel {
         this.profileName = profileName;
         this.reservedBytes = reservedBytes;
         this.channelType = channelType;
+        this.onRelease = onRelease;
     }
 
     @Override
@@ -83,7 +88,12 @@ public final class TcpTransportChannel implements TransportChannel {
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            try {
+                transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            } finally {
+                // the request is done with the message bytes it might share
+                Releasables.close(onRelease);
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
@@ -19,15 +19,22 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -36,13 +43,22 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final Map<String, LaneStats> lanes;
+    private final List<SelectorStats> selectors;
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, Map<String, LaneStats> lanes) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, lanes, Collections.emptyList());
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, Map<String, LaneStats> lanes,
+                          List<SelectorStats> selectors) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.lanes = Collections.unmodifiableMap(new TreeMap<>(lanes));
+        this.selectors = Collections.unmodifiableList(selectors);
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +67,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            lanes = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, LaneStats::new)));
+            selectors = Collections.unmodifiableList(in.readList(SelectorStats::new));
+        } else {
+            lanes = Collections.emptyMap();
+            selectors = Collections.emptyList();
+        }
     }
 
     @Override
@@ -60,6 +83,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeMap(lanes, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+            out.writeList(selectors);
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +129,22 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * Stats of the requests sent by this node, per type of connection: {@code recovery}, {@code bulk}, {@code reg}, {@code state}
+     * and {@code ping}.
+     */
+    public Map<String, LaneStats> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Stats of the network threads of transports that read and write through selectors, one entry per selector. Empty for other
+     * transports.
+     */
+    public List<SelectorStats> getSelectors() {
+        return selectors;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,10 +153,158 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        if (lanes.isEmpty() == false) {
+            builder.startObject(Fields.LANES);
+            for (Map.Entry<String, LaneStats> entry : lanes.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        if (selectors.isEmpty() == false) {
+            builder.startArray(Fields.SELECTORS);
+            for (SelectorStats selector : selectors) {
+                builder.startObject();
+                selector.toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endArray();
+        }
         builder.endObject();
         return builder;
     }
 
+    public static class LaneStats implements Writeable, ToXContentFragment {
+
+        private final long queueDepth;
+        private final long queuedBytes;
+        private final long sentCount;
+        private final long sendTimeInNanos;
+
+        public LaneStats(long queueDepth, long queuedBytes, long sentCount, long sendTimeInNanos) {
+            this.queueDepth = queueDepth;
+            this.queuedBytes = queuedBytes;
+            this.sentCount = sentCount;
+            this.sendTimeInNanos = sendTimeInNanos;
+        }
+
+        public LaneStats(StreamInput in) throws IOException {
+            queueDepth = in.readVLong();
+            queuedBytes = in.readVLong();
+            sentCount = in.readVLong();
+            sendTimeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(queueDepth);
+            out.writeVLong(queuedBytes);
+            out.writeVLong(sentCount);
+            out.writeVLong(sendTimeInNanos);
+        }
+
+        /**
+         * The number of requests that were handed to the channels of this lane but not yet written to the network.
+         */
+        public long getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * The number of bytes of the requests that were handed to the channels of this lane but not yet written to the network.
+         */
+        public ByteSizeValue getQueuedSize() {
+            return new ByteSizeValue(queuedBytes);
+        }
+
+        /**
+         * The number of requests that were written to the network, or failed to be written, on this lane.
+         */
+        public long getSentCount() {
+            return sentCount;
+        }
+
+        /**
+         * The total time the requests of {@link #getSentCount()} took from being handed to a channel to being written.
+         */
+        public TimeValue getSendTime() {
+            return new TimeValue(sendTimeInNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.QUEUE_DEPTH, queueDepth);
+            builder.humanReadableField(Fields.QUEUED_SIZE_IN_BYTES, Fields.QUEUED_SIZE, getQueuedSize());
+            builder.field(Fields.SENT_COUNT, sentCount);
+            builder.humanReadableField(Fields.SEND_TIME_IN_MILLIS, Fields.SEND_TIME, getSendTime());
+            return builder;
+        }
+    }
+
+    public static class SelectorStats implements Writeable, ToXContentFragment {
+
+        private final long readCalls;
+        private final long bytesRead;
+        private final long writeCalls;
+        private final long bytesWritten;
+
+        public SelectorStats(long readCalls, long bytesRead, long writeCalls, long bytesWritten) {
+            this.readCalls = readCalls;
+            this.bytesRead = bytesRead;
+            this.writeCalls = writeCalls;
+            this.bytesWritten = bytesWritten;
+        }
+
+        public SelectorStats(StreamInput in) throws IOException {
+            readCalls = in.readVLong();
+            bytesRead = in.readVLong();
+            writeCalls = in.readVLong();
+            bytesWritten = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(readCalls);
+            out.writeVLong(bytesRead);
+            out.writeVLong(writeCalls);
+            out.writeVLong(bytesWritten);
+        }
+
+        /**
+         * The number of read system calls issued on the channels of this selector.
+         */
+        public long getReadCalls() {
+            return readCalls;
+        }
+
+        public ByteSizeValue getReadSize() {
+            return new ByteSizeValue(bytesRead);
+        }
+
+        /**
+         * The number of write system calls issued on the channels of this selector. Together with {@link #getWriteSize()} this shows
+         * how well queued writes are coalesced into gathering writes.
+         */
+        public long getWriteCalls() {
+            return writeCalls;
+        }
+
+        public ByteSizeValue getWriteSize() {
+            return new ByteSizeValue(bytesWritten);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.READ_CALLS, readCalls);
+            builder.humanReadableField(Fields.READ_SIZE_IN_BYTES, Fields.READ_SIZE, getReadSize());
+            builder.field(Fields.WRITE_CALLS, writeCalls);
+            builder.humanReadableField(Fields.WRITE_SIZE_IN_BYTES, Fields.WRITE_SIZE, getWriteSize());
+            builder.field(Fields.AVG_WRITE_SIZE_IN_BYTES, writeCalls == 0 ? 0 : bytesWritten / writeCalls);
+            return builder;
+        }
+    }
+
     static final class Fields {
         static final String TRANSPORT = "transport";
         static final String SERVER_OPEN = "server_open";
@@ -123,5 +314,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String LANES = "lanes";
+        static final String QUEUE_DEPTH = "queue_depth";
+        static final String QUEUED_SIZE = "queued_size";
+        static final String QUEUED_SIZE_IN_BYTES = "queued_size_in_bytes";
+        static final String SENT_COUNT = "sent_count";
+        static final String SEND_TIME = "send_time";
+        static final String SEND_TIME_IN_MILLIS = "send_time_in_millis";
+        static final String SELECTORS = "selectors";
+        static final String READ_CALLS = "read_calls";
+        static final String READ_SIZE = "read_size";
+        static final String READ_SIZE_IN_BYTES = "read_size_in_bytes";
+        static final String WRITE_CALLS = "write_calls";
+        static final String WRITE_SIZE = "write_size";
+        static final String WRITE_SIZE_IN_BYTES = "write_size_in_bytes";
+        static final String AVG_WRITE_SIZE_IN_BYTES = "avg_write_size_in_bytes";
     }
 }
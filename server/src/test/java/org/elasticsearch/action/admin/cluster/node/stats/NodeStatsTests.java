@@ -22,6 +22,7 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.PageCacheRecyclerStats;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.discovery.zen.PendingClusterStateStats;
 import org.elasticsearch.discovery.zen.PublishClusterStateStats;
@@ -219,6 +220,24 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getLanes().keySet(), deserializedNodeStats.getTransport().getLanes().keySet());
+                    nodeStats.getTransport().getLanes().forEach((lane, stats) -> {
+                        TransportStats.LaneStats deserializedStats = deserializedNodeStats.getTransport().getLanes().get(lane);
+                        assertEquals(stats.getQueueDepth(), deserializedStats.getQueueDepth());
+                        assertEquals(stats.getQueuedSize(), deserializedStats.getQueuedSize());
+                        assertEquals(stats.getSentCount(), deserializedStats.getSentCount());
+                        assertEquals(stats.getSendTime(), deserializedStats.getSendTime());
+                    });
+                    assertEquals(nodeStats.getTransport().getSelectors().size(),
+                            deserializedNodeStats.getTransport().getSelectors().size());
+                    for (int i = 0; i < nodeStats.getTransport().getSelectors().size(); i++) {
+                        TransportStats.SelectorStats stats = nodeStats.getTransport().getSelectors().get(i);
+                        TransportStats.SelectorStats deserializedStats = deserializedNodeStats.getTransport().getSelectors().get(i);
+                        assertEquals(stats.getReadCalls(), deserializedStats.getReadCalls());
+                        assertEquals(stats.getReadSize(), deserializedStats.getReadSize());
+                        assertEquals(stats.getWriteCalls(), deserializedStats.getWriteCalls());
+                        assertEquals(stats.getWriteSize(), deserializedStats.getWriteSize());
+                    }
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -297,6 +316,19 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                PageCacheRecyclerStats recyclerStats = nodeStats.getPageCacheRecyclerStats();
+                PageCacheRecyclerStats deserializedRecyclerStats = deserializedNodeStats.getPageCacheRecyclerStats();
+                if (recyclerStats == null) {
+                    assertNull(deserializedRecyclerStats);
+                } else {
+                    assertEquals(recyclerStats.getPages().keySet(), deserializedRecyclerStats.getPages().keySet());
+                    recyclerStats.getPages().forEach((type, stats) -> {
+                        PageCacheRecyclerStats.PageStats deserializedStats = deserializedRecyclerStats.getPages().get(type);
+                        assertEquals(stats.getHits(), deserializedStats.getHits());
+                        assertEquals(stats.getLocalHits(), deserializedStats.getLocalHits());
+                        assertEquals(stats.getMisses(), deserializedStats.getMisses());
+                    });
+                }
             }
         }
     }
@@ -398,8 +430,22 @@ public class NodeStatsTests extends ESTestCase {
             }
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
-        TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
-                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        TransportStats transportStats = null;
+        if (frequently()) {
+            Map<String, TransportStats.LaneStats> lanes = new HashMap<>();
+            for (String lane : new String[] {"recovery", "bulk", "reg", "state", "ping"}) {
+                lanes.put(lane, new TransportStats.LaneStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                        randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            List<TransportStats.SelectorStats> selectors = new ArrayList<>();
+            int numSelectors = randomIntBetween(0, 4);
+            for (int i = 0; i < numSelectors; i++) {
+                selectors.add(new TransportStats.SelectorStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                        randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            transportStats = new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), lanes, selectors);
+        }
         HttpStats httpStats = frequently() ? new HttpStats(randomNonNegativeLong(), randomNonNegativeLong()) : null;
         AllCircuitBreakerStats allCircuitBreakerStats = null;
         if (frequently()) {
@@ -460,9 +506,18 @@ public class NodeStatsTests extends ESTestCase {
             }
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
+        PageCacheRecyclerStats pageCacheRecyclerStats = null;
+        if (frequently()) {
+            Map<String, PageCacheRecyclerStats.PageStats> pages = new HashMap<>();
+            for (String type : new String[] {"bytes", "ints", "longs", "objects"}) {
+                pages.put(type, new PageCacheRecyclerStats.PageStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                        randomNonNegativeLong()));
+            }
+            pageCacheRecyclerStats = new PageCacheRecyclerStats(pages);
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, pageCacheRecyclerStats);
     }
 }
@@ -21,6 +21,9 @@ package org.elasticsearch.action.admin.cluster.snapshots.status;
 
 import java.io.IOException;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.test.AbstractXContentTestCase;
 
@@ -36,8 +39,31 @@ public class SnapshotStatsTests extends AbstractXContentTestCase<SnapshotStats>
         long incrementalSize = ((long)randomIntBetween(0, Integer.MAX_VALUE)) * 2;
         long totalSize = ((long)randomIntBetween(0, Integer.MAX_VALUE)) * 2;
         long processedSize = ((long)randomIntBetween(0, Integer.MAX_VALUE)) * 2;
+        long processedBytesPerSecond = ((long)randomIntBetween(0, Integer.MAX_VALUE)) * 2;
         return new SnapshotStats(startTime, time, incrementalFileCount, totalFileCount,
-            processedFileCount, incrementalSize, totalSize, processedSize);
+            processedFileCount, incrementalSize, totalSize, processedSize, processedBytesPerSecond);
+    }
+
+    public void testSerializationDerivesThroughputFromOlderVersions() throws IOException {
+        final SnapshotStats stats = new SnapshotStats(randomNonNegativeLong(), 2000L, 1, 1, 1, 4096L, 4096L, 4096L,
+            randomNonNegativeLong());
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_6_5_0);
+        stats.writeTo(out);
+        final StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_6_5_0);
+        final SnapshotStats read = SnapshotStats.readSnapshotStats(in);
+        assertEquals(4096L, read.getProcessedSize());
+        assertEquals(2048L, read.getProcessedBytesPerSecond());
+    }
+
+    public void testAddUsesProcessedSizeOverTheWholeDuration() {
+        final SnapshotStats stats = new SnapshotStats();
+        stats.add(new SnapshotStats(1000L, 1000L, 1, 1, 1, 1024L, 1024L, 1024L, 1024L));
+        stats.add(new SnapshotStats(1500L, 1500L, 1, 1, 1, 2048L, 2048L, 2048L, 1365L));
+        assertEquals(2000L, stats.getTime());
+        assertEquals(3072L, stats.getProcessedSize());
+        assertEquals(1536L, stats.getProcessedBytesPerSecond());
     }
 
     @Override
@@ -19,10 +19,12 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Requests;
@@ -30,6 +32,9 @@ import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -43,12 +48,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 import static org.elasticsearch.test.StreamsUtils.copyToStringFromClasspath;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -336,4 +345,129 @@ public class BulkRequestTests extends ESTestCase {
                 XContentType.JSON);
         assertEquals(3, bulkRequestWithNewLine.numberOfActions());
     }
+
+    public void testParallelParsingMatchesSequentialParsing() throws Exception {
+        final StringBuilder bulkAction = new StringBuilder();
+        final int numItems = randomIntBetween(1, 200);
+        for (int i = 0; i < numItems; i++) {
+            switch (randomIntBetween(0, 3)) {
+                case 0:
+                    bulkAction.append("{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\n");
+                    // sources that look like action lines must not confuse chunks that start in the middle of an item
+                    bulkAction.append(randomBoolean() ? "{\"delete\":{}}\n" : "{\"field\":\"value" + i + "\"}\n");
+                    break;
+                case 1:
+                    bulkAction.append("{\"create\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\r\n");
+                    bulkAction.append("{\"field\":\"value").append(i).append("\"}\r\n");
+                    break;
+                case 2:
+                    bulkAction.append("{\"update\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\n");
+                    bulkAction.append("{\"doc\":{\"field\":\"value").append(i).append("\"}}\n");
+                    break;
+                default:
+                    bulkAction.append("{\"delete\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\n");
+                    break;
+            }
+        }
+        final BytesArray data = new BytesArray(bulkAction.toString());
+        final BulkRequest sequential = new BulkRequest().add(data, null, null, XContentType.JSON);
+        final Executor directExecutor = Runnable::run;
+        final Executor rejectingExecutor = command -> {
+            throw new EsRejectedExecutionException("rejected");
+        };
+        final Executor executor = randomBoolean() ? directExecutor : rejectingExecutor;
+        final PlainActionFuture<BulkRequest> future = new PlainActionFuture<>();
+        new BulkRequest().add(data, null, null, null, null, null, null, true, XContentType.JSON, executor,
+            randomIntBetween(1, Math.max(1, data.length() / 2)), new ThreadContext(Settings.EMPTY), future);
+        final BulkRequest parallel = future.actionGet();
+        assertEquals(sequential.numberOfActions(), parallel.numberOfActions());
+        assertEquals(sequential.estimatedSizeInBytes(), parallel.estimatedSizeInBytes());
+        for (int i = 0; i < sequential.numberOfActions(); i++) {
+            assertEquals(sequential.requests().get(i).toString(), parallel.requests().get(i).toString());
+        }
+    }
+
+    public void testParallelParsingReportsFailuresLikeSequentialParsing() throws Exception {
+        final String bulkAction = "{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"1\"}}\n" +
+            "{\"field\":\"value\"}\n" +
+            "{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"2\"}}\n" +
+            "{\"field\":\"value\"}\n" +
+            "{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"3\",\"unknown\":\"param\"}}\n" +
+            "{\"field\":\"value\"}\n";
+        final BytesArray data = new BytesArray(bulkAction);
+        final PlainActionFuture<BulkRequest> future = new PlainActionFuture<>();
+        new BulkRequest().add(data, null, null, null, null, null, null, true, XContentType.JSON, Runnable::run,
+            randomIntBetween(1, data.length() / 2), new ThreadContext(Settings.EMPTY), future);
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, future::actionGet);
+        assertEquals("Action/metadata line [5] contains an unknown parameter [unknown]", e.getMessage());
+    }
+
+    public void testAddRangeReportsLinesOfTheWholeBody() throws Exception {
+        final int validItems = randomIntBetween(1, 20);
+        final StringBuilder bulk = new StringBuilder();
+        for (int i = 0; i < validItems; i++) {
+            bulk.append("{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\n");
+            bulk.append("{\"field\":\"value\"}\n");
+        }
+        bulk.append("{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"x\",\"unknown\":\"param\"}}\n");
+        bulk.append("{\"field\":\"value\"}\n");
+        final BytesArray data = new BytesArray(bulk.toString());
+        final int windowSize = randomIntBetween(1, data.length());
+        final BulkRequest.BodyPosition position = new BulkRequest.BodyPosition();
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> {
+            while (position.offset() < data.length()) {
+                new BulkRequest().addRange(data, position, Math.min(data.length(), position.offset() + windowSize), null, null,
+                    null, null, null, null, true, XContentType.JSON);
+            }
+        });
+        assertEquals("Action/metadata line [" + (validItems * 2 + 1) + "] contains an unknown parameter [unknown]", e.getMessage());
+    }
+
+    public void testParallelParsingDoesNotWaitForTheExecutorAndKeepsResponseHeaders() throws Exception {
+        final StringBuilder bulkAction = new StringBuilder();
+        final int numItems = randomIntBetween(2, 20);
+        for (int i = 0; i < numItems; i++) {
+            bulkAction.append("{\"index\":{\"_index\":\"test\",\"_type\":\"type1\",\"_id\":\"").append(i).append("\"}}\n");
+            bulkAction.append("{\"field\":\"value").append(i).append("\"}\n");
+        }
+        final BytesArray data = new BytesArray(bulkAction.toString());
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        final CountDownLatch parsedOnCallingThread = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        final Executor executor = command -> {
+            final Thread thread = new Thread(threadContext.preserveContext(() -> {
+                try {
+                    parsedOnCallingThread.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                threadContext.addResponseHeader("Warning", "parsed on [" + Thread.currentThread().getName() + "]");
+                command.run();
+            }));
+            threads.add(thread);
+            thread.start();
+        };
+        final PlainActionFuture<Map<String, List<String>>> future = new PlainActionFuture<>();
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.addResponseHeader("Warning", "caller");
+            new BulkRequest().add(data, null, null, null, null, null, null, true, XContentType.JSON, executor, 1, threadContext,
+                ActionListener.wrap(request -> {
+                    assertEquals(numItems, request.numberOfActions());
+                    future.onResponse(threadContext.getResponseHeaders());
+                }, future::onFailure));
+            assertFalse(future.isDone());
+            parsedOnCallingThread.countDown();
+        }
+        final List<String> warnings = future.actionGet().get("Warning");
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // every line is a chunk, only the chunks that start with an action line are used
+        assertThat(threads, hasSize(2 * numItems - 1));
+        assertThat(warnings, hasSize(numItems));
+        assertThat(warnings, hasItem("caller"));
+        for (int i = 1; i < threads.size(); i += 2) {
+            assertThat(warnings, hasItem("parsed on [" + threads.get(i).getName() + "]"));
+        }
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.action.index;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappingUpdatedActionTests extends ESTestCase {
+
+    private final List<ActionListener<AcknowledgedResponse>> sentRequests = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private MappingUpdatedAction createMappingUpdatedAction() {
+        final IndicesAdminClient indicesAdminClient = mock(IndicesAdminClient.class);
+        doAnswer(invocation -> {
+            sentRequests.add((ActionListener<AcknowledgedResponse>) invocation.getArguments()[1]);
+            return null;
+        }).when(indicesAdminClient).putMapping(any(PutMappingRequest.class), any(ActionListener.class));
+        final AdminClient adminClient = mock(AdminClient.class);
+        when(adminClient.indices()).thenReturn(indicesAdminClient);
+        final Client client = mock(Client.class);
+        when(client.admin()).thenReturn(adminClient);
+        final MappingUpdatedAction mappingUpdatedAction = new MappingUpdatedAction(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        mappingUpdatedAction.setClient(client);
+        return mappingUpdatedAction;
+    }
+
+    public void testIdenticalUpdatesAreCoalesced() {
+        final MappingUpdatedAction mappingUpdatedAction = createMappingUpdatedAction();
+        final Index index = new Index("test", "_na_");
+        final String source = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"text\"}}}}";
+        final List<PlainActionFuture<AcknowledgedResponse>> futures = new ArrayList<>();
+        final int numUpdates = randomIntBetween(2, 10);
+        for (int i = 0; i < numUpdates; i++) {
+            final PlainActionFuture<AcknowledgedResponse> future = PlainActionFuture.newFuture();
+            mappingUpdatedAction.updateMappingOnMaster(index, "_doc", source, TimeValue.timeValueSeconds(30), future);
+            futures.add(future);
+        }
+        assertEquals(1, sentRequests.size());
+        assertEquals(1, mappingUpdatedAction.pendingMappingUpdates());
+
+        // a different update is sent on its own
+        final PlainActionFuture<AcknowledgedResponse> otherFuture = PlainActionFuture.newFuture();
+        mappingUpdatedAction.updateMappingOnMaster(index, "_doc", "{\"_doc\":{\"properties\":{\"other\":{\"type\":\"text\"}}}}",
+            TimeValue.timeValueSeconds(30), otherFuture);
+        assertEquals(2, sentRequests.size());
+        assertEquals(2, mappingUpdatedAction.pendingMappingUpdates());
+
+        sentRequests.get(0).onResponse(new AcknowledgedResponse(true));
+        for (PlainActionFuture<AcknowledgedResponse> future : futures) {
+            assertTrue(future.actionGet().isAcknowledged());
+        }
+        assertFalse(otherFuture.isDone());
+        sentRequests.get(1).onFailure(new IllegalStateException("failed"));
+        expectThrows(IllegalStateException.class, otherFuture::actionGet);
+        assertEquals(0, mappingUpdatedAction.pendingMappingUpdates());
+
+        // once the update completed it is sent again
+        mappingUpdatedAction.updateMappingOnMaster(index, "_doc", source, TimeValue.timeValueSeconds(30), PlainActionFuture.newFuture());
+        assertEquals(3, sentRequests.size());
+    }
+}
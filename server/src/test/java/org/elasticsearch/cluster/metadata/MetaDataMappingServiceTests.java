@@ -30,8 +30,10 @@ import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.test.InternalSettingsPlugin;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
@@ -114,4 +116,27 @@ public class MetaDataMappingServiceTests extends ESSingleNodeTestCase {
         assertThat(result.resultingState.metaData().index("test").getMappingVersion(), equalTo(previousVersion));
     }
 
+    public void testIdenticalMappingUpdatesAreAppliedOnce() throws Exception {
+        final IndexService indexService = createIndex("test", client().admin().indices().prepareCreate("test").addMapping("type"));
+        final long previousVersion = indexService.getMetaData().getMappingVersion();
+        final MetaDataMappingService mappingService = getInstanceFromNode(MetaDataMappingService.class);
+        final ClusterService clusterService = getInstanceFromNode(ClusterService.class);
+        final List<PutMappingClusterStateUpdateRequest> requests = new ArrayList<>();
+        final int numRequests = randomIntBetween(2, 10);
+        for (int i = 0; i < numRequests; i++) {
+            final PutMappingClusterStateUpdateRequest request = new PutMappingClusterStateUpdateRequest().type("type");
+            request.indices(new Index[] {indexService.index()});
+            request.source("{ \"properties\": { \"field\": { \"type\": \"text\" }}}");
+            requests.add(request);
+        }
+        final ClusterStateTaskExecutor.ClusterTasksResult<PutMappingClusterStateUpdateRequest> result =
+                mappingService.putMappingExecutor.execute(clusterService.state(), requests);
+        assertThat(result.executionResults.size(), equalTo(numRequests));
+        for (PutMappingClusterStateUpdateRequest request : requests) {
+            assertTrue(result.executionResults.get(request).isSuccess());
+        }
+        assertThat(result.resultingState.metaData().index("test").getMappingVersion(), equalTo(1 + previousVersion));
+        assertNotNull(result.resultingState.metaData().index("test").mapping("type").getSourceAsMap().get("properties"));
+    }
+
 }
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterModule;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -37,7 +38,10 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -45,7 +49,11 @@ import org.elasticsearch.gateway.GatewayAllocator;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
@@ -219,6 +227,75 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         }
     }
 
+    public void testBalancedIndicesAreSkipped() {
+        Settings settings = Settings.builder()
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString())
+            // only balance shards per index so that balancing one index does not change the weights of the others
+            .put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 1.0f)
+            .put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 0.0f)
+            .put(BalancedShardsAllocator.THRESHOLD_SETTING.getKey(), 1.0f)
+            .build();
+        RecordingIndexDecider recordingDecider = new RecordingIndexDecider();
+        List<AllocationDecider> deciders = new ArrayList<>(ClusterModule.createAllocationDeciders(settings,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), Collections.emptyList()));
+        deciders.add(recordingDecider);
+        AllocationService strategy = new AllocationService(settings, new AllocationDeciders(settings, deciders),
+            new NoopGatewayAllocator(), new BalancedShardsAllocator(settings), EmptyClusterInfoService.INSTANCE);
+
+        final int numberOfNodes = 4;
+        final int balancedIndices = randomIntBetween(1, 10);
+        final String requireIdSetting = IndexMetaData.INDEX_ROUTING_REQUIRE_GROUP_SETTING.getConcreteSettingForNamespace("_id").getKey();
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        for (int i = 0; i < balancedIndices; i++) {
+            metaDataBuilder.put(IndexMetaData.builder("balanced" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(numberOfNodes).numberOfReplicas(1));
+        }
+        // all shards of this index are pinned to a single node until the filter is removed
+        metaDataBuilder.put(IndexMetaData.builder("skewed").settings(settings(Version.CURRENT).put(requireIdSetting, "node0"))
+            .numberOfShards(numberOfNodes).numberOfReplicas(0));
+        MetaData metaData = metaDataBuilder.build();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (ObjectCursor<IndexMetaData> cursor : metaData.indices().values()) {
+            routingTableBuilder.addAsNew(cursor.value);
+        }
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numberOfNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(nodes).metaData(metaData).routingTable(routingTableBuilder.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertThat(clusterState.getRoutingNodes().node("node0").shardsWithState("skewed", STARTED).size(),
+            Matchers.equalTo(numberOfNodes));
+
+        logger.info("reroute the balanced cluster");
+        recordingDecider.indices.clear();
+        ClusterState reroutedState = strategy.reroute(clusterState, "reroute");
+        assertSame(clusterState, reroutedState);
+        // the pinned index is unbalanced but cannot move, all others were skipped without asking the deciders
+        assertThat(recordingDecider.indices, Matchers.contains("skewed"));
+
+        logger.info("remove the filter of the skewed index and rebalance it");
+        IndexMetaData skewed = clusterState.metaData().index("skewed");
+        Settings.Builder skewedSettings = Settings.builder().put(skewed.getSettings());
+        skewedSettings.remove(requireIdSetting);
+        ClusterState unbalancedState = ClusterState.builder(clusterState).metaData(MetaData.builder(clusterState.metaData())
+            .put(IndexMetaData.builder(skewed).settings(skewedSettings), true)).build();
+        ClusterState rebalancedState = applyStartedShardsUntilNoChange(strategy.reroute(unbalancedState, "reroute"), strategy);
+
+        // only the skewed index was balanced, the balanced ones were skipped and keep their allocation
+        assertThat(recordingDecider.indices, Matchers.contains("skewed"));
+        for (int i = 0; i < balancedIndices; i++) {
+            assertThat(rebalancedState.routingTable().index("balanced" + i),
+                Matchers.equalTo(clusterState.routingTable().index("balanced" + i)));
+        }
+        for (RoutingNode node : rebalancedState.getRoutingNodes()) {
+            assertThat(node.shardsWithState("skewed", STARTED).size(), Matchers.equalTo(1));
+        }
+    }
+
     public void testPersistedSettings() {
         Settings.Builder settings = Settings.builder();
         settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.2);
@@ -388,6 +465,24 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         }
     }
 
+    /**
+     * Records the indices that the balancer asked about when looking for nodes to balance an index over.
+     */
+    private static class RecordingIndexDecider extends AllocationDecider {
+
+        private final Set<String> indices = new HashSet<>();
+
+        RecordingIndexDecider() {
+            super(Settings.EMPTY);
+        }
+
+        @Override
+        public Decision canAllocate(IndexMetaData indexMetaData, RoutingNode node, RoutingAllocation allocation) {
+            indices.add(indexMetaData.getIndex().getName());
+            return Decision.YES;
+        }
+    }
+
     private class NoopGatewayAllocator extends GatewayAllocator {
 
         NoopGatewayAllocator() {
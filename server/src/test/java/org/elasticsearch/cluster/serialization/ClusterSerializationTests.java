@@ -29,6 +29,7 @@ import org.elasticsearch.cluster.RestoreInProgress;
 import org.elasticsearch.cluster.SnapshotDeletionsInProgress;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
@@ -51,6 +52,7 @@ import java.util.Collections;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class ClusterSerializationTests extends ESAllocationTestCase {
 
@@ -167,6 +169,45 @@ public class ClusterSerializationTests extends ESAllocationTestCase {
         return diff.apply(original);
     }
 
+    public void testMappingsAndSettingKeysAreSharedAcrossIndices() throws Exception {
+        int numIndices = randomIntBetween(10, 50);
+        MetaData.Builder metaData = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            // every index parses its own copy of the mapping, like indices created from the same template
+            metaData.put(IndexMetaData.builder("logs-" + i).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(1)
+                .putMapping("_doc", "{\"_doc\":{\"properties\":{\"message\":{\"type\":\"text\"}}}}"));
+        }
+        ClusterState clusterState = ClusterState.builder(new ClusterName("clusterName1")).metaData(metaData).build();
+        assertMappingsAndSettingKeysShared(clusterState, numIndices);
+
+        BytesStreamOutput outStream = new BytesStreamOutput();
+        outStream.setVersion(Version.CURRENT);
+        clusterState.writeTo(outStream);
+        StreamInput inStream = new NamedWriteableAwareStreamInput(outStream.bytes().streamInput(),
+            new NamedWriteableRegistry(ClusterModule.getNamedWriteables()));
+        ClusterState serializedClusterState = ClusterState.readFrom(inStream, newNode("node1"));
+        assertMappingsAndSettingKeysShared(serializedClusterState, numIndices);
+
+        ClusterState appliedClusterState = updateUsingSerialisedDiff(ClusterState.EMPTY_STATE,
+            clusterState.diff(ClusterState.EMPTY_STATE));
+        assertMappingsAndSettingKeysShared(appliedClusterState, numIndices);
+        assertThat(appliedClusterState.metaData().index("logs-0").mapping("_doc").source(),
+            sameInstance(serializedClusterState.metaData().index("logs-0").mapping("_doc").source()));
+    }
+
+    private static void assertMappingsAndSettingKeysShared(ClusterState clusterState, int numIndices) {
+        IndexMetaData first = clusterState.metaData().index("logs-0");
+        MappingMetaData mapping = first.mapping("_doc");
+        for (int i = 1; i < numIndices; i++) {
+            IndexMetaData indexMetaData = clusterState.metaData().index("logs-" + i);
+            assertThat(indexMetaData.mapping("_doc").source(), sameInstance(mapping.source()));
+            for (String key : indexMetaData.getSettings().keySet()) {
+                String firstKey = first.getSettings().keySet().stream().filter(key::equals).findFirst().get();
+                assertThat(key, sameInstance(firstKey));
+            }
+        }
+    }
+
     public void testObjectReuseWhenApplyingClusterStateDiff() throws Exception {
         IndexMetaData indexMetaData
             = IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(10).numberOfReplicas(1).build();
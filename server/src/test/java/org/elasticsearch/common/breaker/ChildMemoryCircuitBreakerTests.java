@@ -0,0 +1,161 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.breaker;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ChildMemoryCircuitBreakerTests extends ESTestCase {
+
+    private ChildMemoryCircuitBreaker newBreaker(long limit) {
+        final HierarchyCircuitBreakerService parent = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)) {
+
+            @Override
+            public boolean hasParentRoomFor(long newBytesReserved) {
+                return true;
+            }
+
+            @Override
+            public void checkParentLimit(long newBytesReserved, String label) throws CircuitBreakingException {
+                // never trip
+            }
+        };
+        return new ChildMemoryCircuitBreaker(new BreakerSettings(CircuitBreaker.REQUEST, limit, 1.0), logger, parent,
+            CircuitBreaker.REQUEST);
+    }
+
+    public void testStripedReservationsDoNotTripTheBreaker() {
+        final long limit = randomLongBetween(256, 1024) * ChildMemoryCircuitBreaker.CHUNK_SIZE;
+        final ChildMemoryCircuitBreaker breaker = newBreaker(limit);
+        final long bytes = randomLongBetween(1, ChildMemoryCircuitBreaker.CHUNK_SIZE - 1);
+        breaker.addEstimateBytesAndMaybeBreak(bytes, "small");
+        assertEquals(bytes, breaker.getUsed());
+        // the chunk that was reserved for the small estimate must not count against the limit
+        breaker.addEstimateBytesAndMaybeBreak(limit - bytes, "rest");
+        assertEquals(limit, breaker.getUsed());
+        expectThrows(CircuitBreakingException.class, () -> breaker.addEstimateBytesAndMaybeBreak(1, "one more"));
+        assertEquals(1, breaker.getTrippedCount());
+        breaker.addWithoutBreaking(-limit);
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testReservedChunksCountAgainstTheParent() {
+        final long parentLimit = randomLongBetween(8, 16) * ChildMemoryCircuitBreaker.CHUNK_SIZE;
+        final Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+            .put(HierarchyCircuitBreakerService.TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), parentLimit + "b")
+            // leave enough room below the request limit for the stripes to be used
+            .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "1gb")
+            .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_OVERHEAD_SETTING.getKey(), 1.0)
+            .build();
+        final HierarchyCircuitBreakerService service = new HierarchyCircuitBreakerService(settings,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final CircuitBreaker breaker = service.getBreaker(CircuitBreaker.REQUEST);
+
+        final long bytes = randomLongBetween(1, ChildMemoryCircuitBreaker.CHUNK_SIZE - 1);
+        breaker.addEstimateBytesAndMaybeBreak(bytes, "small");
+        assertEquals(bytes, breaker.getUsed());
+        // the parent sees the whole chunk that was reserved for the small estimate
+        assertEquals(ChildMemoryCircuitBreaker.CHUNK_SIZE, service.stats().getStats(CircuitBreaker.PARENT).getEstimated());
+
+        // but the unused part of the chunk does not prevent using the full parent limit
+        breaker.addEstimateBytesAndMaybeBreak(parentLimit - bytes, "rest");
+        assertEquals(parentLimit, breaker.getUsed());
+        assertEquals(parentLimit, service.stats().getStats(CircuitBreaker.PARENT).getEstimated());
+
+        // small estimates still trip the parent once it is full
+        expectThrows(CircuitBreakingException.class, () -> breaker.addEstimateBytesAndMaybeBreak(1, "one more"));
+        assertEquals(1, service.stats().getStats(CircuitBreaker.PARENT).getTrippedCount());
+        assertEquals(0, breaker.getTrippedCount());
+        assertEquals(parentLimit, breaker.getUsed());
+
+        breaker.addWithoutBreaking(-parentLimit);
+        assertEquals(0, breaker.getUsed());
+        assertEquals(0, service.stats().getStats(CircuitBreaker.PARENT).getEstimated());
+    }
+
+    public void testConcurrentAccounting() throws Exception {
+        final long limit = randomLongBetween(64, 512) * ChildMemoryCircuitBreaker.CHUNK_SIZE;
+        final ChildMemoryCircuitBreaker breaker = newBreaker(limit);
+        final AtomicLong outstanding = new AtomicLong();
+        final CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<>();
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int t = 0; t < threads.length; t++) {
+            final Random random = new Random(randomLong());
+            final int iterations = scaledRandomIntBetween(1000, 50000);
+            threads[t] = new Thread(() -> {
+                final Deque<Long> held = new ArrayDeque<>();
+                try {
+                    latch.await();
+                    for (int i = 0; i < iterations; i++) {
+                        if (held.isEmpty() || random.nextInt(10) < 6) {
+                            final long bytes = random.nextInt(10) == 0 ? random.nextInt((int) (limit / 8)) : random.nextInt(64 * 1024);
+                            try {
+                                breaker.addEstimateBytesAndMaybeBreak(bytes, "test");
+                            } catch (CircuitBreakingException e) {
+                                continue;
+                            }
+                            // the bytes that are actually in use never exceed the limit
+                            assertThat(outstanding.addAndGet(bytes), lessThanOrEqualTo(limit));
+                            held.push(bytes);
+                        } else {
+                            final long bytes = held.pop();
+                            outstanding.addAndGet(-bytes);
+                            breaker.addWithoutBreaking(-bytes);
+                        }
+                    }
+                    while (held.isEmpty() == false) {
+                        final long bytes = held.pop();
+                        outstanding.addAndGet(-bytes);
+                        breaker.addWithoutBreaking(-bytes);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures, empty());
+        assertEquals(0, breaker.getUsed());
+        // bytes that stripes still hold must not prevent using the full limit
+        breaker.addEstimateBytesAndMaybeBreak(limit, "all");
+        assertEquals(limit, breaker.getUsed());
+        breaker.addWithoutBreaking(-limit);
+        assertEquals(0, breaker.getUsed());
+    }
+}
@@ -19,6 +19,11 @@
 
 package org.elasticsearch.common.bytes;
 
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.stream.StreamInput;
+
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
@@ -41,4 +46,35 @@ public class ByteBufferReferenceTests extends AbstractBytesReferenceTestCase {
         initializeBytes(bytes);
         return new ByteBufferReference(ByteBuffer.wrap(bytes));
     }
+
+    public void testDirectBuffer() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 64 * 1024));
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        final int offset = randomIntBetween(0, bytes.length);
+        final int length = randomIntBetween(0, bytes.length - offset);
+        final BytesReference reference = new ByteBufferReference(buffer).slice(offset, length);
+        final BytesRef expected = new BytesRef(bytes, offset, length);
+
+        assertEquals(expected, reference.toBytesRef());
+
+        final byte[] read = new byte[length];
+        try (StreamInput input = reference.streamInput()) {
+            input.readBytes(read, 0, length);
+            assertEquals(0, input.available());
+        }
+        assertEquals(expected, new BytesRef(read));
+
+        final BytesRefBuilder builder = new BytesRefBuilder();
+        final BytesRefIterator iterator = reference.iterator();
+        BytesRef ref;
+        while ((ref = iterator.next()) != null) {
+            builder.append(ref);
+        }
+        assertEquals(expected, builder.get());
+        // reading the reference does not move the buffer
+        assertEquals(0, buffer.position());
+        assertEquals(bytes.length, buffer.limit());
+    }
 }
@@ -98,4 +98,15 @@ public class DeflateCompressedXContentTests extends ESTestCase {
         assertFalse(new CompressedXContent("{\"a\":\"b\"}").hashCode() == new CompressedXContent("{\"a\":\"c\"}").hashCode());
     }
 
+    public void testIntern() throws IOException {
+        final String str = "{\"" + randomAlphaOfLength(10) + "\":\"" + randomAlphaOfLength(10) + "\"}";
+        final CompressedXContent first = new CompressedXContent(str);
+        final CompressedXContent second = new CompressedXContent(str);
+        assertNotSame(first, second);
+        final CompressedXContent interned = CompressedXContent.intern(first);
+        assertSame(first, interned);
+        assertSame(interned, CompressedXContent.intern(second));
+        assertNotSame(interned, CompressedXContent.intern(new CompressedXContent("{\"other\":\"value\"}")));
+    }
+
 }
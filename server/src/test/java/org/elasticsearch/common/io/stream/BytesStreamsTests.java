@@ -21,17 +21,21 @@ package org.elasticsearch.common.io.stream;
 
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Constants;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.lucene.BytesRefs;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.translog.BufferedChecksumStreamOutput;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 import org.joda.time.DateTimeZone;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -50,6 +54,7 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 /**
  * Tests for {@link BytesStreamOutput} paging behaviour.
@@ -693,6 +698,162 @@ public class BytesStreamsTests extends ESTestCase {
         }
     }
 
+    public void testWriteStringsWithLongAsciiPrefix() throws IOException {
+        // exercise the switch from the ascii fast path to the multi-byte encoding at and around the conversion buffer boundaries
+        for (int prefixLength : new int[] {0, 1, 1021, 1022, 1023, 1024, 1025, randomIntBetween(1, 4096)}) {
+            String s = randomAlphaOfLength(prefixLength) + randomRealisticUnicodeOfLengthBetween(1, 2048);
+            try (BytesStreamOutput output = new BytesStreamOutput(0)) {
+                output.writeString(s);
+                try (StreamInput streamInput = output.bytes().streamInput()) {
+                    assertEquals(s, streamInput.readString());
+                }
+            }
+        }
+    }
+
+    public void testSharedStrings() throws IOException {
+        List<String> distinct = new ArrayList<>();
+        int numDistinct = randomIntBetween(1, 20);
+        for (int i = 0; i < numDistinct; i++) {
+            distinct.add(randomRealisticUnicodeOfLengthBetween(1, 64));
+        }
+        List<String> strings = new ArrayList<>();
+        int numStrings = randomIntBetween(100, 1000);
+        BytesStreamOutput output = new BytesStreamOutput(0);
+        BytesStreamOutput plainOutput = new BytesStreamOutput(0);
+        for (int i = 0; i < numStrings; i++) {
+            String s = randomFrom(distinct);
+            strings.add(s);
+            output.writeSharedString(s);
+            plainOutput.writeString(s);
+        }
+        assertThat(output.bytes().length(), lessThan(plainOutput.bytes().length()));
+
+        try (StreamInput streamInput = output.bytes().streamInput()) {
+            // wrapping the stream half way through must not lose the strings read so far
+            StreamInput in = streamInput;
+            for (int i = 0; i < numStrings; i++) {
+                if (i == numStrings / 2) {
+                    in = new NamedWriteableAwareStreamInput(streamInput, new NamedWriteableRegistry(Collections.emptyList()));
+                }
+                String s = in.readSharedString();
+                assertEquals(strings.get(i), s);
+            }
+        }
+    }
+
+    public void testOptionalSharedStrings() throws IOException {
+        String s = randomAlphaOfLength(10);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeOptionalSharedString(s);
+            output.writeOptionalSharedString(null);
+            output.writeOptionalSharedString(s);
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                assertEquals(s, streamInput.readOptionalSharedString());
+                assertNull(streamInput.readOptionalSharedString());
+                assertEquals(s, streamInput.readOptionalSharedString());
+            }
+        }
+    }
+
+    public void testSharedStringsOnOldVersions() throws IOException {
+        Version version = VersionUtils.randomVersionBetween(random(), Version.V_6_0_0, Version.V_6_5_0);
+        String s = randomRealisticUnicodeOfLengthBetween(0, 64);
+        try (BytesStreamOutput output = new BytesStreamOutput(); BytesStreamOutput plainOutput = new BytesStreamOutput()) {
+            output.setVersion(version);
+            output.writeSharedString(s);
+            output.writeSharedString(s);
+            plainOutput.writeString(s);
+            plainOutput.writeString(s);
+            assertEquals(plainOutput.bytes(), output.bytes());
+
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                streamInput.setVersion(version);
+                assertEquals(s, streamInput.readSharedString());
+                assertEquals(s, streamInput.readSharedString());
+            }
+        }
+    }
+
+    public void testSharedStringsTableIsBounded() throws IOException {
+        int numStrings = StreamOutput.MAX_SHARED_STRINGS + randomIntBetween(1, 100);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < numStrings; i++) {
+                    output.writeSharedString("string_" + i);
+                }
+            }
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < numStrings; i++) {
+                        assertEquals("string_" + i, streamInput.readSharedString());
+                    }
+                }
+            }
+        }
+    }
+
+    public void testSharedStringsAreForgottenOnReset() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeSharedString("foo");
+            output.reset();
+            output.writeSharedString("foo");
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                assertEquals("foo", streamInput.readSharedString());
+                assertEquals(0, streamInput.available());
+            }
+        }
+    }
+
+    public void testSharedStringsThroughWrappingOutputs() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeSharedString("foo");
+            StreamOutput wrapper = randomBoolean() ? new OutputStreamStreamOutput(output) : new BufferedChecksumStreamOutput(output);
+            wrapper.writeSharedString("bar");
+            wrapper.writeSharedString("bar");
+            wrapper.writeSharedString("foo");
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                assertEquals("foo", streamInput.readSharedString());
+                assertEquals("bar", streamInput.readSharedString());
+                assertEquals("bar", streamInput.readSharedString());
+                assertEquals("foo", streamInput.readSharedString());
+                assertEquals(0, streamInput.available());
+            }
+        }
+    }
+
+    public void testSharedStringsAreRewoundOnReset() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeSharedString("foo");
+            output.writeSharedString("bar");
+            output.writeSharedString("baz");
+            output.writeSharedString("baz");
+            BytesReference bytes = output.bytes();
+            StreamInput streamInput = randomBoolean() ? bytes.streamInput()
+                : new ByteBufferStreamInput(ByteBuffer.wrap(BytesReference.toBytes(bytes)));
+            try (StreamInput in = streamInput) {
+                assertTrue(in.markSupported());
+                assertEquals("foo", in.readSharedString());
+                in.mark(Integer.MAX_VALUE);
+                assertEquals("bar", in.readSharedString());
+                in.reset();
+                assertEquals("bar", in.readSharedString());
+                assertEquals("baz", in.readSharedString());
+                assertEquals("baz", in.readSharedString());
+            }
+        }
+    }
+
+    public void testInvalidSharedStringReference() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.writeVInt(1);
+            try (StreamInput streamInput = output.bytes().streamInput()) {
+                IOException e = expectThrows(IOException.class, streamInput::readSharedString);
+                assertThat(e.getMessage(), endsWith("only [0] strings were read"));
+            }
+        }
+    }
+
     public void testReadTooLargeArraySize() throws IOException {
         try (BytesStreamOutput output = new BytesStreamOutput(0)) {
             output.writeVInt(10);
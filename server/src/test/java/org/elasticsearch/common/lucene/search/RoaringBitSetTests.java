@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class RoaringBitSetTests extends ESTestCase {
+
+    private static FixedBitSet randomFixedBitSet(int maxDoc) {
+        final FixedBitSet bitSet = new FixedBitSet(maxDoc);
+        switch (randomInt(3)) {
+            case 0:
+                // sparse
+                for (int i = 0; i < maxDoc / 100; i++) {
+                    bitSet.set(randomInt(maxDoc - 1));
+                }
+                break;
+            case 1:
+                // dense
+                for (int i = 0; i < maxDoc; i++) {
+                    if (randomInt(2) == 0) {
+                        bitSet.set(i);
+                    }
+                }
+                break;
+            case 2:
+                // full
+                bitSet.set(0, maxDoc);
+                break;
+            default:
+                // dense and empty ranges
+                final int rangeSize = randomIntBetween(1, 100000);
+                for (int i = 0; i < maxDoc; i += 2 * rangeSize) {
+                    bitSet.set(i, Math.min(maxDoc, i + rangeSize));
+                }
+                break;
+        }
+        return bitSet;
+    }
+
+    private static RoaringBitSet copyOf(FixedBitSet bitSet) throws IOException {
+        return RoaringBitSet.of(new BitSetIterator(bitSet, bitSet.cardinality()), bitSet.length());
+    }
+
+    public void testSameAsFixedBitSet() throws IOException {
+        final int maxDoc = randomBoolean() ? randomIntBetween(1, 1000) : randomIntBetween(1, 300000);
+        final FixedBitSet expected = randomFixedBitSet(maxDoc);
+        final RoaringBitSet actual = copyOf(expected);
+        assertEquals(maxDoc, actual.length());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        for (int i = 0; i < maxDoc; i++) {
+            assertEquals(expected.get(i), actual.get(i));
+            assertEquals(expected.nextSetBit(i), actual.nextSetBit(i));
+            assertEquals(expected.prevSetBit(i), actual.prevSetBit(i));
+        }
+    }
+
+    public void testEmpty() throws IOException {
+        final int maxDoc = randomIntBetween(1, 300000);
+        final RoaringBitSet bitSet = RoaringBitSet.of(DocIdSetIterator.empty(), maxDoc);
+        assertEquals(0, bitSet.cardinality());
+        final int index = randomInt(maxDoc - 1);
+        assertFalse(bitSet.get(index));
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, bitSet.nextSetBit(index));
+        assertEquals(-1, bitSet.prevSetBit(index));
+    }
+
+    public void testCompression() throws IOException {
+        final int maxDoc = randomIntBetween(1 << 17, 1 << 20);
+        final long fixedBytes = RamUsageEstimator.sizeOf(new long[FixedBitSet.bits2words(maxDoc)]);
+
+        // one document every 100 documents, like the parents of nested documents
+        final FixedBitSet sparse = new FixedBitSet(maxDoc);
+        for (int i = 0; i < maxDoc; i += 100) {
+            sparse.set(i);
+        }
+        assertThat(copyOf(sparse).ramBytesUsed(), lessThan(fixedBytes / 3));
+
+        // blocks that have all documents share their bitmap
+        final FixedBitSet full = new FixedBitSet(maxDoc);
+        full.set(0, maxDoc);
+        assertThat(copyOf(full).ramBytesUsed(), lessThan(fixedBytes / 2));
+    }
+
+    public void testImmutable() throws IOException {
+        final RoaringBitSet bitSet = copyOf(randomFixedBitSet(1000));
+        expectThrows(UnsupportedOperationException.class, () -> bitSet.set(0));
+        expectThrows(UnsupportedOperationException.class, () -> bitSet.clear(0));
+        expectThrows(UnsupportedOperationException.class, () -> bitSet.clear(0, 10));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.recycler;
+
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ThreadLocalRecyclerTests extends AbstractRecyclerTestCase {
+
+    @Override
+    protected Recycler<byte[]> newRecycler(int limit) {
+        return Recyclers.threadLocal(RECYCLER_C, limit, randomIntBetween(1, limit));
+    }
+
+    public void testLocalHits() {
+        ThreadLocalRecycler<byte[]> r = new ThreadLocalRecycler<>(RECYCLER_C, limit, randomIntBetween(1, limit));
+        Recycler.V<byte[]> o = r.obtain();
+        assertFalse(o.isRecycled());
+        final byte[] data = o.v();
+        o.close();
+        assertEquals(0, r.localHits());
+        o = r.obtain();
+        assertTrue(o.isRecycled());
+        assertSame(data, o.v());
+        assertEquals(1, r.localHits());
+        o.close();
+        r.close();
+    }
+
+    public void testFullLocalCacheIsSharedWithOtherThreads() throws Exception {
+        final int localLimit = randomIntBetween(1, limit - 1);
+        ThreadLocalRecycler<byte[]> r = new ThreadLocalRecycler<>(RECYCLER_C, limit, localLimit);
+        List<Recycler.V<byte[]>> values = new ArrayList<>();
+        for (int i = 0; i <= localLimit; ++i) {
+            values.add(r.obtain());
+        }
+        // releasing one more object than the local cache can hold moves some of them to the shared deque
+        for (Recycler.V<byte[]> v : values) {
+            v.close();
+        }
+        AtomicReference<Recycler.V<byte[]>> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(r.obtain()));
+        thread.start();
+        thread.join();
+        assertTrue(other.get().isRecycled());
+        assertRecycled(other.get().v());
+        assertEquals(0, r.localHits());
+        other.get().close();
+        r.close();
+    }
+
+    public void testConcurrentObtainAndRelease() throws Exception {
+        final ThreadLocalRecycler<byte[]> r = new ThreadLocalRecycler<>(RECYCLER_C, limit, randomIntBetween(1, limit));
+        final Set<byte[]> inUse = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+        final Set<Throwable> failures = ConcurrentCollections.newConcurrentSet();
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int t = 0; t < threads.length; ++t) {
+            final int iterations = scaledRandomIntBetween(100, 1000);
+            final Random random = new Random(randomLong());
+            threads[t] = new Thread(() -> {
+                try {
+                    latch.await();
+                    List<Recycler.V<byte[]>> held = new ArrayList<>();
+                    for (int i = 0; i < iterations; ++i) {
+                        if (held.isEmpty() || (held.size() < 2 * limit && random.nextBoolean())) {
+                            Recycler.V<byte[]> v = r.obtain();
+                            // an object must never be handed out twice
+                            assertTrue(inUse.add(v.v()));
+                            held.add(v);
+                        } else {
+                            Recycler.V<byte[]> v = held.remove(held.size() - 1);
+                            assertTrue(inUse.remove(v.v()));
+                            v.close();
+                        }
+                    }
+                    for (Recycler.V<byte[]> v : held) {
+                        assertTrue(inUse.remove(v.v()));
+                        v.close();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.emptySet(), failures);
+        assertTrue(inUse.isEmpty());
+        r.close();
+    }
+}
@@ -42,7 +42,8 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 public class BigArraysTests extends ESTestCase {
 
     private BigArrays randombigArrays() {
-        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        final Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_PAGES_SETTING.getKey(), randomBoolean()).build();
+        return new MockBigArrays(new MockPageCacheRecycler(settings), new NoneCircuitBreakerService());
     }
 
     private BigArrays bigArrays;
@@ -371,6 +372,86 @@ public class BigArraysTests extends ESTestCase {
         }
     }
 
+    public void testDirectPagesLimit() throws Exception {
+        final int maxPages = randomIntBetween(2, 10);
+        final Settings settings = Settings.builder()
+            .put(PageCacheRecycler.DIRECT_PAGES_SETTING.getKey(), true)
+            .put(PageCacheRecycler.LIMIT_DIRECT_SETTING.getKey(), maxPages * BigArrays.PAGE_SIZE_IN_BYTES, ByteSizeUnit.BYTES)
+            .build();
+        final PageCacheRecycler recycler = new MockPageCacheRecycler(settings);
+        final HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final BigArrays bigArrays = new BigArrays(recycler, hcbs, true);
+
+        LongArray array = bigArrays.newLongArray(maxPages * BigArrays.LONG_PAGE_SIZE);
+        assertEquals(maxPages * BigArrays.PAGE_SIZE_IN_BYTES, recycler.directBytesAllocated());
+        expectThrows(CircuitBreakingException.class, () -> bigArrays.newDoubleArray(BigArrays.LONG_PAGE_SIZE + 1));
+        expectThrows(CircuitBreakingException.class, () -> bigArrays.resize(array, (maxPages + 1) * BigArrays.LONG_PAGE_SIZE));
+        assertEquals(array.ramBytesUsed(), hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        array.set(0, 42);
+        assertEquals(42, array.get(0));
+        array.close();
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+
+        // released pages are reused, and cleared if needed
+        final ByteArray bytes = bigArrays.newByteArray(maxPages * BigArrays.BYTE_PAGE_SIZE);
+        assertEquals(maxPages * BigArrays.PAGE_SIZE_IN_BYTES, recycler.directBytesAllocated());
+        for (int i = 0; i < bytes.size(); ++i) {
+            assertEquals(0, bytes.get(i));
+        }
+        bytes.close();
+        recycler.close();
+        assertEquals(0, recycler.directBytesAllocated());
+    }
+
+    public void testDirectPagesDisabled() {
+        final PageCacheRecycler recycler = new MockPageCacheRecycler(Settings.EMPTY);
+        final IllegalStateException e = expectThrows(IllegalStateException.class, () -> recycler.directPage(randomBoolean()));
+        assertEquals("direct pages are disabled, set [cache.recycler.page.direct.enabled] to use them", e.getMessage());
+    }
+
+    public void testFreeDirectPagesAreTrimmed() {
+        final int maxFreePages = randomIntBetween(1, 5);
+        final Settings settings = Settings.builder()
+            .put(PageCacheRecycler.DIRECT_PAGES_SETTING.getKey(), true)
+            .put(PageCacheRecycler.LIMIT_HEAP_SETTING.getKey(), maxFreePages * BigArrays.PAGE_SIZE_IN_BYTES, ByteSizeUnit.BYTES)
+            .put(PageCacheRecycler.WEIGHT_INT_SETTING.getKey(), 0d)
+            .put(PageCacheRecycler.WEIGHT_LONG_SETTING.getKey(), 0d)
+            .put(PageCacheRecycler.WEIGHT_OBJECTS_SETTING.getKey(), 0d)
+            .build();
+        final PageCacheRecycler recycler = new MockPageCacheRecycler(settings);
+        final BigArrays bigArrays = new BigArrays(recycler, new NoneCircuitBreakerService(), false);
+
+        final int numPages = maxFreePages + randomIntBetween(1, 5);
+        final LongArray array = bigArrays.newLongArray(numPages * BigArrays.LONG_PAGE_SIZE);
+        assertEquals(numPages * BigArrays.PAGE_SIZE_IN_BYTES, recycler.directBytesAllocated());
+        array.close();
+        assertEquals(maxFreePages * BigArrays.PAGE_SIZE_IN_BYTES, recycler.directBytesAllocated());
+        recycler.close();
+        assertEquals(0, recycler.directBytesAllocated());
+    }
+
+    public void testDirectByteArraySlicesAreNotShared() {
+        final Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_PAGES_SETTING.getKey(), true).build();
+        final BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(settings), new NoneCircuitBreakerService());
+        final byte[] data = new byte[BigArrays.BYTE_PAGE_SIZE * 2];
+        random().nextBytes(data);
+        final ByteArray array = bigArrays.newByteArray(data.length);
+        array.set(0, data, 0, data.length);
+
+        final BytesRef first = new BytesRef();
+        assertTrue(array.get(0, 10, first));
+        final BytesRef spare = new BytesRef();
+        for (int i = 0; i < 10; ++i) {
+            final int offset = randomIntBetween(10, data.length - 10);
+            array.get(offset, 10, spare);
+            assertEquals(new BytesRef(data, offset, 10), spare);
+        }
+        // slices read into another BytesRef must not overwrite the first one
+        assertEquals(new BytesRef(data, 0, 10), first);
+        array.close();
+    }
+
     public void testEstimatedBytesSameAsActualBytes() throws Exception {
         final int maxSize = 1 << scaledRandomIntBetween(15, 22);
         final long size = randomIntBetween((1 << 14) + 1, maxSize);
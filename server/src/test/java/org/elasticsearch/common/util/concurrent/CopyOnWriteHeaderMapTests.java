@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CopyOnWriteHeaderMapTests extends ESTestCase {
+
+    public void testBehavesLikeHashMap() {
+        final Map<String, String> expected = new HashMap<>();
+        CopyOnWriteHeaderMap<String> map = CopyOnWriteHeaderMap.empty();
+        final int iters = randomIntBetween(1, 3 * CopyOnWriteHeaderMap.MAX_ARRAY_SIZE);
+        for (int i = 0; i < iters; i++) {
+            final CopyOnWriteHeaderMap<String> previous = map;
+            final Map<String, String> previousExpected = new HashMap<>(expected);
+            if (randomBoolean()) {
+                final String key = randomAlphaOfLength(2);
+                final String value = randomAlphaOfLength(5);
+                map = map.with(key, value);
+                expected.put(key, value);
+            } else {
+                final Map<String, String> entries = new HashMap<>();
+                for (int j = randomIntBetween(0, 5); j > 0; j--) {
+                    entries.put(randomAlphaOfLength(2), randomAlphaOfLength(5));
+                }
+                map = map.withAll(entries, false);
+                expected.putAll(entries);
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.size(), map.size());
+            for (Map.Entry<String, String> entry : expected.entrySet()) {
+                assertTrue(map.containsKey(entry.getKey()));
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            // previous versions of the map are not affected
+            assertEquals(previousExpected, previous);
+        }
+        assertNull(map.get("missing"));
+        assertFalse(map.containsKey("missing"));
+    }
+
+    public void testFailIfPresent() {
+        final CopyOnWriteHeaderMap<String> map = CopyOnWriteHeaderMap.<String>empty().with("foo", "bar");
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> map.withAll(Collections.singletonMap("foo", "baz"), true));
+        assertEquals("value for key [foo] already present", e.getMessage());
+        assertEquals("bar", map.get("foo"));
+        assertEquals("baz", map.withAll(Collections.singletonMap("foo", "baz"), false).get("foo"));
+    }
+
+    public void testImmutable() {
+        final CopyOnWriteHeaderMap<String> map = CopyOnWriteHeaderMap.<String>empty().with("foo", "bar");
+        expectThrows(UnsupportedOperationException.class, () -> map.put("foo", "baz"));
+        expectThrows(UnsupportedOperationException.class, () -> map.entrySet().clear());
+        expectThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue("baz"));
+    }
+
+    public void testCopyOf() {
+        final CopyOnWriteHeaderMap<String> map = CopyOnWriteHeaderMap.<String>empty().with("foo", "bar");
+        assertSame(map, CopyOnWriteHeaderMap.copyOf(map));
+        assertEquals(Collections.singletonMap("foo", "bar"), CopyOnWriteHeaderMap.copyOf(Collections.singletonMap("foo", "bar")));
+        assertSame(CopyOnWriteHeaderMap.empty(), CopyOnWriteHeaderMap.copyOf(Collections.emptyMap()));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class WeakInternerTests extends ESTestCase {
+
+    public void testInternReturnsFirstInstance() {
+        WeakInterner<String> interner = new WeakInterner<>();
+        String first = new String("foo");
+        String second = new String("foo");
+        assertThat(interner.intern(first), sameInstance(first));
+        assertThat(interner.intern(second), sameInstance(first));
+        String other = new String("bar");
+        assertThat(interner.intern(other), sameInstance(other));
+        assertThat(interner.size(), equalTo(2));
+    }
+
+    public void testConcurrentIntern() throws Exception {
+        WeakInterner<String> interner = new WeakInterner<>();
+        int numValues = randomIntBetween(1, 20);
+        int numThreads = randomIntBetween(2, 8);
+        String[][] results = new String[numThreads][numValues];
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < numValues; i++) {
+                    // a fresh instance per thread so that identity only comes from the interner
+                    results[thread][i] = interner.intern(new String("value-" + i));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < numValues; i++) {
+            assertThat(results[0][i], equalTo("value-" + i));
+            for (int t = 1; t < numThreads; t++) {
+                assertThat(results[t][i], sameInstance(results[0][i]));
+            }
+        }
+        assertThat(interner.size(), equalTo(numValues));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.nullValue;
+
+public class WeightedFairBlockingQueueTests extends ESTestCase {
+
+    public void testKeysAreServedByWeightedRoundRobin() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final WeightedFairBlockingQueue<String> queue =
+            new WeightedFairBlockingQueue<>(key::get, k -> k.equals("heavy") ? 3 : 1, 100);
+        key.set("heavy");
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer("h" + i));
+        }
+        key.set("light");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer("l" + i));
+        }
+        assertThat(queue.size(), equalTo(11));
+        assertThat(queue.peek(), equalTo("h0"));
+
+        final List<String> polled = new ArrayList<>();
+        queue.drainTo(polled);
+        assertThat(polled, contains("h0", "h1", "h2", "l0", "h3", "h4", "h5", "l1", "h6", "h7", "l2"));
+        assertThat(queue.size(), equalTo(0));
+        assertThat(queue.poll(), nullValue());
+    }
+
+    public void testEachKeyIsBoundedByItsOwnCapacity() {
+        final int capacity = randomIntBetween(1, 16);
+        final AtomicReference<String> key = new AtomicReference<>("noisy");
+        final WeightedFairBlockingQueue<Integer> queue = new WeightedFairBlockingQueue<>(key::get, k -> 1, capacity);
+        for (int i = 0; i < capacity; i++) {
+            assertTrue(queue.offer(i));
+        }
+        final int rejections = randomIntBetween(1, 10);
+        for (int i = 0; i < rejections; i++) {
+            assertFalse(queue.offer(i));
+        }
+        assertThat(queue.remainingCapacity(), equalTo(0));
+
+        // another key still gets its share of the queue
+        key.set("quiet");
+        assertThat(queue.remainingCapacity(), equalTo(capacity));
+        assertTrue(queue.offer(-1));
+
+        // forced elements bypass the capacity
+        key.set("noisy");
+        queue.forcePut(-2);
+        assertThat(queue.size(), equalTo(capacity + 2));
+
+        WeightedFairBlockingQueue.KeyStats noisy = queue.stats().get("noisy");
+        assertThat(noisy.getQueue(), equalTo(capacity + 1));
+        assertThat(noisy.getRejected(), equalTo((long) rejections));
+        WeightedFairBlockingQueue.KeyStats quiet = queue.stats().get("quiet");
+        assertThat(quiet.getQueue(), equalTo(1));
+        assertThat(quiet.getRejected(), equalTo(0L));
+
+        assertThat(queue.poll(), equalTo(0));
+        assertThat(queue.poll(), equalTo(-1));
+        assertThat(queue.stats().get("noisy").getDequeued(), equalTo(1L));
+        assertThat(queue.stats().get("quiet").getDequeued(), equalTo(1L));
+    }
+
+    public void testMissingAndExcessKeys() {
+        final AtomicReference<String> key = new AtomicReference<>(randomFrom(null, ""));
+        final WeightedFairBlockingQueue<Integer> queue = new WeightedFairBlockingQueue<>(key::get, k -> 1, 10);
+        assertTrue(queue.offer(0));
+        assertThat(queue.stats(), hasKey(WeightedFairBlockingQueue.DEFAULT_KEY));
+
+        for (int i = 1; i < WeightedFairBlockingQueue.MAX_KEYS; i++) {
+            key.set("key" + i);
+            assertTrue(queue.offer(i));
+        }
+        // every key that has queued elements keeps its own sub-queue
+        assertThat(queue.stats().size(), equalTo(WeightedFairBlockingQueue.MAX_KEYS));
+        assertThat(queue.stats().get("key" + (WeightedFairBlockingQueue.MAX_KEYS - 1)).getQueue(), equalTo(1));
+
+        final int drained = randomIntBetween(1, WeightedFairBlockingQueue.MAX_KEYS);
+        for (int i = 0; i < drained; i++) {
+            assertNotNull(queue.poll());
+        }
+        key.set("new");
+        assertTrue(queue.offer(-1));
+        // the idle keys were evicted to make room for the new one
+        assertThat(queue.stats().size(), equalTo(WeightedFairBlockingQueue.MAX_KEYS - drained + 1));
+        assertThat(queue.stats().get("new").getQueue(), equalTo(1));
+        assertThat(queue.size(), equalTo(WeightedFairBlockingQueue.MAX_KEYS - drained + 1));
+    }
+
+    public void testKeysWithQueuedElementsAreCapped() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final int capacityPerKey = randomIntBetween(1, 5);
+        final WeightedFairBlockingQueue<Integer> queue = new WeightedFairBlockingQueue<>(key::get, k -> 1, capacityPerKey);
+        final int numKeys = WeightedFairBlockingQueue.MAX_KEYS + randomIntBetween(1, 100);
+        int accepted = 0;
+        for (int i = 0; i < numKeys; i++) {
+            key.set("key" + i);
+            for (int j = 0; j < capacityPerKey; j++) {
+                if (queue.offer(i)) {
+                    accepted++;
+                }
+            }
+        }
+        // all keys have queued elements so none of them could be evicted, and the keys past the cap share a single sub-queue
+        assertThat(queue.stats().size(), equalTo(WeightedFairBlockingQueue.MAX_KEYS + 1));
+        assertThat(queue.stats().get(WeightedFairBlockingQueue.OTHER_KEY).getQueue(), equalTo(capacityPerKey));
+        assertThat(queue.stats().get(WeightedFairBlockingQueue.OTHER_KEY).getRejected(),
+            equalTo((long) (numKeys - WeightedFairBlockingQueue.MAX_KEYS - 1) * capacityPerKey));
+        assertThat(accepted, equalTo((WeightedFairBlockingQueue.MAX_KEYS + 1) * capacityPerKey));
+        assertThat(queue.size(), equalTo(accepted));
+    }
+
+    public void testRemoveAndIterate() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final WeightedFairBlockingQueue<String> queue = new WeightedFairBlockingQueue<>(key::get, k -> 1, 10);
+        key.set("a");
+        queue.offer("a0");
+        queue.offer("a1");
+        key.set("b");
+        queue.offer("b0");
+
+        final List<String> elements = new ArrayList<>();
+        queue.iterator().forEachRemaining(elements::add);
+        assertThat(elements, contains("a0", "a1", "b0"));
+        assertThat(Arrays.asList(queue.toArray()), contains("a0", "a1", "b0"));
+
+        assertTrue(queue.remove("b0"));
+        assertFalse(queue.remove("b0"));
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.stats().get("b").getQueue(), equalTo(0));
+        assertThat(queue.poll(), equalTo("a0"));
+        assertThat(queue.poll(), equalTo("a1"));
+    }
+
+    public void testTakeWaitsForElements() throws Exception {
+        final WeightedFairBlockingQueue<String> queue = new WeightedFairBlockingQueue<>(() -> "key", k -> 1, 10);
+        assertThat(queue.poll(randomIntBetween(1, 10), TimeUnit.MILLISECONDS), nullValue());
+
+        final CountDownLatch taken = new CountDownLatch(1);
+        final AtomicReference<String> element = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                element.set(queue.take());
+                taken.countDown();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        thread.start();
+        assertTrue(queue.offer("element"));
+        assertTrue(taken.await(10, TimeUnit.SECONDS));
+        thread.join();
+        assertThat(element.get(), equalTo("element"));
+        assertThat(queue.stats().get("key").getDequeued(), equalTo(1L));
+    }
+}
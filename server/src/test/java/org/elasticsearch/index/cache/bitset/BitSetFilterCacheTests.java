@@ -38,8 +38,11 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.search.RoaringBitSet;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.ShardId;
@@ -51,6 +54,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class BitSetFilterCacheTests extends ESTestCase {
 
@@ -182,6 +186,29 @@ public class BitSetFilterCacheTests extends ESTestCase {
         assertEquals(0, stats.get());
     }
 
+    public void testRoaringOrFixedBitSet() throws IOException {
+        final int maxDoc = randomIntBetween(1 << 16, 1 << 18);
+        final FixedBitSet sparse = new FixedBitSet(maxDoc);
+        final FixedBitSet dense = new FixedBitSet(maxDoc);
+        for (int i = 0; i < maxDoc; i++) {
+            if (randomInt(99) == 0) {
+                sparse.set(i);
+            }
+            if (randomBoolean()) {
+                dense.set(i);
+            }
+        }
+
+        BitSet bitSet = BitsetFilterCache.roaringOrFixedBitSet(new BitSetIterator(sparse, sparse.cardinality()), maxDoc);
+        assertThat(bitSet, instanceOf(RoaringBitSet.class));
+        assertEquals(sparse.cardinality(), bitSet.cardinality());
+
+        // compression would barely save memory
+        bitSet = BitsetFilterCache.roaringOrFixedBitSet(new BitSetIterator(dense, dense.cardinality()), maxDoc);
+        assertThat(bitSet, instanceOf(FixedBitSet.class));
+        assertEquals(dense, bitSet);
+    }
+
     public void testSetNullListener() {
         try {
             new BitsetFilterCache(INDEX_SETTINGS, null);
@@ -25,6 +25,7 @@ import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat.Mode;
 import org.apache.lucene.codecs.lucene62.Lucene62Codec;
 import org.apache.lucene.codecs.lucene70.Lucene70Codec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -68,6 +69,35 @@ public class CodecTests extends ESTestCase {
         assertCompressionEquals(Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testDictionaryCompression() throws Exception {
+        Codec codec = createCodecService().codec("dictionary_compression");
+        assertThat(codec, instanceOf(DictionaryCompressionCodec.class));
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(null);
+        iwc.setCodec(codec);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        final int numDocs = scaledRandomIntBetween(10, 2000);
+        final String[] values = new String[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            values[i] = "{\"@timestamp\":" + i + ",\"level\":\"INFO\",\"message\":\"" + randomAlphaOfLengthBetween(0, 200) + "\"}";
+            Document doc = new Document();
+            doc.add(new StoredField("_source", values[i]));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        iw.close();
+        DirectoryReader ir = DirectoryReader.open(dir);
+        SegmentReader sr = (SegmentReader) ir.leaves().get(0).reader();
+        // the codec is looked up by name when reading the segment
+        assertEquals(DictionaryCompressionCodec.NAME, sr.getSegmentInfo().info.getCodec().getName());
+        for (int i = 0; i < 100; i++) {
+            final int docId = randomIntBetween(0, numDocs - 1);
+            assertEquals(values[docId], ir.document(docId).get("_source"));
+        }
+        ir.close();
+        dir.close();
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertCompressionEquals(Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
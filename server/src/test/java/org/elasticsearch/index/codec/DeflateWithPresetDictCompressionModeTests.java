@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class DeflateWithPresetDictCompressionModeTests extends ESTestCase {
+
+    private CompressionMode mode;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mode = new DeflateWithPresetDictCompressionMode(randomIntBetween(1, 9));
+    }
+
+    public void testRoundTrip() throws IOException {
+        final byte[] data = randomData(randomIntBetween(0, 1 << 20));
+        final byte[] compressed = compress(data);
+        final int iters = scaledRandomIntBetween(10, 100);
+        final Decompressor decompressor = mode.newDecompressor();
+        for (int i = 0; i < iters; i++) {
+            final int offset = randomIntBetween(0, data.length);
+            final int length = randomIntBetween(0, data.length - offset);
+            final BytesRef bytes = new BytesRef();
+            decompressor.clone().decompress(new ByteArrayDataInput(compressed), data.length, offset, length, bytes);
+            assertEquals(new BytesRef(data, offset, length), bytes);
+        }
+        final BytesRef bytes = new BytesRef();
+        decompressor.decompress(new ByteArrayDataInput(compressed), data.length, 0, data.length, bytes);
+        assertArrayEquals(data, Arrays.copyOfRange(bytes.bytes, bytes.offset, bytes.offset + bytes.length));
+    }
+
+    public void testReusedDecompressor() throws IOException {
+        final Decompressor decompressor = mode.newDecompressor();
+        final int iters = scaledRandomIntBetween(10, 50);
+        for (int i = 0; i < iters; i++) {
+            final byte[] data = randomData(randomIntBetween(0, 1 << 16));
+            final int offset = randomIntBetween(0, data.length);
+            final int length = randomIntBetween(0, data.length - offset);
+            final BytesRef bytes = new BytesRef();
+            decompressor.decompress(new ByteArrayDataInput(compress(data)), data.length, offset, length, bytes);
+            assertEquals(new BytesRef(data, offset, length), bytes);
+        }
+    }
+
+    public void testCompressesRepetitiveData() throws IOException {
+        final byte[] data = new byte[64 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + (i % 16));
+        }
+        assertThat(compress(data).length, lessThan(data.length / 10));
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+        // deflate never expands data by more than a few bytes per block
+        final byte[] compressed = new byte[data.length * 2 + 1024];
+        final ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+        try (Compressor compressor = mode.newCompressor()) {
+            compressor.compress(data, 0, data.length, out);
+        }
+        return Arrays.copyOf(compressed, out.getPosition());
+    }
+
+    private static byte[] randomData(int length) {
+        final byte[] data = new byte[length];
+        // mix random and repetitive bytes so that both the dictionary and the sub-blocks compress
+        for (int i = 0; i < length; i++) {
+            data[i] = randomBoolean() ? randomByte() : (byte) (i % 7);
+        }
+        return data;
+    }
+}
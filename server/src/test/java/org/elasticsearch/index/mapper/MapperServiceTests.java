@@ -195,6 +195,27 @@ public class MapperServiceTests extends ESSingleNodeTestCase {
         assertThat(e.getMessage(), startsWith("Failed to parse mapping [type1]: "));
     }
 
+    public void testMergeSharesUnchangedObjectMappers() throws IOException {
+        MapperService mapperService = createIndex("test").mapperService();
+        mapperService.merge("_doc", new CompressedXContent(Strings.toString(XContentFactory.jsonBuilder().startObject()
+            .startObject("properties")
+                .startObject("a").startObject("properties").startObject("x").field("type", "keyword").endObject().endObject().endObject()
+                .startObject("b").startObject("properties").startObject("y").field("type", "keyword").endObject().endObject().endObject()
+            .endObject().endObject())), MergeReason.MAPPING_UPDATE);
+        ObjectMapper a = mapperService.getObjectMapper("a");
+        ObjectMapper b = mapperService.getObjectMapper("b");
+        MappedFieldType x = mapperService.fullName("a.x");
+
+        mapperService.merge("_doc", new CompressedXContent(Strings.toString(XContentFactory.jsonBuilder().startObject()
+            .startObject("properties")
+                .startObject("a").startObject("properties").startObject("z").field("type", "keyword").endObject().endObject().endObject()
+            .endObject().endObject())), MergeReason.MAPPING_UPDATE);
+        assertNotSame(a, mapperService.getObjectMapper("a"));
+        assertSame(b, mapperService.getObjectMapper("b"));
+        assertSame(x, mapperService.fullName("a.x"));
+        assertNotNull(mapperService.fullName("a.z"));
+    }
+
      public void testPartitionedConstraints() {
         // partitioned index must have routing
          IllegalArgumentException noRoutingException = expectThrows(IllegalArgumentException.class, () -> {
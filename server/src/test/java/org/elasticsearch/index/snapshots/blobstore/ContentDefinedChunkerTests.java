@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    public void testChunksCoverInput() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 4 * ContentDefinedChunker.MAX_CHUNK_SIZE));
+        final List<byte[]> chunks = chunk(bytes);
+        int offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            final byte[] chunk = chunks.get(i);
+            assertThat(chunk.length, lessThanOrEqualTo(ContentDefinedChunker.MAX_CHUNK_SIZE));
+            if (i < chunks.size() - 1) {
+                assertThat(chunk.length, greaterThanOrEqualTo(ContentDefinedChunker.MIN_CHUNK_SIZE));
+            }
+            assertArrayEquals(chunk, Arrays.copyOfRange(bytes, offset, offset + chunk.length));
+            offset += chunk.length;
+        }
+        assertEquals(bytes.length, offset);
+    }
+
+    public void testChunksSurviveInsertion() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(8 * ContentDefinedChunker.MAX_CHUNK_SIZE);
+        final byte[] inserted = randomByteArrayOfLength(randomIntBetween(1, 1024));
+        final byte[] modified = new byte[bytes.length + inserted.length];
+        System.arraycopy(inserted, 0, modified, 0, inserted.length);
+        System.arraycopy(bytes, 0, modified, inserted.length, bytes.length);
+
+        final Set<BytesRef> original = new HashSet<>();
+        for (byte[] chunk : chunk(bytes)) {
+            original.add(new BytesRef(chunk));
+        }
+        int shared = 0;
+        final List<byte[]> modifiedChunks = chunk(modified);
+        for (byte[] chunk : modifiedChunks) {
+            if (original.contains(new BytesRef(chunk))) {
+                shared++;
+            }
+        }
+        // boundaries re-synchronize after the insertion, so only the first chunks can differ
+        assertThat(shared, greaterThan(modifiedChunks.size() / 2));
+    }
+
+    private static List<byte[]> chunk(byte[] bytes) throws IOException {
+        final List<byte[]> chunks = new ArrayList<>();
+        try (Directory directory = new RAMDirectory()) {
+            try (IndexOutput output = directory.createOutput("file", IOContext.DEFAULT)) {
+                output.writeBytes(bytes, bytes.length);
+            }
+            final byte[] buffer = new byte[ContentDefinedChunker.MAX_CHUNK_SIZE];
+            try (IndexInput input = directory.openInput("file", IOContext.DEFAULT)) {
+                while (input.getFilePointer() < input.length()) {
+                    final int length = ContentDefinedChunker.readChunk(input, buffer);
+                    chunks.add(Arrays.copyOf(buffer, length));
+                }
+            }
+        }
+        return chunks;
+    }
+}
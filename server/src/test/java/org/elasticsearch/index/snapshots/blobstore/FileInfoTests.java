@@ -34,10 +34,14 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 public class FileInfoTests extends ESTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
@@ -172,4 +176,54 @@ public class FileInfoTests extends ESTestCase {
         }
 
     }
+
+    public void testChunkedToFromXContent() throws IOException {
+        final List<FileInfo.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(FileInfo.Chunk::length).sum();
+        StoreFileMetaData meta = new StoreFileMetaData("foobar", length, randomAlphaOfLengthBetween(1, 10), Version.LATEST);
+        FileInfo info = new FileInfo("_foobar", meta, chunks);
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON).prettyPrint();
+        FileInfo.toXContent(info, builder, ToXContent.EMPTY_PARAMS);
+        byte[] xcontent = BytesReference.toBytes(BytesReference.bytes(shuffleXContent(builder)));
+
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, xcontent)) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.isChunked(), is(true));
+        assertThat(parsedInfo.chunks(), equalTo(chunks));
+        assertThat(parsedInfo.numberOfParts(), equalTo((long) chunks.size()));
+        assertThat(parsedInfo.partSize(), nullValue());
+        assertThat(parsedInfo.isSame(info), is(true));
+        assertThat(parsedInfo.isSame(new FileInfo("_foobar", meta, new ByteSizeValue(randomIntBetween(1, 1000)))), is(false));
+    }
+
+    public void testChunkedPartOffsets() {
+        final List<FileInfo.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(FileInfo.Chunk::length).sum();
+        FileInfo info = new FileInfo("foo", new StoreFileMetaData("foo", length, "666", MIN_SUPPORTED_LUCENE_VERSION), chunks);
+        long offset = 0;
+        for (int i = 0; i < info.numberOfParts(); i++) {
+            assertThat(info.partName(i), equalTo(chunks.get(i).name()));
+            assertThat(info.partBytes(i), equalTo(chunks.get(i).length()));
+            assertThat(info.partOffset(i), equalTo(offset));
+            assertThat(info.partContaining(offset), equalTo(i));
+            assertThat(info.partContaining(offset + info.partBytes(i) - 1), equalTo(i));
+            offset += info.partBytes(i);
+        }
+        assertThat(offset, equalTo(info.length()));
+
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("foo",
+            new StoreFileMetaData("foo", length + 1, "666", MIN_SUPPORTED_LUCENE_VERSION), chunks));
+    }
+
+    private static List<FileInfo.Chunk> randomChunks() {
+        final List<FileInfo.Chunk> chunks = new ArrayList<>();
+        final int numChunks = randomIntBetween(1, 20);
+        for (int i = 0; i < numChunks; i++) {
+            chunks.add(new FileInfo.Chunk("chunk-" + randomAlphaOfLength(16).toLowerCase(Locale.ROOT), randomIntBetween(1, 1000)));
+        }
+        return chunks;
+    }
 }
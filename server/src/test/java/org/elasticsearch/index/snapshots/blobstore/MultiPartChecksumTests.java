@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class MultiPartChecksumTests extends ESTestCase {
+
+    public void testCombine() {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 10000));
+        final int split = randomIntBetween(0, bytes.length);
+        final CRC32 first = new CRC32();
+        first.update(bytes, 0, split);
+        final CRC32 second = new CRC32();
+        second.update(bytes, split, bytes.length - split);
+        final CRC32 whole = new CRC32();
+        whole.update(bytes, 0, bytes.length);
+        assertEquals(whole.getValue(), MultiPartChecksum.combine(first.getValue(), second.getValue(), bytes.length - split));
+    }
+
+    public void testVerifyParts() throws IOException {
+        final byte[] file = randomFile();
+        final StoreFileMetaData metadata = metadata(file);
+        readParts(file, metadata).verify();
+    }
+
+    public void testCorruptedPartsFailVerification() throws IOException {
+        final byte[] file = randomFile();
+        final StoreFileMetaData metadata = metadata(file);
+        final int corruptedByte = randomIntBetween(0, file.length - 1);
+        file[corruptedByte] = (byte) (file[corruptedByte] ^ (1 << randomIntBetween(0, 7)));
+        final MultiPartChecksum checksum = readParts(file, metadata);
+        expectThrows(CorruptIndexException.class, checksum::verify);
+    }
+
+    public void testInconsistentMetadataFailsVerification() throws IOException {
+        final byte[] file = randomFile();
+        final StoreFileMetaData metadata = metadata(file);
+        final StoreFileMetaData otherMetadata = metadata(randomFile());
+        final MultiPartChecksum checksum = readParts(file, new StoreFileMetaData(metadata.name(), metadata.length(),
+            otherMetadata.checksum(), metadata.writtenBy()));
+        final CorruptIndexException e = expectThrows(CorruptIndexException.class, checksum::verify);
+        assertTrue(e.getMessage(), e.getMessage().contains("inconsistent metadata"));
+    }
+
+    private static byte[] randomFile() throws IOException {
+        try (Directory directory = new RAMDirectory()) {
+            try (IndexOutput output = directory.createOutput("file", IOContext.DEFAULT)) {
+                final byte[] content = randomByteArrayOfLength(randomIntBetween(0, 100000));
+                output.writeBytes(content, content.length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput("file", IOContext.DEFAULT)) {
+                final byte[] file = new byte[Math.toIntExact(input.length())];
+                input.readBytes(file, 0, file.length);
+                return file;
+            }
+        }
+    }
+
+    private static StoreFileMetaData metadata(byte[] file) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(file, 0, file.length - 8);
+        return new StoreFileMetaData("file", file.length, Store.digestToString(crc32.getValue()), Version.LATEST);
+    }
+
+    /**
+     * Reads the file in random parts in random order, with reads of random sizes.
+     */
+    private static MultiPartChecksum readParts(byte[] file, StoreFileMetaData metadata) throws IOException {
+        final int partSize = randomIntBetween(1, file.length);
+        final int numberOfParts = (file.length + partSize - 1) / partSize;
+        final List<Integer> parts = new ArrayList<>();
+        for (int i = 0; i < numberOfParts; i++) {
+            parts.add(i);
+        }
+        Collections.shuffle(parts, random());
+        final MultiPartChecksum checksum = new MultiPartChecksum(metadata, numberOfParts);
+        for (int i = 0; i < numberOfParts; i++) {
+            final int part = parts.get(i);
+            final int offset = part * partSize;
+            final int length = Math.min(partSize, file.length - offset);
+            try (InputStream in = checksum.wrap(part, offset, new ByteArrayInputStream(file, offset, length))) {
+                final byte[] buffer = new byte[randomIntBetween(1, 1024)];
+                final boolean singleBytes = randomBoolean();
+                int read;
+                do {
+                    read = singleBytes ? in.read() : in.read(buffer, 0, randomIntBetween(1, buffer.length));
+                } while (read != -1);
+            }
+            assertEquals(i == numberOfParts - 1, checksum.onPartRead());
+        }
+        return checksum;
+    }
+}
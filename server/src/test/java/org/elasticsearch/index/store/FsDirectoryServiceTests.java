@@ -20,6 +20,9 @@ package org.elasticsearch.index.store;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FileSwitchDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.SleepingLockWrapper;
 import org.elasticsearch.common.settings.Settings;
@@ -71,4 +74,57 @@ public class FsDirectoryServiceTests extends ESTestCase {
             assertFalse(((MMapDirectory) fsd.getSecondaryDir()).getPreload());
         }
     }
+
+    public void testHybridDefaultExtensions() throws IOException {
+        Settings build = Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "hybridfs")
+                .build();
+        IndexSettings settings = IndexSettingsModule.newIndexSettings("foo", build);
+        IndexStore store = new IndexStore(settings);
+        Path tempDir = createTempDir().resolve(settings.getUUID()).resolve("0");
+        Files.createDirectories(tempDir);
+        ShardPath path = new ShardPath(false, tempDir, tempDir, new ShardId(settings.getIndex(), 0));
+        FsDirectoryService fsDirectoryService = new FsDirectoryService(settings, store, path);
+        try (Directory directory = fsDirectoryService.newDirectory()) {
+            assertTrue(directory.toString(), directory instanceof FsDirectoryService.HybridDirectory);
+            FsDirectoryService.HybridDirectory hybridDirectory = (FsDirectoryService.HybridDirectory) directory;
+            // compound files of small segments hold the randomly accessed files too
+            assertTrue(hybridDirectory.useMMap("_0.cfs"));
+            assertTrue(hybridDirectory.useMMap("_0.nvd"));
+            assertFalse(hybridDirectory.useMMap("_0.cfe"));
+            assertFalse(hybridDirectory.useMMap("_0.fdt"));
+        }
+    }
+
+    public void testHybrid() throws IOException {
+        Settings build = Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "hybridfs")
+                .putList(IndexModule.INDEX_STORE_HYBRID_MMAP_EXTENSIONS.getKey(), "dvd", "tim")
+                .build();
+        IndexSettings settings = IndexSettingsModule.newIndexSettings("foo", build);
+        IndexStore store = new IndexStore(settings);
+        Path tempDir = createTempDir().resolve(settings.getUUID()).resolve("0");
+        Files.createDirectories(tempDir);
+        ShardPath path = new ShardPath(false, tempDir, tempDir, new ShardId(settings.getIndex(), 0));
+        FsDirectoryService fsDirectoryService = new FsDirectoryService(settings, store, path);
+        try (Directory directory = fsDirectoryService.newDirectory()) {
+            assertTrue(directory.toString(), directory instanceof FsDirectoryService.HybridDirectory);
+            FsDirectoryService.HybridDirectory hybridDirectory = (FsDirectoryService.HybridDirectory) directory;
+            assertTrue(hybridDirectory.useMMap("_0.dvd"));
+            assertTrue(hybridDirectory.useMMap("_0_Lucene50_0.tim"));
+            assertFalse(hybridDirectory.useMMap("_0.fdt"));
+            assertFalse(hybridDirectory.useMMap("segments_1"));
+            for (String name : new String[] {"_0.dvd", "_0.fdt"}) {
+                final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 1024));
+                try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+                    output.writeBytes(bytes, bytes.length);
+                }
+                try (IndexInput input = directory.openInput(name, IOContext.DEFAULT)) {
+                    final byte[] read = new byte[bytes.length];
+                    input.readBytes(read, 0, read.length);
+                    assertArrayEquals(bytes, read);
+                }
+            }
+        }
+    }
 }
@@ -69,6 +69,9 @@ public class IndexStoreTests extends ESTestCase {
                 case MMAPFS:
                     assertTrue(type + " " + directory.toString(), directory instanceof MMapDirectory);
                     break;
+                case HYBRIDFS:
+                    assertTrue(type + " " + directory.toString(), directory instanceof FsDirectoryService.HybridDirectory);
+                    break;
                 case SIMPLEFS:
                     assertTrue(type + " " + directory.toString(), directory instanceof SimpleFSDirectory);
                     break;
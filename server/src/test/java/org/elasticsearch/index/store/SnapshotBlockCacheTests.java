@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SnapshotBlockCacheTests extends ESTestCase {
+
+    public void testReadBlocks() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(SnapshotBlockCache.BLOCK_SIZE_SETTING.getKey(), 4, ByteSizeUnit.KB)
+            .put(SnapshotBlockCache.SIZE_SETTING.getKey(), 12, ByteSizeUnit.KB)
+            .build();
+        final Path path = createTempDir().resolve("snapshot_cache");
+        final byte[] file = randomByteArrayOfLength(20 * 1024);
+        final AtomicInteger loads = new AtomicInteger();
+        try (SnapshotBlockCache cache = new SnapshotBlockCache(settings, new Path[] { path })) {
+            assertThat(cache.blockSize(), equalTo(4096));
+            for (int i = 0; i < 100; i++) {
+                final int block = randomIntBetween(0, 4);
+                final int positionInBlock = randomIntBetween(0, 4095);
+                final int length = randomIntBetween(0, 4096 - positionInBlock);
+                final byte[] buffer = new byte[length + 1];
+                final int loadsBefore = loads.get();
+                final boolean cached = cache.readBlock("file", block, 4096, positionInBlock, buffer, 1, length, (bytes, bytesLength) -> {
+                    loads.incrementAndGet();
+                    System.arraycopy(file, block * 4096, bytes, 0, bytesLength);
+                });
+                assertThat(cached, equalTo(loads.get() == loadsBefore));
+                for (int j = 0; j < length; j++) {
+                    assertThat(buffer[j + 1], equalTo(file[block * 4096 + positionInBlock + j]));
+                }
+                assertThat(cache.count(), lessThanOrEqualTo(3));
+                assertThat(cache.sizeInBytes(), lessThanOrEqualTo(12L * 1024));
+            }
+        }
+    }
+
+    public void testLoadFailureIsNotCached() throws IOException {
+        final Path path = createTempDir().resolve("snapshot_cache");
+        try (SnapshotBlockCache cache = new SnapshotBlockCache(Settings.EMPTY, new Path[] { path })) {
+            final byte[] buffer = new byte[10];
+            final IOException e = expectThrows(IOException.class, () -> cache.readBlock("file", 0, 10, 0, buffer, 0, 10,
+                (bytes, length) -> {
+                    throw new IOException("simulated");
+                }));
+            assertThat(e.getMessage(), equalTo("simulated"));
+            assertThat(cache.count(), equalTo(0));
+
+            assertFalse(cache.readBlock("file", 0, 10, 0, buffer, 0, 10, (bytes, length) -> bytes[0] = 42));
+            assertThat(buffer[0], equalTo((byte) 42));
+            assertTrue(cache.readBlock("file", 0, 10, 0, buffer, 0, 10, (bytes, length) -> fail("block should be cached")));
+            assertThat(cache.count(), equalTo(1));
+        }
+    }
+
+    public void testBlockFilesAreKeptOpenAndSpreadOverPaths() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(SnapshotBlockCache.BLOCK_SIZE_SETTING.getKey(), 4, ByteSizeUnit.KB)
+            .put(SnapshotBlockCache.SIZE_SETTING.getKey(), 4 * (SnapshotBlockCache.MAX_OPEN_BLOCK_FILES + 10), ByteSizeUnit.KB)
+            .build();
+        final Path[] paths = new Path[randomIntBetween(1, 3)];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = createTempDir().resolve("snapshot_cache");
+        }
+        final byte[] buffer = new byte[1];
+        try (SnapshotBlockCache cache = new SnapshotBlockCache(settings, paths)) {
+            final int numBlocks = SnapshotBlockCache.MAX_OPEN_BLOCK_FILES + 10;
+            for (int block = 0; block < numBlocks; block++) {
+                final byte value = (byte) block;
+                assertFalse(cache.readBlock("file", block, 4096, 0, buffer, 0, 1, (bytes, length) -> bytes[0] = value));
+                // sequential reads of the same block share an open file
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(cache.readBlock("file", block, 4096, 0, buffer, 0, 1, (bytes, length) -> fail("block should be cached")));
+                    assertThat(buffer[0], equalTo(value));
+                }
+                assertThat(cache.openFileCount(), lessThanOrEqualTo(SnapshotBlockCache.MAX_OPEN_BLOCK_FILES));
+            }
+            assertThat(cache.count(), equalTo(numBlocks));
+            assertThat(cache.openFileCount(), equalTo(SnapshotBlockCache.MAX_OPEN_BLOCK_FILES));
+            // files whose block is no longer open can still be read
+            assertTrue(cache.readBlock("file", 0, 4096, 0, buffer, 0, 1, (bytes, length) -> fail("block should be cached")));
+            assertThat(buffer[0], equalTo((byte) 0));
+            long files = 0;
+            for (Path path : paths) {
+                try (Stream<Path> stream = Files.list(path)) {
+                    final long filesInPath = stream.count();
+                    assertThat(filesInPath, greaterThan(0L));
+                    files += filesInPath;
+                }
+            }
+            assertThat(files, equalTo((long) numBlocks));
+        }
+        for (Path path : paths) {
+            try (Stream<Path> stream = Files.list(path)) {
+                assertThat(stream.count(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testRequiresPath() throws IOException {
+        try (SnapshotBlockCache cache = new SnapshotBlockCache(Settings.EMPTY, new Path[0])) {
+            expectThrows(IllegalStateException.class,
+                () -> cache.readBlock("file", 0, 10, 0, new byte[10], 0, 10, (bytes, length) -> {}));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnapshotDirectoryTests extends ESTestCase {
+
+    public void testDeletedFilesStayHiddenWhenReopened() throws IOException {
+        final List<FileInfo> files = new ArrayList<>();
+        final Set<String> names = new TreeSet<>();
+        final int numFiles = randomIntBetween(2, 10);
+        for (int i = 0; i < numFiles; i++) {
+            final String name = "_" + i + ".cfs";
+            files.add(new FileInfo("__" + i, new StoreFileMetaData(name, randomIntBetween(1, 1024), "0", Version.LATEST), null));
+            names.add(name);
+        }
+        final BlobStoreIndexShardSnapshot shardSnapshot = new BlobStoreIndexShardSnapshot("snapshot", 0L, files, 0L, 0L, 0, 0L);
+        final BlobContainer blobContainer = mock(BlobContainer.class);
+        when(blobContainer.path()).thenReturn(BlobPath.cleanPath());
+
+        final Path shardPath = createTempDir();
+        final Set<String> deleted = new TreeSet<>(randomSubsetOf(randomIntBetween(1, numFiles - 1), names));
+        final Set<String> remaining = new TreeSet<>(names);
+        remaining.removeAll(deleted);
+        try (SnapshotBlockCache cache = new SnapshotBlockCache(Settings.EMPTY, new Path[0])) {
+            try (Directory directory = newSnapshotDirectory(shardPath, blobContainer, shardSnapshot, cache)) {
+                assertThat(listSnapshotFiles(directory), equalTo(names));
+                for (String name : deleted) {
+                    directory.deleteFile(name);
+                }
+                assertThat(listSnapshotFiles(directory), equalTo(remaining));
+            }
+            try (Directory directory = newSnapshotDirectory(shardPath, blobContainer, shardSnapshot, cache)) {
+                assertThat(listSnapshotFiles(directory), equalTo(remaining));
+                for (String name : deleted) {
+                    expectThrows(IOException.class, () -> directory.fileLength(name));
+                }
+            }
+        }
+    }
+
+    private static Set<String> listSnapshotFiles(Directory directory) throws IOException {
+        // the test file system may add extra files to the local directory
+        return Arrays.stream(directory.listAll()).filter(name -> name.startsWith("extra") == false)
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static SnapshotDirectory newSnapshotDirectory(Path shardPath, BlobContainer blobContainer,
+                                                          BlobStoreIndexShardSnapshot shardSnapshot,
+                                                          SnapshotBlockCache cache) throws IOException {
+        final Path indexPath = Files.createDirectories(shardPath.resolve("index"));
+        return new SnapshotDirectory(new NIOFSDirectory(indexPath), new ShardId("index", "_na_", 0), "repository",
+            () -> Tuple.tuple(blobContainer, shardSnapshot), cache, command -> {},
+            shardPath.resolve(SnapshotDirectoryService.DELETED_FILES_NAME));
+    }
+}
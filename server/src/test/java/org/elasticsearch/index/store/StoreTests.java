@@ -776,6 +776,17 @@ public class StoreTests extends ESTestCase {
         assertTrue(numNonExtraFiles(store) > 0);
         stats = store.stats();
         assertEquals(stats.getSizeInBytes(), length + initialStoreSize);
+        assertNull(stats.getFileTypes().get("bar"));
+
+        final int opens = randomIntBetween(1, 5);
+        for (int i = 0; i < opens; i++) {
+            try (IndexInput input = dir.openInput("foo.bar", IOContext.DEFAULT)) {
+                assertEquals(length, input.length());
+            }
+        }
+        stats = store.stats();
+        assertEquals(opens, stats.getFileTypes().get("bar").getOpened());
+        assertEquals(opens * length, stats.getFileTypes().get("bar").getOpenedSizeInBytes());
 
         deleteContent(store.directory());
         IOUtils.close(store);
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.elasticsearch.test.ESTestCase;
+
+public class QueryCacheAdmissionTests extends ESTestCase {
+
+    private static Query query(String value) {
+        return new TermQuery(new Term("field", value));
+    }
+
+    public void testAdmitsEverythingUntilFirstEviction() {
+        QueryCacheAdmission admission = new QueryCacheAdmission(1 << 16);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(admission.admit(query(Integer.toString(i))));
+        }
+        admission.recordUse(query("hot"));
+        admission.recordUse(query("hot"));
+        admission.recordEviction(query("hot"));
+        assertFalse(admission.admit(query("cold")));
+        admission.clear();
+        assertTrue(admission.admit(query("cold")));
+    }
+
+    public void testFrequencyWins() {
+        QueryCacheAdmission admission = new QueryCacheAdmission(1 << 16);
+        Query hot = query("hot");
+        Query cold = query("cold");
+        for (int i = 0; i < 5; i++) {
+            admission.recordUse(hot);
+        }
+        admission.recordUse(cold);
+        admission.recordBuild(hot, 1000, 1024);
+        admission.recordBuild(cold, 1000, 1024);
+
+        admission.recordEviction(hot);
+        assertFalse(admission.admit(cold));
+        admission.recordEviction(cold);
+        assertTrue(admission.admit(hot));
+    }
+
+    public void testCostBreaksTies() {
+        QueryCacheAdmission admission = new QueryCacheAdmission(1 << 16);
+        Query expensive = query("expensive");
+        Query cheap = query("cheap");
+        admission.recordUse(expensive);
+        admission.recordUse(cheap);
+        admission.recordBuild(expensive, 1_000_000, 1024);
+        admission.recordBuild(cheap, 1000, 1024);
+
+        admission.recordEviction(cheap);
+        assertTrue(admission.admit(expensive));
+        admission.recordEviction(expensive);
+        assertFalse(admission.admit(cheap));
+    }
+
+    public void testFrequenciesAreCappedAndDecay() {
+        QueryCacheAdmission admission = new QueryCacheAdmission(1024);
+        Query query = query("foo");
+        for (int i = 0; i < 100; i++) {
+            admission.recordUse(query);
+        }
+        assertEquals(15, admission.frequency(query));
+        // the sample size is ten times the width of the sketch, this halves all frequencies once
+        for (int i = 0; i < 10 * 1024; i++) {
+            admission.recordUse(query(Integer.toString(i)));
+        }
+        assertTrue(admission.frequency(query) < 15);
+    }
+}
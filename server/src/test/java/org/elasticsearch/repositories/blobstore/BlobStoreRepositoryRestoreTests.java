@@ -21,20 +21,27 @@ package org.elasticsearch.repositories.blobstore;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.BlobStore;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
+import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.repositories.IndexId;
@@ -42,15 +49,23 @@ import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.fs.FsRepository;
 import org.elasticsearch.snapshots.Snapshot;
 import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.snapshots.mockstore.BlobContainerWrapper;
+import org.elasticsearch.snapshots.mockstore.BlobStoreWrapper;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 import static org.elasticsearch.cluster.routing.RecoverySource.StoreRecoverySource.EXISTING_STORE_INSTANCE;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 
 /**
  * This class tests the behavior of {@link BlobStoreRepository} when it
@@ -59,6 +74,9 @@ import static org.hamcrest.Matchers.containsString;
  */
 public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
 
+    // the prefix of the blobs that hold the contents of shard files
+    private static final String DATA_BLOB_PREFIX = "__";
+
     /**
      * Restoring a snapshot that contains multiple files must succeed even when
      * some files already exist in the shard's store.
@@ -173,15 +191,131 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
+    public void testSnapshotUploadsFilesConcurrently() throws Exception {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        final IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            final int numDocs = scaledRandomIntBetween(10, 100);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+            }
+            flushShard(shard, true);
+
+            // the first upload waits for a second one to start, which only happens if uploads run concurrently
+            final CountDownLatch secondUploadStarted = new CountDownLatch(2);
+            final AtomicInteger activeUploads = new AtomicInteger();
+            final AtomicInteger maxActiveUploads = new AtomicInteger();
+            final Settings settings = Settings.builder()
+                .put("chunk_size", randomIntBetween(100, 1000), ByteSizeUnit.BYTES)
+                .put("max_concurrent_file_transfers", randomIntBetween(2, 8))
+                .build();
+            final Repository repository = createRepository(settings, container -> new BlobContainerWrapper(container) {
+                @Override
+                public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists)
+                    throws IOException {
+                    if (blobName.startsWith(DATA_BLOB_PREFIX) == false) {
+                        super.writeBlob(blobName, inputStream, blobSize, failIfAlreadyExists);
+                        return;
+                    }
+                    final int active = activeUploads.incrementAndGet();
+                    maxActiveUploads.accumulateAndGet(active, Math::max);
+                    try {
+                        secondUploadStarted.countDown();
+                        secondUploadStarted.await(10, TimeUnit.SECONDS);
+                        super.writeBlob(blobName, inputStream, blobSize, failIfAlreadyExists);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    } finally {
+                        activeUploads.decrementAndGet();
+                    }
+                }
+            });
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            snapshotShard(shard, snapshot, repository);
+            assertThat(maxActiveUploads.get(), greaterThanOrEqualTo(2));
+        } finally {
+            closeShards(shard);
+        }
+    }
+
+    public void testSnapshotFailsIfAnUploadFails() throws Exception {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        final IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            final int numDocs = scaledRandomIntBetween(10, 100);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+            }
+            flushShard(shard, true);
+
+            final AtomicInteger uploads = new AtomicInteger();
+            final Repository repository = createRepository(Settings.EMPTY, container -> new BlobContainerWrapper(container) {
+                @Override
+                public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists)
+                    throws IOException {
+                    if (blobName.startsWith(DATA_BLOB_PREFIX) && uploads.getAndIncrement() == 0) {
+                        throw new IOException("simulated upload failure of [" + blobName + "]");
+                    }
+                    super.writeBlob(blobName, inputStream, blobSize, failIfAlreadyExists);
+                }
+            });
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            final IndexShardSnapshotStatus snapshotStatus = IndexShardSnapshotStatus.newInitializing();
+            final IndexShardSnapshotFailedException e;
+            try (Engine.IndexCommitRef indexCommitRef = shard.acquireLastIndexCommit(true)) {
+                e = expectThrows(IndexShardSnapshotFailedException.class, () -> repository.snapshotShard(shard,
+                    snapshot.getSnapshotId(), indexId, indexCommitRef.getIndexCommit(), snapshotStatus));
+            }
+            assertThat(e.getMessage(), containsString("Failed to perform snapshot (index files)"));
+            assertThat(ExceptionsHelper.detailedMessage(e), containsString("simulated upload failure"));
+            final IndexShardSnapshotStatus.Copy status = snapshotStatus.asCopy();
+            assertEquals(IndexShardSnapshotStatus.Stage.FAILURE, status.getStage());
+            assertThat(status.getFailure(), containsString("simulated upload failure"));
+        } finally {
+            closeShards(shard);
+        }
+    }
+
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
-        RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings);
+        return createRepository(Settings.EMPTY, UnaryOperator.identity());
+    }
+
+    /**
+     * Create a {@link Repository} with a random name. The given settings override the random ones and the blob containers
+     * of the repository are wrapped with the given function.
+     */
+    private Repository createRepository(Settings extraSettings, UnaryOperator<BlobContainer> containerWrapper) {
+        final Settings.Builder settings = Settings.builder().put("location", randomAlphaOfLength(10));
+        if (randomBoolean()) {
+            // split files in many parts to exercise concurrent uploads of the parts of a file
+            settings.put("chunk_size", randomIntBetween(100, 1000), ByteSizeUnit.BYTES);
+        }
+        settings.put("max_concurrent_file_transfers", randomIntBetween(1, 8));
+        settings.put("content_defined_chunking", randomBoolean());
+        settings.put(extraSettings);
+        RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings.build());
         final FsRepository repository = new FsRepository(repositoryMetaData, createEnvironment(), xContentRegistry()) {
             @Override
             protected void assertSnapshotOrGenericThread() {
                 // eliminate thread name check as we create repo manually
             }
+
+            @Override
+            protected BlobStore createBlobStore() throws Exception {
+                return new BlobStoreWrapper(super.createBlobStore()) {
+                    @Override
+                    public BlobContainer blobContainer(BlobPath path) {
+                        return containerWrapper.apply(super.blobContainer(path));
+                    }
+                };
+            }
         };
         repository.start();
         return repository;
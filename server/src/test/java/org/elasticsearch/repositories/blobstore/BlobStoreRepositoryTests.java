@@ -20,8 +20,10 @@
 package org.elasticsearch.repositories.blobstore;
 
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStats;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -40,6 +42,7 @@ import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -47,10 +50,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.elasticsearch.repositories.RepositoryDataTests.generateRandomRepoData;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 /**
@@ -132,6 +142,76 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         assertThat(snapshotIds, equalTo(originalSnapshots));
     }
 
+    public void testDeletingSnapshotKeepsSharedChunks() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+
+        logger.info("-->  creating repository with content defined chunking");
+        AcknowledgedResponse putRepositoryResponse =
+            client.admin().cluster().preparePutRepository(repositoryName)
+                                    .setType(REPO_TYPE)
+                                    .setSettings(Settings.builder().put(node().settings()).put("location", location)
+                                                                   .put("content_defined_chunking", true))
+                                    .get();
+        assertThat(putRepositoryResponse.isAcknowledged(), equalTo(true));
+
+        final String indexName = "test-idx";
+        createIndex(indexName, Settings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build());
+        ensureGreen();
+        indexDocs(indexName, 0, randomIntBetween(10, 20));
+
+        logger.info("--> create first snapshot");
+        client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap-1").setWaitForCompletion(true)
+            .setIndices(indexName).get();
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository(repositoryName);
+        final Path shardPath = location.resolve("indices")
+            .resolve(repository.getRepositoryData().resolveIndexId(indexName).getId()).resolve("0");
+        final Set<String> firstSnapshotChunks = chunkBlobs(shardPath);
+        assertThat(firstSnapshotChunks, not(empty()));
+
+        logger.info("--> add a segment and create second snapshot");
+        indexDocs(indexName, 100, randomIntBetween(10, 20));
+        client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap-2").setWaitForCompletion(true)
+            .setIndices(indexName).get();
+        // the files of the first segment are not uploaded again, their chunks are shared by both snapshots
+        final SnapshotStats secondSnapshotStats = client.admin().cluster().prepareSnapshotStatus(repositoryName)
+            .setSnapshots("test-snap-2").get().getSnapshots().get(0).getStats();
+        assertThat(secondSnapshotStats.getIncrementalFileCount(), lessThan(secondSnapshotStats.getTotalFileCount()));
+        final Set<String> bothSnapshotsChunks = chunkBlobs(shardPath);
+        assertTrue(bothSnapshotsChunks.containsAll(firstSnapshotChunks));
+        assertThat(bothSnapshotsChunks.size(), greaterThan(firstSnapshotChunks.size()));
+
+        logger.info("--> delete second snapshot");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-2").get());
+        // the chunks only the second snapshot used are gone, the ones the first snapshot still uses are kept
+        assertThat(chunkBlobs(shardPath), equalTo(firstSnapshotChunks));
+
+        logger.info("--> delete first snapshot");
+        assertAcked(client.admin().cluster().prepareDeleteSnapshot(repositoryName, "test-snap-1").get());
+        assertThat(chunkBlobs(shardPath), empty());
+    }
+
+    private void indexDocs(String indexName, int firstId, int numDocs) {
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex(indexName, "type1", Integer.toString(firstId + i)).setSource("text", "sometext " + i).get();
+        }
+        client().admin().indices().prepareFlush(indexName).get();
+    }
+
+    private static Set<String> chunkBlobs(Path shardPath) throws IOException {
+        if (Files.exists(shardPath) == false) {
+            return Collections.emptySet();
+        }
+        try (Stream<Path> files = Files.list(shardPath)) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.startsWith("chunk-")).collect(Collectors.toSet());
+        }
+    }
+
     public void testReadAndWriteSnapshotsThroughIndexFile() throws Exception {
         final BlobStoreRepository repository = setupRepo();
 
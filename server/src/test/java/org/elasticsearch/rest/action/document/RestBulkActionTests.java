@@ -19,25 +19,39 @@
 
 package org.elasticsearch.rest.action.document;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.rest.FakeRestRequest;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.CustomMatcher;
 import org.mockito.Mockito;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for {@link RestBulkAction}.
@@ -46,6 +60,9 @@ public class RestBulkActionTests extends ESTestCase {
 
     public void testBulkPipelineUpsert() throws Exception {
         final NodeClient mockClient = mock(NodeClient.class);
+        final ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.getThreadContext()).thenReturn(new ThreadContext(Settings.EMPTY));
+        when(mockClient.threadPool()).thenReturn(threadPool);
         final Map<String, String> params = new HashMap<>();
         params.put("pipeline", "timestamps");
         new RestBulkAction(settings(Version.CURRENT).build(), mock(RestController.class))
@@ -73,4 +90,62 @@ public class RestBulkActionTests extends ESTestCase {
                 }
             }), any());
     }
+
+    @SuppressWarnings("unchecked")
+    public void testWindowedBulkExecutesWindowsInOrder() throws Exception {
+        final int numDocs = randomIntBetween(10, 50);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < numDocs; i++) {
+            body.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n");
+            body.append("{\"field\":\"value-").append(i).append("\"}\n");
+            if (rarely()) {
+                body.append("\n");
+            }
+        }
+        final BytesArray content = new BytesArray(body.toString());
+        final int windowSize = randomIntBetween(1, content.length() / 2);
+
+        final NodeClient client = mock(NodeClient.class);
+        final List<BulkRequest> executed = new ArrayList<>();
+        final AtomicBoolean onExecutor = new AtomicBoolean();
+        doAnswer(invocation -> {
+            // every window is parsed on the executor, including the first one
+            assertTrue(onExecutor.get());
+            BulkRequest bulkRequest = (BulkRequest) invocation.getArguments()[0];
+            ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[1];
+            executed.add(bulkRequest);
+            BulkItemResponse[] items = new BulkItemResponse[bulkRequest.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(i);
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                    new BulkItemResponse.Failure("index", "_doc", indexRequest.id(), new IllegalStateException()));
+            }
+            listener.onResponse(new BulkResponse(items, 1));
+            return null;
+        }).when(client).bulk(any(BulkRequest.class), any());
+
+        final RestBulkAction.WindowedBulk windowedBulk = new RestBulkAction.WindowedBulk(client, command -> {
+            final boolean forked = onExecutor.getAndSet(true);
+            try {
+                command.run();
+            } finally {
+                onExecutor.set(forked);
+            }
+        }, content.length(),
+            windowSize, BulkRequest::new,
+            (bulkRequest, position) -> bulkRequest.addRange(content, position, Math.min(content.length(), position.offset() + windowSize),
+                "index", "_doc", null, null, null, null, true, XContentType.JSON));
+        final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+        windowedBulk.execute(future);
+        final BulkResponse response = future.actionGet();
+
+        assertTrue(executed.size() > 1);
+        assertEquals(numDocs, executed.stream().mapToInt(BulkRequest::numberOfActions).sum());
+        assertEquals(executed.size(), response.getTook().millis());
+        assertEquals(numDocs, response.getItems().length);
+        for (int i = 0; i < numDocs; i++) {
+            assertEquals(i, response.getItems()[i].getItemId());
+            assertEquals(Integer.toString(i), response.getItems()[i].getId());
+        }
+    }
 }
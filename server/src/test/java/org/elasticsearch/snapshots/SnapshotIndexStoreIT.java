@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.snapshots;
+
+import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.store.SnapshotBlockCache;
+import org.elasticsearch.index.store.SnapshotDirectory;
+import org.elasticsearch.index.store.SnapshotIndexStore;
+import org.elasticsearch.indices.recovery.RecoveryState;
+
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class SnapshotIndexStoreIT extends AbstractSnapshotIntegTestCase {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder().put(super.nodeSettings(nodeOrdinal))
+            .put(SnapshotBlockCache.BLOCK_SIZE_SETTING.getKey(), randomIntBetween(4, 64), ByteSizeUnit.KB)
+            .build();
+    }
+
+    public void testMountSnapshot() throws Exception {
+        final Settings.Builder repositorySettings = Settings.builder().put("location", randomRepoPath());
+        if (randomBoolean()) {
+            repositorySettings.put("chunk_size", randomIntBetween(1000, 10000), ByteSizeUnit.BYTES);
+        }
+        assertAcked(client().admin().cluster().preparePutRepository("test-repo").setType("fs").setSettings(repositorySettings));
+
+        createIndex("test-idx");
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        final int numDocs = scaledRandomIntBetween(10, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            index("test-idx", "_doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+
+        logger.info("--> snapshot");
+        final CreateSnapshotResponse createSnapshotResponse = client().admin().cluster().prepareCreateSnapshot("test-repo", "test-snap")
+            .setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(), greaterThan(0));
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(),
+            equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+
+        logger.info("--> mount the snapshot as a new index");
+        final RestoreSnapshotResponse restoreSnapshotResponse = client().admin().cluster()
+            .prepareRestoreSnapshot("test-repo", "test-snap")
+            .setIndices("test-idx")
+            .setRenamePattern("test-idx")
+            .setRenameReplacement("mounted-idx")
+            .setIndexSettings(Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), SnapshotIndexStore.TYPE)
+                .put(SnapshotIndexStore.REPOSITORY_SETTING.getKey(), "test-repo")
+                .put(SnapshotIndexStore.SNAPSHOT_NAME_SETTING.getKey(), "test-snap")
+                .put(SnapshotIndexStore.INDEX_NAME_SETTING.getKey(), "test-idx")
+                .put("index.number_of_replicas", 0))
+            .setWaitForCompletion(true)
+            .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen("mounted-idx");
+
+        assertHitCount(client().prepareSearch("mounted-idx").setSize(0).get(), numDocs);
+        assertHitCount(client().prepareSearch("mounted-idx").setQuery(termQuery("foo", "bar0")).get(), 1L);
+
+        logger.info("--> check that no file was copied to the mounted index");
+        for (RecoveryState recoveryState : client().admin().indices().prepareRecoveries("mounted-idx").get()
+            .shardRecoveryStates().get("mounted-idx")) {
+            assertThat(recoveryState.getIndex().recoveredBytes(), equalTo(0L));
+            assertThat(recoveryState.getIndex().reusedFileCount(), equalTo(recoveryState.getIndex().totalFileCount()));
+        }
+
+        logger.info("--> check that the files of the mounted index were read from the repository through the cache");
+        final SnapshotDirectory.Stats snapshotStats = client().admin().indices().prepareStats("mounted-idx").clear().setStore(true).get()
+            .getTotal().getStore().getSnapshot();
+        assertNotNull(snapshotStats);
+        final long bytesReadFromRepository = snapshotStats.getBytesReadFromRepository();
+        assertThat(bytesReadFromRepository, greaterThan(0L));
+        long cachedBlocks = 0L;
+        for (SnapshotBlockCache cache : internalCluster().getDataNodeInstances(SnapshotBlockCache.class)) {
+            cachedBlocks += cache.count();
+        }
+        assertThat(cachedBlocks, greaterThan(0L));
+
+        logger.info("--> the mounted index is read-only");
+        expectThrows(ClusterBlockException.class, () -> index("mounted-idx", "_doc", "new", "foo", "bar"));
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> client().admin().indices()
+            .prepareUpdateSettings("mounted-idx").setSettings(Settings.builder().put(IndexMetaData.SETTING_BLOCKS_WRITE, false)).get());
+        assertThat(e.getMessage(), containsString("cannot remove the write block of index [mounted-idx]"));
+
+        logger.info("--> the mounted snapshot cannot be deleted");
+        final SnapshotException snapshotException = expectThrows(SnapshotException.class,
+            () -> client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+        assertThat(snapshotException.getMessage(), containsString("it is mounted as index [mounted-idx]"));
+
+        logger.info("--> the mounted index is independent from the original index");
+        assertAcked(client().admin().indices().prepareDelete("test-idx"));
+        assertHitCount(client().prepareSearch("mounted-idx").setSize(0).get(), numDocs);
+
+        logger.info("--> the snapshot can be deleted once the mounted index is deleted");
+        assertAcked(client().admin().indices().prepareDelete("mounted-idx"));
+        assertAcked(client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+    }
+}
@@ -20,8 +20,19 @@
 package org.elasticsearch.threadpool;
 
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.WeightedFairBlockingQueue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
 
 public class AutoQueueAdjustingExecutorBuilderTests extends ESThreadPoolTestCase {
 
@@ -38,4 +49,63 @@ public class AutoQueueAdjustingExecutorBuilderTests extends ESThreadPoolTestCase
         }
     }
 
+    public void testFairQueueSettings() {
+        Settings settings = Settings.builder()
+                .put("node.name", "test")
+                .put("thread_pool.test.fair_queue.key", "header")
+                .build();
+        AutoQueueAdjustingExecutorBuilder builder = new AutoQueueAdjustingExecutorBuilder(settings, "test", 1, 15, 1, 100, 10);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> builder.getSettings(settings));
+        assertThat(e.getMessage(), containsString("[thread_pool.test.fair_queue.header] must be set"));
+
+        Settings unknownKey = Settings.builder().put("thread_pool.test.fair_queue.key", "user").build();
+        e = expectThrows(IllegalArgumentException.class, () -> builder.getSettings(unknownKey));
+        assertThat(e.getMessage(), containsString("unknown fair queue key [user]"));
+
+        for (String weight : new String[] {"logs-*", "logs-*:", ":2", "logs-*:0", "logs-*:two"}) {
+            Settings invalidWeight = Settings.builder().putList("thread_pool.test.fair_queue.weights", weight).build();
+            expectThrows(IllegalArgumentException.class, () -> builder.getSettings(invalidWeight));
+        }
+    }
+
+    public void testFairQueueGroup() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        weights.put("logs-*", 3);
+        weights.put("metrics-*", 1);
+        assertThat(AutoQueueAdjustingExecutorBuilder.fairQueueGroup("logs-2018.10.19", weights), equalTo("logs-*"));
+        assertThat(AutoQueueAdjustingExecutorBuilder.fairQueueGroup("metrics-2018.10.19", weights), equalTo("metrics-*"));
+        assertThat(AutoQueueAdjustingExecutorBuilder.fairQueueGroup("tenant_a", weights), equalTo("tenant_a"));
+        assertThat(AutoQueueAdjustingExecutorBuilder.fairQueueGroup(null, weights), nullValue());
+    }
+
+    public void testFairQueueExecutor() throws Exception {
+        Settings settings = Settings.builder()
+                .put("node.name", "test")
+                .put("thread_pool.test.fair_queue.key", "header")
+                .put("thread_pool.test.fair_queue.header", "tenant")
+                .putList("thread_pool.test.fair_queue.weights", "gold-*:4", "silver:2")
+                .build();
+        AutoQueueAdjustingExecutorBuilder builder = new AutoQueueAdjustingExecutorBuilder(settings, "test", 1, 15, 1, 100, 10);
+        ThreadContext threadContext = new ThreadContext(settings);
+        ThreadPool.ExecutorHolder holder = builder.build(builder.getSettings(settings), threadContext);
+        assertThat(holder.info.getThreadPoolType(), equalTo(ThreadPool.ThreadPoolType.FIXED));
+        ExecutorService executor = holder.executor();
+        try {
+            assertThat(executor, instanceOf(EsThreadPoolExecutor.class));
+            BlockingQueue<Runnable> queue = ((EsThreadPoolExecutor) executor).getQueue();
+            assertThat(queue, instanceOf(WeightedFairBlockingQueue.class));
+            try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                threadContext.putHeader("tenant", "gold-1");
+                executor.execute(() -> {});
+            }
+            assertBusy(() -> {
+                Map<String, WeightedFairBlockingQueue.KeyStats> stats = ((WeightedFairBlockingQueue<Runnable>) queue).stats();
+                assertThat(stats.get("gold-*").getWeight(), equalTo(4));
+                assertThat(stats.get("gold-*").getDequeued(), equalTo(1L));
+            });
+        } finally {
+            terminate(executor);
+        }
+    }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.threadpool;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class HashedWheelTimerTests extends ESTestCase {
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void createTimer() {
+        // a small wheel so that the tests also cover timeouts that need several rounds of the wheel
+        timer = new HashedWheelTimer(EsExecutors.daemonThreadFactory("test_timer"), TimeValue.timeValueMillis(1), randomIntBetween(1, 8));
+    }
+
+    @After
+    public void stopTimer() throws InterruptedException {
+        timer.stop();
+        assertTrue(timer.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    public void testTimeoutFiresAfterDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long delayMillis = randomIntBetween(0, 50);
+        final long start = System.nanoTime();
+        final Scheduler.Cancellable cancellable = timer.schedule(TimeValue.timeValueMillis(delayMillis), latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(delayMillis));
+        assertFalse(cancellable.isCancelled());
+        // cancelling an expired timeout is a noop
+        cancellable.cancel();
+        assertFalse(cancellable.isCancelled());
+    }
+
+    public void testCancelledTimeoutsDoNotFire() throws InterruptedException {
+        final int numTimeouts = randomIntBetween(10, 1000);
+        final AtomicInteger fired = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(numTimeouts / 2);
+        final List<Scheduler.Cancellable> toCancel = new ArrayList<>();
+        for (int i = 0; i < numTimeouts; i++) {
+            if (i % 2 == 0) {
+                toCancel.add(timer.schedule(TimeValue.timeValueMillis(randomIntBetween(0, 20)), fired::incrementAndGet));
+            } else {
+                timer.schedule(TimeValue.timeValueMillis(randomIntBetween(20, 40)), latch::countDown);
+            }
+        }
+        for (Scheduler.Cancellable cancellable : toCancel) {
+            cancellable.cancel();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (Scheduler.Cancellable cancellable : toCancel) {
+            if (cancellable.isCancelled() == false) {
+                // the timeout fired before we got to cancel it
+                fired.decrementAndGet();
+            }
+        }
+        assertEquals(0, fired.get());
+    }
+
+    public void testConcurrentScheduleAndCancel() throws Exception {
+        final int numThreads = randomIntBetween(2, 8);
+        final int numTimeoutsPerThread = randomIntBetween(100, 1000);
+        final AtomicInteger fired = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < numTimeoutsPerThread; i++) {
+                    final Scheduler.Cancellable cancellable = timer.schedule(TimeValue.timeValueMillis(i % 10), fired::incrementAndGet);
+                    if (i % 3 == 0) {
+                        cancellable.cancel();
+                        if (cancellable.isCancelled()) {
+                            cancelled.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // every timeout either fires or is cancelled, but never both
+        assertBusy(() -> assertEquals(numThreads * numTimeoutsPerThread, fired.get() + cancelled.get()));
+    }
+
+    public void testAwaitTerminationDoesNotBlockOnShortTimeouts() throws InterruptedException {
+        // the timer is still running, so none of these may wait forever
+        assertFalse(timer.awaitTermination(0, TimeUnit.MILLISECONDS));
+        assertFalse(timer.awaitTermination(-1, TimeUnit.SECONDS));
+        assertFalse(timer.awaitTermination(randomIntBetween(1, 999), TimeUnit.MICROSECONDS));
+        assertFalse(timer.awaitTermination(randomIntBetween(1, 999), TimeUnit.NANOSECONDS));
+    }
+
+    public void testScheduleAfterStopIsRejected() throws InterruptedException {
+        timer.stop();
+        assertTrue(timer.awaitTermination(10, TimeUnit.SECONDS));
+        final EsRejectedExecutionException e = expectThrows(EsRejectedExecutionException.class,
+            () -> timer.schedule(TimeValue.timeValueMillis(randomIntBetween(0, 10)), () -> fail("should not run")));
+        assertTrue(e.isExecutorShutdown());
+    }
+}
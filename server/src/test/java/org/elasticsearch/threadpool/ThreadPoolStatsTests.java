@@ -19,7 +19,10 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -30,9 +33,13 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 
 public class ThreadPoolStatsTests extends ESTestCase {
@@ -62,6 +69,43 @@ public class ThreadPoolStatsTests extends ESTestCase {
         assertThat(threads, contains(-1, -1, 1, 2, 3,-1,-1));
     }
 
+    public void testQueueKeysSerialization() throws IOException {
+        Map<String, ThreadPoolStats.QueueKeyStats> queueKeys = new HashMap<>();
+        queueKeys.put("logs-*", new ThreadPoolStats.QueueKeyStats(3, 12, 4, 1000, TimeUnit.SECONDS.toNanos(2)));
+        queueKeys.put("_default", new ThreadPoolStats.QueueKeyStats(1, 0, 0, 10, 0));
+        ThreadPoolStats.Stats stats = new ThreadPoolStats.Stats(ThreadPool.Names.SEARCH, 4, 12, 4, 4, 4, 1010L, queueKeys);
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            ThreadPoolStats.Stats read = new ThreadPoolStats.Stats(out.bytes().streamInput());
+            assertThat(read.getQueueKeys().keySet(), contains("_default", "logs-*"));
+            ThreadPoolStats.QueueKeyStats logs = read.getQueueKeys().get("logs-*");
+            assertThat(logs.getWeight(), equalTo(3));
+            assertThat(logs.getQueue(), equalTo(12));
+            assertThat(logs.getRejected(), equalTo(4L));
+            assertThat(logs.getDequeued(), equalTo(1000L));
+            assertThat(logs.getWaitTime().millis(), equalTo(2000L));
+        }
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.V_6_5_0);
+            stats.writeTo(out);
+            StreamInput in = out.bytes().streamInput();
+            in.setVersion(Version.V_6_5_0);
+            ThreadPoolStats.Stats read = new ThreadPoolStats.Stats(in);
+            assertThat(read.getCompleted(), equalTo(1010L));
+            assertThat(read.getQueueKeys().isEmpty(), equalTo(true));
+        }
+
+        try (XContentBuilder builder = JsonXContent.contentBuilder()) {
+            builder.startObject();
+            stats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            builder.endObject();
+            assertThat(Strings.toString(builder), containsString(
+                "\"queue_keys\":{\"_default\":{\"weight\":1,\"queue\":0,\"rejected\":0,\"dequeued\":10,\"wait_time_in_millis\":0}"));
+        }
+    }
+
     public void testThreadPoolStatsToXContent() throws IOException {
         try (BytesStreamOutput os = new BytesStreamOutput()) {
 
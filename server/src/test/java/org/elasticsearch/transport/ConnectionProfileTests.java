@@ -23,9 +23,12 @@ import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ConnectionProfileTests extends ESTestCase {
 
@@ -126,4 +129,38 @@ public class ConnectionProfileTests extends ESTestCase {
         assertEquals(Integer.valueOf(0), build.getHandles().get(0).getChannel(array));
         expectThrows(IllegalStateException.class, () -> build.getHandles().get(1).getChannel(array));
     }
+
+    public void testChannelIndexPrefersChannelsWithFewestPendingBytes() {
+        ConnectionProfile.Builder builder = new ConnectionProfile.Builder();
+        builder.addConnections(1, TransportRequestOptions.Type.BULK,
+            TransportRequestOptions.Type.STATE,
+            TransportRequestOptions.Type.RECOVERY,
+            TransportRequestOptions.Type.PING);
+        builder.addConnections(3, TransportRequestOptions.Type.REG);
+        ConnectionProfile build = builder.build();
+        ConnectionProfile.ConnectionTypeHandle handle = build.getHandles().get(1);
+        assertEquals(EnumSet.of(TransportRequestOptions.Type.REG), handle.getTypes());
+
+        long[] pendingBytes = new long[4];
+        // all channels idle: round-robin
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            selected.add(handle.getChannelIndex(index -> pendingBytes[index]));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), selected);
+
+        // idle channels are preferred over busy ones
+        pendingBytes[1] = 512 * 1024;
+        pendingBytes[3] = 10;
+        final int numIters = randomIntBetween(5, 10);
+        for (int i = 0; i < numIters; i++) {
+            assertEquals(2, handle.getChannelIndex(index -> pendingBytes[index]));
+        }
+
+        // otherwise the channel with the fewest pending bytes
+        pendingBytes[2] = 20;
+        for (int i = 0; i < numIters; i++) {
+            assertEquals(3, handle.getChannelIndex(index -> pendingBytes[index]));
+        }
+    }
 }
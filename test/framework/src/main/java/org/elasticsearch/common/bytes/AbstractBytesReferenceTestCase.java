@@ -58,6 +58,31 @@ public abstract class AbstractBytesReferenceTestCase extends ESTestCase {
         }
     }
 
+    public void testIndexOf() throws IOException {
+        final int length = randomIntBetween(1, PAGE_SIZE * 3);
+        final BytesReference pbr = newBytesReference(length);
+        final byte marker = randomByte();
+        final int from = randomIntBetween(0, length);
+        int expected = -1;
+        for (int i = from; i < length; i++) {
+            if (pbr.get(i) == marker) {
+                expected = i;
+                break;
+            }
+        }
+        assertEquals(expected, pbr.indexOf(marker, from));
+
+        final int sliceOffset = randomIntBetween(0, length - 1);
+        final BytesReference slice = pbr.slice(sliceOffset, length - sliceOffset);
+        final byte sliceMarker = slice.get(slice.length() - 1);
+        final int index = slice.indexOf(sliceMarker, 0);
+        assertNotEquals(-1, index);
+        assertEquals(sliceMarker, slice.get(index));
+        for (int i = 0; i < index; i++) {
+            assertNotEquals(sliceMarker, slice.get(i));
+        }
+    }
+
     public void testLength() throws IOException {
         int[] sizes = {0, randomInt(PAGE_SIZE), PAGE_SIZE, randomInt(PAGE_SIZE * 3)};
 
@@ -484,6 +484,7 @@ public class FollowIndexAction extends Action<AcknowledgedResponse> {
         whiteListedSettings.add(IndexSettings.ALLOW_UNMAPPED);
         whiteListedSettings.add(IndexSettings.INDEX_SEARCH_IDLE_AFTER);
         whiteListedSettings.add(BitsetFilterCache.INDEX_LOAD_RANDOM_ACCESS_FILTERS_EAGERLY_SETTING);
+        whiteListedSettings.add(BitsetFilterCache.INDEX_BITSET_FILTER_CACHE_ROARING_SETTING);
 
         whiteListedSettings.add(SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_FETCH_DEBUG_SETTING);
         whiteListedSettings.add(SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_FETCH_WARN_SETTING);
@@ -32,6 +32,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.lucene.search.RoaringBitSet;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -215,14 +216,13 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
                     continue;
                 }
 
-                // if the role query result set is sparse then we should use the SparseFixedBitSet for advancing:
-                if (roleQueryBits instanceof SparseFixedBitSet) {
+                // if the role query result set is sparse then we should use the sparse bit set for advancing:
+                if (roleQueryBits instanceof SparseFixedBitSet || roleQueryBits instanceof RoaringBitSet) {
                     Scorer scorer = weight.scorer(ctx);
                     if (scorer != null) {
-                        SparseFixedBitSet sparseFixedBitSet = (SparseFixedBitSet) roleQueryBits;
                         Bits realLiveDocs = reader.getWrappedLiveDocs();
                         try {
-                            intersectScorerAndRoleBits(scorer, sparseFixedBitSet, leafCollector, realLiveDocs);
+                            intersectScorerAndRoleBits(scorer, roleQueryBits, leafCollector, realLiveDocs);
                         } catch (CollectionTerminatedException e) {
                             // collection was terminated prematurely
                             // continue with the following leaf
@@ -244,7 +244,7 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
         }
     }
 
-    static void intersectScorerAndRoleBits(Scorer scorer, SparseFixedBitSet roleBits, LeafCollector collector, Bits acceptDocs) throws
+    static void intersectScorerAndRoleBits(Scorer scorer, BitSet roleBits, LeafCollector collector, Bits acceptDocs) throws
             IOException {
         // ConjunctionDISI uses the DocIdSetIterator#cost() to order the iterators, so if roleBits has the lowest cardinality it should
         // be used first:
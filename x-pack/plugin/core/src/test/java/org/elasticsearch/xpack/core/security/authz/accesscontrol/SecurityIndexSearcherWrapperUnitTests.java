@@ -39,6 +39,7 @@ import org.apache.lucene.util.SparseFixedBitSet;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.search.RoaringBitSet;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -604,7 +605,7 @@ public class SecurityIndexSearcherWrapperUnitTests extends ESTestCase {
         Query roleQuery = new TermQuery(new Term("allowed", "yes"));
         BitSet bitSet = cache.getBitSetProducer(roleQuery).getBitSet(reader.leaves().get(0));
         if (sparse) {
-            assertThat(bitSet, instanceOf(SparseFixedBitSet.class));
+            assertThat(bitSet, instanceOf(RoaringBitSet.class));
         } else {
             assertThat(bitSet, instanceOf(FixedBitSet.class));
         }